@@ -0,0 +1,158 @@
+/**
+ * Copyright 2013-2018 Amazon.com,
+ * Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Amazon Software License (the "License").
+ * You may not use this file except in compliance with the
+ * License. A copy of the License is located at
+ *
+ *     http://aws.amazon.com/asl/
+ *
+ * or in the "license" file accompanying this file. This file is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, express or implied. See the License
+ * for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.cognito;
+
+import com.amazonaws.logging.Log;
+import com.amazonaws.logging.LogFactory;
+import com.amazonaws.mobileconnectors.cognito.CognitoSyncManager.SyncAllCallback;
+import com.amazonaws.mobileconnectors.cognito.Dataset.SyncCallback;
+import com.amazonaws.mobileconnectors.cognito.exceptions.DataStorageException;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Synchronizes a list of datasets for
+ * {@link CognitoSyncManager#synchronizeAll(SyncAllCallback)}, a bounded
+ * number at a time, and reports the outcome of all of them once through
+ * {@link SyncAllCallback#onComplete(Map, Map)}. Every dataset ends up either
+ * in the updated records or in the failures, even if its sync throws.
+ */
+final class BulkSynchronizer {
+
+    private static final Log LOGGER = LogFactory.getLog(BulkSynchronizer.class);
+
+    /**
+     * Synchronizes one dataset on the calling thread.
+     */
+    interface DatasetSynchronizer {
+        /**
+         * @param datasetName the name of the dataset
+         * @param callback callback for the sync of this dataset
+         */
+        void synchronize(String datasetName, SyncCallback callback);
+    }
+
+    private final Executor executor;
+    private final DatasetSynchronizer synchronizer;
+    private final SyncAllCallback callback;
+
+    private final Queue<String> pending = new ConcurrentLinkedQueue<String>();
+    private final AtomicInteger remaining = new AtomicInteger();
+    private final Map<String, List<Record>> updatedRecords =
+            new ConcurrentHashMap<String, List<Record>>();
+    private final Map<String, DataStorageException> failures =
+            new ConcurrentHashMap<String, DataStorageException>();
+
+    /**
+     * @param executor runs the syncs besides the calling thread
+     * @param synchronizer synchronizes each dataset
+     * @param callback callback for the whole synchronization
+     */
+    BulkSynchronizer(Executor executor, DatasetSynchronizer synchronizer,
+            SyncAllCallback callback) {
+        this.executor = executor;
+        this.synchronizer = synchronizer;
+        this.callback = callback;
+    }
+
+    /**
+     * Synchronizes the datasets with at most maxConcurrentSyncs tasks, the
+     * calling thread being one of them. The last dataset sync to finish
+     * reports the outcome, so no thread waits for the others.
+     *
+     * @param datasetNames names of the datasets to synchronize
+     * @param maxConcurrentSyncs maximum number of concurrent dataset syncs
+     */
+    void run(List<String> datasetNames, int maxConcurrentSyncs) {
+        if (datasetNames.isEmpty()) {
+            callback.onComplete(new HashMap<String, List<Record>>(),
+                    new HashMap<String, DataStorageException>());
+            return;
+        }
+
+        pending.addAll(datasetNames);
+        remaining.set(datasetNames.size());
+        final Runnable worker = new Runnable() {
+            @Override
+            public void run() {
+                String datasetName;
+                while ((datasetName = pending.poll()) != null) {
+                    synchronizeDataset(datasetName);
+                    if (remaining.decrementAndGet() == 0) {
+                        callback.onComplete(new HashMap<String, List<Record>>(updatedRecords),
+                                new HashMap<String, DataStorageException>(failures));
+                    }
+                }
+            }
+        };
+        final int workers = Math.min(maxConcurrentSyncs, datasetNames.size());
+        for (int i = 1; i < workers; i++) {
+            executor.execute(worker);
+        }
+        worker.run();
+    }
+
+    private void synchronizeDataset(final String datasetName) {
+        try {
+            synchronizer.synchronize(datasetName, new SyncCallback() {
+                @Override
+                public void onSuccess(Dataset dataset, List<Record> records) {
+                    updatedRecords.put(datasetName, records);
+                }
+
+                @Override
+                public boolean onConflict(Dataset dataset, List<SyncConflict> conflicts) {
+                    return callback.onConflict(dataset, conflicts);
+                }
+
+                @Override
+                public boolean onDatasetDeleted(Dataset dataset, String name) {
+                    return callback.onDatasetDeleted(dataset, name);
+                }
+
+                @Override
+                public boolean onDatasetsMerged(Dataset dataset, List<String> datasetNames) {
+                    return callback.onDatasetsMerged(dataset, datasetNames);
+                }
+
+                @Override
+                public void onFailure(DataStorageException dse) {
+                    failures.put(datasetName, dse);
+                }
+            });
+        } catch (final RuntimeException e) {
+            LOGGER.error("Failed to synchronize dataset " + datasetName, e);
+            updatedRecords.remove(datasetName);
+            failures.put(datasetName, e instanceof DataStorageException
+                    ? (DataStorageException) e
+                    : new DataStorageException("Failed to synchronize dataset", e));
+            return;
+        }
+        // a sync declined in onDatasetsMerged reports neither success nor failure
+        if (!updatedRecords.containsKey(datasetName) && !failures.containsKey(datasetName)) {
+            failures.put(datasetName, new DataStorageException("Manual cancel"));
+        }
+    }
+}
@@ -26,6 +26,9 @@ import com.amazonaws.ClientConfiguration;
 import com.amazonaws.auth.CognitoCachingCredentialsProvider;
 import com.amazonaws.auth.IdentityChangedListener;
 import com.amazonaws.mobile.config.AWSConfiguration;
+import com.amazonaws.mobileconnectors.cognito.Dataset.SyncCallback;
+import com.amazonaws.mobileconnectors.cognito.exceptions.DataStorageException;
+import com.amazonaws.mobileconnectors.cognito.exceptions.NetworkException;
 import com.amazonaws.mobileconnectors.cognito.exceptions.RegistrationFailedException;
 import com.amazonaws.mobileconnectors.cognito.exceptions.UnsubscribeFailedException;
 import com.amazonaws.mobileconnectors.cognito.internal.storage.CognitoSyncStorage;
@@ -40,7 +43,13 @@ import com.amazonaws.services.cognitosync.model.ResourceNotFoundException;
 import com.amazonaws.util.VersionInfoUtils;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import com.amazonaws.logging.Log;
 import com.amazonaws.logging.LogFactory;
@@ -78,6 +87,23 @@ public class CognitoSyncManager {
      */
     private static final String DATABASE_NAME = "cognito_dataset_cache.db";
 
+    /**
+     * Default number of datasets synchronized concurrently by
+     * {@link #synchronizeAll(SyncAllCallback)}.
+     */
+    private static final int DEFAULT_MAX_CONCURRENT_SYNCS = 4;
+
+    /**
+     * Number of threads of the pool shared by all bulk synchronizations.
+     */
+    private static final int MAX_SYNC_THREADS = 8;
+
+    /**
+     * Runs the metadata refresh and the dataset syncs of
+     * {@link #synchronizeAll(SyncAllCallback)}. Idle threads time out.
+     */
+    private static final ThreadPoolExecutor SYNC_EXECUTOR = newSyncExecutor();
+
     /**
      * The local storage is singleton to avoid SQLite resource leak and thread
      * contention.
@@ -245,6 +271,127 @@ public class CognitoSyncManager {
         local.updateDatasetMetadata(getIdentityId(), datasets);
     }
 
+    /**
+     * Synchronizes all datasets that have changed either locally or remotely.
+     * Dataset metadata is refreshed with a single call to the remote storage,
+     * and the datasets that need a sync are then synchronized concurrently,
+     * {@value #DEFAULT_MAX_CONCURRENT_SYNCS} at a time, on a pool of threads
+     * shared by all the bulk synchronizations. The credentials acquired by the
+     * metadata refresh are cached by the provider and shared by all the
+     * dataset syncs. This method returns immediately; the work happens in the
+     * background and the outcome is reported once, through
+     * {@link SyncAllCallback#onComplete(Map, Map)} or
+     * {@link SyncAllCallback#onFailure(DataStorageException)}.
+     *
+     * @param callback callback for the whole synchronization
+     */
+    public void synchronizeAll(final SyncAllCallback callback) {
+        synchronizeAll(DEFAULT_MAX_CONCURRENT_SYNCS, callback);
+    }
+
+    /**
+     * Synchronizes all datasets that have changed either locally or remotely,
+     * with at most maxConcurrentSyncs datasets synchronized at the same time.
+     * The shared pool runs at most {@value #MAX_SYNC_THREADS} syncs at a time
+     * overall. See {@link #synchronizeAll(SyncAllCallback)}.
+     *
+     * @param maxConcurrentSyncs maximum number of concurrent dataset syncs,
+     *            must be positive
+     * @param callback callback for the whole synchronization
+     */
+    public void synchronizeAll(final int maxConcurrentSyncs, final SyncAllCallback callback) {
+        if (callback == null) {
+            throw new IllegalArgumentException("callback can't be null");
+        }
+        if (maxConcurrentSyncs < 1) {
+            throw new IllegalArgumentException("maxConcurrentSyncs must be positive");
+        }
+
+        if (!DefaultDataset.isNetworkAvailable(context)) {
+            callback.onFailure(new NetworkException("Network connectivity unavailable."));
+            return;
+        }
+
+        SYNC_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                synchronizeAllInternal(maxConcurrentSyncs, callback);
+            }
+        });
+    }
+
+    /**
+     * Refreshes dataset metadata on the calling thread, then synchronizes the
+     * datasets that need it with at most maxConcurrentSyncs tasks of the
+     * shared pool.
+     */
+    void synchronizeAllInternal(int maxConcurrentSyncs, final SyncAllCallback callback) {
+        final List<String> datasetNames;
+        try {
+            datasetNames = getChangedDatasets();
+        } catch (DataStorageException dse) {
+            LOGGER.error("Failed to refresh dataset metadata", dse);
+            callback.onFailure(dse);
+            return;
+        } catch (RuntimeException e) {
+            LOGGER.error("Failed to refresh dataset metadata", e);
+            callback.onFailure(new DataStorageException("Failed to refresh dataset metadata", e));
+            return;
+        }
+        LOGGER.debug(String.format("%d datasets need to be synchronized", datasetNames.size()));
+
+        new BulkSynchronizer(SYNC_EXECUTOR, new BulkSynchronizer.DatasetSynchronizer() {
+            @Override
+            public void synchronize(String datasetName, SyncCallback datasetCallback) {
+                new DefaultDataset(context, datasetName, provider, local, remote)
+                        .synchronizeInCurrentThread(datasetCallback);
+            }
+        }, callback).run(datasetNames, maxConcurrentSyncs);
+    }
+
+    /**
+     * Refreshes dataset metadata and returns the names of the datasets that
+     * need to be synchronized: datasets that are new or were modified on the
+     * remote since the last refresh, datasets that were deleted remotely, and
+     * datasets that have local changes, were never synchronized, or were
+     * deleted locally.
+     *
+     * @return names of the datasets to synchronize
+     */
+    List<String> getChangedDatasets() {
+        String identityId = getIdentityId();
+        Map<String, DatasetMetadata> before = new HashMap<String, DatasetMetadata>();
+        for (DatasetMetadata metadata : local.getDatasets(identityId)) {
+            before.put(metadata.getDatasetName(), metadata);
+        }
+
+        List<DatasetMetadata> remoteDatasets = remote.getDatasets();
+        local.updateDatasetMetadata(identityId, remoteDatasets);
+
+        List<String> changed = new ArrayList<String>();
+        for (DatasetMetadata metadata : remoteDatasets) {
+            DatasetMetadata localMetadata = before.remove(metadata.getDatasetName());
+            if (localMetadata == null
+                    || localMetadata.getLastModifiedDate() == null
+                    || metadata.getLastModifiedDate() == null
+                    || metadata.getLastModifiedDate().after(localMetadata.getLastModifiedDate())
+                    || hasLocalChanges(identityId, metadata.getDatasetName())) {
+                changed.add(metadata.getDatasetName());
+            }
+        }
+        // Datasets missing from the remote are either local only, and so have
+        // local changes, or were deleted remotely since the last sync, which
+        // the sync reports through onDatasetDeleted.
+        changed.addAll(before.keySet());
+        return changed;
+    }
+
+    private boolean hasLocalChanges(String identityId, String datasetName) {
+        long lastSyncCount = local.getLastSyncCount(identityId, datasetName);
+        return lastSyncCount <= 0
+                || !local.getModifiedRecords(identityId, datasetName).isEmpty();
+    }
+
     /**
      * Wipes all user data cached locally, including identity id, session
      * credentials, dataset metadata, and all records. Any data that hasn't been
@@ -420,6 +567,77 @@ public class CognitoSyncManager {
         return new PushSyncUpdate(intent);
     }
 
+    /**
+     * Callback used in {@link CognitoSyncManager#synchronizeAll}. The conflict,
+     * deletion and merge callbacks have the same meaning as in
+     * {@link SyncCallback}, but they may be invoked concurrently from
+     * different threads for different datasets, so implementations must be
+     * thread safe.
+     */
+    public interface SyncAllCallback {
+        /**
+         * See {@link SyncCallback#onConflict(Dataset, List)}.
+         *
+         * @param dataset the dataset that performed sync
+         * @param conflicts conflicting records
+         * @return true if conflicts are resolved
+         */
+        boolean onConflict(Dataset dataset, List<SyncConflict> conflicts);
+
+        /**
+         * See {@link SyncCallback#onDatasetDeleted(Dataset, String)}.
+         *
+         * @param dataset dataset handler
+         * @param datasetName the name of the dataset that is deleted remotely
+         * @return true to continue the synchronization of this dataset
+         */
+        boolean onDatasetDeleted(Dataset dataset, String datasetName);
+
+        /**
+         * See {@link SyncCallback#onDatasetsMerged(Dataset, List)}.
+         *
+         * @param dataset dataset handler
+         * @param datasetNames a list of names of merged datasets
+         * @return true to continue the synchronization of this dataset
+         */
+        boolean onDatasetsMerged(Dataset dataset, List<String> datasetNames);
+
+        /**
+         * This is called once after all datasets have finished synchronizing.
+         *
+         * @param updatedRecords new records from remote storage, keyed by the
+         *            name of each successfully synchronized dataset
+         * @param failures the failure of each dataset that couldn't be
+         *            synchronized, keyed by dataset name
+         */
+        void onComplete(Map<String, List<Record>> updatedRecords,
+                Map<String, DataStorageException> failures);
+
+        /**
+         * This is called instead of {@link #onComplete(Map, Map)} when the
+         * synchronization couldn't start, e.g. without connectivity or when
+         * the metadata refresh failed.
+         *
+         * @param dse exception
+         */
+        void onFailure(DataStorageException dse);
+    }
+
+    private static ThreadPoolExecutor newSyncExecutor() {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_SYNC_THREADS,
+                MAX_SYNC_THREADS, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        final Thread thread = new Thread(r, "CognitoSyncAll");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     private SharedPreferences getSharedPreferences() {
         return context.getSharedPreferences("com.amazonaws.mobileconnectors.cognito",
                 Context.MODE_PRIVATE);
@@ -139,30 +139,44 @@ class DefaultDataset implements Dataset {
         new Thread(new Runnable() {
             @Override
             public void run() {
-                LOGGER.debug("start to synchronize " + datasetName);
+                synchronizeInCurrentThread(callback);
+            }
+        }).start();
+    }
 
-                boolean result = false;
-                try {
-                    List<String> mergedDatasets = getLocalMergedDatasets();
-                    boolean doSync = true;
-                    if (!mergedDatasets.isEmpty()) {
-                        LOGGER.info("detected merge datasets " + datasetName);
-                        doSync = callback.onDatasetsMerged(DefaultDataset.this, mergedDatasets);
-                    }
-                    if (doSync) {
-                        result = synchronizeInternal(callback, MAX_RETRY);
-                    }
-                } catch (Exception e) {
-                    callback.onFailure(new DataStorageException("Unknown exception", e));
-                }
+    /**
+     * Synchronizes the dataset on the calling thread. This is the body of
+     * {@link #synchronize(SyncCallback)}, and is also used by
+     * {@link CognitoSyncManager#synchronizeAll} to run syncs on a shared
+     * executor instead of a dedicated thread per dataset.
+     *
+     * @param callback callback during synchronization
+     * @return true if synchronize successfully, false otherwise
+     */
+    boolean synchronizeInCurrentThread(final SyncCallback callback) {
+        LOGGER.debug("start to synchronize " + datasetName);
 
-                if (result) {
-                    LOGGER.debug("successfully synchronize " + datasetName);
-                } else {
-                    LOGGER.debug("failed to synchronize " + datasetName);
-                }
+        boolean result = false;
+        try {
+            List<String> mergedDatasets = getLocalMergedDatasets();
+            boolean doSync = true;
+            if (!mergedDatasets.isEmpty()) {
+                LOGGER.info("detected merge datasets " + datasetName);
+                doSync = callback.onDatasetsMerged(DefaultDataset.this, mergedDatasets);
             }
-        }).start();
+            if (doSync) {
+                result = synchronizeInternal(callback, MAX_RETRY);
+            }
+        } catch (Exception e) {
+            callback.onFailure(new DataStorageException("Unknown exception", e));
+        }
+
+        if (result) {
+            LOGGER.debug("successfully synchronize " + datasetName);
+        } else {
+            LOGGER.debug("failed to synchronize " + datasetName);
+        }
+        return result;
     }
 
     /**
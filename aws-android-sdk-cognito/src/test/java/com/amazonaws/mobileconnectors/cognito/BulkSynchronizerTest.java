@@ -0,0 +1,125 @@
+/**
+ * Copyright 2013-2018 Amazon.com,
+ * Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Amazon Software License (the "License").
+ * You may not use this file except in compliance with the
+ * License. A copy of the License is located at
+ *
+ *     http://aws.amazon.com/asl/
+ *
+ * or in the "license" file accompanying this file. This file is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, express or implied. See the License
+ * for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.cognito;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.amazonaws.mobileconnectors.cognito.CognitoSyncManager.SyncAllCallback;
+import com.amazonaws.mobileconnectors.cognito.Dataset.SyncCallback;
+import com.amazonaws.mobileconnectors.cognito.exceptions.DataStorageException;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BulkSynchronizerTest {
+
+    /**
+     * Throws from onConflict, and records the outcome reported once done.
+     */
+    private static class RecordingCallback implements SyncAllCallback {
+        final AtomicInteger completions = new AtomicInteger();
+        final CountDownLatch completed = new CountDownLatch(1);
+        volatile Map<String, List<Record>> updatedRecords;
+        volatile Map<String, DataStorageException> failures;
+
+        @Override
+        public boolean onConflict(Dataset dataset, List<SyncConflict> conflicts) {
+            throw new IllegalStateException("BOOM");
+        }
+
+        @Override
+        public boolean onDatasetDeleted(Dataset dataset, String datasetName) {
+            return true;
+        }
+
+        @Override
+        public boolean onDatasetsMerged(Dataset dataset, List<String> datasetNames) {
+            return true;
+        }
+
+        @Override
+        public void onComplete(Map<String, List<Record>> updatedRecords,
+                Map<String, DataStorageException> failures) {
+            this.updatedRecords = updatedRecords;
+            this.failures = failures;
+            completions.incrementAndGet();
+            completed.countDown();
+        }
+
+        @Override
+        public void onFailure(DataStorageException dse) {
+            throw new AssertionError("unexpected failure " + dse);
+        }
+    }
+
+    /**
+     * Reports a conflict for the datasets whose name starts with "conflict",
+     * and succeeds for the others.
+     */
+    private static final BulkSynchronizer.DatasetSynchronizer SYNCHRONIZER =
+            new BulkSynchronizer.DatasetSynchronizer() {
+                @Override
+                public void synchronize(String datasetName, SyncCallback callback) {
+                    if (datasetName.startsWith("conflict")) {
+                        callback.onConflict(null, Collections.<SyncConflict> emptyList());
+                    }
+                    callback.onSuccess(null, Collections.<Record> emptyList());
+                }
+            };
+
+    @Test
+    public void testThrowingOnConflictIsReportedAsFailure() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        final RecordingCallback callback = new RecordingCallback();
+
+        new BulkSynchronizer(executor, SYNCHRONIZER, callback).run(
+                Arrays.asList("a", "conflict1", "b", "conflict2", "c"), 3);
+
+        assertTrue(callback.completed.await(5, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(1, callback.completions.get());
+        assertEquals(3, callback.updatedRecords.size());
+        assertTrue(callback.updatedRecords.keySet().containsAll(Arrays.asList("a", "b", "c")));
+        assertEquals(2, callback.failures.size());
+        assertTrue(callback.failures.get("conflict1").getCause() instanceof IllegalStateException);
+        assertTrue(callback.failures.get("conflict2").getCause() instanceof IllegalStateException);
+    }
+
+    @Test
+    public void testNoDatasets() {
+        final RecordingCallback callback = new RecordingCallback();
+
+        new BulkSynchronizer(null, SYNCHRONIZER, callback)
+                .run(Collections.<String> emptyList(), 4);
+
+        assertEquals(1, callback.completions.get());
+        assertTrue(callback.updatedRecords.isEmpty());
+        assertTrue(callback.failures.isEmpty());
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2019-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.cognitoidentityprovider.auth;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import com.amazonaws.internal.keyvaluestore.AWSKeyValueStore;
+import com.amazonaws.mobileconnectors.cognitoidentityprovider.CognitoDevice;
+import com.amazonaws.mobileconnectors.cognitoidentityprovider.CognitoIdentityProviderUnitTestBase;
+import com.amazonaws.mobileconnectors.cognitoidentityprovider.CognitoUser;
+import com.amazonaws.mobileconnectors.cognitoidentityprovider.CognitoUserPool;
+import com.amazonaws.mobileconnectors.cognitoidentityprovider.CognitoUserSession;
+import com.amazonaws.mobileconnectors.cognitoidentityprovider.continuations.AuthenticationContinuation;
+import com.amazonaws.mobileconnectors.cognitoidentityprovider.continuations.ChallengeContinuation;
+import com.amazonaws.mobileconnectors.cognitoidentityprovider.continuations.MultiFactorAuthenticationContinuation;
+import com.amazonaws.mobileconnectors.cognitoidentityprovider.handlers.AuthenticationHandler;
+import com.amazonaws.services.cognitoidentityprovider.AmazonCognitoIdentityProviderClient;
+import com.amazonaws.services.cognitoidentityprovider.model.AuthenticationResultType;
+import com.amazonaws.services.cognitoidentityprovider.model.InitiateAuthRequest;
+import com.amazonaws.services.cognitoidentityprovider.model.InitiateAuthResult;
+import com.amazonaws.services.cognitoidentityprovider.model.NotAuthorizedException;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A session refresh that was still running when the user signed out must not
+ * touch the tokens of the next sign-in, even once a new refresh is running.
+ */
+@RunWith(AndroidJUnit4.class)
+public class CognitoIdentityProviderSessionRefreshTest extends CognitoIdentityProviderUnitTestBase {
+    private static final String TOKEN_KEY_PREFIX =
+            "CognitoIdentityProvider." + TEST_CLIENT_ID + "." + TEST_USER_NAME + ".";
+
+    private CognitoUserPool testPool;
+    private CognitoUser testUser;
+    private AWSKeyValueStore awsKeyValueStorageUtility;
+
+    @Mock
+    private AmazonCognitoIdentityProviderClient mockCSIClient;
+
+    @Before
+    public void init() {
+        MockitoAnnotations.initMocks(this);
+        testPool = new CognitoUserPool(appContext, TEST_USER_POOL, TEST_CLIENT_ID,
+                TEST_CLIENT_SECRET, mockCSIClient);
+        testUser = testPool.getUser(TEST_USER_NAME);
+        awsKeyValueStorageUtility = getAWSKeyValueStorageUtility(testPool);
+    }
+
+    @Test
+    public void staleRefreshDoesNotCacheItsTokensAfterSignOut() throws Exception {
+        final String staleToken = getValidJWT(3600L);
+        final String freshToken = getValidJWT(7200L);
+        assertStaleRefreshLeavesNewSignIn(new Answer<InitiateAuthResult>() {
+            @Override
+            public InitiateAuthResult answer(InvocationOnMock invocation) {
+                return newAuthResult(staleToken);
+            }
+        }, freshToken);
+    }
+
+    @Test
+    public void staleRejectedRefreshDoesNotClearTokensAfterSignOut() throws Exception {
+        final String freshToken = getValidJWT(7200L);
+        assertStaleRefreshLeavesNewSignIn(new Answer<InitiateAuthResult>() {
+            @Override
+            public InitiateAuthResult answer(InvocationOnMock invocation) {
+                throw new NotAuthorizedException("Refresh Token has been revoked");
+            }
+        }, freshToken);
+    }
+
+    /**
+     * Starts a refresh which is held until the user signed out, signed in
+     * again and started a new refresh, then lets the stale refresh end with
+     * staleOutcome and checks that the new session is untouched.
+     */
+    private void assertStaleRefreshLeavesNewSignIn(final Answer<InitiateAuthResult> staleOutcome,
+            final String freshToken) throws Exception {
+        final String newSignInToken = getValidJWT(-3600L);
+        final CountDownLatch staleStarted = new CountDownLatch(1);
+        final CountDownLatch releaseStale = new CountDownLatch(1);
+        final CountDownLatch newStarted = new CountDownLatch(1);
+        final CountDownLatch releaseNew = new CountDownLatch(1);
+        final AtomicInteger calls = new AtomicInteger();
+        doAnswer(new Answer<InitiateAuthResult>() {
+            @Override
+            public InitiateAuthResult answer(InvocationOnMock invocation) throws Throwable {
+                if (calls.getAndIncrement() == 0) {
+                    staleStarted.countDown();
+                    releaseStale.await(5, TimeUnit.SECONDS);
+                    return staleOutcome.answer(invocation);
+                }
+                newStarted.countDown();
+                releaseNew.await(5, TimeUnit.SECONDS);
+                return newAuthResult(freshToken);
+            }
+        }).when(mockCSIClient).initiateAuth(any(InitiateAuthRequest.class));
+
+        cacheTokens(getValidJWT(-3600L));
+        final Thread staleRefresh = getSessionInThread();
+        assertTrue(staleStarted.await(5, TimeUnit.SECONDS));
+
+        testUser.signOut();
+        cacheTokens(newSignInToken);
+        final Thread newRefresh = getSessionInThread();
+        assertTrue(newStarted.await(5, TimeUnit.SECONDS));
+
+        releaseStale.countDown();
+        staleRefresh.join(5000);
+        assertEquals(newSignInToken, awsKeyValueStorageUtility.get(TOKEN_KEY_PREFIX + "accessToken"));
+
+        releaseNew.countDown();
+        newRefresh.join(5000);
+        assertEquals(freshToken, awsKeyValueStorageUtility.get(TOKEN_KEY_PREFIX + "accessToken"));
+    }
+
+    private void cacheTokens(String token) {
+        awsKeyValueStorageUtility.put(TOKEN_KEY_PREFIX + "idToken", token);
+        awsKeyValueStorageUtility.put(TOKEN_KEY_PREFIX + "accessToken", token);
+        awsKeyValueStorageUtility.put(TOKEN_KEY_PREFIX + "refreshToken", TEST_CACHED_RTOKEN);
+    }
+
+    private static InitiateAuthResult newAuthResult(String token) {
+        return new InitiateAuthResult().withAuthenticationResult(new AuthenticationResultType()
+                .withIdToken(token)
+                .withAccessToken(token));
+    }
+
+    private Thread getSessionInThread() {
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                testUser.getSession(new AuthenticationHandler() {
+                    @Override
+                    public void onSuccess(CognitoUserSession userSession, CognitoDevice newDevice) {
+                    }
+
+                    @Override
+                    public void getAuthenticationDetails(
+                            AuthenticationContinuation authenticationContinuation, String userId) {
+                    }
+
+                    @Override
+                    public void getMFACode(MultiFactorAuthenticationContinuation continuation) {
+                    }
+
+                    @Override
+                    public void authenticationChallenge(ChallengeContinuation continuation) {
+                    }
+
+                    @Override
+                    public void onFailure(Exception exception) {
+                    }
+                });
+            }
+        });
+        thread.start();
+        return thread;
+    }
+}
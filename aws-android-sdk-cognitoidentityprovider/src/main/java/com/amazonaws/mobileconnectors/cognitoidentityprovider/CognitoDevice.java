@@ -24,6 +24,7 @@ import com.amazonaws.mobileconnectors.cognitoidentityprovider.exceptions.Cognito
 import com.amazonaws.mobileconnectors.cognitoidentityprovider.exceptions.CognitoNotAuthorizedException;
 import com.amazonaws.mobileconnectors.cognitoidentityprovider.exceptions.CognitoParameterInvalidException;
 import com.amazonaws.mobileconnectors.cognitoidentityprovider.handlers.GenericHandler;
+import com.amazonaws.mobileconnectors.cognitoidentityprovider.util.CognitoUserPoolExecutor;
 import com.amazonaws.services.cognitoidentityprovider.model.DeviceType;
 import com.amazonaws.services.cognitoidentityprovider.model.ForgetDeviceRequest;
 import com.amazonaws.services.cognitoidentityprovider.model.GetDeviceRequest;
@@ -197,7 +198,7 @@ public class CognitoDevice {
         if (callback == null) {
             throw new CognitoParameterInvalidException("callback is null");
         }
-        new Thread(new Runnable() {
+        CognitoUserPoolExecutor.execute(new Runnable() {
             @Override
             public void run() {
                 final Handler handler = new Handler(context.getMainLooper());
@@ -221,7 +222,7 @@ public class CognitoDevice {
                 }
                 handler.post(returnCallback);
             }
-        }).start();
+        });
     }
 
     /**
@@ -258,7 +259,7 @@ public class CognitoDevice {
         if (callback == null) {
             throw  new CognitoParameterInvalidException("callback is null");
         }
-        new Thread(new Runnable() {
+        CognitoUserPoolExecutor.execute(new Runnable() {
             @Override
             public void run() {
                 final Handler handler = new Handler(context.getMainLooper());
@@ -281,7 +282,7 @@ public class CognitoDevice {
                 }
                 handler.post(returnCallback);
             }
-        }).start();
+        });
     }
 
     /**
@@ -314,7 +315,7 @@ public class CognitoDevice {
         if (callback == null) {
             throw  new CognitoParameterInvalidException("callback is null");
         }
-        new Thread(new Runnable() {
+        CognitoUserPoolExecutor.execute(new Runnable() {
             @Override
             public void run() {
                 final Handler handler = new Handler(context.getMainLooper());
@@ -337,7 +338,7 @@ public class CognitoDevice {
                 }
                 handler.post(returnCallback);
             }
-        }).start();
+        });
     }
 
     /**
@@ -371,7 +372,7 @@ public class CognitoDevice {
             throw  new CognitoParameterInvalidException("callback is null");
         }
 
-        new Thread(new Runnable() {
+        CognitoUserPoolExecutor.execute(new Runnable() {
             @Override
             public void run() {
                 final Handler handler = new Handler(context.getMainLooper());
@@ -394,7 +395,7 @@ public class CognitoDevice {
                 }
                 handler.post(returnCallback);
             }
-        }).start();
+        });
     }
 
     /**
@@ -45,9 +45,11 @@ import com.amazonaws.mobileconnectors.cognitoidentityprovider.tokens.CognitoAcce
 import com.amazonaws.mobileconnectors.cognitoidentityprovider.tokens.CognitoIdToken;
 import com.amazonaws.mobileconnectors.cognitoidentityprovider.tokens.CognitoRefreshToken;
 import com.amazonaws.mobileconnectors.cognitoidentityprovider.util.CognitoDeviceHelper;
+import com.amazonaws.mobileconnectors.cognitoidentityprovider.util.CognitoIdentityProviderClientConfig;
 import com.amazonaws.mobileconnectors.cognitoidentityprovider.util.CognitoSecretHash;
 import com.amazonaws.mobileconnectors.cognitoidentityprovider.util.CognitoServiceConstants;
 import com.amazonaws.mobileconnectors.cognitoidentityprovider.util.Hkdf;
+import com.amazonaws.mobileconnectors.cognitoidentityprovider.util.CognitoUserPoolExecutor;
 import com.amazonaws.services.cognitoidentityprovider.AmazonCognitoIdentityProvider;
 import com.amazonaws.services.cognitoidentityprovider.model.AnalyticsMetadataType;
 import com.amazonaws.services.cognitoidentityprovider.model.AssociateSoftwareTokenRequest;
@@ -116,6 +118,10 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
@@ -187,13 +193,37 @@ public class CognitoUser {
     /**
      * The current session.
      */
-    private CognitoUserSession cipSession;
+    private volatile CognitoUserSession cipSession;
 
     /**
-     * Lock for getCachedSession.
+     * Lock for getCachedSession. Guards the cached tokens,
+     * {@link #SESSION_REFRESHES} and {@link #BACKGROUND_REFRESH_FAILURES}, and
+     * is never held across a network call.
      */
     private static final Object GET_CACHED_SESSION_LOCK = new Object();
 
+    /**
+     * Session refreshes in flight, keyed by client id and user id, so that
+     * concurrent callers share a single refresh. Guarded by
+     * {@link #GET_CACHED_SESSION_LOCK}.
+     */
+    private static final Map<String, FutureTask<CognitoUserSession>> SESSION_REFRESHES =
+            new HashMap<String, FutureTask<CognitoUserSession>>();
+
+    /**
+     * Time to wait after a failed background session refresh before starting
+     * another one, in milliseconds.
+     */
+    private static final long BACKGROUND_REFRESH_RETRY_INTERVAL = 30 * 1000;
+
+    /**
+     * Time of the last failed background session refresh, keyed like
+     * {@link #SESSION_REFRESHES} and cleared once a refresh succeeds. Guarded
+     * by {@link #GET_CACHED_SESSION_LOCK}.
+     */
+    private static final Map<String, Long> BACKGROUND_REFRESH_FAILURES =
+            new HashMap<String, Long>();
+
     /**
      * Constructs a new Cognito User from a Cognito user identity pool
      * {@link CognitoUserPool} and userId.
@@ -270,7 +300,7 @@ public class CognitoUser {
         if (callback == null) {
             throw new CognitoParameterInvalidException("callback is null");
         }
-        new Thread(new Runnable() {
+        CognitoUserPoolExecutor.execute(new Runnable() {
             @Override
             public void run() {
                 final Handler handler = new Handler(context.getMainLooper());
@@ -293,7 +323,7 @@ public class CognitoUser {
                 }
                 handler.post(returnCallback);
             }
-        }).start();
+        });
     }
 
     /**
@@ -362,7 +392,7 @@ public class CognitoUser {
         if (callback == null) {
             throw new CognitoParameterInvalidException("callback is null");
         }
-        new Thread(new Runnable() {
+        CognitoUserPoolExecutor.execute(new Runnable() {
             @Override
             public void run() {
                 final Handler handler = new Handler(context.getMainLooper());
@@ -386,7 +416,7 @@ public class CognitoUser {
                 }
                 handler.post(returnCallback);
             }
-        }).start();
+        });
     }
 
     /**
@@ -456,7 +486,7 @@ public class CognitoUser {
 
         final CognitoUser cognitoUser = this;
 
-        new Thread(new Runnable() {
+        CognitoUserPoolExecutor.execute(new Runnable() {
             @Override
             public void run() {
                 final Handler handler = new Handler(context.getMainLooper());
@@ -484,7 +514,7 @@ public class CognitoUser {
                 }
                 handler.post(returnCallback);
             }
-        }).start();
+        });
     }
 
     /**
@@ -566,7 +596,7 @@ public class CognitoUser {
         if (callback == null) {
             throw new CognitoParameterInvalidException("callback is null");
         }
-        new Thread(new Runnable() {
+        CognitoUserPoolExecutor.execute(new Runnable() {
             @Override
             public void run() {
                 final Handler handler = new Handler(context.getMainLooper());
@@ -589,7 +619,7 @@ public class CognitoUser {
                 }
                 handler.post(returnCallback);
             }
-        }).start();
+        });
     }
 
     /**
@@ -675,7 +705,7 @@ public class CognitoUser {
 
         final CognitoUser cognitoUser = this;
 
-        new Thread(new Runnable() {
+        CognitoUserPoolExecutor.execute(new Runnable() {
             @Override
             public void run() {
                 final Handler handler = new Handler(context.getMainLooper());
@@ -709,7 +739,7 @@ public class CognitoUser {
                 }
                 handler.post(returnCallback);
             }
-        }).start();
+        });
     }
 
     /**
@@ -849,12 +879,12 @@ public class CognitoUser {
             return new Runnable() {
                 @Override
                 public void run() {
-                    new Thread(new Runnable() {
+                    CognitoUserPoolExecutor.execute(new Runnable() {
                         @Override
                         public void run() {
                             task.run();
                         }
-                    }).start();
+                    });
                 }
             };
         } else {
@@ -926,43 +956,177 @@ public class CognitoUser {
      *         otherwise.
      */
     protected CognitoUserSession getCachedSession() {
-        synchronized (GET_CACHED_SESSION_LOCK) {
-            if (userId == null) {
-                throw new CognitoNotAuthorizedException("User-ID is null");
-            }
+        if (userId == null) {
+            throw new CognitoNotAuthorizedException("User-ID is null");
+        }
 
-            if (cipSession != null) {
-                if (cipSession.isValidForThreshold()) {
-                    return cipSession;
-                }
-            }
+        final CognitoUserSession currentSession = cipSession;
+        if (currentSession != null && currentSession.isValidForThreshold()) {
+            refreshSessionAhead(currentSession);
+            return currentSession;
+        }
 
+        final String refreshKey = getSessionRefreshKey();
+        final FutureTask<CognitoUserSession> sessionRefresh;
+        synchronized (GET_CACHED_SESSION_LOCK) {
             final CognitoUserSession cachedTokens = readCachedTokens();
 
             if (cachedTokens.isValidForThreshold()) {
                 cipSession = cachedTokens;
+                refreshSessionAhead(cachedTokens);
                 return cipSession;
             }
 
-            if (cachedTokens.getRefreshToken() != null) {
+            if (cachedTokens.getRefreshToken() == null) {
+                throw new CognitoNotAuthorizedException("User is not authenticated");
+            }
+
+            FutureTask<CognitoUserSession> inFlight = SESSION_REFRESHES.get(refreshKey);
+            if (inFlight == null) {
+                inFlight = newSessionRefresh(refreshKey, cachedTokens);
+                SESSION_REFRESHES.put(refreshKey, inFlight);
+            }
+            sessionRefresh = inFlight;
+        }
+
+        // Runs the refresh unless another thread already started it. Waiters
+        // never block on a refresh still queued behind them in the executor.
+        sessionRefresh.run();
+        try {
+            final CognitoUserSession session = sessionRefresh.get();
+            cipSession = session;
+            return session;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CognitoInternalErrorException("Interrupted while refreshing session", e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new CognitoInternalErrorException("Failed to authenticate user", e.getCause());
+        }
+    }
+
+    /**
+     * Starts refreshing a session in the background when it will drop below
+     * the refresh threshold soon, i.e. when it is valid for less than twice
+     * the threshold. Does nothing if a refresh for this user is in flight.
+     *
+     * @param session REQUIRED: the current session, valid for the threshold.
+     */
+    private void refreshSessionAhead(final CognitoUserSession session) {
+        final long refreshThreshold = CognitoIdentityProviderClientConfig.getRefreshThreshold();
+        if (session.isValidFor(2 * refreshThreshold) || session.getRefreshToken() == null) {
+            return;
+        }
+
+        final String refreshKey = getSessionRefreshKey();
+        final FutureTask<CognitoUserSession> sessionRefresh;
+        synchronized (GET_CACHED_SESSION_LOCK) {
+            if (SESSION_REFRESHES.containsKey(refreshKey)) {
+                return;
+            }
+            final Long lastFailure = BACKGROUND_REFRESH_FAILURES.get(refreshKey);
+            if (lastFailure != null
+                    && System.currentTimeMillis() - lastFailure < BACKGROUND_REFRESH_RETRY_INTERVAL) {
+                return;
+            }
+            sessionRefresh = newSessionRefresh(refreshKey, session);
+            SESSION_REFRESHES.put(refreshKey, sessionRefresh);
+        }
+
+        CognitoUserPoolExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                sessionRefresh.run();
                 try {
-                    cipSession = refreshSession(cachedTokens);
-                    cacheTokens(cipSession);
-                    return cipSession;
-                } catch (final NotAuthorizedException nae) {
-                    clearCachedTokens();
-                    throw new CognitoNotAuthorizedException("User is not authenticated", nae);
-                } catch (final UserNotFoundException unfe) {
-                    clearCachedTokens();
-                    throw new CognitoNotAuthorizedException("User does not exist", unfe);
-                }catch (final Exception e) {
-                    throw new CognitoInternalErrorException("Failed to authenticate user", e);
+                    sessionRefresh.get();
+                } catch (final Exception e) {
+                    synchronized (GET_CACHED_SESSION_LOCK) {
+                        BACKGROUND_REFRESH_FAILURES.put(refreshKey, System.currentTimeMillis());
+                    }
+                    LOGGER.warn("Failed to refresh session in the background", e);
                 }
             }
-            throw new CognitoNotAuthorizedException("User is not authenticated");
+        });
+    }
+
+    /**
+     * Creates the task refreshing the session with the refresh token of the
+     * given tokens, caching the new tokens on success. The task unregisters
+     * itself from {@link #SESSION_REFRESHES} once done.
+     */
+    private FutureTask<CognitoUserSession> newSessionRefresh(final String refreshKey,
+            final CognitoUserSession currSession) {
+        final AtomicReference<FutureTask<CognitoUserSession>> task =
+                new AtomicReference<FutureTask<CognitoUserSession>>();
+        task.set(new FutureTask<CognitoUserSession>(new Callable<CognitoUserSession>() {
+            @Override
+            public CognitoUserSession call() {
+                try {
+                    final CognitoUserSession session = refreshAndCacheSession(refreshKey,
+                            task.get(), currSession);
+                    synchronized (GET_CACHED_SESSION_LOCK) {
+                        BACKGROUND_REFRESH_FAILURES.remove(refreshKey);
+                    }
+                    return session;
+                } finally {
+                    synchronized (GET_CACHED_SESSION_LOCK) {
+                        if (SESSION_REFRESHES.get(refreshKey) == task.get()) {
+                            SESSION_REFRESHES.remove(refreshKey);
+                        }
+                    }
+                }
+            }
+        }));
+        return task.get();
+    }
+
+    /**
+     * Refreshes the session and caches the new tokens, or clears the cached
+     * tokens if the refresh token was rejected. Either is only done while the
+     * refresh is still the one registered for the user: after a sign-out,
+     * and maybe a new sign-in, the cached tokens are no longer its own.
+     */
+    private CognitoUserSession refreshAndCacheSession(String refreshKey,
+            FutureTask<CognitoUserSession> ownTask, CognitoUserSession currSession) {
+        final CognitoUserSession session;
+        try {
+            session = refreshSession(currSession);
+        } catch (final NotAuthorizedException nae) {
+            clearCachedTokensIfCurrent(refreshKey, ownTask);
+            throw new CognitoNotAuthorizedException("User is not authenticated", nae);
+        } catch (final UserNotFoundException unfe) {
+            clearCachedTokensIfCurrent(refreshKey, ownTask);
+            throw new CognitoNotAuthorizedException("User does not exist", unfe);
+        } catch (final Exception e) {
+            throw new CognitoInternalErrorException("Failed to authenticate user", e);
+        }
+
+        synchronized (GET_CACHED_SESSION_LOCK) {
+            // The user signed out while the session was refreshed.
+            if (SESSION_REFRESHES.get(refreshKey) != ownTask) {
+                throw new CognitoNotAuthorizedException("User is not authenticated");
+            }
+            cacheTokens(session);
+            cipSession = session;
+        }
+        return session;
+    }
+
+    private void clearCachedTokensIfCurrent(String refreshKey,
+            FutureTask<CognitoUserSession> ownTask) {
+        synchronized (GET_CACHED_SESSION_LOCK) {
+            if (SESSION_REFRESHES.get(refreshKey) == ownTask) {
+                clearCachedTokens();
+            }
         }
     }
 
+    private String getSessionRefreshKey() {
+        return clientId + "." + userId;
+    }
+
     /**
      * Request to change password for this user, in background.
      * <p>
@@ -984,7 +1148,7 @@ public class CognitoUser {
 
         final CognitoUser user = this;
 
-        new Thread(new Runnable() {
+        CognitoUserPoolExecutor.execute(new Runnable() {
             @Override
             public void run() {
                 final Handler handler = new Handler(context.getMainLooper());
@@ -1008,7 +1172,7 @@ public class CognitoUser {
                 }
                 handler.post(returnCallback);
             }
-        }).start();
+        });
     }
 
     /**
@@ -1075,31 +1239,34 @@ public class CognitoUser {
         }
         final CognitoUser user = this;
 
-        new Thread(new Runnable() {
-            @Override
-            public void run() {
-                final Handler handler = new Handler(context.getMainLooper());
-                Runnable returnCallback;
-                try {
-                    final CognitoUserSession session = user.getCachedSession();
-                    final CognitoUserDetails userDetails = getUserDetailsInternal(session);
-                    returnCallback = new Runnable() {
-                        @Override
-                        public void run() {
-                            callback.onSuccess(userDetails);
-                        }
-                    };
-                } catch (final Exception e) {
-                    returnCallback = new Runnable() {
-                        @Override
-                        public void run() {
-                            callback.onFailure(e);
-                        }
-                    };
-                }
-                handler.post(returnCallback);
-            }
-        }).start();
+        // Concurrent requests for the details of this user share one call.
+        CognitoUserPoolExecutor.executeCoalesced("getDetails." + getSessionRefreshKey(),
+                new Callable<CognitoUserDetails>() {
+                    @Override
+                    public CognitoUserDetails call() {
+                        return getUserDetailsInternal(user.getCachedSession());
+                    }
+                }, new CognitoUserPoolExecutor.ResultHandler<CognitoUserDetails>() {
+                    @Override
+                    public void onSuccess(final CognitoUserDetails userDetails) {
+                        new Handler(context.getMainLooper()).post(new Runnable() {
+                            @Override
+                            public void run() {
+                                callback.onSuccess(userDetails);
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void onFailure(final Exception e) {
+                        new Handler(context.getMainLooper()).post(new Runnable() {
+                            @Override
+                            public void run() {
+                                callback.onFailure(e);
+                            }
+                        });
+                    }
+                });
     }
 
     /**
@@ -1169,7 +1336,7 @@ public class CognitoUser {
         }
         final CognitoUser user = this;
 
-        new Thread(new Runnable() {
+        CognitoUserPoolExecutor.execute(new Runnable() {
             @Override
             public void run() {
                 final Handler handler = new Handler(context.getMainLooper());
@@ -1196,7 +1363,7 @@ public class CognitoUser {
                 }
                 handler.post(returnCallback);
             }
-        }).start();
+        });
     }
 
     /**
@@ -1277,7 +1444,7 @@ public class CognitoUser {
         }
         final CognitoUser user = this;
 
-        new Thread(new Runnable() {
+        CognitoUserPoolExecutor.execute(new Runnable() {
             @Override
             public void run() {
                 final Handler handler = new Handler(context.getMainLooper());
@@ -1301,7 +1468,7 @@ public class CognitoUser {
                 }
                 handler.post(returnCallback);
             }
-        }).start();
+        });
     }
 
     /**
@@ -1369,7 +1536,7 @@ public class CognitoUser {
         }
         final CognitoUser user = this;
 
-        new Thread(new Runnable() {
+        CognitoUserPoolExecutor.execute(new Runnable() {
             @Override
             public void run() {
                 final Handler handler = new Handler(context.getMainLooper());
@@ -1414,7 +1581,7 @@ public class CognitoUser {
                 }
                 handler.post(returnCallback);
             }
-        }).start();
+        });
     }
 
     /**
@@ -1503,7 +1670,7 @@ public class CognitoUser {
         }
         final CognitoUser user = this;
 
-        new Thread(new Runnable() {
+        CognitoUserPoolExecutor.execute(new Runnable() {
             @Override
             public void run() {
                 final Handler handler = new Handler(context.getMainLooper());
@@ -1548,7 +1715,7 @@ public class CognitoUser {
                 }
                 handler.post(returnCallback);
             }
-        }).start();
+        });
     }
 
     /**
@@ -1655,7 +1822,7 @@ public class CognitoUser {
         }
         final CognitoUser user = this;
 
-        new Thread(new Runnable() {
+        CognitoUserPoolExecutor.execute(new Runnable() {
             @Override
             public void run() {
                 final Handler handler = new Handler(context.getMainLooper());
@@ -1690,7 +1857,7 @@ public class CognitoUser {
                 }
                 handler.post(returnCallback);
             }
-        }).start();
+        });
     }
 
     /**
@@ -1763,7 +1930,7 @@ public class CognitoUser {
         }
         final CognitoUser user = this;
 
-        new Thread(new Runnable() {
+        CognitoUserPoolExecutor.execute(new Runnable() {
             @Override
             public void run() {
                 final Handler handler = new Handler(context.getMainLooper());
@@ -1787,7 +1954,7 @@ public class CognitoUser {
                 }
                 handler.post(returnCallback);
             }
-        }).start();
+        });
     }
 
     /**
@@ -1855,8 +2022,13 @@ public class CognitoUser {
      * Sign-Out this user by removing all cached tokens.
      */
     public void signOut() {
-        cipSession = null;
-        clearCachedTokens();
+        synchronized (GET_CACHED_SESSION_LOCK) {
+            // Stops a session refresh in flight from caching its tokens.
+            SESSION_REFRESHES.remove(getSessionRefreshKey());
+            BACKGROUND_REFRESH_FAILURES.remove(getSessionRefreshKey());
+            cipSession = null;
+            clearCachedTokens();
+        }
     }
 
     /**
@@ -1871,7 +2043,7 @@ public class CognitoUser {
         }
         final CognitoUser user = this;
 
-        new Thread(new Runnable() {
+        CognitoUserPoolExecutor.execute(new Runnable() {
             @Override
             public void run() {
                 final Handler handler = new Handler(context.getMainLooper());
@@ -1896,7 +2068,7 @@ public class CognitoUser {
                 }
                 handler.post(returnCallback);
             }
-        }).start();
+        });
     }
 
     /**
@@ -1955,7 +2127,7 @@ public class CognitoUser {
         }
         final CognitoUser user = this;
 
-        new Thread(new Runnable() {
+        CognitoUserPoolExecutor.execute(new Runnable() {
             @Override
             public void run() {
                 final Handler handler = new Handler(context.getMainLooper());
@@ -1979,7 +2151,7 @@ public class CognitoUser {
                 }
                 handler.post(returnCallback);
             }
-        }).start();
+        });
     }
 
     /**
@@ -2041,7 +2213,7 @@ public class CognitoUser {
         }
         final CognitoUserSession session = this.getCachedSession();
 
-        new Thread(new Runnable() {
+        CognitoUserPoolExecutor.execute(new Runnable() {
             @Override
             public void run() {
                 final Handler handler = new Handler(context.getMainLooper());
@@ -2064,7 +2236,7 @@ public class CognitoUser {
                 }
                 handler.post(returnCallback);
             }
-        }).start();
+        });
     }
 
     /**
@@ -2128,7 +2300,7 @@ public class CognitoUser {
         }
         final CognitoUserSession session = this.getCachedSession();
 
-        new Thread(new Runnable() {
+        CognitoUserPoolExecutor.execute(new Runnable() {
             @Override
             public void run() {
                 final Handler handler = new Handler(context.getMainLooper());
@@ -2151,7 +2323,7 @@ public class CognitoUser {
                 }
                 handler.post(returnCallback);
             }
-        }).start();
+        });
     }
 
     /**
@@ -3129,7 +3301,7 @@ public class CognitoUser {
 
         final CognitoUser user = this;
 
-        new Thread(new Runnable() {
+        CognitoUserPoolExecutor.execute(new Runnable() {
             @Override
             public void run() {
                 final Handler handler = new Handler(context.getMainLooper());
@@ -3158,7 +3330,7 @@ public class CognitoUser {
                 }
                 handler.post(returnCallback);
             }
-        }).start();
+        });
     }
 
     /**
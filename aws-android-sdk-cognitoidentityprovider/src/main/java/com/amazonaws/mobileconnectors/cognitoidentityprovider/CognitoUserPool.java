@@ -32,6 +32,7 @@ import com.amazonaws.mobileconnectors.cognitoidentityprovider.handlers.SignUpHan
 import com.amazonaws.mobileconnectors.cognitoidentityprovider.util.CognitoDeviceHelper;
 import com.amazonaws.mobileconnectors.cognitoidentityprovider.util.CognitoPinpointSharedContext;
 import com.amazonaws.mobileconnectors.cognitoidentityprovider.util.CognitoSecretHash;
+import com.amazonaws.mobileconnectors.cognitoidentityprovider.util.CognitoUserPoolExecutor;
 import com.amazonaws.regions.Regions;
 import com.amazonaws.services.cognitoidentityprovider.AmazonCognitoIdentityProvider;
 import com.amazonaws.services.cognitoidentityprovider.AmazonCognitoIdentityProviderClient;
@@ -369,7 +370,7 @@ public class CognitoUserPool {
                                          final CognitoUserAttributes userAttributes,
                                          final Map<String, String> validationData,
                                          final SignUpHandler callback) {
-        new Thread(new Runnable() {
+        CognitoUserPoolExecutor.execute(new Runnable() {
             @Override
             public void run() {
                 final Handler handler = new Handler(context.getMainLooper());
@@ -396,7 +397,7 @@ public class CognitoUserPool {
                 }
                 handler.post(returnCallback);
             }
-        }).start();
+        });
     }
 
     /**
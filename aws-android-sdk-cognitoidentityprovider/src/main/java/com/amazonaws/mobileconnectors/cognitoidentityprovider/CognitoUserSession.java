@@ -108,11 +108,22 @@ public class CognitoUserSession {
      * @return boolean to indicate if the session is valid for atleast {@link CognitoIdentityProviderClientConfig#refreshThreshold} seconds.
      */
     public boolean isValidForThreshold() {
+        return isValidFor(CognitoIdentityProviderClientConfig.getRefreshThreshold());
+    }
+
+    /**
+     * Returns true if the id token of this session is valid for more than the
+     * given time.
+     *
+     * @param milliseconds REQUIRED: the minimum time the session must be valid for.
+     * @return boolean to indicate if the session is valid for more than the given time.
+     */
+    boolean isValidFor(long milliseconds) {
         try {
             final long currentTime = System.currentTimeMillis()
                     - SDKGlobalConfiguration.getGlobalTimeOffset() * SECS_CONVERSION;
             final long expiresInMilliSeconds = idToken.getExpiration().getTime() - currentTime;
-            return (expiresInMilliSeconds > CognitoIdentityProviderClientConfig.getRefreshThreshold());
+            return (expiresInMilliSeconds > milliseconds);
         } catch (final Exception e) {
             return false;
         }
@@ -22,6 +22,7 @@ import android.os.Handler;
 
 import com.amazonaws.mobileconnectors.cognitoidentityprovider.CognitoUser;
 import com.amazonaws.mobileconnectors.cognitoidentityprovider.handlers.AuthenticationHandler;
+import com.amazonaws.mobileconnectors.cognitoidentityprovider.util.CognitoUserPoolExecutor;
 
 /**
  * Defines Continuation for authentication. This Continuation is used when user log-in details
@@ -91,7 +92,7 @@ public class AuthenticationContinuation implements CognitoIdentityProviderContin
     @Override
     public void continueTask() {
         if (runInBackground) {
-            new Thread(new Runnable() {
+            CognitoUserPoolExecutor.execute(new Runnable() {
                 @Override
                 public void run() {
                     final Handler handler = new Handler(context.getMainLooper());
@@ -108,7 +109,7 @@ public class AuthenticationContinuation implements CognitoIdentityProviderContin
                     }
                     handler.post(nextStep);
                 }
-            }).start();
+            });
         } else {
             Runnable nextStep;
             try {
@@ -23,6 +23,7 @@ import android.os.Handler;
 import com.amazonaws.mobileconnectors.cognitoidentityprovider.CognitoUser;
 import com.amazonaws.mobileconnectors.cognitoidentityprovider.handlers.AuthenticationHandler;
 import com.amazonaws.mobileconnectors.cognitoidentityprovider.util.CognitoServiceConstants;
+import com.amazonaws.mobileconnectors.cognitoidentityprovider.util.CognitoUserPoolExecutor;
 import com.amazonaws.services.cognitoidentityprovider.model.RespondToAuthChallengeRequest;
 import com.amazonaws.services.cognitoidentityprovider.model.RespondToAuthChallengeResult;
 
@@ -141,7 +142,7 @@ public class ChallengeContinuation implements CognitoIdentityProviderContinuatio
         respondToAuthChallengeRequest.setClientId(clientId);
         respondToAuthChallengeRequest.setChallengeResponses(challengeResponses);
         if (runInBackground) {
-            new Thread(new Runnable() {
+            CognitoUserPoolExecutor.execute(new Runnable() {
                 @Override
                 public void run() {
                     final Handler handler = new Handler(context.getMainLooper());
@@ -158,7 +159,7 @@ public class ChallengeContinuation implements CognitoIdentityProviderContinuatio
                     }
                     handler.post(nextStep);
                 }
-            }).start();
+            });
         } else {
             Runnable nextStep;
             try {
@@ -24,6 +24,7 @@ import com.amazonaws.mobileconnectors.cognitoidentityprovider.CognitoUser;
 import com.amazonaws.mobileconnectors.cognitoidentityprovider.CognitoUserCodeDeliveryDetails;
 import com.amazonaws.mobileconnectors.cognitoidentityprovider.handlers.AuthenticationHandler;
 import com.amazonaws.mobileconnectors.cognitoidentityprovider.util.CognitoServiceConstants;
+import com.amazonaws.mobileconnectors.cognitoidentityprovider.util.CognitoUserPoolExecutor;
 import com.amazonaws.services.cognitoidentityprovider.model.RespondToAuthChallengeResult;
 
 /**
@@ -97,7 +98,7 @@ public class MultiFactorAuthenticationContinuation implements CognitoIdentityPro
     @Override
     public void continueTask() {
         if (runInBackground) {
-            new Thread(new Runnable() {
+            CognitoUserPoolExecutor.execute(new Runnable() {
                 @Override
                 public void run() {
                     final Handler handler = new Handler(context.getMainLooper());
@@ -116,7 +117,7 @@ public class MultiFactorAuthenticationContinuation implements CognitoIdentityPro
                     }
                     handler.post(nextStep);
                 }
-            }).start();
+            });
         } else {
             Runnable nextStep;
             try {
@@ -18,7 +18,6 @@
 package com.amazonaws.mobileconnectors.cognitoidentityprovider.tokens;
 
 import com.amazonaws.mobileconnectors.cognitoidentityprovider.exceptions.CognitoInternalErrorException;
-import com.amazonaws.mobileconnectors.cognitoidentityprovider.util.CognitoJWTParser;
 
 import java.util.Date;
 
@@ -28,8 +27,6 @@ import java.util.Date;
 
 public class CognitoAccessToken extends CognitoUserToken {
 
-    private static final int SECS = 1000;
-
     /**
      * Create a new access token.
      *
@@ -55,13 +52,7 @@ public class CognitoAccessToken extends CognitoUserToken {
      */
     public Date getExpiration() {
         try {
-            final String claim = CognitoJWTParser.getClaim(super.getToken(), "exp");
-            if (claim == null) {
-                return null;
-            }
-            final long epocTimeSec = Long.parseLong(claim);
-            final long epocTimeMilliSec = epocTimeSec * SECS;
-            return new Date(epocTimeMilliSec);
+            return getClaims().getExpiration();
         } catch (final Exception e) {
             throw new CognitoInternalErrorException(e.getMessage());
         }
@@ -72,6 +63,6 @@ public class CognitoAccessToken extends CognitoUserToken {
      * @return Username.
      */
     public String getUsername() throws Exception {
-        return CognitoJWTParser.getClaim(super.getToken(), "username");
+        return getClaims().getUsername();
     }
 }
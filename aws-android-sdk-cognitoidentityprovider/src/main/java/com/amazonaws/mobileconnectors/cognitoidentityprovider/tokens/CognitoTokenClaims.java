@@ -0,0 +1,108 @@
+/*
+ *  Copyright 2013-2018 Amazon.com,
+ *  Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Amazon Software License (the "License").
+ *  You may not use this file except in compliance with the
+ *  License. A copy of the License is located at
+ *
+ *      http://aws.amazon.com/asl/
+ *
+ *  or in the "license" file accompanying this file. This file is
+ *  distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ *  CONDITIONS OF ANY KIND, express or implied. See the License
+ *  for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.cognitoidentityprovider.tokens;
+
+import com.amazonaws.mobileconnectors.cognitoidentityprovider.exceptions.CognitoParameterInvalidException;
+import com.amazonaws.mobileconnectors.cognitoidentityprovider.util.CognitoJWTParser;
+
+import org.json.JSONObject;
+
+import java.util.Date;
+
+/**
+ * Claims of a JWT that are read by the SDK, decoded once per token. Instances
+ * are immutable.
+ */
+final class CognitoTokenClaims {
+    private static final int SECS = 1000;
+
+    private static final String INVALID_TOKEN = "invalid token";
+
+    /**
+     * Claims of a token that could not be parsed.
+     */
+    private static final CognitoTokenClaims INVALID = new CognitoTokenClaims(null, null, null, null);
+
+    private final Long expiration;
+    private final Long notBefore;
+    private final Long issuedAt;
+    private final String username;
+
+    private CognitoTokenClaims(Long expiration, Long notBefore, Long issuedAt, String username) {
+        this.expiration = expiration;
+        this.notBefore = notBefore;
+        this.issuedAt = issuedAt;
+        this.username = username;
+    }
+
+    /**
+     * Decodes the claims of a JWT.
+     *
+     * @param jwt the JSON Web Token.
+     * @return the claims, with every claim missing if the token is not a valid JWT.
+     */
+    static CognitoTokenClaims parse(String jwt) {
+        try {
+            final JSONObject payload = CognitoJWTParser.getPayload(jwt);
+            return new CognitoTokenClaims(
+                    getTime(payload, "exp"),
+                    getTime(payload, "nbf"),
+                    getTime(payload, "iat"),
+                    payload.has("username") ? payload.get("username").toString() : null);
+        } catch (final Exception e) {
+            return INVALID;
+        }
+    }
+
+    private static Long getTime(JSONObject payload, String claim) {
+        try {
+            return payload.has(claim) ? Long.valueOf(payload.get(claim).toString()) : null;
+        } catch (final Exception e) {
+            return null;
+        }
+    }
+
+    Date getExpiration() {
+        return toDate(expiration);
+    }
+
+    Date getNotBefore() {
+        return toDate(notBefore);
+    }
+
+    Date getIssuedAt() {
+        return toDate(issuedAt);
+    }
+
+    String getUsername() {
+        if (username == null) {
+            throw new CognitoParameterInvalidException(INVALID_TOKEN);
+        }
+        return username;
+    }
+
+    /**
+     * Returns a new {@link Date} for a claim, since dates are mutable.
+     */
+    private static Date toDate(Long epochTimeSec) {
+        if (epochTimeSec == null) {
+            throw new CognitoParameterInvalidException(INVALID_TOKEN);
+        }
+        return new Date(epochTimeSec * SECS);
+    }
+}
@@ -24,6 +24,11 @@ public class CognitoUserToken {
     // A Cognito Token - can be an Access, Id or Refresh token
     private final String token;
 
+    /**
+     * Claims decoded from the token, on first use.
+     */
+    private volatile CognitoTokenClaims claims;
+
     /**
      * Constructor.
      *
@@ -37,4 +42,19 @@ public class CognitoUserToken {
         return token;
     }
 
+    /**
+     * Returns the claims of this token, decoding them on the first call.
+     *
+     * @return the token claims.
+     */
+    CognitoTokenClaims getClaims() {
+        CognitoTokenClaims result = claims;
+        if (result == null) {
+            // Racing threads decode the same immutable claims, no lock needed.
+            result = CognitoTokenClaims.parse(token);
+            claims = result;
+        }
+        return result;
+    }
+
 }
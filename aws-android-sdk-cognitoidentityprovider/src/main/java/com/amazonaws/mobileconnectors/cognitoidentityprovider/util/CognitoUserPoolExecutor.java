@@ -0,0 +1,324 @@
+/*
+ *  Copyright 2013-2018 Amazon.com,
+ *  Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Amazon Software License (the "License").
+ *  You may not use this file except in compliance with the
+ *  License. A copy of the License is located at
+ *
+ *      http://aws.amazon.com/asl/
+ *
+ *  or in the "license" file accompanying this file. This file is
+ *  distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ *  CONDITIONS OF ANY KIND, express or implied. See the License
+ *  for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.cognitoidentityprovider.util;
+
+import com.amazonaws.logging.Log;
+import com.amazonaws.logging.LogFactory;
+import com.amazonaws.mobileconnectors.cognitoidentityprovider.exceptions.CognitoInternalErrorException;
+import com.amazonaws.mobileconnectors.cognitoidentityprovider.exceptions.CognitoParameterInvalidException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the background operations of Cognito user pools, i.e. the
+ * {@code *InBackground} methods and continuations, on a shared bounded pool of
+ * threads instead of a new thread per call.
+ * <p>
+ * Identical reads that are in flight at the same time, such as fetching the
+ * details of the same user, can be coalesced into one call with
+ * {@link #executeCoalesced(String, Callable, ResultHandler)}.
+ * </p>
+ */
+public final class CognitoUserPoolExecutor {
+    /**
+     * Default maximum number of threads running background operations.
+     */
+    public static final int DEFAULT_MAX_THREADS = 4;
+
+    private static final int MAX_THREADS_LIMIT = 32;
+
+    private static final Log LOGGER = LogFactory.getLog(CognitoUserPoolExecutor.class);
+
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private static final ThreadPoolExecutor EXECUTOR;
+
+    /**
+     * Callbacks waiting for a coalesced operation, by key. Guarded by itself.
+     */
+    private static final Map<String, List<ResultHandler<?>>> IN_FLIGHT =
+            new HashMap<String, List<ResultHandler<?>>>();
+
+    private static final AtomicLong SUBMITTED = new AtomicLong();
+    private static final AtomicLong STARTED = new AtomicLong();
+    private static final AtomicLong COMPLETED = new AtomicLong();
+    private static final AtomicLong COALESCED = new AtomicLong();
+    private static final AtomicInteger MAX_QUEUE_DEPTH = new AtomicInteger();
+    private static final AtomicLong TOTAL_QUEUE_NANOS = new AtomicLong();
+    private static final AtomicLong MAX_QUEUE_NANOS = new AtomicLong();
+    private static final AtomicLong TOTAL_RUN_NANOS = new AtomicLong();
+    private static final AtomicLong MAX_RUN_NANOS = new AtomicLong();
+
+    static {
+        final AtomicInteger threadCount = new AtomicInteger();
+        EXECUTOR = new ThreadPoolExecutor(DEFAULT_MAX_THREADS, DEFAULT_MAX_THREADS,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        final Thread thread = new Thread(runnable,
+                                "CognitoUserPool-" + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        // Let idle apps release all the threads.
+        EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Receives the result of a coalesced operation.
+     *
+     * @param <T> the type of the result.
+     */
+    public interface ResultHandler<T> {
+        /**
+         * Called with the result of the operation.
+         *
+         * @param result the result.
+         */
+        void onSuccess(T result);
+
+        /**
+         * Called when the operation failed.
+         *
+         * @param exception the failure.
+         */
+        void onFailure(Exception exception);
+    }
+
+    private CognitoUserPoolExecutor() {
+    }
+
+    /**
+     * Set the maximum number of threads running background operations.
+     *
+     * @param maxThreads REQUIRED: the number of threads, between 1 and 32.
+     */
+    public static void setMaxThreads(int maxThreads) {
+        if (maxThreads < 1 || maxThreads > MAX_THREADS_LIMIT) {
+            throw new CognitoParameterInvalidException(
+                    String.format("The number of threads must be between 1 and %d", MAX_THREADS_LIMIT));
+        }
+        synchronized (EXECUTOR) {
+            // Keep core <= max at every step.
+            if (maxThreads > EXECUTOR.getMaximumPoolSize()) {
+                EXECUTOR.setMaximumPoolSize(maxThreads);
+                EXECUTOR.setCorePoolSize(maxThreads);
+            } else {
+                EXECUTOR.setCorePoolSize(maxThreads);
+                EXECUTOR.setMaximumPoolSize(maxThreads);
+            }
+        }
+    }
+
+    public static int getMaxThreads() {
+        return EXECUTOR.getMaximumPoolSize();
+    }
+
+    /**
+     * Runs an operation in the background.
+     *
+     * @param operation REQUIRED: the operation.
+     */
+    public static void execute(final Runnable operation) {
+        final long queuedAt = System.nanoTime();
+        SUBMITTED.incrementAndGet();
+        EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                final long startedAt = System.nanoTime();
+                STARTED.incrementAndGet();
+                record(startedAt - queuedAt, TOTAL_QUEUE_NANOS, MAX_QUEUE_NANOS);
+                try {
+                    operation.run();
+                } finally {
+                    record(System.nanoTime() - startedAt, TOTAL_RUN_NANOS, MAX_RUN_NANOS);
+                    COMPLETED.incrementAndGet();
+                }
+            }
+        });
+        updateMax(MAX_QUEUE_DEPTH, EXECUTOR.getQueue().size());
+    }
+
+    /**
+     * Runs an operation in the background, unless an operation with the same
+     * key is already in flight, in which case the handler receives the result
+     * of that operation instead. Handlers are called on the background thread.
+     *
+     * @param key REQUIRED: identifies operations that return the same result.
+     * @param operation REQUIRED: the operation.
+     * @param handler REQUIRED: receives the result.
+     * @param <T> the type of the result.
+     */
+    public static <T> void executeCoalesced(final String key, final Callable<T> operation,
+            final ResultHandler<T> handler) {
+        synchronized (IN_FLIGHT) {
+            final List<ResultHandler<?>> waiting = IN_FLIGHT.get(key);
+            if (waiting != null) {
+                waiting.add(handler);
+                COALESCED.incrementAndGet();
+                return;
+            }
+            final List<ResultHandler<?>> handlers = new ArrayList<ResultHandler<?>>();
+            handlers.add(handler);
+            IN_FLIGHT.put(key, handlers);
+        }
+
+        try {
+            execute(new Runnable() {
+                @Override
+                public void run() {
+                    T result = null;
+                    Throwable failure = null;
+                    List<ResultHandler<?>> handlers = null;
+                    try {
+                        result = operation.call();
+                    } catch (final Throwable t) {
+                        failure = t;
+                    } finally {
+                        synchronized (IN_FLIGHT) {
+                            handlers = IN_FLIGHT.remove(key);
+                        }
+                    }
+
+                    final Exception exception = failure == null || failure instanceof Exception
+                            ? (Exception) failure
+                            : new CognitoInternalErrorException("Operation " + key + " failed",
+                                    failure);
+                    for (final ResultHandler<?> waiting : handlers) {
+                        deliver(waiting, result, exception);
+                    }
+                    if (failure instanceof Error) {
+                        throw (Error) failure;
+                    }
+                }
+            });
+        } catch (final RuntimeException e) {
+            synchronized (IN_FLIGHT) {
+                IN_FLIGHT.remove(key);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Delivers the result of a coalesced operation to one handler, so that a
+     * handler that throws does not keep the result from the others.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> void deliver(final ResultHandler<?> handler, final T result,
+            final Exception failure) {
+        try {
+            if (failure == null) {
+                ((ResultHandler<T>) handler).onSuccess(result);
+            } else {
+                handler.onFailure(failure);
+            }
+        } catch (final Throwable t) {
+            LOGGER.error("Result handler of a coalesced operation failed", t);
+        }
+    }
+
+    /**
+     * @return the number of operations waiting for a thread.
+     */
+    public static int getQueueDepth() {
+        return EXECUTOR.getQueue().size();
+    }
+
+    /**
+     * @return the highest number of operations that waited for a thread at
+     *         the same time.
+     */
+    public static int getMaxQueueDepth() {
+        return MAX_QUEUE_DEPTH.get();
+    }
+
+    /**
+     * @return the number of operations submitted.
+     */
+    public static long getSubmittedCount() {
+        return SUBMITTED.get();
+    }
+
+    /**
+     * @return the number of requests served by an operation already in flight.
+     */
+    public static long getCoalescedCount() {
+        return COALESCED.get();
+    }
+
+    /**
+     * @return the average time operations waited for a thread, in milliseconds.
+     */
+    public static long getAverageQueueMillis() {
+        return average(TOTAL_QUEUE_NANOS, STARTED);
+    }
+
+    /**
+     * @return the longest time an operation waited for a thread, in milliseconds.
+     */
+    public static long getMaxQueueMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(MAX_QUEUE_NANOS.get());
+    }
+
+    /**
+     * @return the average time taken to run an operation, in milliseconds.
+     */
+    public static long getAverageRunMillis() {
+        return average(TOTAL_RUN_NANOS, COMPLETED);
+    }
+
+    /**
+     * @return the longest time taken to run an operation, in milliseconds.
+     */
+    public static long getMaxRunMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(MAX_RUN_NANOS.get());
+    }
+
+    private static long average(AtomicLong totalNanos, AtomicLong count) {
+        final long operations = count.get();
+        return operations == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalNanos.get() / operations);
+    }
+
+    private static void record(long nanos, AtomicLong total, AtomicLong max) {
+        total.addAndGet(nanos);
+        long current;
+        do {
+            current = max.get();
+        } while (nanos > current && !max.compareAndSet(current, nanos));
+    }
+
+    private static void updateMax(AtomicInteger max, int value) {
+        int current;
+        do {
+            current = max.get();
+        } while (value > current && !max.compareAndSet(current, value));
+    }
+}
@@ -220,6 +220,7 @@ public abstract class AmazonWebServiceClient {
             this.endpoint = uri;
             this.signer = signer;
         }
+        prewarmConnection(uri);
     }
 
     /**
@@ -311,6 +312,7 @@ public abstract class AmazonWebServiceClient {
             this.endpoint = uri;
             this.signerRegionOverride = regionId;
         }
+        prewarmConnection(uri);
     }
 
     /**
@@ -475,6 +477,18 @@ public abstract class AmazonWebServiceClient {
             this.endpoint = uri;
             this.signer = signer;
         }
+        prewarmConnection(uri);
+    }
+
+    /**
+     * Pre-warms a connection to the endpoint if enabled by the client
+     * configuration.
+     */
+    private void prewarmConnection(final URI uri) {
+        if (clientConfiguration != null && clientConfiguration.isPrewarmConnections()
+                && client != null) {
+            client.prewarmConnection(uri);
+        }
     }
 
     /**
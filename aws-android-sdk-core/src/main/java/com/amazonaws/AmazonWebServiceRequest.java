@@ -50,6 +50,12 @@ public abstract class AmazonWebServiceRequest implements Cloneable {
      */
     private AWSCredentials credentials;
 
+    /**
+     * The optional time in milliseconds given to this request, overriding the
+     * client execution timeout set at the client level.
+     */
+    private Integer sdkClientExecutionTimeout;
+
     /**
      * Sets the optional credentials to use for this request, overriding the
      * default credentials set at the client level.
@@ -74,6 +80,52 @@ public abstract class AmazonWebServiceRequest implements Cloneable {
         return credentials;
     }
 
+    /**
+     * Sets the time in milliseconds given to this request, including its
+     * retries and the pauses between them, overriding the client execution
+     * timeout set at the client level.
+     *
+     * @param sdkClientExecutionTimeout the timeout in milliseconds, or 0 for
+     *            no limit.
+     * @see com.amazonaws.ClientConfiguration#setClientExecutionTimeout(int)
+     */
+    @SuppressWarnings("checkstyle:hiddenfield")
+    public void setSdkClientExecutionTimeout(int sdkClientExecutionTimeout) {
+        if (sdkClientExecutionTimeout < 0) {
+            throw new IllegalArgumentException(
+                    "Client execution timeout must be 0 or more");
+        }
+        this.sdkClientExecutionTimeout = sdkClientExecutionTimeout;
+    }
+
+    /**
+     * Returns the time in milliseconds given to this request, or null if the
+     * client execution timeout set at the client level applies.
+     *
+     * @return the timeout in milliseconds, or null.
+     */
+    public Integer getSdkClientExecutionTimeout() {
+        return sdkClientExecutionTimeout;
+    }
+
+    /**
+     * Sets the time in milliseconds given to this request, overriding the
+     * client execution timeout set at the client level.
+     *
+     * @param sdkClientExecutionTimeout the timeout in milliseconds, or 0 for
+     *            no limit.
+     * @param <T> class type.
+     * @return this for method chaining.
+     */
+    @SuppressWarnings("checkstyle:hiddenfield")
+    public <T extends AmazonWebServiceRequest> T withSdkClientExecutionTimeout(
+            int sdkClientExecutionTimeout) {
+        setSdkClientExecutionTimeout(sdkClientExecutionTimeout);
+        @SuppressWarnings("unchecked")
+        final T t = (T) this;
+        return t;
+    }
+
     /**
      * @return the options stored with this request object. Intended for internal
      * use only.
@@ -169,6 +221,9 @@ public abstract class AmazonWebServiceRequest implements Cloneable {
     protected final <T extends AmazonWebServiceRequest> T copyBaseTo(T target) {
         target.setGeneralProgressListener(this.generalProgressListener);
         target.setRequestMetricCollector(requestMetricCollector);
+        if (sdkClientExecutionTimeout != null) {
+            target.setSdkClientExecutionTimeout(sdkClientExecutionTimeout);
+        }
         return target;
     }
 
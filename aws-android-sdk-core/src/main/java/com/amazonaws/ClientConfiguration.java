@@ -20,6 +20,7 @@ import com.amazonaws.retry.PredefinedRetryPolicies;
 import com.amazonaws.retry.RetryPolicy;
 import com.amazonaws.util.VersionInfoUtils;
 
+import java.io.File;
 import java.net.InetAddress;
 
 import javax.net.ssl.TrustManager;
@@ -65,6 +66,22 @@ public class ClientConfiguration {
      */
     public static final boolean DEFAULT_USE_REAPER = true;
 
+    /**
+     * The default minimum size in bytes of the content of the requests to
+     * compress, for the operations which accept compressed content. Such
+     * requests are always compressed by default.
+     */
+    public static final int DEFAULT_REQUEST_COMPRESSION_THRESHOLD = 0;
+
+    /** The default time given to a service call, 0 for no limit. */
+    public static final int DEFAULT_CLIENT_EXECUTION_TIMEOUT = 0;
+
+    /**
+     * The default percentile of the latencies of an operation after which a
+     * request is hedged.
+     */
+    public static final double DEFAULT_HEDGING_PERCENTILE = 95.0;
+
     /** The HTTP user agent header passed with all HTTP requests. */
     private String userAgent = DEFAULT_USER_AGENT;
 
@@ -184,6 +201,42 @@ public class ClientConfiguration {
      */
     private boolean enableGzip = false;
 
+    /**
+     * Optional directory in which TLS sessions are persisted across process
+     * restarts.
+     */
+    private File tlsSessionCacheDirectory = null;
+
+    /**
+     * Whether to open a connection to the endpoint of a client in the
+     * background as soon as it is set.
+     */
+    private boolean prewarmConnections = false;
+
+    /**
+     * Minimum size in bytes of the content of the requests to compress, or -1
+     * to never compress requests.
+     */
+    private int requestCompressionThreshold = DEFAULT_REQUEST_COMPRESSION_THRESHOLD;
+
+    /**
+     * The time in milliseconds given to a service call, including its retries
+     * and the pauses between them, or 0 for no limit.
+     */
+    private int clientExecutionTimeout = DEFAULT_CLIENT_EXECUTION_TIMEOUT;
+
+    /**
+     * Whether to send a second copy of the requests of idempotent operations
+     * which are slower than usual.
+     */
+    private boolean hedgeRequests = false;
+
+    /**
+     * The percentile of the latencies of an operation after which a request is
+     * hedged.
+     */
+    private double hedgingPercentile = DEFAULT_HEDGING_PERCENTILE;
+
     /**
      * Constructor.
      */
@@ -217,6 +270,12 @@ public class ClientConfiguration {
         this.trustManager = other.trustManager;
         this.curlLogging = other.curlLogging;
         this.enableGzip = other.enableGzip;
+        this.tlsSessionCacheDirectory = other.tlsSessionCacheDirectory;
+        this.prewarmConnections = other.prewarmConnections;
+        this.requestCompressionThreshold = other.requestCompressionThreshold;
+        this.clientExecutionTimeout = other.clientExecutionTimeout;
+        this.hedgeRequests = other.hedgeRequests;
+        this.hedgingPercentile = other.hedgingPercentile;
     }
 
     /**
@@ -1132,4 +1191,271 @@ public class ClientConfiguration {
         setEnableGzip(enableGzip);
         return this;
     }
+
+    /**
+     * Returns the directory in which TLS sessions are persisted, or null if
+     * sessions are only cached in memory.
+     *
+     * @return the directory of the TLS session cache, or null.
+     */
+    public File getTlsSessionCacheDirectory() {
+        return tlsSessionCacheDirectory;
+    }
+
+    /**
+     * Sets the directory in which TLS sessions are persisted, so that the
+     * first request to an endpoint after the app restarts can resume a
+     * previous session instead of doing a full handshake. This is only
+     * supported by {@link com.amazonaws.http.UrlHttpClient} on Android, and is
+     * ignored otherwise. A directory in the cache directory of the app, such
+     * as {@code new File(context.getCacheDir(), "tls-sessions")}, is a good
+     * choice. Defaults to null, which caches sessions in memory only.
+     *
+     * @param tlsSessionCacheDirectory the directory of the TLS session cache,
+     *            or null.
+     */
+    @SuppressWarnings("checkstyle:hiddenfield")
+    public void setTlsSessionCacheDirectory(File tlsSessionCacheDirectory) {
+        this.tlsSessionCacheDirectory = tlsSessionCacheDirectory;
+    }
+
+    /**
+     * Sets the directory in which TLS sessions are persisted, and returns the
+     * updated ClientConfiguration object so that additional calls may be
+     * chained together.
+     *
+     * @param tlsSessionCacheDirectory the directory of the TLS session cache,
+     *            or null.
+     * @return The updated ClientConfiguration object.
+     * @see #setTlsSessionCacheDirectory(File)
+     */
+    @SuppressWarnings("checkstyle:hiddenfield")
+    public ClientConfiguration withTlsSessionCacheDirectory(File tlsSessionCacheDirectory) {
+        setTlsSessionCacheDirectory(tlsSessionCacheDirectory);
+        return this;
+    }
+
+    /**
+     * @return whether clients open a connection to their endpoint in the
+     *         background as soon as it is set.
+     */
+    public boolean isPrewarmConnections() {
+        return prewarmConnections;
+    }
+
+    /**
+     * Sets whether clients open a connection to their endpoint in the
+     * background as soon as it is set, so that the first request doesn't wait
+     * for the DNS lookup, the TCP connection and the TLS handshake. The
+     * connection is opened with an unsigned HEAD request to the root of the
+     * endpoint, whose response is ignored. Defaults to false.
+     *
+     * @param prewarmConnections whether to pre-warm connections.
+     */
+    @SuppressWarnings("checkstyle:hiddenfield")
+    public void setPrewarmConnections(boolean prewarmConnections) {
+        this.prewarmConnections = prewarmConnections;
+    }
+
+    /**
+     * Sets whether clients open a connection to their endpoint in the
+     * background as soon as it is set, and returns the updated
+     * ClientConfiguration object so that additional calls may be chained
+     * together.
+     *
+     * @param prewarmConnections whether to pre-warm connections.
+     * @return The updated ClientConfiguration object.
+     * @see #setPrewarmConnections(boolean)
+     */
+    @SuppressWarnings("checkstyle:hiddenfield")
+    public ClientConfiguration withPrewarmConnections(boolean prewarmConnections) {
+        setPrewarmConnections(prewarmConnections);
+        return this;
+    }
+
+    /**
+     * Returns the minimum size in bytes of the content of a request for it to
+     * be gzip compressed, or -1 if requests are never compressed.
+     *
+     * @return the request compression threshold.
+     * @see #setRequestCompressionThreshold(int)
+     */
+    public int getRequestCompressionThreshold() {
+        return requestCompressionThreshold;
+    }
+
+    /**
+     * Sets the minimum size in bytes of the content of a request for it to be
+     * gzip compressed. Only the requests of the operations which accept
+     * compressed content, such as Kinesis PutRecords, are compressed, and the
+     * compressed content is signed. Small requests often don't shrink enough
+     * to be worth the CPU time. Defaults to
+     * {@link #DEFAULT_REQUEST_COMPRESSION_THRESHOLD}, which compresses all of
+     * them.
+     *
+     * @param requestCompressionThreshold the minimum size in bytes of the
+     *            content to compress, or -1 to never compress requests.
+     */
+    @SuppressWarnings("checkstyle:hiddenfield")
+    public void setRequestCompressionThreshold(int requestCompressionThreshold) {
+        if (requestCompressionThreshold < -1) {
+            throw new IllegalArgumentException(
+                    "Request compression threshold must be -1 or more");
+        }
+        this.requestCompressionThreshold = requestCompressionThreshold;
+    }
+
+    /**
+     * Sets the minimum size in bytes of the content of a request for it to be
+     * gzip compressed, and returns the updated ClientConfiguration object so
+     * that additional calls may be chained together.
+     *
+     * @param requestCompressionThreshold the minimum size in bytes of the
+     *            content to compress, or -1 to never compress requests.
+     * @return The updated ClientConfiguration object.
+     * @see #setRequestCompressionThreshold(int)
+     */
+    @SuppressWarnings("checkstyle:hiddenfield")
+    public ClientConfiguration withRequestCompressionThreshold(int requestCompressionThreshold) {
+        setRequestCompressionThreshold(requestCompressionThreshold);
+        return this;
+    }
+
+    /**
+     * Returns the time in milliseconds given to a service call, including its
+     * retries and the pauses between them, or 0 for no limit.
+     *
+     * @return the client execution timeout in milliseconds.
+     * @see #setClientExecutionTimeout(int)
+     */
+    public int getClientExecutionTimeout() {
+        return clientExecutionTimeout;
+    }
+
+    /**
+     * Sets the time in milliseconds given to a service call, including its
+     * retries and the pauses between them. A call still running at the
+     * deadline fails with a
+     * {@link com.amazonaws.ClientExecutionTimeoutException}, and a retry
+     * which would start after it isn't attempted. The connection and socket
+     * timeouts still apply to each attempt. Can be overridden for a request
+     * by {@link AmazonWebServiceRequest#setSdkClientExecutionTimeout(int)}.
+     * <p>
+     * The deadline covers sending each attempt and waiting for its response
+     * status and headers; an attempt still waiting at the deadline is
+     * disconnected. Reading and unmarshalling the body of the response
+     * aren't covered, and are bounded only by the socket timeout.
+     *
+     * @param clientExecutionTimeout the timeout in milliseconds, or 0 for no
+     *            limit.
+     */
+    @SuppressWarnings("checkstyle:hiddenfield")
+    public void setClientExecutionTimeout(int clientExecutionTimeout) {
+        if (clientExecutionTimeout < 0) {
+            throw new IllegalArgumentException(
+                    "Client execution timeout must be 0 or more");
+        }
+        this.clientExecutionTimeout = clientExecutionTimeout;
+    }
+
+    /**
+     * Sets the time in milliseconds given to a service call, including its
+     * retries and the pauses between them, and returns the updated
+     * ClientConfiguration object so that additional calls may be chained
+     * together.
+     *
+     * @param clientExecutionTimeout the timeout in milliseconds, or 0 for no
+     *            limit.
+     * @return The updated ClientConfiguration object.
+     * @see #setClientExecutionTimeout(int)
+     */
+    @SuppressWarnings("checkstyle:hiddenfield")
+    public ClientConfiguration withClientExecutionTimeout(int clientExecutionTimeout) {
+        setClientExecutionTimeout(clientExecutionTimeout);
+        return this;
+    }
+
+    /**
+     * Returns whether the requests of idempotent operations are hedged.
+     *
+     * @return true if requests are hedged.
+     * @see #setHedgeRequests(boolean)
+     */
+    public boolean isHedgeRequests() {
+        return hedgeRequests;
+    }
+
+    /**
+     * Sets whether to hedge the requests of idempotent operations, such as
+     * DynamoDB GetItem and Query, and S3 GET and HEAD requests. When there is
+     * no response to such a request after the latency at
+     * {@link #getHedgingPercentile()} of the last requests of the same
+     * operation, a copy of the request is sent, and the first response wins.
+     * This cuts the tail latency at the cost of a few extra requests, which
+     * consume capacity like any other request.
+     *
+     * @param hedgeRequests true to hedge requests.
+     */
+    @SuppressWarnings("checkstyle:hiddenfield")
+    public void setHedgeRequests(boolean hedgeRequests) {
+        this.hedgeRequests = hedgeRequests;
+    }
+
+    /**
+     * Sets whether to hedge the requests of idempotent operations, and returns
+     * the updated ClientConfiguration object so that additional calls may be
+     * chained together.
+     *
+     * @param hedgeRequests true to hedge requests.
+     * @return The updated ClientConfiguration object.
+     * @see #setHedgeRequests(boolean)
+     */
+    @SuppressWarnings("checkstyle:hiddenfield")
+    public ClientConfiguration withHedgeRequests(boolean hedgeRequests) {
+        setHedgeRequests(hedgeRequests);
+        return this;
+    }
+
+    /**
+     * Returns the percentile of the latencies of an operation after which a
+     * request is hedged.
+     *
+     * @return the hedging percentile.
+     * @see #setHedgingPercentile(double)
+     */
+    public double getHedgingPercentile() {
+        return hedgingPercentile;
+    }
+
+    /**
+     * Sets the percentile of the latencies of the last requests of an
+     * operation after which a request of this operation is hedged. About
+     * 100 - hedgingPercentile percent of the requests are sent twice.
+     * Defaults to {@link #DEFAULT_HEDGING_PERCENTILE}.
+     *
+     * @param hedgingPercentile the percentile, between 50 and 100.
+     */
+    @SuppressWarnings("checkstyle:hiddenfield")
+    public void setHedgingPercentile(double hedgingPercentile) {
+        if (!(hedgingPercentile >= 50 && hedgingPercentile <= 100)) {
+            throw new IllegalArgumentException(
+                    "Hedging percentile must be between 50 and 100");
+        }
+        this.hedgingPercentile = hedgingPercentile;
+    }
+
+    /**
+     * Sets the percentile of the latencies of an operation after which a
+     * request is hedged, and returns the updated ClientConfiguration object so
+     * that additional calls may be chained together.
+     *
+     * @param hedgingPercentile the percentile, between 50 and 100.
+     * @return The updated ClientConfiguration object.
+     * @see #setHedgingPercentile(double)
+     */
+    @SuppressWarnings("checkstyle:hiddenfield")
+    public ClientConfiguration withHedgingPercentile(double hedgingPercentile) {
+        setHedgingPercentile(hedgingPercentile);
+        return this;
+    }
 }
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws;
+
+/**
+ * Thrown when a service call, including its retries and the pauses between
+ * them, doesn't complete before the client execution timeout.
+ *
+ * @see ClientConfiguration#setClientExecutionTimeout(int)
+ * @see AmazonWebServiceRequest#setSdkClientExecutionTimeout(int)
+ */
+public class ClientExecutionTimeoutException extends AmazonClientException {
+
+    /** Default serial version UID. */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructor.
+     * @param message the exception message.
+     * @param t the last failure of the call, or null.
+     */
+    public ClientExecutionTimeoutException(final String message, final Throwable t) {
+        super(message, t);
+    }
+
+    /**
+     * Constructor.
+     * @param message the exception message.
+     */
+    public ClientExecutionTimeoutException(final String message) {
+        super(message);
+    }
+
+    /**
+     * {@inheritDoc} The time given to the call is spent, so it is not
+     * retried.
+     * @return false.
+     */
+    @Override
+    public boolean isRetryable() {
+        return false;
+    }
+}
@@ -37,6 +37,9 @@ public class DefaultRequest<T> implements Request<T> {
     private String resourcePath;
 
     private boolean streaming = false;
+
+    private boolean compressible = false;
+    private boolean idempotent = false;
     /**
      * Map of the parameters being sent as part of this request.
      * <p>
@@ -335,4 +338,24 @@ public class DefaultRequest<T> implements Request<T> {
     public void setStreaming(boolean streaming) {
         this.streaming = streaming;
     }
+
+    @Override
+    public boolean isCompressible() {
+        return this.compressible;
+    }
+
+    @Override
+    public void setCompressible(boolean compressible) {
+        this.compressible = compressible;
+    }
+
+    @Override
+    public boolean isIdempotent() {
+        return this.idempotent;
+    }
+
+    @Override
+    public void setIdempotent(boolean idempotent) {
+        this.idempotent = idempotent;
+    }
 }
@@ -226,4 +226,38 @@ public interface Request<T> {
      * @param streaming the streaming flag.
      */
     public void setStreaming(boolean streaming);
+
+    /**
+     * Flag that indicates that the operation accepts gzip compressed content,
+     * so that the client may compress it.
+     *
+     * @return true if the content of the request may be compressed.
+     * @see ClientConfiguration#setRequestCompressionThreshold(int)
+     */
+    public boolean isCompressible();
+
+    /**
+     * Set compressible flag
+     *
+     * @param compressible true if the operation accepts gzip compressed
+     *            content.
+     */
+    public void setCompressible(boolean compressible);
+
+    /**
+     * Flag that indicates that the operation only reads, so that the client
+     * may send the request twice at the same time. GET and HEAD requests
+     * without content are always treated as such.
+     *
+     * @return true if the request may be hedged.
+     * @see ClientConfiguration#setHedgeRequests(boolean)
+     */
+    public boolean isIdempotent();
+
+    /**
+     * Set idempotent flag
+     *
+     * @param idempotent true if the operation only reads.
+     */
+    public void setIdempotent(boolean idempotent);
 }
@@ -21,6 +21,7 @@ import com.amazonaws.util.AwsHostNameUtils;
 import com.amazonaws.util.BinaryUtils;
 import com.amazonaws.util.DateUtils;
 import com.amazonaws.util.HttpUtils;
+import com.amazonaws.util.ReplayableWriterInputStream;
 import com.amazonaws.util.StringUtils;
 
 import com.amazonaws.logging.Log;
@@ -351,6 +352,12 @@ public class AWS4Signer extends AbstractAWSSigner
      * relating to content-encoding and content-length.)
      */
     protected String calculateContentHash(Request<?> request) {
+        if (request.getContent() instanceof ReplayableWriterInputStream
+                && !HttpUtils.usePayloadForQueryParameters(request)) {
+            // Hash the content as it is written rather than buffering it.
+            return BinaryUtils.toHex(
+                    ((ReplayableWriterInputStream) request.getContent()).getContentSha256());
+        }
         final InputStream payloadStream = getBinaryRequestPayloadStream(request);
         payloadStream.mark(-1);
         final String contentSha256 = BinaryUtils.toHex(hash(payloadStream));
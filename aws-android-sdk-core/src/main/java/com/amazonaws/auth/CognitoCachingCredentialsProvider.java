@@ -465,7 +465,12 @@ public class CognitoCachingCredentialsProvider
 
     @Override
     public AWSSessionCredentials getCredentials() {
-    	credentialsLock.writeLock().lock();
+        final AWSSessionCredentials credentials = getCurrentCredentials();
+        if (credentials != null) {
+            return credentials;
+        }
+
+        lockCredentialsForWrite();
         try {
             // return only if the credentials are valid
         	if (sessionCredentials == null) {
@@ -505,7 +510,7 @@ public class CognitoCachingCredentialsProvider
     
     @Override
     public void refresh() {
-    	credentialsLock.writeLock().lock();
+    	lockCredentialsForWrite();
     	try {
     		super.refresh();
 
@@ -614,6 +619,7 @@ public class CognitoCachingCredentialsProvider
         }
 
         sessionCredentials = new BasicSessionCredentials(accessKey, secretAccessKey, sessionToken);
+        publishSession();
     }
 
     /**
@@ -39,6 +39,13 @@ import com.amazonaws.logging.Log;
 import com.amazonaws.logging.LogFactory;
 import org.json.JSONObject;
 
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.Date;
 import java.util.HashMap;
@@ -65,12 +72,45 @@ public class CognitoCredentialsProvider implements AWSCredentialsProvider {
     /** Default threshold for refreshing session credentials */
     public static final int DEFAULT_THRESHOLD_SECONDS = 500;
 
+    /**
+     * Minimum time left on the current session credentials for a refresh to
+     * happen in the background instead of blocking the caller.
+     */
+    private static final long MIN_ASYNC_REFRESH_REMAINING_MILLIS = TimeUnit.SECONDS.toMillis(60);
+
+    /** Time to wait after a failed background refresh before trying again */
+    private static final long ASYNC_REFRESH_RETRY_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private static final int REFRESH_THREADS = 2;
+
+    private static final long REFRESH_KEEP_ALIVE_SECONDS = 30;
+
+    /** Runs background refreshes for all providers */
+    private static final ThreadPoolExecutor REFRESH_EXECUTOR = newRefreshExecutor();
+
     /** The current session credentials */
     protected AWSSessionCredentials sessionCredentials;
 
     /** The expiration time for the current session credentials */
     protected Date sessionCredentialsExpiration;
 
+    /**
+     * The current credentials and their expiration, read without taking
+     * {@link #credentialsLock}. Replaced as a whole by
+     * {@link #publishSession()} so readers never see one without the other.
+     */
+    private volatile Session currentSession;
+
+    /** Set while a background refresh is running */
+    private final AtomicBoolean asyncRefreshInProgress = new AtomicBoolean(false);
+    private volatile long lastAsyncRefreshFailure;
+
+    private final AtomicLong credentialsLockWaits = new AtomicLong();
+    private final AtomicLong credentialsLockWaitNanos = new AtomicLong();
+    private final AtomicLong sessionRefreshes = new AtomicLong();
+    private final AtomicLong sessionRefreshNanos = new AtomicLong();
+    private final AtomicLong maxSessionRefreshNanos = new AtomicLong();
+
     /** The current Token */
     protected String token;
 
@@ -434,6 +474,7 @@ public class CognitoCredentialsProvider implements AWSCredentialsProvider {
         credentialsLock.writeLock().lock();
         try {
             sessionCredentialsExpiration = expiration;
+            publishSession();
         } finally {
             credentialsLock.writeLock().unlock();
         }
@@ -459,10 +500,15 @@ public class CognitoCredentialsProvider implements AWSCredentialsProvider {
      */
     @Override
     public AWSSessionCredentials getCredentials() {
-        credentialsLock.writeLock().lock();
+        final AWSSessionCredentials credentials = getCurrentCredentials();
+        if (credentials != null) {
+            return credentials;
+        }
+
+        lockCredentialsForWrite();
         try {
             if (needsNewSession()) {
-                startSession();
+                timedStartSession();
             }
             return sessionCredentials;
         } finally {
@@ -470,6 +516,162 @@ public class CognitoCredentialsProvider implements AWSCredentialsProvider {
         }
     }
 
+    /**
+     * Returns the current session credentials without locking if they can
+     * still be used. When they are within the refresh threshold but not about
+     * to expire, a single background refresh is started and the current
+     * credentials are returned meanwhile.
+     *
+     * @return the current credentials, or null if the caller has to start a
+     *         new session under {@link #credentialsLock}
+     */
+    protected AWSSessionCredentials getCurrentCredentials() {
+        final Session session = currentSession;
+        if (session == null) {
+            return null;
+        }
+
+        final long timeRemaining = session.expiration - getCurrentTimeMillis();
+        if (timeRemaining >= refreshThreshold * 1000L) {
+            return session.credentials;
+        }
+        if (timeRemaining > MIN_ASYNC_REFRESH_REMAINING_MILLIS && refreshInBackground()) {
+            return session.credentials;
+        }
+        return null;
+    }
+
+    /**
+     * Makes the current {@link #sessionCredentials} and
+     * {@link #sessionCredentialsExpiration} visible to
+     * {@link #getCurrentCredentials()}. Call while holding the write lock of
+     * {@link #credentialsLock}, after assigning both.
+     */
+    protected void publishSession() {
+        final AWSSessionCredentials credentials = sessionCredentials;
+        final Date expiration = sessionCredentialsExpiration;
+        currentSession = credentials == null || expiration == null
+                ? null
+                : new Session(credentials, expiration.getTime());
+    }
+
+    /**
+     * Starts a background {@link #refresh()} unless one is already running.
+     *
+     * @return true if a refresh is running, false if the last background
+     *         refresh failed recently and the caller should refresh itself
+     */
+    private boolean refreshInBackground() {
+        if (System.currentTimeMillis() - lastAsyncRefreshFailure < ASYNC_REFRESH_RETRY_INTERVAL_MILLIS) {
+            return false;
+        }
+        if (!asyncRefreshInProgress.compareAndSet(false, true)) {
+            return true;
+        }
+
+        try {
+            REFRESH_EXECUTOR.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        refresh();
+                    } catch (final Exception e) {
+                        log.warn("Failed to refresh session credentials in the background", e);
+                        lastAsyncRefreshFailure = System.currentTimeMillis();
+                    } finally {
+                        asyncRefreshInProgress.set(false);
+                    }
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            asyncRefreshInProgress.set(false);
+            return false;
+        }
+        return true;
+    }
+
+    private static ThreadPoolExecutor newRefreshExecutor() {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(REFRESH_THREADS,
+                REFRESH_THREADS, REFRESH_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        final Thread thread = new Thread(r, "CognitoCredentialsRefresh");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Acquires the write lock of {@link #credentialsLock}, recording how long
+     * the caller had to wait for it.
+     */
+    protected void lockCredentialsForWrite() {
+        if (credentialsLock.writeLock().tryLock()) {
+            return;
+        }
+        final long start = System.nanoTime();
+        credentialsLock.writeLock().lock();
+        credentialsLockWaits.incrementAndGet();
+        credentialsLockWaitNanos.addAndGet(System.nanoTime() - start);
+    }
+
+    private void timedStartSession() {
+        final long start = System.nanoTime();
+        try {
+            startSession();
+        } finally {
+            final long elapsed = System.nanoTime() - start;
+            sessionRefreshes.incrementAndGet();
+            sessionRefreshNanos.addAndGet(elapsed);
+            long max;
+            do {
+                max = maxSessionRefreshNanos.get();
+            } while (elapsed > max && !maxSessionRefreshNanos.compareAndSet(max, elapsed));
+        }
+    }
+
+    /**
+     * @return the number of times a caller had to wait for another thread
+     *         holding the credentials lock
+     */
+    public long getCredentialsLockWaitCount() {
+        return credentialsLockWaits.get();
+    }
+
+    /**
+     * @return the total time callers waited for the credentials lock, in
+     *         milliseconds
+     */
+    public long getCredentialsLockWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(credentialsLockWaitNanos.get());
+    }
+
+    /**
+     * @return the number of sessions started by this provider
+     */
+    public long getSessionRefreshCount() {
+        return sessionRefreshes.get();
+    }
+
+    /**
+     * @return the average time taken to start a session, in milliseconds
+     */
+    public long getAverageSessionRefreshMillis() {
+        final long refreshes = sessionRefreshes.get();
+        return refreshes == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(sessionRefreshNanos.get() / refreshes);
+    }
+
+    /**
+     * @return the longest time taken to start a session, in milliseconds
+     */
+    public long getMaxSessionRefreshMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxSessionRefreshNanos.get());
+    }
+
     /**
      * Set the duration of the session credentials created by this client in
      * seconds. Values must be supported by AssumeRoleWithWebIdentityRequest.
@@ -626,9 +828,9 @@ public class CognitoCredentialsProvider implements AWSCredentialsProvider {
 
     @Override
     public void refresh() {
-        credentialsLock.writeLock().lock();
+        lockCredentialsForWrite();
         try {
-            startSession();
+            timedStartSession();
         } finally {
             credentialsLock.writeLock().unlock();
         }
@@ -659,6 +861,7 @@ public class CognitoCredentialsProvider implements AWSCredentialsProvider {
         try {
             sessionCredentials = null;
             sessionCredentialsExpiration = null;
+            publishSession();
         } finally {
             credentialsLock.writeLock().unlock();
         }
@@ -847,13 +1050,33 @@ public class CognitoCredentialsProvider implements AWSCredentialsProvider {
         if (sessionCredentials == null) {
             return true;
         }
-        long currentTime = System.currentTimeMillis()
-                - SDKGlobalConfiguration.getGlobalTimeOffset() * 1000;
-        long timeRemaining = sessionCredentialsExpiration.getTime()
-                - currentTime;
+        final Date expiration = sessionCredentialsExpiration;
+        if (expiration == null) {
+            return true;
+        }
+        long timeRemaining = expiration.getTime()
+                - getCurrentTimeMillis();
         return timeRemaining < (refreshThreshold * 1000);
     }
 
+    /**
+     * Session credentials together with their expiration time.
+     */
+    private static final class Session {
+        private final AWSSessionCredentials credentials;
+        private final long expiration;
+
+        private Session(AWSSessionCredentials credentials, long expiration) {
+            this.credentials = credentials;
+            this.expiration = expiration;
+        }
+    }
+
+    private static long getCurrentTimeMillis() {
+        return System.currentTimeMillis()
+                - SDKGlobalConfiguration.getGlobalTimeOffset() * 1000;
+    }
+
     /**
      * Append user agent string to the request. The final string is what is set
      * in the ClientCofniguration concatenated with the given userAgent string.
@@ -34,15 +34,19 @@ import com.amazonaws.handlers.RequestHandler2;
 import com.amazonaws.internal.CRC32MismatchException;
 import com.amazonaws.metrics.AwsSdkMetrics;
 import com.amazonaws.metrics.RequestMetricCollector;
+import com.amazonaws.retry.AdaptiveRetryController;
 import com.amazonaws.retry.RetryPolicy;
 import com.amazonaws.retry.RetryUtils;
 import com.amazonaws.util.AWSRequestMetrics;
 import com.amazonaws.util.AWSRequestMetrics.Field;
 import com.amazonaws.util.DateUtils;
+import com.amazonaws.util.HttpUtils;
+import com.amazonaws.util.IOUtils;
 import com.amazonaws.util.TimingInfo;
 
 import com.amazonaws.logging.Log;
 import com.amazonaws.logging.LogFactory;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
@@ -53,6 +57,12 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The Amazon HTTP Client class.
@@ -101,6 +111,18 @@ public class AmazonHttpClient {
 
     private final HttpRequestFactory requestFactory = new HttpRequestFactory();
 
+    /** Sends the requests pre-warming connections, on daemon threads. */
+    private static final ThreadPoolExecutor PREWARM_EXECUTOR = newPrewarmExecutor();
+    private static final int PREWARM_THREADS = 2;
+    private static final long PREWARM_KEEP_ALIVE_SECONDS = 60;
+
+    /** Endpoint last pre-warmed by this client. */
+    private volatile URI prewarmedEndpoint;
+
+    /** Latencies of the hedged operations, by service and operation. */
+    private final ConcurrentHashMap<String, LatencyTracker> latencyTrackers =
+            new ConcurrentHashMap<String, LatencyTracker>();
+
     /**
      * Constructs a new AWS client using the specified client configuration
      * options (ex: max retry attempts, proxy settings, etc).
@@ -290,10 +312,19 @@ public class AmazonHttpClient {
         // user-agent.
         setUserAgent(request);
         request.addHeader(HEADER_SDK_TRANSACTION_ID, UUID.randomUUID().toString());
+        // Compress before the content is marked and signed, so that retries
+        // resend and re-sign the compressed content.
+        RequestCompressor.compress(request, config.getRequestCompressionThreshold());
+        final ExecutionDeadline deadline = ExecutionDeadline.start(
+                getClientExecutionTimeout(request));
         int requestCount = 0;
         long lastBackoffDelay = 0;
         URI redirectedURI = null;
         AmazonClientException retriedException = null;
+        final AdaptiveRetryController adaptiveRetry = config.getRetryPolicy()
+                .getAdaptiveRetryController();
+        // Retry tokens taken for the current attempt
+        int retryCost = 0;
 
         // Make a copy of the original request params and headers so that we can
         // permute it in this loop and start over with the original every time.
@@ -333,7 +364,8 @@ public class AmazonHttpClient {
                         lastBackoffDelay = pauseBeforeNextRetry(request.getOriginalRequest(),
                                 retriedException,
                                 requestCount,
-                                config.getRetryPolicy());
+                                config.getRetryPolicy(),
+                                deadline);
                     } finally {
                         awsRequestMetrics.endEvent(Field.RetryPauseTime);
                     }
@@ -344,6 +376,10 @@ public class AmazonHttpClient {
                 }
                 request.addHeader(HEADER_SDK_RETRY_INFO,
                         (requestCount - 1) + "/" + lastBackoffDelay);
+                if (adaptiveRetry != null) {
+                    // Wait for the rate limiter before signing the request.
+                    adaptiveRetry.beforeAttempt(request.getEndpoint());
+                }
 
                 // Sign the request if a signer was provided
                 if (signer == null) {
@@ -362,19 +398,25 @@ public class AmazonHttpClient {
                     REQUEST_LOG.debug("Sending Request: " + request.toString());
                 }
 
+                if (deadline.hasExpired()) {
+                    throw deadline.newTimeoutException(retriedException);
+                }
                 httpRequest = requestFactory.createHttpRequest(request, config,
                         executionContext);
 
                 retriedException = null;
                 awsRequestMetrics.startEvent(Field.HttpRequestTime);
                 try {
-                    httpResponse = httpClient.execute(httpRequest);
+                    httpResponse = sendRequest(request, httpRequest, deadline);
                 } finally {
                     awsRequestMetrics.endEvent(Field.HttpRequestTime);
                 }
 
                 if (isRequestSuccessful(httpResponse)) {
                     awsRequestMetrics.addProperty(Field.StatusCode, httpResponse.getStatusCode());
+                    if (adaptiveRetry != null) {
+                        adaptiveRetry.onSuccess(request.getEndpoint(), retryCost);
+                    }
                     /*
                      * If we get back any 2xx status code, then we know we
                      * should treat the service call as successful.
@@ -407,6 +449,9 @@ public class AmazonHttpClient {
                     awsRequestMetrics.addProperty(Field.AWSRequestID, ase.getRequestId());
                     awsRequestMetrics.addProperty(Field.AWSErrorCode, ase.getErrorCode());
                     awsRequestMetrics.addProperty(Field.StatusCode, ase.getStatusCode());
+                    if (adaptiveRetry != null) {
+                        adaptiveRetry.onFailure(request.getEndpoint(), ase);
+                    }
 
                     if (!shouldRetry(request.getOriginalRequest(),
                             httpRequest.getContent(),
@@ -415,6 +460,12 @@ public class AmazonHttpClient {
                             config.getRetryPolicy())) {
                         throw ase;
                     }
+                    if (adaptiveRetry != null) {
+                        retryCost = adaptiveRetry.acquireRetryCapacity(ase);
+                        if (retryCost < 0) {
+                            throw ase;
+                        }
+                    }
 
                     // Cache the retryable exception
                     retriedException = ase;
@@ -439,6 +490,9 @@ public class AmazonHttpClient {
 
                 final AmazonClientException ace = new AmazonClientException(
                         "Unable to execute HTTP request: " + ioe.getMessage(), ioe);
+                if (adaptiveRetry != null) {
+                    adaptiveRetry.onFailure(request.getEndpoint(), ace);
+                }
                 if (!shouldRetry(request.getOriginalRequest(),
                         httpRequest.getContent(),
                         ace,
@@ -446,6 +500,12 @@ public class AmazonHttpClient {
                         config.getRetryPolicy())) {
                     throw ace;
                 }
+                if (adaptiveRetry != null) {
+                    retryCost = adaptiveRetry.acquireRetryCapacity(ace);
+                    if (retryCost < 0) {
+                        throw ace;
+                    }
+                }
 
                 // Cache the retryable exception
                 retriedException = ace;
@@ -558,6 +618,160 @@ public class AmazonHttpClient {
         httpClient.shutdown();
     }
 
+    /**
+     * Opens a connection to the given endpoint in the background, so that the
+     * first request to it doesn't wait for the DNS lookup, the TCP connection
+     * and the TLS handshake. The connection is opened by an unsigned HEAD
+     * request to the root of the endpoint, whose response is ignored. Failures
+     * are only logged.
+     *
+     * @param endpoint the endpoint to connect to.
+     * @see ClientConfiguration#setPrewarmConnections(boolean)
+     */
+    public void prewarmConnection(final URI endpoint) {
+        if (endpoint == null || endpoint.equals(prewarmedEndpoint)) {
+            return;
+        }
+        prewarmedEndpoint = endpoint;
+        try {
+            PREWARM_EXECUTOR.execute(new Runnable() {
+                @Override
+                public void run() {
+                    prewarm(endpoint);
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            log.debug("Unable to pre-warm a connection to " + endpoint + ": " + e);
+        }
+    }
+
+    void prewarm(URI endpoint) {
+        final Map<String, String> headers = new HashMap<String, String>();
+        headers.put(HEADER_USER_AGENT, config.getUserAgent());
+        final HttpRequest request = new HttpRequest("HEAD", endpoint.resolve("/"), headers,
+                null);
+        try {
+            final HttpResponse response = httpClient.execute(request);
+            // Release the connection for the next request.
+            final InputStream content = response.getRawContent();
+            if (content != null) {
+                content.close();
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Pre-warmed a connection to " + endpoint);
+            }
+        } catch (final Exception e) {
+            log.debug("Unable to pre-warm a connection to " + endpoint + ": " + e);
+        }
+    }
+
+    private static ThreadPoolExecutor newPrewarmExecutor() {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(PREWARM_THREADS,
+                PREWARM_THREADS, PREWARM_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        final Thread thread = new Thread(r, "aws-connection-prewarm");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private int getClientExecutionTimeout(Request<?> request) {
+        final AmazonWebServiceRequest originalRequest = request.getOriginalRequest();
+        if (originalRequest != null && originalRequest.getSdkClientExecutionTimeout() != null) {
+            return originalRequest.getSdkClientExecutionTimeout();
+        }
+        return config.getClientExecutionTimeout();
+    }
+
+    /**
+     * Sends one attempt of the request. The attempt is hedged if the operation
+     * is idempotent, hedging is enabled and enough latencies of the operation
+     * are known. A hedged attempt is sent on a background thread, and one with
+     * a deadline is disconnected when the deadline passes before its response
+     * status is received; the response body is read after the deadline
+     * stopped applying.
+     *
+     * @param request the request.
+     * @param httpRequest the signed HTTP request.
+     * @param deadline the deadline of the call.
+     * @return the response.
+     * @throws IOException if the attempt failed.
+     */
+    HttpResponse sendRequest(Request<?> request, HttpRequest httpRequest,
+            ExecutionDeadline deadline) throws IOException {
+        final LatencyTracker latencyTracker = getLatencyTracker(request, httpRequest);
+        HttpRequest primary = httpRequest;
+        HttpRequest hedge = null;
+        final long hedgeDelayNanos = latencyTracker == null ? -1
+                : latencyTracker.getPercentile(config.getHedgingPercentile());
+        if (hedgeDelayNanos >= 0) {
+            // Both attempts need their own copy of the content.
+            byte[] content = null;
+            if (httpRequest.getContent() != null) {
+                content = IOUtils.toByteArray(httpRequest.getContent());
+                httpRequest.getContent().reset();
+            }
+            primary = copyHttpRequest(httpRequest, content);
+            hedge = copyHttpRequest(httpRequest, content);
+        }
+
+        if (hedge == null && !deadline.isSet()) {
+            final long startNanos = System.nanoTime();
+            final HttpResponse response = httpClient.execute(primary);
+            if (latencyTracker != null
+                    && response.getStatusCode() < HttpUtils.HTTP_STATUS_INTERNAL_SERVER_ERROR) {
+                latencyTracker.record(System.nanoTime() - startNanos);
+            }
+            return response;
+        }
+        return new HedgedRequestExecutor(httpClient, latencyTracker)
+                .execute(primary, hedge, hedgeDelayNanos, deadline);
+    }
+
+    /**
+     * Returns the latencies of the operation of the request, or null if the
+     * request isn't hedged.
+     */
+    private LatencyTracker getLatencyTracker(Request<?> request, HttpRequest httpRequest) {
+        if (!config.isHedgeRequests() || httpRequest.isStreaming()) {
+            return null;
+        }
+        final InputStream content = httpRequest.getContent();
+        final String method = httpRequest.getMethod();
+        final boolean idempotent = request.isIdempotent()
+                || content == null && ("GET".equals(method) || "HEAD".equals(method));
+        if (!idempotent || content != null && !content.markSupported()) {
+            return null;
+        }
+
+        final AmazonWebServiceRequest originalRequest = request.getOriginalRequest();
+        final String operation = request.getServiceName() + " "
+                + (originalRequest != null ? originalRequest.getClass().getName() : method);
+        LatencyTracker latencyTracker = latencyTrackers.get(operation);
+        if (latencyTracker == null) {
+            latencyTracker = new LatencyTracker();
+            final LatencyTracker existing = latencyTrackers.putIfAbsent(operation,
+                    latencyTracker);
+            if (existing != null) {
+                latencyTracker = existing;
+            }
+        }
+        return latencyTracker;
+    }
+
+    private static HttpRequest copyHttpRequest(HttpRequest httpRequest, byte[] content) {
+        final HttpRequest copy = new HttpRequest(httpRequest.getMethod(), httpRequest.getUri(),
+                httpRequest.getHeaders(), content == null ? null
+                        : new ByteArrayInputStream(content));
+        copy.setStreaming(httpRequest.isStreaming());
+        return copy;
+    }
+
     /**
      * Returns true if a failed request should be retried.
      *
@@ -742,11 +956,14 @@ public class AmazonHttpClient {
      * @param requestCount current request count (including the next attempt
      *            after the delay)
      * @param retryPolicy The retry policy configured in this http client.
+     * @param deadline The deadline of the call, which the retry must start
+     *            before.
      */
     private long pauseBeforeNextRetry(AmazonWebServiceRequest originalRequest,
             AmazonClientException previousException,
             int requestCount,
-            RetryPolicy retryPolicy) {
+            RetryPolicy retryPolicy,
+            ExecutionDeadline deadline) {
         final int retries = requestCount // including next attempt
                 - 1 // number of attempted requests
                 - 1; // number of attempted retries
@@ -754,6 +971,10 @@ public class AmazonHttpClient {
         final long delay = retryPolicy.getBackoffStrategy().delayBeforeNextRetry(
                 originalRequest, previousException, retries);
 
+        if (deadline.isSet()
+                && TimeUnit.MILLISECONDS.toNanos(delay) >= deadline.remainingNanos()) {
+            throw deadline.newTimeoutException(previousException);
+        }
         if (log.isDebugEnabled()) {
             log.debug("Retriable error detected, " +
                     "will retry in " + delay + "ms, attempt number: " + retries);
@@ -17,7 +17,10 @@ package com.amazonaws.http;
 
 import com.amazonaws.ClientConfiguration;
 
+import com.amazonaws.util.ReplayableWriterInputStream;
+
 import org.apache.http.Header;
+import org.apache.http.HttpEntity;
 import org.apache.http.client.methods.HttpDelete;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpHead;
@@ -28,6 +31,7 @@ import org.apache.http.client.params.ClientPNames;
 import org.apache.http.conn.scheme.Scheme;
 import org.apache.http.conn.scheme.SchemeRegistry;
 import org.apache.http.conn.ssl.SSLSocketFactory;
+import org.apache.http.entity.AbstractHttpEntity;
 import org.apache.http.entity.InputStreamEntity;
 import org.apache.http.impl.client.AbstractHttpClient;
 import org.apache.http.impl.client.DefaultHttpRequestRetryHandler;
@@ -36,6 +40,7 @@ import org.apache.http.params.HttpParams;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Map;
 
 /**
@@ -64,7 +69,15 @@ public class ApacheHttpClient implements HttpClient {
 
     @Override
     public HttpResponse execute(HttpRequest request) throws IOException {
-        HttpUriRequest httpRequest = createHttpRequest(request);
+        final HttpUriRequest httpRequest = createHttpRequest(request);
+        if (request.isAbortable()) {
+            request.setAbortAction(new Runnable() {
+                @Override
+                public void run() {
+                    httpRequest.abort();
+                }
+            });
+        }
         org.apache.http.HttpResponse httpResponse = httpClient.execute(httpRequest);
 
         String statusText = httpResponse.getStatusLine().getReasonPhrase();
@@ -98,8 +111,7 @@ public class ApacheHttpClient implements HttpClient {
         if ("POST".equals(method)) {
             HttpPost postRequest = new HttpPost(request.getUri());
             if (request.getContent() != null) {
-                postRequest.setEntity(new InputStreamEntity(request.getContent(),
-                        request.getContentLength()));
+                postRequest.setEntity(createEntity(request));
             }
             httpRequest = postRequest;
         } else if ("GET".equals(method)) {
@@ -107,8 +119,7 @@ public class ApacheHttpClient implements HttpClient {
         } else if ("PUT".equals(method)) {
             HttpPut putRequest = new HttpPut(request.getUri());
             if (request.getContent() != null) {
-                putRequest.setEntity(new InputStreamEntity(request.getContent(),
-                        request.getContentLength()));
+                putRequest.setEntity(createEntity(request));
             }
             httpRequest = putRequest;
         } else if ("DELETE".equals(method)) {
@@ -143,4 +154,52 @@ public class ApacheHttpClient implements HttpClient {
         httpRequest.setParams(params);
         return httpRequest;
     }
+
+    private static HttpEntity createEntity(HttpRequest request) {
+        if (request.getContent() instanceof ReplayableWriterInputStream) {
+            return new ReplayableWriterEntity((ReplayableWriterInputStream) request.getContent(),
+                    request.getContentLength());
+        }
+        return new InputStreamEntity(request.getContent(), request.getContentLength());
+    }
+
+    /**
+     * An entity which streams the content of a
+     * {@link ReplayableWriterInputStream} into the connection without
+     * buffering it.
+     */
+    private static final class ReplayableWriterEntity extends AbstractHttpEntity {
+        private final ReplayableWriterInputStream content;
+        private final long contentLength;
+
+        ReplayableWriterEntity(ReplayableWriterInputStream content, long contentLength) {
+            this.content = content;
+            this.contentLength = contentLength;
+        }
+
+        @Override
+        public boolean isRepeatable() {
+            return true;
+        }
+
+        @Override
+        public long getContentLength() {
+            return contentLength;
+        }
+
+        @Override
+        public InputStream getContent() {
+            return content;
+        }
+
+        @Override
+        public void writeTo(OutputStream outstream) throws IOException {
+            content.writeTo(outstream);
+        }
+
+        @Override
+        public boolean isStreaming() {
+            return false;
+        }
+    }
 }
@@ -19,8 +19,10 @@ import com.amazonaws.AmazonWebServiceClient;
 import com.amazonaws.auth.AWSCredentials;
 import com.amazonaws.auth.Signer;
 import com.amazonaws.handlers.RequestHandler2;
+import com.amazonaws.metrics.AwsSdkMetrics;
 import com.amazonaws.util.AWSRequestMetrics;
 import com.amazonaws.util.AWSRequestMetricsFullSupport;
+import com.amazonaws.util.AWSRequestMetricsHistogramSupport;
 
 import java.net.URI;
 import java.util.List;
@@ -62,9 +64,14 @@ public class ExecutionContext {
     public ExecutionContext(List<RequestHandler2> requestHandler2s,
             boolean isMetricEnabled, AmazonWebServiceClient awsClient) {
         this.requestHandler2s = requestHandler2s;
-        awsRequestMetrics = isMetricEnabled
-                ? new AWSRequestMetricsFullSupport()
-                : new AWSRequestMetrics();
+        if (isMetricEnabled) {
+            awsRequestMetrics = new AWSRequestMetricsFullSupport();
+        } else if (AwsSdkMetrics.isMetricHistogramsEnabled()) {
+            awsRequestMetrics = new AWSRequestMetricsHistogramSupport(
+                    AwsSdkMetrics.getMetricHistogramRecorder());
+        } else {
+            awsRequestMetrics = new AWSRequestMetrics();
+        }
         this.awsClient = awsClient;
     }
 
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.http;
+
+import com.amazonaws.ClientExecutionTimeoutException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The time left to a service call, over all of its attempts.
+ */
+final class ExecutionDeadline {
+
+    /** No deadline. */
+    static final ExecutionDeadline NONE = new ExecutionDeadline(0);
+
+    private final int timeoutMillis;
+    private final long startNanos;
+
+    private ExecutionDeadline(int timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * @param timeoutMillis the time given to the call in milliseconds, or 0
+     *            for no deadline.
+     * @return a deadline starting now.
+     */
+    static ExecutionDeadline start(int timeoutMillis) {
+        return timeoutMillis > 0 ? new ExecutionDeadline(timeoutMillis) : NONE;
+    }
+
+    /**
+     * @return true if the call has a deadline.
+     */
+    boolean isSet() {
+        return timeoutMillis > 0;
+    }
+
+    /**
+     * @return the time left in nanoseconds, or Long.MAX_VALUE if there is no
+     *         deadline.
+     */
+    long remainingNanos() {
+        if (!isSet()) {
+            return Long.MAX_VALUE;
+        }
+        return TimeUnit.MILLISECONDS.toNanos(timeoutMillis) - (System.nanoTime() - startNanos);
+    }
+
+    /**
+     * @return true if the deadline has passed.
+     */
+    boolean hasExpired() {
+        return remainingNanos() <= 0;
+    }
+
+    /**
+     * @param cause the last failure of the call, or null.
+     * @return the exception thrown when the deadline has passed.
+     */
+    ClientExecutionTimeoutException newTimeoutException(Throwable cause) {
+        return new ClientExecutionTimeoutException(
+                "Client execution did not complete before the specified timeout configuration: "
+                        + timeoutMillis + " millis", cause);
+    }
+}
@@ -0,0 +1,336 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.http;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.logging.Log;
+import com.amazonaws.logging.LogFactory;
+import com.amazonaws.util.HttpUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sends one attempt of a request so that the caller can give up when the
+ * deadline of the call passes, and sends a copy of the request if the first
+ * one is slower than usual. The first response which isn't a server error
+ * wins.
+ * <p>
+ * Without a copy, the request is sent on the calling thread and disconnected
+ * when the deadline passes. With one, both are sent on a bounded pool of
+ * background threads; if the pool is full, the request isn't hedged. The
+ * attempts which are given up are disconnected, and their responses closed.
+ * Instances of this class are used for a single attempt.
+ */
+final class HedgedRequestExecutor {
+
+    private static final Log log = LogFactory.getLog(HedgedRequestExecutor.class);
+
+    private static final int MAX_ATTEMPT_THREADS = 64;
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private static final ThreadPoolExecutor EXECUTOR = newExecutor();
+    private static final ScheduledExecutorService TIMER = newTimer();
+
+    private final HttpClient httpClient;
+    private final LatencyTracker latencyTracker;
+
+    private final BlockingQueue<Outcome> outcomes = new LinkedBlockingQueue<Outcome>();
+    /** the requests sent on the pool, guarded by outcomes */
+    private final List<HttpRequest> sent = new ArrayList<HttpRequest>(2);
+    /** set once the caller returned, guarded by outcomes */
+    private boolean done;
+
+    /**
+     * @param httpClient the client sending the requests.
+     * @param latencyTracker the tracker of the latencies of the operation, or
+     *            null.
+     */
+    HedgedRequestExecutor(HttpClient httpClient, LatencyTracker latencyTracker) {
+        this.httpClient = httpClient;
+        this.latencyTracker = latencyTracker;
+    }
+
+    /**
+     * @param request the request to send.
+     * @param hedge a copy of the request to send if there's no response to the
+     *            first one after hedgeDelayNanos, or null.
+     * @param hedgeDelayNanos the delay before sending the copy.
+     * @param deadline the deadline of the call.
+     * @return the first response which isn't a server error, or the last
+     *         response.
+     * @throws IOException if the last attempt failed.
+     * @throws com.amazonaws.ClientExecutionTimeoutException if the deadline
+     *             passed first.
+     */
+    HttpResponse execute(HttpRequest request, HttpRequest hedge, long hedgeDelayNanos,
+            ExecutionDeadline deadline) throws IOException {
+        if (hedge == null || !submit(request)) {
+            return executeUntil(request, deadline);
+        }
+        final long startNanos = System.nanoTime();
+        boolean hedged = false;
+        int pending = 1;
+        Outcome winner = null;
+        try {
+            while (true) {
+                long waitNanos = deadline.remainingNanos();
+                if (!hedged) {
+                    waitNanos = Math.min(waitNanos,
+                            hedgeDelayNanos - (System.nanoTime() - startNanos));
+                }
+                final Outcome outcome = waitNanos > 0
+                        ? outcomes.poll(waitNanos, TimeUnit.NANOSECONDS)
+                        : outcomes.poll();
+                if (outcome == null) {
+                    if (deadline.hasExpired()) {
+                        throw deadline.newTimeoutException(null);
+                    }
+                    if (!hedged && System.nanoTime() - startNanos >= hedgeDelayNanos) {
+                        hedged = true;
+                        if (submit(hedge)) {
+                            if (log.isDebugEnabled()) {
+                                log.debug("Hedging a request to " + hedge.getUri());
+                            }
+                            pending++;
+                        }
+                    }
+                    continue;
+                }
+                pending--;
+                if (pending == 0 || outcome.isResponse()) {
+                    winner = outcome;
+                    return outcome.get();
+                }
+                // The other attempt may still succeed.
+                outcome.discard();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException(e.getMessage(), e);
+        } finally {
+            finish(winner);
+        }
+    }
+
+    /**
+     * Sends the request on the calling thread, disconnecting it if the
+     * deadline passes first. The calling thread is interrupted instead if the
+     * HTTP client can't disconnect the request.
+     */
+    private HttpResponse executeUntil(final HttpRequest request, ExecutionDeadline deadline)
+            throws IOException {
+        final Thread caller = Thread.currentThread();
+        final AtomicBoolean interrupted = new AtomicBoolean();
+        request.setAbortAction(new Runnable() {
+            @Override
+            public void run() {
+                interrupted.set(true);
+                caller.interrupt();
+            }
+        });
+        ScheduledFuture<?> timer = null;
+        if (deadline.isSet()) {
+            try {
+                timer = TIMER.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        request.abort();
+                    }
+                }, deadline.remainingNanos(), TimeUnit.NANOSECONDS);
+            } catch (final RejectedExecutionException e) {
+                log.debug("Unable to schedule the deadline of a request: " + e);
+            }
+        }
+        final Outcome outcome = send(request);
+        if (timer != null) {
+            timer.cancel(false);
+        }
+        if (!request.release()) {
+            if (interrupted.get()) {
+                Thread.interrupted();
+            }
+            outcome.discard();
+            throw deadline.newTimeoutException(outcome.failure);
+        }
+        return outcome.get();
+    }
+
+    /**
+     * @return false if the pool is full.
+     */
+    private boolean submit(final HttpRequest request) {
+        try {
+            EXECUTOR.execute(new Runnable() {
+                @Override
+                public void run() {
+                    final Thread worker = Thread.currentThread();
+                    request.setAbortAction(new Runnable() {
+                        @Override
+                        public void run() {
+                            worker.interrupt();
+                        }
+                    });
+                    complete(send(request));
+                    // The pool clears a late interrupt before the next task.
+                    request.release();
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            log.debug("Unable to send a request in the background: " + e);
+            return false;
+        }
+        synchronized (outcomes) {
+            sent.add(request);
+        }
+        return true;
+    }
+
+    private Outcome send(HttpRequest request) {
+        final long startNanos = System.nanoTime();
+        try {
+            final HttpResponse response = httpClient.execute(request);
+            if (latencyTracker != null
+                    && response.getStatusCode() < HttpUtils.HTTP_STATUS_INTERNAL_SERVER_ERROR) {
+                latencyTracker.record(System.nanoTime() - startNanos);
+            }
+            return new Outcome(request, response, null);
+        } catch (final Throwable t) {
+            return new Outcome(request, null, t);
+        }
+    }
+
+    private void complete(Outcome outcome) {
+        synchronized (outcomes) {
+            if (!done) {
+                outcomes.add(outcome);
+                return;
+            }
+        }
+        outcome.discard();
+    }
+
+    /**
+     * Disconnects the attempts still running and closes the responses not
+     * returned, now and when they arrive.
+     *
+     * @param winner the outcome returned to the caller, or null.
+     */
+    private void finish(Outcome winner) {
+        final List<HttpRequest> abandoned;
+        synchronized (outcomes) {
+            done = true;
+            abandoned = new ArrayList<HttpRequest>(sent);
+        }
+        if (winner != null) {
+            winner.request.release();
+        }
+        for (final HttpRequest request : abandoned) {
+            if (winner == null || request != winner.request) {
+                request.abort();
+            }
+        }
+        Outcome outcome;
+        while ((outcome = outcomes.poll()) != null) {
+            outcome.discard();
+        }
+    }
+
+    private static ThreadPoolExecutor newExecutor() {
+        return new ThreadPoolExecutor(0, MAX_ATTEMPT_THREADS,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
+                newThreadFactory("aws-http-attempt"));
+    }
+
+    private static ScheduledExecutorService newTimer() {
+        final ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1,
+                newThreadFactory("aws-http-deadline"));
+        timer.setKeepAliveTime(KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+        timer.allowCoreThreadTimeOut(true);
+        return timer;
+    }
+
+    private static ThreadFactory newThreadFactory(final String name) {
+        return new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                final Thread thread = new Thread(r, name);
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    /**
+     * The response to an attempt, or its failure.
+     */
+    private static final class Outcome {
+        private final HttpRequest request;
+        private final HttpResponse response;
+        private final Throwable failure;
+
+        Outcome(HttpRequest request, HttpResponse response, Throwable failure) {
+            this.request = request;
+            this.response = response;
+            this.failure = failure;
+        }
+
+        boolean isResponse() {
+            return response != null
+                    && response.getStatusCode() < HttpUtils.HTTP_STATUS_INTERNAL_SERVER_ERROR;
+        }
+
+        HttpResponse get() throws IOException {
+            if (failure instanceof IOException) {
+                throw (IOException) failure;
+            } else if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            } else if (failure instanceof Error) {
+                throw (Error) failure;
+            } else if (failure != null) {
+                throw new AmazonClientException(failure.getMessage(), failure);
+            }
+            return response;
+        }
+
+        void discard() {
+            if (response == null) {
+                return;
+            }
+            try {
+                final InputStream content = response.getRawContent();
+                if (content != null) {
+                    content.close();
+                }
+            } catch (final IOException e) {
+                log.debug("Unable to close the response of a hedged request: " + e);
+            }
+        }
+    }
+}
@@ -9,9 +9,15 @@ public final class HttpHeader {
     /** HTTP header for Accept. */
     public static final String ACCEPT = "Accept";
 
+    /** HTTP header for Accept-Encoding. */
+    public static final String ACCEPT_ENCODING = "Accept-Encoding";
+
     /** HTTP header for Authorization. */
     public static final String AUTHORIZATION = "Authorization";
 
+    /** HTTP header for Content-Encoding. */
+    public static final String CONTENT_ENCODING = "Content-Encoding";
+
     /** HTTP header for Content-Length. */
     public static final String CONTENT_LENGTH = "Content-Length";
 
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.http;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The headers of an {@link HttpRequest} or an {@link HttpResponse}, kept in
+ * two arrays in insertion order. Header names are case-insensitive: a header
+ * put under a name differing only in case replaces the value and keeps the
+ * first name. Lookups compare the lengths first, and the names by identity
+ * before ignoring case, so the {@link HttpHeader} constants match at once.
+ * <p>
+ * The map is handed from the request factory to the HTTP client, and from the
+ * HTTP client to the response, without being copied. Once read-only, it is
+ * safe to share between threads.
+ */
+final class HttpHeaderMap extends AbstractMap<String, String> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private String[] names;
+    private String[] values;
+    private int size;
+    private boolean readOnly;
+
+    HttpHeaderMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity the expected number of headers.
+     */
+    HttpHeaderMap(int capacity) {
+        names = new String[Math.max(capacity, 1)];
+        values = new String[names.length];
+    }
+
+    /**
+     * Makes this map read-only.
+     *
+     * @return this map.
+     */
+    HttpHeaderMap readOnly() {
+        readOnly = true;
+        return this;
+    }
+
+    /**
+     * @return a writable copy of this map.
+     */
+    HttpHeaderMap copy() {
+        final HttpHeaderMap copy = new HttpHeaderMap(names.length);
+        System.arraycopy(names, 0, copy.names, 0, size);
+        System.arraycopy(values, 0, copy.values, 0, size);
+        copy.size = size;
+        return copy;
+    }
+
+    /**
+     * @param index the index of the header, in insertion order.
+     * @return the name of the header.
+     */
+    String nameAt(int index) {
+        return names[index];
+    }
+
+    /**
+     * @param index the index of the header, in insertion order.
+     * @return the value of the header.
+     */
+    String valueAt(int index) {
+        return values[index];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object name) {
+        return indexOf(name) >= 0;
+    }
+
+    @Override
+    public String get(Object name) {
+        final int index = indexOf(name);
+        return index < 0 ? null : values[index];
+    }
+
+    @Override
+    public String put(String name, String value) {
+        checkWritable();
+        if (name == null) {
+            throw new NullPointerException("Header name cannot be null");
+        }
+        final int index = indexOf(name);
+        if (index >= 0) {
+            final String previous = values[index];
+            values[index] = value;
+            return previous;
+        }
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        names[size] = name;
+        values[size] = value;
+        size++;
+        return null;
+    }
+
+    @Override
+    public String remove(Object name) {
+        checkWritable();
+        final int index = indexOf(name);
+        if (index < 0) {
+            return null;
+        }
+        final String previous = values[index];
+        removeAt(index);
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        checkWritable();
+        Arrays.fill(names, 0, size, null);
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+    }
+
+    @Override
+    public Set<Map.Entry<String, String>> entrySet() {
+        return new AbstractSet<Map.Entry<String, String>>() {
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public Iterator<Map.Entry<String, String>> iterator() {
+                return new EntryIterator();
+            }
+        };
+    }
+
+    private int indexOf(Object name) {
+        if (!(name instanceof String)) {
+            return -1;
+        }
+        final String key = (String) name;
+        for (int i = 0; i < size; i++) {
+            // equalsIgnoreCase checks the identity and the length first
+            if (key.equalsIgnoreCase(names[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void removeAt(int index) {
+        final int moved = size - index - 1;
+        System.arraycopy(names, index + 1, names, index, moved);
+        System.arraycopy(values, index + 1, values, index, moved);
+        size--;
+        names[size] = null;
+        values[size] = null;
+    }
+
+    private void checkWritable() {
+        if (readOnly) {
+            throw new UnsupportedOperationException("Headers are read-only");
+        }
+    }
+
+    private final class EntryIterator implements Iterator<Map.Entry<String, String>> {
+        private int next;
+        private int last = -1;
+
+        @Override
+        public boolean hasNext() {
+            return next < size;
+        }
+
+        @Override
+        public Map.Entry<String, String> next() {
+            if (next >= size) {
+                throw new NoSuchElementException();
+            }
+            last = next++;
+            return new AbstractMap.SimpleImmutableEntry<String, String>(names[last],
+                    values[last]);
+        }
+
+        @Override
+        public void remove() {
+            checkWritable();
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+            removeAt(last);
+            next = last;
+            last = -1;
+        }
+    }
+}
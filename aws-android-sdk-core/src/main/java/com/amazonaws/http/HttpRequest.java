@@ -35,6 +35,13 @@ public class HttpRequest {
     private final InputStream content;
     private boolean isStreaming;
 
+    /** disconnects the attempt sending this request, guarded by this */
+    private Runnable abortAction;
+    /** guarded by this */
+    private boolean aborted;
+    /** set once the response was handed over, guarded by this */
+    private boolean released;
+
     /**
      * Constructs a HttpRequest with given method and uri. It uses no header and
      * has no content. It's handy for HEAD/GET/DELETE where content is absent.
@@ -58,8 +65,14 @@ public class HttpRequest {
     public HttpRequest(String method, URI uri, Map<String, String> headers, InputStream content) {
         this.method = StringUtils.upperCase(method);
         this.uri = uri;
-        this.headers = headers == null ? Collections.EMPTY_MAP
-                : Collections.unmodifiableMap(headers);
+        if (headers == null) {
+            this.headers = Collections.EMPTY_MAP;
+        } else if (headers instanceof HttpHeaderMap) {
+            // built by HttpRequestFactory for this request, not copied
+            this.headers = ((HttpHeaderMap) headers).readOnly();
+        } else {
+            this.headers = Collections.unmodifiableMap(headers);
+        }
         this.content = content;
     }
 
@@ -134,4 +147,61 @@ public class HttpRequest {
     public void setStreaming(boolean isStreaming) {
         this.isStreaming = isStreaming;
     }
+
+    /**
+     * Sets how to disconnect the attempt sending this request. Called by the
+     * {@link HttpClient} once it opened the connection; the action runs right
+     * away if the request was already aborted.
+     *
+     * @param action the action disconnecting the attempt.
+     */
+    synchronized void setAbortAction(Runnable action) {
+        if (aborted) {
+            action.run();
+        } else {
+            abortAction = action;
+        }
+    }
+
+    /**
+     * Disconnects the attempt sending this request, unless its response was
+     * already released to the caller.
+     *
+     * @return true if the request was aborted.
+     */
+    synchronized boolean abort() {
+        if (released) {
+            return false;
+        }
+        aborted = true;
+        if (abortAction != null) {
+            abortAction.run();
+            abortAction = null;
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the request may be aborted, in which case the
+     *         {@link HttpClient} should set how to disconnect it.
+     */
+    synchronized boolean isAbortable() {
+        return abortAction != null || aborted;
+    }
+
+    synchronized boolean isAborted() {
+        return aborted;
+    }
+
+    /**
+     * Hands the response of this request over to the caller, after which
+     * {@link #abort()} has no effect.
+     *
+     * @return false if the request was aborted first.
+     */
+    synchronized boolean release() {
+        abortAction = null;
+        released = !aborted;
+        return released;
+    }
 }
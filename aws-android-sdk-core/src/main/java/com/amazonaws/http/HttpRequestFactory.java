@@ -23,7 +23,6 @@ import com.amazonaws.util.StringUtils;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.net.URI;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 
@@ -34,6 +33,9 @@ public class HttpRequestFactory {
 
     private static final String DEFAULT_ENCODING = "UTF-8";
 
+    /** Number of headers the factory may add to those of the request */
+    private static final int EXTRA_HEADERS = 6;
+
     /**
      * Creates an {@link HttpClient} request object based on the specified AWS
      * request and populates any parameters, headers, etc. from the original
@@ -71,8 +73,9 @@ public class HttpRequestFactory {
         }
 
         // Configure headers from request. Additional headers will be added
-        // later if necessary.
-        final Map<String, String> headers = new HashMap<String, String>();
+        // later if necessary. The map is passed on to the HTTP client as is.
+        final HttpHeaderMap headers = new HttpHeaderMap(
+                request.getHeaders().size() + EXTRA_HEADERS);
         configureHeaders(headers, request, context, clientConfiguration);
 
         InputStream is = request.getContent();
@@ -95,17 +98,16 @@ public class HttpRequestFactory {
             if (request.getContent() == null && encodedParams != null) {
                 final byte[] contentBytes = encodedParams.getBytes(StringUtils.UTF8);
                 is = new ByteArrayInputStream(contentBytes);
-                headers.put("Content-Length", String.valueOf(contentBytes.length));
+                headers.put(HttpHeader.CONTENT_LENGTH, String.valueOf(contentBytes.length));
             }
         }
 
         // Enables gzip compression. Also signals the implementation of
-        // HttpClient to disable transparent gzip.
-        if (clientConfiguration.isEnableGzip()
-                && headers.get("Accept-Encoding") == null) {
-            headers.put("Accept-Encoding", "gzip");
-        } else {
-            headers.put("Accept-Encoding", "identity");
+        // HttpClient to disable transparent gzip. An Accept-Encoding set on
+        // the request is kept as is.
+        if (headers.get(HttpHeader.ACCEPT_ENCODING) == null) {
+            headers.put(HttpHeader.ACCEPT_ENCODING,
+                    clientConfiguration.isEnableGzip() ? "gzip" : "identity");
         }
 
         final HttpRequest httpRequest = new HttpRequest(method.toString(), URI.create(uri), headers,
@@ -131,7 +133,7 @@ public class HttpRequestFactory {
         if (HttpUtils.isUsingNonDefaultPort(endpoint)) {
             hostHeader += ":" + endpoint.getPort();
         }
-        headers.put("Host", hostHeader);
+        headers.put(HttpHeader.HOST, hostHeader);
 
         // Copy over any other headers already in our request
         for (final Entry<String, String> entry : request.getHeaders().entrySet()) {
@@ -139,8 +141,9 @@ public class HttpRequestFactory {
         }
 
         /* Set content type and encoding */
-        if (headers.get("Content-Type") == null || headers.get("Content-Type").isEmpty()) {
-            headers.put("Content-Type",
+        final String contentType = headers.get(HttpHeader.CONTENT_TYPE);
+        if (contentType == null || contentType.isEmpty()) {
+            headers.put(HttpHeader.CONTENT_TYPE,
                     "application/x-www-form-urlencoded; " +
                             "charset=" + StringUtils.lowerCase(DEFAULT_ENCODING));
         }
@@ -148,7 +151,7 @@ public class HttpRequestFactory {
         // Override the user agent string specified in the client params if the
         // context requires it
         if (context != null && context.getContextUserAgent() != null) {
-            headers.put("User-Agent",
+            headers.put(HttpHeader.USER_AGENT,
                     createUserAgentString(clientConfiguration, context.getContextUserAgent()));
         }
     }
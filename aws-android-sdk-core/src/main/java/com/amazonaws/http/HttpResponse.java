@@ -17,8 +17,6 @@ package com.amazonaws.http;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.zip.GZIPInputStream;
 
@@ -45,7 +43,8 @@ public class HttpResponse {
     }
 
     /**
-     * Returns the HTTP headers returned with this response.
+     * Returns the HTTP headers returned with this response. Header names are
+     * case-insensitive.
      *
      * @return The set of HTTP headers returned with this HTTP response.
      */
@@ -63,7 +62,7 @@ public class HttpResponse {
         if (content == null) {
             // Avoid decoding the content multiple times
             synchronized (this) {
-                if (rawContent != null && "gzip".equals(headers.get("Content-Encoding"))) {
+                if (rawContent != null && "gzip".equals(headers.get(HttpHeader.CONTENT_ENCODING))) {
                     content = new GZIPInputStream(rawContent);
                 } else {
                     content = rawContent;
@@ -119,7 +118,9 @@ public class HttpResponse {
         private String statusText;
         private int statusCode;
         private InputStream content;
-        private final Map<String, String> headers = new HashMap<String, String>();
+        private HttpHeaderMap headers = new HttpHeaderMap();
+        /** set once the headers are handed to a response */
+        private boolean headersBuilt;
 
         /**
          * Sets the status text.
@@ -158,13 +159,19 @@ public class HttpResponse {
         }
 
         /**
-         * Adds a key-value header to the request.
+         * Adds a key-value header to the request. Header names are
+         * case-insensitive.
          *
          * @param key header key
          * @param value header value
          * @return builder itself
          */
         public Builder header(String key, String value) {
+            if (headersBuilt) {
+                // The built responses keep the headers they were given.
+                headers = headers.copy();
+                headersBuilt = false;
+            }
             headers.put(key, value);
             return this;
         }
@@ -175,8 +182,9 @@ public class HttpResponse {
          * @return a new instance of {@link HttpResponse}
          */
         public HttpResponse build() {
-            return new HttpResponse(statusText, statusCode,
-                    Collections.unmodifiableMap(headers), content);
+            // The headers are only copied if a header is added after.
+            headersBuilt = true;
+            return new HttpResponse(statusText, statusCode, headers.readOnly(), content);
         }
     }
 }
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.http;
+
+import java.util.Arrays;
+
+/**
+ * The latencies of the last attempts of an operation, from which the delay
+ * before hedging a request is taken.
+ */
+final class LatencyTracker {
+
+    /** Number of latencies kept */
+    static final int MAX_SAMPLES = 128;
+    /** Number of latencies needed before a percentile is known */
+    static final int MIN_SAMPLES = 20;
+
+    private final long[] samples = new long[MAX_SAMPLES];
+    private int count;
+    private int next;
+
+    /**
+     * @param latencyNanos the latency of an attempt, up to its response
+     *            headers.
+     */
+    synchronized void record(long latencyNanos) {
+        samples[next] = latencyNanos;
+        next = (next + 1) % MAX_SAMPLES;
+        if (count < MAX_SAMPLES) {
+            count++;
+        }
+    }
+
+    /**
+     * @param percentile the percentile, between 0 and 100.
+     * @return the latency in nanoseconds at the given percentile of the last
+     *         attempts, or -1 if too few attempts were recorded.
+     */
+    long getPercentile(double percentile) {
+        final long[] sorted;
+        synchronized (this) {
+            if (count < MIN_SAMPLES) {
+                return -1;
+            }
+            sorted = Arrays.copyOf(samples, count);
+        }
+        Arrays.sort(sorted);
+        final int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
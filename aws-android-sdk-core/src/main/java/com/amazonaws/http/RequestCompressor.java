@@ -0,0 +1,149 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.http;
+
+import com.amazonaws.Request;
+import com.amazonaws.logging.Log;
+import com.amazonaws.logging.LogFactory;
+import com.amazonaws.util.ReplayableWriterInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip compresses the content of the requests of the operations which accept
+ * compressed content. The compressed content is written on demand, straight
+ * into the connection, and the signer hashes the compressed content.
+ *
+ * @see Request#isCompressible()
+ * @see com.amazonaws.ClientConfiguration#setRequestCompressionThreshold(int)
+ */
+final class RequestCompressor {
+
+    private static final Log log = LogFactory.getLog(RequestCompressor.class);
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private RequestCompressor() {
+    }
+
+    /**
+     * Replaces the content of the request with its gzip compressed content,
+     * and sets the Content-Encoding and Content-Length headers, if the
+     * request is compressible and its content is at least the given size.
+     * Must be called before the request is signed.
+     * <p>
+     * Marshallers of compressible requests leave out the Content-Length of
+     * {@link ReplayableWriterInputStream} content, so that the content is not
+     * written once more just to measure it. It is set here, from the
+     * compressed content or, if the content is not compressed, from the
+     * original content.
+     *
+     * @param request the request.
+     * @param threshold the minimum size in bytes of the content to compress,
+     *            or -1 to never compress.
+     * @return true if the content was compressed.
+     */
+    static boolean compress(Request<?> request, int threshold) {
+        if (gzip(request, threshold)) {
+            return true;
+        }
+        if (request.getContent() instanceof ReplayableWriterInputStream
+                && request.getHeaders().get(HttpHeader.CONTENT_LENGTH) == null) {
+            request.addHeader(HttpHeader.CONTENT_LENGTH, Long.toString(
+                    ((ReplayableWriterInputStream) request.getContent()).getContentLength()));
+        }
+        return false;
+    }
+
+    private static boolean gzip(Request<?> request, int threshold) {
+        final InputStream content = request.getContent();
+        if (threshold < 0 || !request.isCompressible() || request.isStreaming()
+                || content == null
+                || request.getHeaders().get(HttpHeader.CONTENT_ENCODING) != null) {
+            return false;
+        }
+        if (threshold > 0) {
+            final long length = getContentLength(request);
+            if (length < threshold) {
+                // too small, or of unknown size
+                return false;
+            }
+        }
+
+        final ReplayableWriterInputStream.ContentWriter source;
+        if (content instanceof ReplayableWriterInputStream) {
+            source = new ReplayableWriterInputStream.ContentWriter() {
+                @Override
+                public void writeTo(OutputStream out) throws IOException {
+                    ((ReplayableWriterInputStream) content).writeTo(out);
+                }
+            };
+        } else if (content.markSupported()) {
+            content.mark(Integer.MAX_VALUE);
+            source = new ReplayableWriterInputStream.ContentWriter() {
+                @Override
+                public void writeTo(OutputStream out) throws IOException {
+                    content.reset();
+                    final byte[] buffer = new byte[BUFFER_SIZE];
+                    int count;
+                    while ((count = content.read(buffer)) != -1) {
+                        out.write(buffer, 0, count);
+                    }
+                }
+            };
+        } else {
+            log.debug("Not compressing a request whose content can't be read twice");
+            return false;
+        }
+
+        final ReplayableWriterInputStream compressed = new ReplayableWriterInputStream(
+                new ReplayableWriterInputStream.ContentWriter() {
+                    @Override
+                    public void writeTo(OutputStream out) throws Exception {
+                        final GZIPOutputStream gzip = new GZIPOutputStream(out, BUFFER_SIZE);
+                        try {
+                            source.writeTo(gzip);
+                        } finally {
+                            // Releases the native deflater; out itself is not closed.
+                            gzip.close();
+                        }
+                    }
+                });
+        request.setContent(compressed);
+        request.addHeader(HttpHeader.CONTENT_ENCODING, "gzip");
+        request.addHeader(HttpHeader.CONTENT_LENGTH,
+                Long.toString(compressed.getContentLength()));
+        return true;
+    }
+
+    private static long getContentLength(Request<?> request) {
+        final String header = request.getHeaders().get(HttpHeader.CONTENT_LENGTH);
+        if (header != null) {
+            try {
+                return Long.parseLong(header);
+            } catch (final NumberFormatException e) {
+                return -1;
+            }
+        }
+        if (request.getContent() instanceof ReplayableWriterInputStream) {
+            return ((ReplayableWriterInputStream) request.getContent()).getContentLength();
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.http;
+
+import android.net.SSLCertificateSocketFactory;
+import android.net.SSLSessionCache;
+import android.os.Build;
+
+import com.amazonaws.logging.Log;
+import com.amazonaws.logging.LogFactory;
+
+import java.io.File;
+
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+
+/**
+ * Creates socket factories whose TLS sessions are persisted in a directory,
+ * using the session cache of the Android platform. Kept apart from
+ * {@link UrlHttpClient} so that the Android classes are only loaded when a
+ * session cache directory is configured.
+ */
+final class TlsSessionCacheSupport {
+
+    private static final Log log = LogFactory.getLog(TlsSessionCacheSupport.class);
+
+    /** API level of Android 4.0, which added SSLCertificateSocketFactory#setTrustManagers */
+    private static final int ICE_CREAM_SANDWICH = 14;
+
+    private TlsSessionCacheSupport() {
+    }
+
+    /**
+     * @param directory the directory in which to persist the sessions.
+     * @param trustManager the custom trust manager, or null for the default.
+     * @param handshakeTimeoutMillis the timeout of the TLS handshake.
+     * @return a socket factory persisting its sessions in the directory, or
+     *         null if the platform doesn't support it.
+     */
+    static SSLSocketFactory newSocketFactory(File directory, TrustManager trustManager,
+            int handshakeTimeoutMillis) {
+        try {
+            if (trustManager != null && Build.VERSION.SDK_INT < ICE_CREAM_SANDWICH) {
+                log.warn("TLS session cache with a custom trust manager requires API level "
+                        + ICE_CREAM_SANDWICH + ", sessions won't be persisted");
+                return null;
+            }
+            final SSLSessionCache cache = new SSLSessionCache(directory);
+            final SSLCertificateSocketFactory factory = (SSLCertificateSocketFactory)
+                    SSLCertificateSocketFactory.getDefault(handshakeTimeoutMillis, cache);
+            if (trustManager != null) {
+                factory.setTrustManagers(new TrustManager[] {
+                        trustManager
+                });
+            }
+            return factory;
+        } catch (final Exception e) {
+            // IOException if the directory can't be used, or a
+            // RuntimeException outside of Android.
+            log.warn("Unable to persist TLS sessions in " + directory + ": " + e);
+            return null;
+        } catch (final LinkageError e) {
+            log.warn("TLS session cache isn't supported on this platform: " + e);
+            return null;
+        }
+    }
+}
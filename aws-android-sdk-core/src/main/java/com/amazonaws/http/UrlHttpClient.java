@@ -19,6 +19,7 @@ import com.amazonaws.ClientConfiguration;
 
 import com.amazonaws.logging.Log;
 import com.amazonaws.logging.LogFactory;
+import com.amazonaws.util.ReplayableWriterInputStream;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -35,6 +36,7 @@ import java.util.Map;
 
 import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
 import javax.net.ssl.TrustManager;
 
 /**
@@ -67,6 +69,17 @@ public class UrlHttpClient implements HttpClient {
     public HttpResponse execute(final HttpRequest request) throws IOException {
         final URL url = request.getUri().toURL();
         final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        if (request.isAbortable()) {
+            request.setAbortAction(new Runnable() {
+                @Override
+                public void run() {
+                    connection.disconnect();
+                }
+            });
+            if (request.isAborted()) {
+                throw new IOException("Request aborted");
+            }
+        }
         final CurlBuilder curlBuilder = config.isCurlLogging()
                 ? new CurlBuilder(request.getUri().toURL()) : null;
 
@@ -168,7 +181,13 @@ public class UrlHttpClient implements HttpClient {
                     curlBuilder.setContentOverflow(true);
                 }
             }
-            write(request.getContent(), os, curlBuilder, curlBuffer);
+            if (curlBuilder == null
+                    && request.getContent() instanceof ReplayableWriterInputStream) {
+                // stream the content into the connection without buffering it
+                ((ReplayableWriterInputStream) request.getContent()).writeTo(os);
+            } else {
+                write(request.getContent(), os, curlBuilder, curlBuffer);
+            }
             if (curlBuilder != null && curlBuffer != null && curlBuffer.position() != 0) {
                 // has content
                 curlBuilder.setContent(new String(curlBuffer.array(), "UTF-8"));
@@ -188,36 +207,25 @@ public class UrlHttpClient implements HttpClient {
         return applyHeadersAndMethod(request, connection, null /* curlBuilder */);
     }
 
-    @SuppressWarnings("checkstyle:emptyblock")
     HttpURLConnection applyHeadersAndMethod(final HttpRequest request,
             final HttpURLConnection connection, final CurlBuilder curlBuilder)
             throws ProtocolException {
         // add headers
-        if (request.getHeaders() != null && !request.getHeaders().isEmpty()) {
+        final Map<String, String> headers = request.getHeaders();
+        if (headers != null && !headers.isEmpty()) {
             if (curlBuilder != null) {
-                curlBuilder.setHeaders(request.getHeaders());
+                curlBuilder.setHeaders(headers);
             }
-            for (final Map.Entry<String, String> header : request.getHeaders().entrySet()) {
-                final String key = header.getKey();
-                // Skip reserved headers for HttpURLConnection
-                if (key.equals(HttpHeader.CONTENT_LENGTH) || key.equals(HttpHeader.HOST)) {
-                    continue;
+            if (headers instanceof HttpHeaderMap) {
+                // Walk the arrays rather than allocating an entry per header.
+                final HttpHeaderMap headerMap = (HttpHeaderMap) headers;
+                for (int i = 0; i < headerMap.size(); i++) {
+                    applyHeader(connection, headerMap.nameAt(i), headerMap.valueAt(i));
                 }
-                /*
-                 * Amazon S3 suggests set 100-continue header prior to sending
-                 * the request body in order to improve efficiency. S3 may
-                 * return '100 Continue' or 417 (Expectation failed). It may
-                 * also respond with 307 to redirect the request to the correct
-                 * regional location, in which case HttpURLConection will throw
-                 * ProtocolException because it only expects either a 100 or a
-                 * 417 response. As a result, this feature is explicitly
-                 * disabled. To prevent sending the request body twice due to
-                 * redirect, please choose the correct endpoint.
-                 */
-                if (key.equals(HttpHeader.EXPECT)) {
-                    // continue;
+            } else {
+                for (final Map.Entry<String, String> header : headers.entrySet()) {
+                    applyHeader(connection, header.getKey(), header.getValue());
                 }
-                connection.setRequestProperty(key, header.getValue());
             }
         }
 
@@ -229,6 +237,30 @@ public class UrlHttpClient implements HttpClient {
         return connection;
     }
 
+    @SuppressWarnings("checkstyle:emptyblock")
+    private void applyHeader(final HttpURLConnection connection, final String key,
+            final String value) {
+        // Skip reserved headers for HttpURLConnection
+        if (HttpHeader.CONTENT_LENGTH.equalsIgnoreCase(key)
+                || HttpHeader.HOST.equalsIgnoreCase(key)) {
+            return;
+        }
+        /*
+         * Amazon S3 suggests set 100-continue header prior to sending the
+         * request body in order to improve efficiency. S3 may return '100
+         * Continue' or 417 (Expectation failed). It may also respond with 307
+         * to redirect the request to the correct regional location, in which
+         * case HttpURLConection will throw ProtocolException because it only
+         * expects either a 100 or a 417 response. As a result, this feature is
+         * explicitly disabled. To prevent sending the request body twice due to
+         * redirect, please choose the correct endpoint.
+         */
+        if (HttpHeader.EXPECT.equalsIgnoreCase(key)) {
+            // continue;
+        }
+        connection.setRequestProperty(key, value);
+    }
+
     protected void printToLog(String message) {
         log.debug(message);
     }
@@ -277,6 +309,10 @@ public class UrlHttpClient implements HttpClient {
             }
             */
 
+            if (config.getTlsSessionCacheDirectory() != null
+                    && enableTlsSessionCache(https)) {
+                return;
+            }
             if (config.getTrustManager() != null) {
                 enableCustomTrustManager(https);
             }
@@ -285,6 +321,30 @@ public class UrlHttpClient implements HttpClient {
 
     private SSLContext sc = null;
 
+    /** socket factory persisting TLS sessions, created on first use */
+    private SSLSocketFactory sessionCachingSocketFactory = null;
+    private boolean sessionCacheUnavailable = false;
+
+    /**
+     * Uses a socket factory which persists the TLS sessions in the configured
+     * directory, with the custom trust manager if any.
+     *
+     * @return false if TLS sessions can't be persisted on this platform.
+     */
+    private synchronized boolean enableTlsSessionCache(HttpsURLConnection connection) {
+        if (sessionCachingSocketFactory == null && !sessionCacheUnavailable) {
+            sessionCachingSocketFactory = TlsSessionCacheSupport.newSocketFactory(
+                    config.getTlsSessionCacheDirectory(), config.getTrustManager(),
+                    config.getConnectionTimeout());
+            sessionCacheUnavailable = sessionCachingSocketFactory == null;
+        }
+        if (sessionCachingSocketFactory == null) {
+            return false;
+        }
+        connection.setSSLSocketFactory(sessionCachingSocketFactory);
+        return true;
+    }
+
     private void enableCustomTrustManager(HttpsURLConnection connection) {
         if (sc == null) {
             final TrustManager[] customTrustManagers = new TrustManager[] {
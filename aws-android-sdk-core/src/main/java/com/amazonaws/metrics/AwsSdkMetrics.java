@@ -34,6 +34,7 @@ import java.net.InetAddress;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -66,6 +67,11 @@ import java.util.Set;
  * CloudWatch metric collector. See the javadoc at
  * com.amazonaws.metrics.internal.cloudwatch.CloudWatchMetricConfig for more
  * details.
+ * <p>
+ * As a low overhead alternative to a metric collector, the durations and
+ * counters of requests can be recorded into histograms, enabled via
+ * {@link #setMetricHistogramsEnabled(boolean)}. The histograms are exported to
+ * a {@link MetricHistogramSink} and reset via {@link #exportMetricHistograms()}.
  */
 @SuppressWarnings("checkstyle:nowhitespacebefore")
 public enum AwsSdkMetrics {
@@ -301,6 +307,9 @@ public enum AwsSdkMetrics {
 
     private static final MetricRegistry REGISTRY = new MetricRegistry();
     private static volatile MetricCollector mc;
+    private static final MetricHistogramRecorder HISTOGRAM_RECORDER = new MetricHistogramRecorder();
+    private static volatile boolean metricHistogramsEnabled;
+    private static volatile MetricHistogramSink metricHistogramSink;
     /**
      * Used to disallow re-entrancy in enabling the default metric collection
      * system.
@@ -509,6 +518,65 @@ public enum AwsSdkMetrics {
         setMetricCollector(MetricCollector.NONE);
     }
 
+    /**
+     * Used to set whether the durations and counters of requests are recorded
+     * into the histograms of {@link #getMetricHistogramRecorder()}. Requests
+     * for which a request metric collector is enabled are not recorded.
+     *
+     * @param enabled true if metric histograms are to be recorded; false
+     *            otherwise.
+     */
+    public static void setMetricHistogramsEnabled(boolean enabled) {
+        AwsSdkMetrics.metricHistogramsEnabled = enabled;
+    }
+
+    /**
+     * @return true if metric histograms are recorded; false otherwise.
+     */
+    public static boolean isMetricHistogramsEnabled() {
+        return metricHistogramsEnabled;
+    }
+
+    /**
+     * @return the recorder of the metric histograms at the AWS SDK level.
+     */
+    public static MetricHistogramRecorder getMetricHistogramRecorder() {
+        return HISTOGRAM_RECORDER;
+    }
+
+    /**
+     * Sets the sink the metric histograms are exported to.
+     *
+     * @param sink the sink; or null if the histograms are only returned by
+     *            {@link #exportMetricHistograms()}.
+     */
+    public static void setMetricHistogramSink(MetricHistogramSink sink) {
+        AwsSdkMetrics.metricHistogramSink = sink;
+    }
+
+    /**
+     * @return the sink the metric histograms are exported to, or null.
+     */
+    public static MetricHistogramSink getMetricHistogramSink() {
+        return metricHistogramSink;
+    }
+
+    /**
+     * Takes a snapshot of the metric histograms recorded since the previous
+     * export, resets them, and exports the snapshot to the
+     * {@link MetricHistogramSink}, if any.
+     *
+     * @return the exported histograms.
+     */
+    public static List<MetricHistogram> exportMetricHistograms() {
+        final List<MetricHistogram> histograms = HISTOGRAM_RECORDER.snapshotAndReset();
+        final MetricHistogramSink sink = metricHistogramSink;
+        if (sink != null && !histograms.isEmpty()) {
+            sink.export(histograms);
+        }
+        return histograms;
+    }
+
     /**
      * Adds the given metric type to the REGISTRY of predefined metrics to be
      * captured at the AWS SDK level.
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.metrics;
+
+/**
+ * An immutable snapshot of the values recorded for a metric type by a
+ * {@link MetricHistogramRecorder}. Durations are in nanoseconds. Except for
+ * the count and the sum, the values are approximated to the precision of the
+ * histogram buckets.
+ */
+public final class MetricHistogram {
+    private final MetricType metricType;
+    private final long[] counts;
+    private final long count;
+    private final long sum;
+
+    MetricHistogram(MetricType metricType, long[] counts, long sum) {
+        this.metricType = metricType;
+        this.counts = counts;
+        this.sum = sum;
+        long total = 0;
+        for (final long c : counts) {
+            total += c;
+        }
+        this.count = total;
+    }
+
+    /**
+     * @return the metric type.
+     */
+    public MetricType getMetricType() {
+        return metricType;
+    }
+
+    /**
+     * @return the number of recorded values.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return the sum of the recorded values.
+     */
+    public long getSum() {
+        return sum;
+    }
+
+    /**
+     * @return the mean of the recorded values, or 0 if there are none.
+     */
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * @return the lowest recorded value, or 0 if there are none.
+     */
+    public long getMin() {
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                return MetricHistogramRecorder.lowestValue(i);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return the highest recorded value, or 0 if there are none.
+     */
+    public long getMax() {
+        for (int i = counts.length - 1; i >= 0; i--) {
+            if (counts[i] != 0) {
+                return MetricHistogramRecorder.highestValue(i);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the value that the given percentage of the recorded values are
+     * less than or equal to.
+     *
+     * @param percentile the percentile, between 0 and 100.
+     * @return the value at the percentile, or 0 if there are no values.
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Invalid percentile: " + percentile);
+        }
+        final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return MetricHistogramRecorder.highestValue(i);
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        return metricType.name() + "={count=" + count + ", mean=" + getMean()
+                + ", p50=" + getValueAtPercentile(50) + ", p99=" + getValueAtPercentile(99)
+                + ", max=" + getMax() + "}";
+    }
+}
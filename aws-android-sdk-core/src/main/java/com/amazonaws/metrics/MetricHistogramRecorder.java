@@ -0,0 +1,285 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.metrics;
+
+import com.amazonaws.util.AWSRequestMetrics.Field;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Records metric values into per-thread histograms without locking.
+ * <p>
+ * Each thread records into its own histograms, indexed by metric type: the
+ * ordinal for the predefined {@link Field} metrics, and an index assigned on
+ * first use for any other {@link MetricType}. A histogram is allocated the
+ * first time a thread records a metric, after which recording a value
+ * allocates nothing. Values are counted in log-linear buckets with a relative
+ * precision of about 3%; values above 2<sup>41</sup> are counted in the last
+ * bucket.
+ * <p>
+ * {@link #snapshotAndReset()} merges and clears the histograms of all threads.
+ * A value recorded while a snapshot is being taken is counted in either that
+ * snapshot or the next one.
+ *
+ * @see AwsSdkMetrics#exportMetricHistograms()
+ */
+public final class MetricHistogramRecorder {
+
+    /** Maximum number of metric types that can be recorded. */
+    public static final int MAX_METRIC_TYPES = 64;
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_MAGNITUDE = 40;
+
+    /** Number of buckets of a histogram. */
+    static final int BUCKET_COUNT = (MAX_MAGNITUDE - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT;
+
+    /** Index of the sum of the values, after the buckets. */
+    private static final int SUM_INDEX = BUCKET_COUNT;
+
+    private static final Field[] FIELDS = Field.values();
+
+    private final AtomicReferenceArray<MetricType> metricTypes =
+            new AtomicReferenceArray<MetricType>(MAX_METRIC_TYPES);
+    private final ConcurrentHashMap<MetricType, Integer> otherIndices =
+            new ConcurrentHashMap<MetricType, Integer>();
+    private int nextIndex = FIELDS.length;
+
+    private final Object snapshotLock = new Object();
+    private final Queue<ThreadRecorder> recorders = new ConcurrentLinkedQueue<ThreadRecorder>();
+    /* Counts of dead threads not yet snapshot, guarded by the snapshot lock. */
+    private long[][] retired = new long[MAX_METRIC_TYPES][];
+    private final ThreadLocal<ThreadRecorder> threadRecorder = new ThreadLocal<ThreadRecorder>() {
+        @Override
+        protected ThreadRecorder initialValue() {
+            final ThreadRecorder recorder = new ThreadRecorder(Thread.currentThread());
+            synchronized (snapshotLock) {
+                // Keeps the recorders of short-lived threads from piling up
+                // when no snapshot is taken.
+                retireDeadRecorders();
+            }
+            recorders.add(recorder);
+            return recorder;
+        }
+    };
+
+    /**
+     * Constructs a recorder with no recorded values.
+     */
+    public MetricHistogramRecorder() {
+        for (final Field field : FIELDS) {
+            metricTypes.set(field.ordinal(), field);
+        }
+    }
+
+    /**
+     * Records a value of the given metric type. Durations are recorded in
+     * nanoseconds. Negative values are recorded as zero.
+     *
+     * @param type the metric type.
+     * @param value the value.
+     */
+    public void record(MetricType type, long value) {
+        record(indexOf(type), value);
+    }
+
+    /**
+     * Records a value of the metric type with the given index.
+     *
+     * @param index the index returned by {@link #indexOf(MetricType)}, or -1
+     *            to ignore the value.
+     * @param value the value.
+     */
+    public void record(int index, long value) {
+        if (index >= 0) {
+            threadRecorder.get().record(index, value);
+        }
+    }
+
+    /**
+     * Returns the histogram index of the given metric type, assigning one if
+     * needed. Indexes are less than {@link #MAX_METRIC_TYPES}.
+     *
+     * @param type the metric type.
+     * @return the index, or -1 if {@link #MAX_METRIC_TYPES} metric types are
+     *         already being recorded.
+     */
+    public int indexOf(MetricType type) {
+        if (type instanceof Field) {
+            return ((Field) type).ordinal();
+        }
+        final Integer index = otherIndices.get(type);
+        if (index != null) {
+            return index;
+        }
+        return assignIndex(type);
+    }
+
+    private synchronized int assignIndex(MetricType type) {
+        Integer index = otherIndices.get(type);
+        if (index == null) {
+            if (nextIndex == MAX_METRIC_TYPES) {
+                return -1;
+            }
+            index = nextIndex++;
+            metricTypes.set(index, type);
+            otherIndices.put(type, index);
+        }
+        return index;
+    }
+
+    /**
+     * Returns the histograms recorded by all the threads since the last
+     * snapshot, and starts new histograms.
+     *
+     * @return the histograms of the metric types with recorded values.
+     */
+    public List<MetricHistogram> snapshotAndReset() {
+        final long[][] merged;
+        synchronized (snapshotLock) {
+            retireDeadRecorders();
+            merged = retired;
+            retired = new long[MAX_METRIC_TYPES][];
+            for (final ThreadRecorder recorder : recorders) {
+                recorder.drainTo(merged);
+            }
+        }
+
+        final List<MetricHistogram> histograms = new ArrayList<MetricHistogram>();
+        for (int i = 0; i < MAX_METRIC_TYPES; i++) {
+            if (merged[i] != null) {
+                final long[] counts = new long[BUCKET_COUNT];
+                System.arraycopy(merged[i], 0, counts, 0, BUCKET_COUNT);
+                final MetricHistogram histogram =
+                        new MetricHistogram(metricTypes.get(i), counts, merged[i][SUM_INDEX]);
+                if (histogram.getCount() > 0) {
+                    histograms.add(histogram);
+                }
+            }
+        }
+        return histograms;
+    }
+
+    /**
+     * Removes the recorders of dead threads and adds their counts to the
+     * retired counts. Must be called with the snapshot lock held.
+     */
+    private void retireDeadRecorders() {
+        for (final Iterator<ThreadRecorder> it = recorders.iterator(); it.hasNext();) {
+            final ThreadRecorder recorder = it.next();
+            final Thread owner = recorder.owner.get();
+            // Drained after removal, a dead thread can't record anything more.
+            if (owner == null || !owner.isAlive()) {
+                it.remove();
+                recorder.drainTo(retired);
+            }
+        }
+    }
+
+    /** Returns the number of threads with a recorder, for tests. */
+    int threadRecorderCount() {
+        return recorders.size();
+    }
+
+    static int bucketIndex(long value) {
+        if (value < 2 * SUB_BUCKET_COUNT) {
+            return value <= 0 ? 0 : (int) value;
+        }
+        final int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        if (magnitude > MAX_MAGNITUDE) {
+            return BUCKET_COUNT - 1;
+        }
+        final int shift = magnitude - SUB_BUCKET_BITS;
+        return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+    }
+
+    static long lowestValue(int bucket) {
+        if (bucket < 2 * SUB_BUCKET_COUNT) {
+            return bucket;
+        }
+        final int shift = (bucket >> SUB_BUCKET_BITS) - 1;
+        return ((long) (bucket & (SUB_BUCKET_COUNT - 1)) + SUB_BUCKET_COUNT) << shift;
+    }
+
+    static long highestValue(int bucket) {
+        return bucket == BUCKET_COUNT - 1 ? Long.MAX_VALUE : lowestValue(bucket + 1) - 1;
+    }
+
+    /**
+     * The histograms of one thread. Only the owner thread writes them, so the
+     * counts are updated without atomic read-modify-write operations; a
+     * snapshot takes the difference with the counts of the previous one.
+     */
+    private static final class ThreadRecorder {
+        private final WeakReference<Thread> owner;
+        private final AtomicReferenceArray<AtomicLongArray> histograms =
+                new AtomicReferenceArray<AtomicLongArray>(MAX_METRIC_TYPES);
+        /* Counts at the previous snapshot, guarded by the snapshot lock. */
+        private final long[][] drained = new long[MAX_METRIC_TYPES][];
+
+        ThreadRecorder(Thread owner) {
+            this.owner = new WeakReference<Thread>(owner);
+        }
+
+        void record(int index, long value) {
+            AtomicLongArray histogram = histograms.get(index);
+            if (histogram == null) {
+                histogram = new AtomicLongArray(BUCKET_COUNT + 1);
+                histograms.set(index, histogram);
+            }
+            if (value > 0) {
+                final int bucket = bucketIndex(value);
+                histogram.lazySet(bucket, histogram.get(bucket) + 1);
+                histogram.lazySet(SUM_INDEX, histogram.get(SUM_INDEX) + value);
+            } else {
+                histogram.lazySet(0, histogram.get(0) + 1);
+            }
+        }
+
+        void drainTo(long[][] merged) {
+            for (int i = 0; i < MAX_METRIC_TYPES; i++) {
+                final AtomicLongArray histogram = histograms.get(i);
+                if (histogram == null) {
+                    continue;
+                }
+                long[] previous = drained[i];
+                if (previous == null) {
+                    previous = new long[BUCKET_COUNT + 1];
+                    drained[i] = previous;
+                }
+                long[] target = merged[i];
+                if (target == null) {
+                    target = new long[BUCKET_COUNT + 1];
+                    merged[i] = target;
+                }
+                for (int j = 0; j <= SUM_INDEX; j++) {
+                    final long current = histogram.get(j);
+                    target[j] += current - previous[j];
+                    previous[j] = current;
+                }
+            }
+        }
+    }
+}
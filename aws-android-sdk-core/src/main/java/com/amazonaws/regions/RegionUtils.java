@@ -27,45 +27,43 @@ import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Utilities for working with regions.
+ * <p>
+ * The regions are loaded on first use and indexed by name, by service and by
+ * endpoint host. The index is immutable and published through a volatile
+ * field, so lookups don't take any lock.
  */
 public class RegionUtils {
 
-    private static List<Region> regions;
+    private static volatile RegionIndex index;
 
     // Use the same logger as the http client
     private static final Log log = LogFactory.getLog("com.amazonaws.request");
 
     /**
-     * @return a list of the available AWS regions.
+     * @return an immutable list of the available AWS regions.
      */
-    public static synchronized List<Region> getRegions() {
-        if (regions == null) {
-            init();
-        }
-
-        return regions;
+    public static List<Region> getRegions() {
+        return getIndex().regions;
     }
 
     /**
      * @param serviceAbbreviation the service abbreviation.
-     * @return a list of the regions that support the service given.
+     * @return a new list of the regions that support the service given.
      *
      * @see ServiceAbbreviations
      */
-    @SuppressWarnings("checkstyle:hiddenfield")
-    public static synchronized List<Region> getRegionsForService(String serviceAbbreviation) {
-        List<Region> regions = new LinkedList<Region>();
-        for (Region r : getRegions()) {
-            if (r.isServiceSupported(serviceAbbreviation)) {
-                regions.add(r);
-            }
-        }
-        return regions;
+    public static List<Region> getRegionsForService(String serviceAbbreviation) {
+        final List<Region> regions = getIndex().regionsByService.get(serviceAbbreviation);
+        return regions != null ? new LinkedList<Region>(regions) : new LinkedList<Region>();
     }
 
     /**
@@ -74,13 +72,10 @@ public class RegionUtils {
      * null.
      */
     public static Region getRegion(String regionName) {
-        for (Region r : getRegions()) {
-            if (r.getName().equals(regionName)) {
-                return r;
-            }
+        if (regionName == null) {
+            return null;
         }
-
-        return null;
+        return getIndex().regionsByName.get(regionName);
     }
 
     /**
@@ -100,17 +95,12 @@ public class RegionUtils {
         URI targetEndpointUri = getUriByEndpoint(endpoint);
         String targetHost = targetEndpointUri.getHost();
 
-        for (Region region : getRegions()) {
-            for (String serviceEndpoint : region.getServiceEndpoints().values()) {
-                URI serviceEndpointUrl = getUriByEndpoint(serviceEndpoint);
-
-                if (serviceEndpointUrl.getHost().equals(targetHost))
-                    return region;
-            }
+        Region region = getIndex().regionsByHost.get(targetHost);
+        if (region == null) {
+            throw new IllegalArgumentException("No region found with any service for endpoint "
+                    + endpoint);
         }
-
-        throw new IllegalArgumentException("No region found with any service for endpoint "
-                + endpoint);
+        return region;
     }
 
     /**
@@ -122,9 +112,10 @@ public class RegionUtils {
      * the defaults shipped with the SDK) into memory.
      */
     public static synchronized void init() {
+        List<Region> regions = null;
         if (System.getProperty(REGIONS_FILE_OVERRIDE_SYSTEM_PROPERTY) != null) {
             try {
-                loadRegionsFromOverrideFile();
+                regions = loadRegionsFromOverrideFile();
             } catch (FileNotFoundException e) {
                 throw new RuntimeException("Couldn't find regions override file specified", e);
             }
@@ -132,15 +123,29 @@ public class RegionUtils {
 
         // Fall back onto the version we ship with the SDK
         if (regions == null) {
-            initSDKRegions();
+            regions = initSDKRegions();
         }
         // Throw out RuntimeException explicitly
         if (regions == null) {
             throw new RuntimeException("Failed to initialize the regions.");
         }
+        index = new RegionIndex(regions);
+    }
+
+    private static RegionIndex getIndex() {
+        RegionIndex current = index;
+        if (current == null) {
+            synchronized (RegionUtils.class) {
+                if (index == null) {
+                    init();
+                }
+                current = index;
+            }
+        }
+        return current;
     }
 
-    private static void loadRegionsFromOverrideFile() throws FileNotFoundException {
+    private static List<Region> loadRegionsFromOverrideFile() throws FileNotFoundException {
         String overrideFilePath = System.getProperty(REGIONS_FILE_OVERRIDE_SYSTEM_PROPERTY);
         if (log.isDebugEnabled()) {
             log.debug("Using local override of the regions file ("
@@ -149,7 +154,7 @@ public class RegionUtils {
         }
         File regionsFile = new File(overrideFilePath);
         FileInputStream override = new FileInputStream(regionsFile);
-        initRegions(override);
+        return initRegions(override);
     }
 
     /**
@@ -157,13 +162,15 @@ public class RegionUtils {
      *
      * @param regionsFile The input stream pointing to the retrieved region
      *            file.
+     * @return the regions, or null if the file can't be parsed.
      */
-    private static void initRegions(InputStream regionsFile) {
+    private static List<Region> initRegions(InputStream regionsFile) {
         try {
             RegionMetadataParser parser = new RegionMetadataParser();
-            regions = parser.parseRegionMetadata(regionsFile);
+            return parser.parseRegionMetadata(regionsFile);
         } catch (Exception e) {
             log.warn("Failed to parse regional endpoints", e);
+            return null;
         }
     }
 
@@ -171,11 +178,11 @@ public class RegionUtils {
      * Failsafe method to initialize the regions list from the list bundled with
      * the SDK, in case it cannot be fetched from the remote source.
      */
-    private static void initSDKRegions() {
+    private static List<Region> initSDKRegions() {
         if (log.isDebugEnabled()) {
             log.debug("Initializing the regions with default regions");
         }
-        regions = RegionDefaults.getRegions();
+        return RegionDefaults.getRegions();
     }
 
     /**
@@ -195,4 +202,60 @@ public class RegionUtils {
         }
         return targetEndpointUri;
     }
+
+    /**
+     * @return the host of the endpoint, which is the endpoint itself for all
+     *         the endpoints shipped with the SDK. Parsing those as URIs would
+     *         make up most of the time it takes to load the regions.
+     */
+    private static String getHost(String endpoint) {
+        if (endpoint.indexOf(':') < 0 && endpoint.indexOf('/') < 0) {
+            return endpoint;
+        }
+        return getUriByEndpoint(endpoint).getHost();
+    }
+
+    /**
+     * The regions indexed by name, by service and by endpoint host. Built
+     * once, never modified.
+     */
+    private static final class RegionIndex {
+        private final List<Region> regions;
+        private final Map<String, Region> regionsByName;
+        private final Map<String, List<Region>> regionsByService;
+        private final Map<String, Region> regionsByHost;
+
+        RegionIndex(List<Region> regionList) {
+            final Map<String, Region> byName = new HashMap<String, Region>();
+            final Map<String, List<Region>> byService = new HashMap<String, List<Region>>();
+            final Map<String, Region> byHost = new HashMap<String, Region>();
+            for (final Region region : regionList) {
+                // The first region wins, as with the former linear scans.
+                if (!byName.containsKey(region.getName())) {
+                    byName.put(region.getName(), region);
+                }
+                for (final Map.Entry<String, String> entry : region.getServiceEndpoints()
+                        .entrySet()) {
+                    List<Region> serviceRegions = byService.get(entry.getKey());
+                    if (serviceRegions == null) {
+                        serviceRegions = new ArrayList<Region>();
+                        byService.put(entry.getKey(), serviceRegions);
+                    }
+                    serviceRegions.add(region);
+
+                    final String host = getHost(entry.getValue());
+                    if (host != null && !byHost.containsKey(host)) {
+                        byHost.put(host, region);
+                    }
+                }
+            }
+            for (final Map.Entry<String, List<Region>> entry : byService.entrySet()) {
+                entry.setValue(Collections.unmodifiableList(entry.getValue()));
+            }
+            this.regions = Collections.unmodifiableList(new ArrayList<Region>(regionList));
+            this.regionsByName = byName;
+            this.regionsByService = byService;
+            this.regionsByHost = byHost;
+        }
+    }
 }
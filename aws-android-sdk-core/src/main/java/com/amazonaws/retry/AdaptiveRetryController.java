@@ -0,0 +1,283 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.retry;
+
+import com.amazonaws.AbortedException;
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.util.HttpUtils;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared state of an adaptive retry policy, used by all the requests sent
+ * with the policy. It combines:
+ * <ul>
+ * <li>a retry token bucket: each retry costs tokens and each successful
+ * request returns some, so that retries stop when most requests fail;
+ * <li>a client side rate limiter, enabled by the first throttling response,
+ * which delays requests to the send rate the service accepts;
+ * <li>a circuit breaker per endpoint, which fails requests to an endpoint
+ * immediately after consecutive server errors or connection failures, until
+ * a probe request succeeds.
+ * </ul>
+ *
+ * @see PredefinedRetryPolicies#getAdaptiveRetryPolicy()
+ * @see RetryPolicy#getAdaptiveRetryController()
+ */
+public class AdaptiveRetryController {
+
+    /** Default capacity of the retry token bucket. */
+    public static final int DEFAULT_RETRY_CAPACITY = 500;
+
+    /** Default number of consecutive failures that open a circuit. */
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+
+    /** Default time in milliseconds a circuit stays open before a probe. */
+    public static final long DEFAULT_OPEN_CIRCUIT_MILLIS = 5 * 1000L;
+
+    /** Tokens taken for a retry. */
+    static final int RETRY_COST = 5;
+
+    /** Tokens taken for a retry after a timeout. */
+    static final int TIMEOUT_RETRY_COST = 10;
+
+    /** Tokens returned by a request that succeeds on the first attempt. */
+    static final int NO_RETRY_INCREMENT = 1;
+
+    private static final int HTTP_STATUS_TOO_MANY_REQUESTS = 429;
+
+    private final RetryTokenBucket tokenBucket;
+    private final ClientRateLimiter rateLimiter;
+    private final int failureThreshold;
+    private final long openCircuitNanos;
+    private final ConcurrentMap<String, Circuit> circuits = new ConcurrentHashMap<String, Circuit>();
+
+    /**
+     * Constructs a controller with the default settings.
+     */
+    public AdaptiveRetryController() {
+        this(DEFAULT_RETRY_CAPACITY, DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_CIRCUIT_MILLIS);
+    }
+
+    /**
+     * @param retryCapacity the capacity of the retry token bucket; a retry
+     *            takes 5 tokens, or 10 after a timeout.
+     * @param failureThreshold the number of consecutive failures that open the
+     *            circuit of an endpoint, or 0 to disable circuit breaking.
+     * @param openCircuitMillis the time in milliseconds an open circuit fails
+     *            requests immediately before letting a probe request through.
+     */
+    public AdaptiveRetryController(int retryCapacity, int failureThreshold,
+            long openCircuitMillis) {
+        this(retryCapacity, failureThreshold, openCircuitMillis, new ClientRateLimiter());
+    }
+
+    AdaptiveRetryController(int retryCapacity, int failureThreshold, long openCircuitMillis,
+            ClientRateLimiter rateLimiter) {
+        if (retryCapacity < 0 || failureThreshold < 0 || openCircuitMillis < 0) {
+            throw new IllegalArgumentException("Adaptive retry settings must not be negative");
+        }
+        this.tokenBucket = new RetryTokenBucket(retryCapacity);
+        this.rateLimiter = rateLimiter;
+        this.failureThreshold = failureThreshold;
+        this.openCircuitNanos = TimeUnit.MILLISECONDS.toNanos(openCircuitMillis);
+    }
+
+    /**
+     * Called before each attempt to send a request. Waits for the client side
+     * rate limiter if it is enabled.
+     *
+     * @param endpoint the endpoint of the request.
+     * @throws AmazonClientException if the circuit of the endpoint is open.
+     * @throws AbortedException if interrupted while waiting.
+     */
+    public void beforeAttempt(URI endpoint) {
+        final Circuit circuit = circuitOf(endpoint);
+        if (circuit != null && !circuit.allowRequest(currentTimeNanos())) {
+            throw new AmazonClientException("Unable to execute HTTP request: the circuit to "
+                    + endpoint + " is open after " + failureThreshold
+                    + " consecutive failures");
+        }
+        try {
+            rateLimiter.acquire();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AbortedException("Interrupted while waiting to send the request", e);
+        }
+    }
+
+    /**
+     * Called when an attempt succeeds.
+     *
+     * @param endpoint the endpoint of the request.
+     * @param retryCost the tokens acquired to send this attempt, or 0 for the
+     *            first attempt.
+     */
+    public void onSuccess(URI endpoint, int retryCost) {
+        tokenBucket.release(retryCost > 0 ? retryCost : NO_RETRY_INCREMENT);
+        rateLimiter.updateSendingRate(false);
+        final Circuit circuit = circuitOf(endpoint);
+        if (circuit != null) {
+            circuit.onSuccess();
+        }
+    }
+
+    /**
+     * Called when an attempt fails with a service error or an I/O error.
+     *
+     * @param endpoint the endpoint of the request.
+     * @param exception the failure.
+     */
+    public void onFailure(URI endpoint, AmazonClientException exception) {
+        rateLimiter.updateSendingRate(isThrottling(exception));
+        final Circuit circuit = circuitOf(endpoint);
+        if (circuit != null) {
+            if (isServerFailure(exception)) {
+                circuit.onFailure(currentTimeNanos());
+            } else {
+                // The endpoint is up, even if it rejected the request.
+                circuit.onSuccess();
+            }
+        }
+    }
+
+    /**
+     * Takes the retry tokens needed to retry after the given failure.
+     *
+     * @param exception the failure.
+     * @return the number of tokens taken, or -1 if there are not enough tokens
+     *         left and the request should not be retried.
+     */
+    public int acquireRetryCapacity(AmazonClientException exception) {
+        final int cost = exception.getCause() instanceof SocketTimeoutException
+                ? TIMEOUT_RETRY_COST
+                : RETRY_COST;
+        return tokenBucket.acquire(cost) ? cost : -1;
+    }
+
+    /**
+     * @return the number of retry tokens left.
+     */
+    public int getAvailableRetryCapacity() {
+        return tokenBucket.getAvailableTokens();
+    }
+
+    /**
+     * @return true if requests are being rate limited after throttling
+     *         responses.
+     */
+    public boolean isRateLimiting() {
+        return rateLimiter.isEnabled();
+    }
+
+    /**
+     * @param endpoint the endpoint.
+     * @return true if requests to the endpoint currently fail immediately.
+     */
+    public boolean isCircuitOpen(URI endpoint) {
+        final Circuit circuit = circuitOf(endpoint);
+        return circuit != null && circuit.isOpen(currentTimeNanos());
+    }
+
+    long currentTimeNanos() {
+        return System.nanoTime();
+    }
+
+    private Circuit circuitOf(URI endpoint) {
+        if (failureThreshold == 0 || endpoint == null) {
+            return null;
+        }
+        final String key = endpoint.getScheme() + "://" + endpoint.getAuthority();
+        Circuit circuit = circuits.get(key);
+        if (circuit == null) {
+            final Circuit newCircuit = new Circuit();
+            circuit = circuits.putIfAbsent(key, newCircuit);
+            if (circuit == null) {
+                circuit = newCircuit;
+            }
+        }
+        return circuit;
+    }
+
+    private static boolean isThrottling(AmazonClientException exception) {
+        if (exception instanceof AmazonServiceException) {
+            final AmazonServiceException ase = (AmazonServiceException) exception;
+            return ase.getStatusCode() == HTTP_STATUS_TOO_MANY_REQUESTS
+                    || RetryUtils.isThrottlingException(ase);
+        }
+        return false;
+    }
+
+    private static boolean isServerFailure(AmazonClientException exception) {
+        if (exception instanceof AmazonServiceException) {
+            final AmazonServiceException ase = (AmazonServiceException) exception;
+            return ase.getStatusCode() >= HttpUtils.HTTP_STATUS_INTERNAL_SERVER_ERROR
+                    && !RetryUtils.isThrottlingException(ase);
+        }
+        return exception.getCause() instanceof IOException;
+    }
+
+    /**
+     * The circuit of an endpoint. Closed, it lets requests through and counts
+     * consecutive failures. Open, it fails requests until the open time has
+     * elapsed, then lets a single probe request through and waits for another
+     * open time: the circuit closes if the probe succeeds and opens again if
+     * it fails.
+     */
+    private final class Circuit {
+        private int consecutiveFailures;
+        private boolean open;
+        private boolean probing;
+        private long openedAtNanos;
+
+        synchronized boolean allowRequest(long now) {
+            if (!open) {
+                return true;
+            }
+            if (now - openedAtNanos < openCircuitNanos) {
+                return false;
+            }
+            probing = true;
+            openedAtNanos = now;
+            return true;
+        }
+
+        synchronized boolean isOpen(long now) {
+            return open && now - openedAtNanos < openCircuitNanos;
+        }
+
+        synchronized void onSuccess() {
+            consecutiveFailures = 0;
+            open = false;
+            probing = false;
+        }
+
+        synchronized void onFailure(long now) {
+            consecutiveFailures++;
+            if (probing || consecutiveFailures >= failureThreshold) {
+                open = true;
+                probing = false;
+                openedAtNanos = now;
+            }
+        }
+    }
+}
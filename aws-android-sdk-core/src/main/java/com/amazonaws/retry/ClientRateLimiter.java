@@ -0,0 +1,170 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.retry;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the rate at which a client sends requests, learning the rate from
+ * throttling responses.
+ * <p>
+ * The limiter is disabled until the first throttling response. After that, a
+ * request needs a token from a bucket refilled at the current fill rate. A
+ * throttling response cuts the fill rate to a fraction of the measured send
+ * rate, and successful responses grow it back along a cubic curve centered on
+ * the rate at the last throttling response, as in the CUBIC congestion
+ * control algorithm.
+ */
+class ClientRateLimiter {
+    /** Fraction of the rate kept on throttling. */
+    private static final double BETA = 0.7;
+    /** Scale of the cubic growth of the rate. */
+    private static final double SCALE_CONSTANT = 0.4;
+    /** Weight of the latest measurement of the send rate. */
+    private static final double SMOOTH = 0.8;
+    private static final double MIN_FILL_RATE = 0.5;
+    private static final double MIN_CAPACITY = 1;
+    /** Length in seconds of the buckets the send rate is measured over. */
+    private static final double MEASUREMENT_BUCKET_SECONDS = 0.5;
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final long ORIGIN_NANOS = System.nanoTime();
+
+    private boolean enabled;
+    private double fillRate;
+    private double maxCapacity;
+    private double currentCapacity;
+    private double lastRefillTime = -1;
+
+    private double measuredTxRate;
+    private double lastTxRateBucket = -1;
+    private long requestCount;
+
+    private double lastMaxRate;
+    private double lastThrottleTime;
+    private double timeWindow;
+
+    /**
+     * Takes a token, waiting for the bucket to refill if needed.
+     *
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    void acquire() throws InterruptedException {
+        final long waitNanos;
+        synchronized (this) {
+            if (!enabled) {
+                return;
+            }
+            refill();
+            // Reserve the token; the capacity goes negative until refilled.
+            currentCapacity -= 1;
+            waitNanos = currentCapacity >= 0 ? 0
+                    : (long) (-currentCapacity / fillRate * NANOS_PER_SECOND);
+        }
+        if (waitNanos > 0) {
+            sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Updates the sending rate from the response of a request.
+     *
+     * @param throttled true if the response was a throttling error.
+     */
+    synchronized void updateSendingRate(boolean throttled) {
+        if (lastTxRateBucket < 0) {
+            lastTxRateBucket = timeBucket(now());
+            lastThrottleTime = now();
+        }
+        updateMeasuredRate();
+        final double calculatedRate;
+        if (throttled) {
+            final double rateToUse = enabled ? Math.min(measuredTxRate, fillRate) : measuredTxRate;
+            lastMaxRate = rateToUse;
+            calculateTimeWindow();
+            lastThrottleTime = now();
+            calculatedRate = rateToUse * BETA;
+            enabled = true;
+        } else {
+            calculateTimeWindow();
+            calculatedRate = cubicSuccess(now());
+        }
+        updateRate(Math.min(calculatedRate, 2 * measuredTxRate));
+    }
+
+    synchronized boolean isEnabled() {
+        return enabled;
+    }
+
+    synchronized double getFillRate() {
+        return fillRate;
+    }
+
+    synchronized double getMeasuredTxRate() {
+        return measuredTxRate;
+    }
+
+    /**
+     * @return the non-negative current time in seconds.
+     */
+    double now() {
+        return (System.nanoTime() - ORIGIN_NANOS) / NANOS_PER_SECOND;
+    }
+
+    void sleep(long nanos) throws InterruptedException {
+        TimeUnit.NANOSECONDS.sleep(nanos);
+    }
+
+    private double cubicSuccess(double timestamp) {
+        final double dt = timestamp - lastThrottleTime;
+        return SCALE_CONSTANT * Math.pow(dt - timeWindow, 3) + lastMaxRate;
+    }
+
+    private void calculateTimeWindow() {
+        timeWindow = Math.cbrt(lastMaxRate * (1 - BETA) / SCALE_CONSTANT);
+    }
+
+    private void refill() {
+        final double timestamp = now();
+        if (lastRefillTime >= 0) {
+            final double fillAmount = (timestamp - lastRefillTime) * fillRate;
+            currentCapacity = Math.min(maxCapacity, currentCapacity + fillAmount);
+        }
+        lastRefillTime = timestamp;
+    }
+
+    private void updateRate(double newRate) {
+        refill();
+        fillRate = Math.max(newRate, MIN_FILL_RATE);
+        maxCapacity = Math.max(newRate, MIN_CAPACITY);
+        currentCapacity = Math.min(currentCapacity, maxCapacity);
+    }
+
+    private static double timeBucket(double timestamp) {
+        return Math.floor(timestamp / MEASUREMENT_BUCKET_SECONDS) * MEASUREMENT_BUCKET_SECONDS;
+    }
+
+    private void updateMeasuredRate() {
+        final double timestamp = now();
+        final double timeBucket = timeBucket(timestamp);
+        requestCount++;
+        if (timeBucket > lastTxRateBucket) {
+            final double currentRate = requestCount / (timeBucket - lastTxRateBucket);
+            measuredTxRate = currentRate * SMOOTH + measuredTxRate * (1 - SMOOTH);
+            requestCount = 0;
+            lastTxRateBucket = timeBucket;
+        }
+    }
+}
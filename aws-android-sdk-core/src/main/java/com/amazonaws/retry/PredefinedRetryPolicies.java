@@ -138,6 +138,42 @@ public class PredefinedRetryPolicies {
                 false);
     }
 
+    /**
+     * Returns a new adaptive retry policy. On top of the SDK default retry
+     * condition and back-off strategy, retries take capacity from a token
+     * bucket shared by all the requests sent with the policy, requests are
+     * rate limited once the service starts throttling, and requests to an
+     * endpoint fail immediately after consecutive server errors. This policy
+     * will honor the maxErrorRetry set in ClientConfiguration.
+     * <p>
+     * Each call returns a policy with its own state, meant to be set on the
+     * {@link ClientConfiguration} of a client.
+     *
+     * @return a new adaptive retry policy.
+     * @see ClientConfiguration#setRetryPolicy(RetryPolicy)
+     * @see AdaptiveRetryController
+     */
+    public static RetryPolicy getAdaptiveRetryPolicy() {
+        return new RetryPolicy(DEFAULT_RETRY_CONDITION,
+                DEFAULT_BACKOFF_STRATEGY,
+                DEFAULT_MAX_ERROR_RETRY,
+                true,
+                new AdaptiveRetryController());
+    }
+
+    /**
+     * @param maxErrorRetry the max error retry count.
+     * @return a new adaptive retry policy with the specified max retry count.
+     * @see #getAdaptiveRetryPolicy()
+     */
+    public static RetryPolicy getAdaptiveRetryPolicyWithCustomMaxRetries(int maxErrorRetry) {
+        return new RetryPolicy(DEFAULT_RETRY_CONDITION,
+                DEFAULT_BACKOFF_STRATEGY,
+                maxErrorRetry,
+                false,
+                new AdaptiveRetryController());
+    }
+
     /**
      * The default implementation of RetryCondition used by the SDK. User could
      * extend this class to provide additional custom conditions. The default
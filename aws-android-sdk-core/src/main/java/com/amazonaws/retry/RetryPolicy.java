@@ -54,6 +54,12 @@ public final class RetryPolicy {
      */
     private final boolean honorMaxErrorRetryInClientConfig;
 
+    /**
+     * The shared state of adaptive retries, or null if retries are not
+     * adaptive.
+     */
+    private final AdaptiveRetryController adaptiveRetryController;
+
     /**
      * Constructs a new retry policy. See {@link PredefinedRetryPolicies} for
      * some pre-defined policy components, and also the default policies used by
@@ -77,6 +83,37 @@ public final class RetryPolicy {
             BackoffStrategy backoffStrategy,
             int maxErrorRetry,
             boolean honorMaxErrorRetryInClientConfig) {
+        this(retryCondition, backoffStrategy, maxErrorRetry, honorMaxErrorRetryInClientConfig,
+                null);
+    }
+
+    /**
+     * Constructs a new retry policy with adaptive retries. Before retrying a
+     * request that the retry condition accepts, the policy also takes retry
+     * capacity from the given controller, which also rate limits requests
+     * after throttling responses and breaks the circuit to failing endpoints.
+     * All the requests sent with this policy share the controller.
+     *
+     * @param retryCondition Retry condition on whether a specific request and
+     *            exception should be retried. If null value is specified, the
+     *            SDK' default retry condition is used.
+     * @param backoffStrategy Back-off strategy for controlling how long the
+     *            next retry should wait. If null value is specified, the SDK'
+     *            default exponential back-off strategy is used.
+     * @param maxErrorRetry Maximum number of retry attempts for failed
+     *            requests.
+     * @param honorMaxErrorRetryInClientConfig Whether this retry policy should
+     *            honor the max error retry set by
+     *            {@link ClientConfiguration#setMaxErrorRetry(int)}
+     * @param adaptiveRetryController The shared state of adaptive retries, or
+     *            null if retries are not adaptive.
+     * @see PredefinedRetryPolicies#getAdaptiveRetryPolicy()
+     */
+    public RetryPolicy(RetryCondition retryCondition,
+            BackoffStrategy backoffStrategy,
+            int maxErrorRetry,
+            boolean honorMaxErrorRetryInClientConfig,
+            AdaptiveRetryController adaptiveRetryController) {
         if (retryCondition == null) {
             retryCondition = PredefinedRetryPolicies.DEFAULT_RETRY_CONDITION;
         }
@@ -92,6 +129,7 @@ public final class RetryPolicy {
         this.backoffStrategy = backoffStrategy;
         this.maxErrorRetry = maxErrorRetry;
         this.honorMaxErrorRetryInClientConfig = honorMaxErrorRetryInClientConfig;
+        this.adaptiveRetryController = adaptiveRetryController;
     };
 
     /**
@@ -133,6 +171,16 @@ public final class RetryPolicy {
         return honorMaxErrorRetryInClientConfig;
     }
 
+    /**
+     * Returns the shared state of adaptive retries.
+     *
+     * @return The shared state of adaptive retries, or null if retries are not
+     *         adaptive.
+     */
+    public AdaptiveRetryController getAdaptiveRetryController() {
+        return adaptiveRetryController;
+    }
+
     /**
      * The hook for providing custom condition on whether a failed request
      * should be retried.
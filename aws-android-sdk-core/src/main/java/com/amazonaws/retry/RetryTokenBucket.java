@@ -0,0 +1,70 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.retry;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A bucket of retry tokens shared by all the requests of a client. Each retry
+ * takes tokens out of the bucket, and successful requests put tokens back, so
+ * that retries stop when most requests fail.
+ */
+final class RetryTokenBucket {
+    private final int capacity;
+    private final AtomicInteger tokens;
+
+    RetryTokenBucket(int capacity) {
+        this.capacity = capacity;
+        this.tokens = new AtomicInteger(capacity);
+    }
+
+    /**
+     * Takes the given number of tokens out of the bucket.
+     *
+     * @return true if there were enough tokens; false otherwise, in which case
+     *         no token is taken.
+     */
+    boolean acquire(int amount) {
+        while (true) {
+            final int current = tokens.get();
+            if (current < amount) {
+                return false;
+            }
+            if (tokens.compareAndSet(current, current - amount)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Puts the given number of tokens back, up to the capacity of the bucket.
+     */
+    void release(int amount) {
+        while (true) {
+            final int current = tokens.get();
+            if (current >= capacity) {
+                return;
+            }
+            if (tokens.compareAndSet(current, Math.min(capacity, current + amount))) {
+                return;
+            }
+        }
+    }
+
+    int getAvailableTokens() {
+        return tokens.get();
+    }
+}
@@ -17,6 +17,8 @@ package com.amazonaws.transform;
 
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.util.Base64;
+import com.amazonaws.util.json.AwsJsonReader;
+import com.amazonaws.util.json.Utf8JsonReader;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
@@ -60,7 +62,11 @@ public class SimpleTypeJsonUnmarshallers {
             Unmarshaller<Double, JsonUnmarshallerContext> {
         @Override
         public Double unmarshall(JsonUnmarshallerContext unmarshallerContext) throws Exception {
-            String doubleString = unmarshallerContext.getReader().nextString();
+            final AwsJsonReader reader = unmarshallerContext.getReader();
+            if (reader instanceof Utf8JsonReader) {
+                return ((Utf8JsonReader) reader).nextDouble();
+            }
+            String doubleString = reader.nextString();
             return (doubleString == null) ? null : Double.parseDouble(doubleString);
         }
 
@@ -84,7 +90,11 @@ public class SimpleTypeJsonUnmarshallers {
             Unmarshaller<Integer, JsonUnmarshallerContext> {
         @Override
         public Integer unmarshall(JsonUnmarshallerContext unmarshallerContext) throws Exception {
-            String intString = unmarshallerContext.getReader().nextString();
+            final AwsJsonReader reader = unmarshallerContext.getReader();
+            if (reader instanceof Utf8JsonReader) {
+                return ((Utf8JsonReader) reader).nextInt();
+            }
+            String intString = reader.nextString();
             return (intString == null) ? null : Integer.parseInt(intString);
         }
 
@@ -156,7 +166,11 @@ public class SimpleTypeJsonUnmarshallers {
             Unmarshaller<Boolean, JsonUnmarshallerContext> {
         @Override
         public Boolean unmarshall(JsonUnmarshallerContext unmarshallerContext) throws Exception {
-            String booleanString = unmarshallerContext.getReader().nextString();
+            final AwsJsonReader reader = unmarshallerContext.getReader();
+            if (reader instanceof Utf8JsonReader) {
+                return ((Utf8JsonReader) reader).nextBoolean();
+            }
+            String booleanString = reader.nextString();
             return (booleanString == null) ? null : Boolean.parseBoolean(booleanString);
         }
 
@@ -203,7 +217,11 @@ public class SimpleTypeJsonUnmarshallers {
     public static class LongJsonUnmarshaller implements Unmarshaller<Long, JsonUnmarshallerContext> {
         @Override
         public Long unmarshall(JsonUnmarshallerContext unmarshallerContext) throws Exception {
-            String longString = unmarshallerContext.getReader().nextString();
+            final AwsJsonReader reader = unmarshallerContext.getReader();
+            if (reader instanceof Utf8JsonReader) {
+                return ((Utf8JsonReader) reader).nextLong();
+            }
+            String longString = reader.nextString();
             return (longString == null) ? null : Long.parseLong(longString);
         }
 
@@ -285,8 +303,14 @@ public class SimpleTypeJsonUnmarshallers {
             Unmarshaller<ByteBuffer, JsonUnmarshallerContext> {
         @Override
         public ByteBuffer unmarshall(JsonUnmarshallerContext unmarshallerContext) throws Exception {
-            String base64EncodedString = unmarshallerContext.getReader().nextString();
-            byte[] decodedBytes = Base64.decode(base64EncodedString);
+            final AwsJsonReader reader = unmarshallerContext.getReader();
+            byte[] decodedBytes;
+            if (reader instanceof Utf8JsonReader) {
+                // Decoded straight from the response bytes.
+                decodedBytes = ((Utf8JsonReader) reader).nextBase64();
+            } else {
+                decodedBytes = Base64.decode(reader.nextString());
+            }
             return ByteBuffer.wrap(decodedBytes);
 
         }
@@ -25,6 +25,9 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Contains the unmarshalling state for the parsing of an XML response. The
@@ -33,16 +36,57 @@ import java.util.Map;
  * response. It also tracks the current position and element depth of the
  * document being parsed and provides utilties for accessing the next XML event
  * from the parser, reading element text, handling attribute XML events, etc.
+ * <p>
+ * Expressions are compiled once into the element names they match, and the
+ * current position is tracked as arrays of element names and their symbols,
+ * so testing an expression against the position doesn't allocate.
  */
 public class StaxUnmarshallerContext {
 
+    /**
+     * Symbol of element names not in the symbol table.
+     */
+    private static final int UNKNOWN_SYMBOL = -1;
+
+    /**
+     * Maximum number of element names given a symbol. Names are defined by
+     * the service models, so the limit is only a guard against unexpected
+     * documents; names beyond it are compared as strings.
+     */
+    private static final int MAX_SYMBOLS = 4096;
+
+    /**
+     * Maximum number of compiled expressions that are cached.
+     */
+    private static final int MAX_EXPRESSIONS = 8192;
+
+    private static final ConcurrentMap<String, Integer> SYMBOLS =
+            new ConcurrentHashMap<String, Integer>();
+    private static final AtomicInteger NEXT_SYMBOL = new AtomicInteger();
+
+    private static final ConcurrentMap<String, PathExpression> EXPRESSIONS =
+            new ConcurrentHashMap<String, PathExpression>();
+
+    private static final int INITIAL_DEPTH = 16;
+
     private int currentEventType;
     private final XmlPullParser xpp;
 
-    /** The deque stack. */
+    /**
+     * The deque stack.
+     *
+     * @deprecated no longer updated while parsing, use
+     *             {@link #getCurrentDepth()} and {@link #testExpression(String)}
+     *             to inspect the current position.
+     */
+    @Deprecated
     @SuppressWarnings("checkstyle:visibilitymodifier")
     public final Deque<String> stack = new LinkedList<String>();
-    private String stackString = "";
+
+    // Names and symbols of the elements enclosing the current position.
+    private String[] names = new String[INITIAL_DEPTH];
+    private int[] symbols = new int[INITIAL_DEPTH];
+    private int depth;
 
     private Map<String, String> metadata = new HashMap<String, String>();
     private List<MetadataExpression> metadataExpressions = new ArrayList<MetadataExpression>();
@@ -116,7 +160,7 @@ public class StaxUnmarshallerContext {
      *         document being parsed.
      */
     public int getCurrentDepth() {
-        return stack.size();
+        return depth;
     }
 
     /**
@@ -147,16 +191,7 @@ public class StaxUnmarshallerContext {
         if (".".equals(expression))
             return true;
 
-        int index = -1;
-        while ((index = expression.indexOf("/", index + 1)) > -1) {
-            // Don't consider attributes a new depth level
-            if (expression.charAt(index + 1) != '@') {
-                startingStackDepth++;
-            }
-        }
-
-        return (getCurrentDepth() == startingStackDepth
-                && stackString.endsWith("/" + expression));
+        return compile(expression).matches(this, startingStackDepth);
     }
 
     /**
@@ -192,7 +227,7 @@ public class StaxUnmarshallerContext {
         // look for meta data
         if (currentEventType == XmlPullParser.START_TAG) {
             for (MetadataExpression metadataExpression : metadataExpressions) {
-                if (testExpression(metadataExpression.expression,
+                if (metadataExpression.expression.matches(this,
                         metadataExpression.targetDepth)) {
                     metadata.put(metadataExpression.key, readText());
                     break;
@@ -241,24 +276,115 @@ public class StaxUnmarshallerContext {
     @SuppressWarnings("checkstyle:visibilitymodifier")
     private static class MetadataExpression {
 
-        public String expression;
+        public PathExpression expression;
         public int targetDepth;
         public String key;
 
         public MetadataExpression(String expression, int targetDepth, String key) {
-            this.expression = expression;
+            this.expression = compile(expression);
             this.targetDepth = targetDepth;
             this.key = key;
         }
     }
 
+    /**
+     * A pseudo-xpath expression compiled into the element names it matches,
+     * from the outermost to the innermost.
+     */
+    private static final class PathExpression {
+        private final String[] names;
+        private final int[] symbols;
+
+        /**
+         * Number of levels between the starting depth and the element.
+         */
+        private final int depthOffset;
+
+        /**
+         * Attribute steps are not tracked as elements, so expressions with
+         * them never match.
+         */
+        private final boolean matchesNothing;
+
+        PathExpression(String expression) {
+            names = expression.split("/", -1);
+            symbols = new int[names.length];
+            int offset = 0;
+            boolean attribute = false;
+            for (int i = 0; i < names.length; i++) {
+                symbols[i] = symbolOf(names[i]);
+                if (names[i].startsWith("@")) {
+                    attribute = true;
+                } else if (i > 0) {
+                    // Don't consider attributes a new depth level
+                    offset++;
+                }
+            }
+            depthOffset = offset;
+            matchesNothing = attribute || expression.endsWith("/");
+        }
+
+        boolean matches(StaxUnmarshallerContext context, int startingStackDepth) {
+            final int depth = context.depth;
+            if (matchesNothing || depth != startingStackDepth + depthOffset
+                    || depth < names.length) {
+                return false;
+            }
+            for (int i = names.length - 1, level = depth - 1; i >= 0; i--, level--) {
+                final int symbol = symbols[i];
+                final int elementSymbol = context.symbols[level];
+                if (symbol != UNKNOWN_SYMBOL && elementSymbol != UNKNOWN_SYMBOL) {
+                    if (symbol != elementSymbol) {
+                        return false;
+                    }
+                } else if (!names[i].equals(context.names[level])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static PathExpression compile(String expression) {
+        PathExpression compiled = EXPRESSIONS.get(expression);
+        if (compiled == null) {
+            compiled = new PathExpression(expression);
+            if (EXPRESSIONS.size() < MAX_EXPRESSIONS) {
+                EXPRESSIONS.putIfAbsent(expression, compiled);
+            }
+        }
+        return compiled;
+    }
+
+    private static int symbolOf(String name) {
+        final Integer symbol = SYMBOLS.get(name);
+        if (symbol != null) {
+            return symbol;
+        }
+        if (SYMBOLS.size() >= MAX_SYMBOLS) {
+            return UNKNOWN_SYMBOL;
+        }
+        final Integer newSymbol = NEXT_SYMBOL.getAndIncrement();
+        final Integer existing = SYMBOLS.putIfAbsent(name, newSymbol);
+        return existing != null ? existing : newSymbol;
+    }
+
     private void updateContext() {
         if (currentEventType == XmlPullParser.START_TAG) {
-            stackString += "/" + xpp.getName();
-            stack.push(stackString);
+            if (depth == names.length) {
+                final String[] newNames = new String[depth * 2];
+                System.arraycopy(names, 0, newNames, 0, depth);
+                names = newNames;
+                final int[] newSymbols = new int[depth * 2];
+                System.arraycopy(symbols, 0, newSymbols, 0, depth);
+                symbols = newSymbols;
+            }
+            final String name = xpp.getName();
+            names[depth] = name;
+            symbols[depth] = symbolOf(name);
+            depth++;
         } else if (currentEventType == XmlPullParser.END_TAG) {
-            stack.pop();
-            stackString = stack.isEmpty() ? "" : stack.peek();
+            names[--depth] = null;
         }
     }
 }
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.util;
+
+import com.amazonaws.metrics.AwsSdkMetrics;
+import com.amazonaws.metrics.MetricHistogramRecorder;
+import com.amazonaws.metrics.MetricType;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * In contrast to {@link AWSRequestMetricsFullSupport}, which keeps every
+ * measurement of a request, this class records the durations of the events
+ * and the counters of a request into the histograms of a
+ * {@link MetricHistogramRecorder}. Properties are not kept.
+ * <p>
+ * The duration of an event is recorded when the event ends. Counters are
+ * recorded once, when the {@link AWSRequestMetrics.Field#ClientExecuteTime}
+ * event ends.
+ * <p>
+ * This class is instantiated when request metric collection is not required
+ * but histogram metrics are enabled via
+ * {@link AwsSdkMetrics#setMetricHistogramsEnabled(boolean)}.
+ */
+public class AWSRequestMetricsHistogramSupport extends AWSRequestMetrics {
+    private static final int FIELD_COUNT = Field.values().length;
+    private static final Map<String, Field> FIELDS_BY_NAME = new HashMap<String, Field>();
+    static {
+        for (final Field field : Field.values()) {
+            FIELDS_BY_NAME.put(field.name(), field);
+        }
+    }
+
+    private final MetricHistogramRecorder recorder;
+
+    /* Start times in nanoseconds of the events, by histogram index. */
+    private long[] eventStartNanos = new long[FIELD_COUNT];
+    /* Counters by histogram index. */
+    private long[] counters = new long[FIELD_COUNT];
+    /* Bit set of the started events and of the counters. */
+    private long startedEvents;
+    private long setCounters;
+
+    /**
+     * @param recorder the recorder of the histograms.
+     */
+    public AWSRequestMetricsHistogramSupport(MetricHistogramRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @Override
+    public void startEvent(String eventName) {
+        final Field field = FIELDS_BY_NAME.get(eventName);
+        if (field != null) {
+            startEvent(field);
+        }
+    }
+
+    @Override
+    public void startEvent(MetricType f) {
+        final int index = recorder.indexOf(f);
+        if (index >= 0) {
+            if (index >= eventStartNanos.length) {
+                eventStartNanos = Arrays.copyOf(eventStartNanos,
+                        MetricHistogramRecorder.MAX_METRIC_TYPES);
+            }
+            eventStartNanos[index] = System.nanoTime();
+            startedEvents |= 1L << index;
+        }
+    }
+
+    @Override
+    public void endEvent(String eventName) {
+        final Field field = FIELDS_BY_NAME.get(eventName);
+        if (field != null) {
+            endEvent(field);
+        }
+    }
+
+    @Override
+    public void endEvent(MetricType f) {
+        final int index = recorder.indexOf(f);
+        if (index >= 0 && (startedEvents & 1L << index) != 0) {
+            startedEvents &= ~(1L << index);
+            recorder.record(index, System.nanoTime() - eventStartNanos[index]);
+        }
+        if (f == Field.ClientExecuteTime) {
+            recordCounters();
+        }
+    }
+
+    @Override
+    public void incrementCounter(String event) {
+        final Field field = FIELDS_BY_NAME.get(event);
+        if (field != null) {
+            incrementCounter(field);
+        }
+    }
+
+    @Override
+    public void incrementCounter(MetricType f) {
+        final int index = recorder.indexOf(f);
+        if (index >= 0) {
+            ensureCounter(index);
+            counters[index]++;
+            setCounters |= 1L << index;
+        }
+    }
+
+    @Override
+    public void setCounter(String counterName, long count) {
+        final Field field = FIELDS_BY_NAME.get(counterName);
+        if (field != null) {
+            setCounter(field, count);
+        }
+    }
+
+    @Override
+    public void setCounter(MetricType f, long count) {
+        final int index = recorder.indexOf(f);
+        if (index >= 0) {
+            ensureCounter(index);
+            counters[index] = count;
+            setCounters |= 1L << index;
+        }
+    }
+
+    private void ensureCounter(int index) {
+        if (index >= counters.length) {
+            counters = Arrays.copyOf(counters, MetricHistogramRecorder.MAX_METRIC_TYPES);
+        }
+    }
+
+    private void recordCounters() {
+        long remaining = setCounters;
+        setCounters = 0;
+        while (remaining != 0) {
+            final int index = Long.numberOfTrailingZeros(remaining);
+            remaining &= remaining - 1;
+            recorder.record(index, counters[index]);
+            counters[index] = 0;
+        }
+    }
+}
@@ -36,6 +36,9 @@ import java.util.regex.Pattern;
  */
 public class HttpUtils {
 
+    /** The status code of an internal server error, the lowest 5xx code. */
+    public static final int HTTP_STATUS_INTERNAL_SERVER_ERROR = 500;
+
     private static final String DEFAULT_ENCODING = "UTF-8";
     private static final int PORT_HTTP = 80;
     private static final int PORT_HTTPS = 443;
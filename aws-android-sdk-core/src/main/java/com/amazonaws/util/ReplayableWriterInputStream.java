@@ -0,0 +1,266 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.util;
+
+import com.amazonaws.AmazonClientException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Request content produced by a {@link ContentWriter} each time it is needed,
+ * instead of being marshalled into memory up front.
+ * <p>
+ * The HTTP clients call {@link #writeTo(OutputStream)} to stream the content
+ * straight into the connection, again for each retry, and the SigV4 signer
+ * uses {@link #getContentSha256()}. The length and the hash are computed
+ * together by a first pass of the writer which keeps no content. Anything
+ * else reading the stream gets the content buffered in memory on the first
+ * read, as if it had been marshalled into a byte array.
+ * <p>
+ * JSON marshallers of operations with large bodies, such as Kinesis
+ * PutRecords, use it so that the body is never held in memory. Those
+ * requests are compressible, so the marshallers leave Content-Length to the
+ * client, which measures the content once it is compressed.
+ * <p>
+ * The writer must write the same bytes on every call, so the original request
+ * must not be modified while it is being sent. Instances of this class are not
+ * thread-safe.
+ */
+public class ReplayableWriterInputStream extends InputStream {
+
+    /**
+     * Writes the content of a request.
+     */
+    public interface ContentWriter {
+        /**
+         * Writes the whole content to the stream. Called once per pass over
+         * the content. Closing the stream has no effect.
+         *
+         * @param out the stream to write the content to.
+         * @throws Exception if the content can't be written, as the JSON
+         *             marshallers may throw.
+         */
+        void writeTo(OutputStream out) throws Exception;
+    }
+
+    private static final int DEFAULT_BUFFER_SIZE = 8 * 1024;
+
+    private final ContentWriter writer;
+
+    private long contentLength = -1;
+    private byte[] contentSha256;
+
+    /** content buffered by the first read, or null */
+    private byte[] buffer;
+    private int position;
+    private int mark;
+
+    /**
+     * @param writer the writer of the content.
+     */
+    public ReplayableWriterInputStream(ContentWriter writer) {
+        if (writer == null) {
+            throw new IllegalArgumentException("Content writer cannot be null");
+        }
+        this.writer = writer;
+    }
+
+    /**
+     * Writes the whole content to the given stream, regardless of the bytes
+     * already read from this stream. Does not close the given stream.
+     *
+     * @param out the stream to write the content to.
+     * @throws IOException if the stream fails.
+     * @throws AmazonClientException if the writer fails otherwise.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        if (buffer != null) {
+            out.write(buffer);
+            return;
+        }
+        write(out);
+    }
+
+    /**
+     * @return the length of the content in bytes.
+     * @throws AmazonClientException if the content can't be written.
+     */
+    public long getContentLength() {
+        if (contentLength < 0) {
+            measure();
+        }
+        return contentLength;
+    }
+
+    /**
+     * @return the SHA-256 hash of the content.
+     * @throws AmazonClientException if the content can't be written.
+     */
+    public byte[] getContentSha256() {
+        if (contentSha256 == null) {
+            measure();
+        }
+        return contentSha256.clone();
+    }
+
+    @Override
+    public int read() throws IOException {
+        fill();
+        return position < buffer.length ? buffer[position++] & 0xff : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        fill();
+        if (position >= buffer.length) {
+            return -1;
+        }
+        final int count = Math.min(len, buffer.length - position);
+        System.arraycopy(buffer, position, b, off, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        fill();
+        final long skipped = Math.max(0, Math.min(n, buffer.length - position));
+        position += (int) skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        if (buffer != null) {
+            return buffer.length - position;
+        }
+        return contentLength < 0 ? 0 : (int) Math.min(contentLength, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public void mark(int readlimit) {
+        mark = position;
+    }
+
+    @Override
+    public void reset() {
+        position = mark;
+    }
+
+    /**
+     * Writes the content once to compute its length and hash, without
+     * keeping it.
+     */
+    private void measure() {
+        final MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new AmazonClientException("Unable to compute hash: " + e.getMessage(), e);
+        }
+        final DigestingOutputStream out = new DigestingOutputStream(md);
+        try {
+            writeTo(out);
+        } catch (final IOException e) {
+            throw new AmazonClientException("Unable to write request content: " + e.getMessage(),
+                    e);
+        }
+        contentLength = out.count;
+        contentSha256 = md.digest();
+    }
+
+    private void fill() throws IOException {
+        if (buffer != null) {
+            return;
+        }
+        final int size = contentLength < 0 ? DEFAULT_BUFFER_SIZE
+                : (int) Math.min(contentLength, Integer.MAX_VALUE);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(size);
+        write(out);
+        buffer = out.toByteArray();
+        contentLength = buffer.length;
+    }
+
+    private void write(OutputStream out) throws IOException {
+        try {
+            writer.writeTo(new NonClosingOutputStream(out));
+        } catch (final IOException e) {
+            throw e;
+        } catch (final RuntimeException e) {
+            throw e;
+        } catch (final Exception e) {
+            throw new AmazonClientException("Unable to write request content: "
+                    + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Lets the writer close its streams without closing the target.
+     */
+    private static final class NonClosingOutputStream extends FilterOutputStream {
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+    }
+
+    /**
+     * Hashes and counts the bytes written, and discards them.
+     */
+    private static final class DigestingOutputStream extends OutputStream {
+        private final MessageDigest md;
+        private long count;
+
+        DigestingOutputStream(MessageDigest md) {
+            this.md = md;
+        }
+
+        @Override
+        public void write(int b) {
+            md.update((byte) b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            md.update(b, off, len);
+            count += len;
+        }
+    }
+}
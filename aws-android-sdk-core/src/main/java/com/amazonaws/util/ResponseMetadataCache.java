@@ -17,25 +17,45 @@ package com.amazonaws.util;
 
 import com.amazonaws.ResponseMetadata;
 
-import java.util.LinkedHashMap;
-import java.util.Map.Entry;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Cache of response metadata for recently executed requests for diagnostic
  * purposes. This cache has a max size and as entries are added, the oldest
  * entry is aged out once the max size has been reached.
+ * <p>
+ * Entries are keyed by the identity of the given object, which is only weakly
+ * referenced: the entry of an object that is no longer used is dropped. The
+ * max size bounds the number of keys retained, including those of collected
+ * objects that have not been aged out yet. The cache doesn't lock, so the size
+ * may briefly exceed its max size while several threads add entries.
  */
 public class ResponseMetadataCache {
-    private final InternalCache internalCache;
+    private final int maxEntries;
+    private final ConcurrentMap<IdentityKey, ResponseMetadata> entries =
+            new ConcurrentHashMap<IdentityKey, ResponseMetadata>();
+    /** keys in the order they were added, to age out the oldest */
+    private final Queue<IdentityKey> insertionOrder = new ConcurrentLinkedQueue<IdentityKey>();
+    /** number of keys in insertionOrder */
+    private final AtomicInteger queuedKeys = new AtomicInteger();
+    private final ReferenceQueue<Object> collectedKeys = new ReferenceQueue<Object>();
 
     /**
      * Creates a new cache that will contain, at most the specified number of
      * entries.
      *
-     * @param maxEntries The maximum size of this cache.
+     * @param maxEntries The maximum size of this cache, or 0 to retain no
+     *            metadata at all.
      */
     public ResponseMetadataCache(int maxEntries) {
-        internalCache = new InternalCache(maxEntries);
+        this.maxEntries = maxEntries;
     }
 
     /**
@@ -45,10 +65,23 @@ public class ResponseMetadataCache {
      * @param obj The key by which to store the metadata.
      * @param metadata The metadata for this entry.
      */
-    public synchronized void add(Object obj, ResponseMetadata metadata) {
-        if (obj == null)
+    public void add(Object obj, ResponseMetadata metadata) {
+        if (obj == null || metadata == null || maxEntries <= 0)
             return;
-        internalCache.put(System.identityHashCode(obj), metadata);
+        purgeCollectedKeys();
+        IdentityKey key = new IdentityKey(obj, collectedKeys);
+        if (entries.put(key, metadata) == null) {
+            insertionOrder.offer(key);
+            queuedKeys.incrementAndGet();
+        }
+        while (queuedKeys.get() > maxEntries) {
+            IdentityKey eldest = insertionOrder.poll();
+            if (eldest == null) {
+                break;
+            }
+            queuedKeys.decrementAndGet();
+            entries.remove(eldest);
+        }
     }
 
     /**
@@ -60,29 +93,57 @@ public class ResponseMetadataCache {
      *         otherwise null if no metadata is associated with that object.
      */
     public ResponseMetadata get(Object obj) {
-        // System.identityHashCode isn't guaranteed to be unique
-        // on all platforms, but should be reasonable enough to use
-        // for a few requests at a time. We can always easily move
-        // to our own unique IDs if needed.
-        return internalCache.get(System.identityHashCode(obj));
+        if (obj == null || maxEntries <= 0)
+            return null;
+        return entries.get(new IdentityKey(obj, null));
+    }
+
+    /**
+     * Returns the number of keys waiting to be aged out, for testing.
+     */
+    int getQueuedKeyCount() {
+        return queuedKeys.get();
+    }
+
+    /**
+     * Removes the entries of the objects that have been garbage collected.
+     * Their keys stay in the insertion order, and count towards the max size,
+     * until they are aged out.
+     */
+    private void purgeCollectedKeys() {
+        Reference<?> ref;
+        while ((ref = collectedKeys.poll()) != null) {
+            entries.remove(ref);
+        }
     }
 
     /**
-     * Simple implementation of LinkedHashMap that overrides the
-     * <code>removeEldestEntry</code> method to turn LinkedHashMap into a
-     * LRU(ish) cache that automatically evicts old entries.
+     * Weak reference to a key, compared by identity. Unlike
+     * System.identityHashCode alone, two live objects never share a key.
      */
-    private static final class InternalCache extends LinkedHashMap<Integer, ResponseMetadata> {
-        private int maxSize;
+    private static final class IdentityKey extends WeakReference<Object> {
+        private final int hash;
 
-        public InternalCache(int maxSize) {
-            super(maxSize);
-            this.maxSize = maxSize;
+        IdentityKey(Object referent, ReferenceQueue<Object> queue) {
+            super(referent, queue);
+            hash = System.identityHashCode(referent);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
         }
 
         @Override
-        protected boolean removeEldestEntry(Entry eldest) {
-            return size() > maxSize;
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof IdentityKey)) {
+                return false;
+            }
+            Object referent = get();
+            return referent != null && referent == ((IdentityKey) obj).get();
         }
     }
 }
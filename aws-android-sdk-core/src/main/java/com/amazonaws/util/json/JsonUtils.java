@@ -16,8 +16,11 @@
 package com.amazonaws.util.json;
 
 import com.amazonaws.AmazonClientException;
+import com.amazonaws.util.StringUtils;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.StringReader;
 import java.io.StringWriter;
@@ -33,6 +36,11 @@ public class JsonUtils {
 
     private static volatile AwsJsonFactory factory = new GsonFactory();
 
+    /**
+     * Whether JSON streams are parsed by {@link Utf8JsonReader}.
+     */
+    private static volatile boolean utf8Reader = false;
+
     /**
      * JSON engine
      */
@@ -54,7 +62,12 @@ public class JsonUtils {
          * @see <a
          *      href="https://github.com/FasterXML/jackson-core">jackson-core</a>
          */
-        Jackson
+        Jackson,
+        /**
+         * An engine that parses UTF-8 encoded streams directly from bytes with
+         * {@link Utf8JsonReader}, and uses Gson for everything else.
+         */
+        Utf8
     }
 
     /**
@@ -66,9 +79,15 @@ public class JsonUtils {
         switch (jsonEngine) {
             case Gson:
                 factory = new GsonFactory();
+                utf8Reader = false;
                 break;
             case Jackson:
                 factory = new JacksonFactory();
+                utf8Reader = false;
+                break;
+            case Utf8:
+                factory = new GsonFactory();
+                utf8Reader = true;
                 break;
             default:
                 throw new RuntimeException("Unsupported json engine");
@@ -86,6 +105,7 @@ public class JsonUtils {
             throw new IllegalArgumentException("factory can't be null");
         }
         JsonUtils.factory = factory;
+        utf8Reader = false;
     }
 
     /**
@@ -102,6 +122,21 @@ public class JsonUtils {
         return factory.getJsonReader(in);
     }
 
+    /**
+     * Gets a JSON reader of a UTF-8 encoded stream. With the
+     * {@link JsonEngine#Utf8} engine the stream is parsed directly from bytes,
+     * otherwise it's decoded and given to the current engine.
+     *
+     * @param in UTF-8 encoded input stream
+     * @return a JSON reader
+     */
+    public static AwsJsonReader getJsonReader(InputStream in) {
+        if (utf8Reader) {
+            return new Utf8JsonReader(in);
+        }
+        return getJsonReader(new InputStreamReader(in, StringUtils.UTF8));
+    }
+
     /**
      * Gets a JSON writer. If no JSON engine is available, an
      * {@link AmazonClientException} will be thrown.
@@ -0,0 +1,844 @@
+/*
+ * Copyright 2015-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.util.json;
+
+import com.amazonaws.util.Base64;
+import com.amazonaws.util.StringUtils;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+/**
+ * A pull parser that reads UTF-8 encoded JSON directly from bytes, without
+ * decoding the whole document to characters first.
+ * <p>
+ * Besides the {@link AwsJsonReader} methods, it reads numbers, booleans and
+ * Base64 encoded blobs straight from the input bytes, so the unmarshallers
+ * don't need to create an intermediate string for every value. Field names
+ * are looked up in a small shared cache, so the names repeated in every
+ * response are only decoded once.
+ * </p>
+ * <p>
+ * The reader follows the behavior of the Gson engine: {@link #nextString()}
+ * returns {@code null} for a JSON null and the literal text of booleans and
+ * numbers, and {@link #peek()} returns {@code null} at the end of the
+ * document. Instances are not thread safe.
+ * </p>
+ */
+public final class Utf8JsonReader implements AwsJsonReader {
+
+    private static final Charset ASCII = Charset.forName("US-ASCII");
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    /**
+     * Number of field names kept in the shared cache, a power of two.
+     */
+    private static final int NAME_CACHE_SIZE = 1024;
+
+    /**
+     * Longest field name kept in the shared cache.
+     */
+    private static final int MAX_CACHED_NAME_LENGTH = 64;
+
+    /**
+     * Shared by all readers. Entries are immutable strings, so racy updates
+     * only cost a cache miss.
+     */
+    private static final String[] NAME_CACHE = new String[NAME_CACHE_SIZE];
+
+    /**
+     * Powers of ten that are exactly representable as doubles.
+     */
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * Mantissas below this value are exactly representable as doubles.
+     */
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    /**
+     * Longest run of digits that can't overflow a long.
+     */
+    private static final int MAX_LONG_DIGITS = 18;
+
+    private static final int PEEKED_NONE = 0;
+    private static final int PEEKED_BEGIN_OBJECT = 1;
+    private static final int PEEKED_END_OBJECT = 2;
+    private static final int PEEKED_BEGIN_ARRAY = 3;
+    private static final int PEEKED_END_ARRAY = 4;
+    private static final int PEEKED_TRUE = 5;
+    private static final int PEEKED_FALSE = 6;
+    private static final int PEEKED_NULL = 7;
+    private static final int PEEKED_STRING = 8;
+    private static final int PEEKED_NUMBER = 9;
+    private static final int PEEKED_NAME = 10;
+    private static final int PEEKED_EOF = 11;
+
+    private static final int EMPTY_ARRAY = 1;
+    private static final int NONEMPTY_ARRAY = 2;
+    private static final int EMPTY_OBJECT = 3;
+    private static final int DANGLING_NAME = 4;
+    private static final int NONEMPTY_OBJECT = 5;
+    private static final int EMPTY_DOCUMENT = 6;
+    private static final int NONEMPTY_DOCUMENT = 7;
+    private static final int CLOSED = 8;
+
+    private final InputStream in;
+
+    private byte[] buffer = new byte[BUFFER_SIZE];
+    private int pos;
+    private int limit;
+
+    private int[] stack = new int[32];
+    private int stackSize;
+
+    private int peeked = PEEKED_NONE;
+
+    /**
+     * Length of a peeked number, which starts at {@link #pos}.
+     */
+    private int peekedNumberLength;
+
+    /**
+     * End of a string scanned by {@link #scanString()}, i.e. the position of
+     * the closing quote.
+     */
+    private int stringEnd;
+
+    /**
+     * Whether the string scanned by {@link #scanString()} has escapes.
+     */
+    private boolean stringEscaped;
+
+    /**
+     * Whether the string scanned by {@link #scanString()} has non ASCII
+     * characters.
+     */
+    private boolean stringNonAscii;
+
+    /**
+     * Creates a reader of UTF-8 encoded JSON.
+     *
+     * @param in the input stream, closed by {@link #close()}.
+     */
+    public Utf8JsonReader(InputStream in) {
+        if (in == null) {
+            throw new IllegalArgumentException("in can't be null");
+        }
+        this.in = in;
+        stack[stackSize++] = EMPTY_DOCUMENT;
+    }
+
+    @Override
+    public void beginArray() throws IOException {
+        expect(PEEKED_BEGIN_ARRAY, "BEGIN_ARRAY");
+        push(EMPTY_ARRAY);
+        peeked = PEEKED_NONE;
+    }
+
+    @Override
+    public void endArray() throws IOException {
+        expect(PEEKED_END_ARRAY, "END_ARRAY");
+        stackSize--;
+        peeked = PEEKED_NONE;
+    }
+
+    @Override
+    public void beginObject() throws IOException {
+        expect(PEEKED_BEGIN_OBJECT, "BEGIN_OBJECT");
+        push(EMPTY_OBJECT);
+        peeked = PEEKED_NONE;
+    }
+
+    @Override
+    public void endObject() throws IOException {
+        expect(PEEKED_END_OBJECT, "END_OBJECT");
+        stackSize--;
+        peeked = PEEKED_NONE;
+    }
+
+    @Override
+    public boolean isContainer() throws IOException {
+        final int p = peekInternal();
+        return p == PEEKED_BEGIN_ARRAY || p == PEEKED_BEGIN_OBJECT;
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+        final int p = peekInternal();
+        return p != PEEKED_END_OBJECT && p != PEEKED_END_ARRAY && p != PEEKED_EOF;
+    }
+
+    @Override
+    public String nextName() throws IOException {
+        expect(PEEKED_NAME, "FIELD_NAME");
+        final String name = readName();
+        peeked = PEEKED_NONE;
+        return name;
+    }
+
+    @Override
+    public String nextString() throws IOException {
+        final int p = peekInternal();
+        final String result;
+        switch (p) {
+            case PEEKED_NULL:
+                result = null;
+                break;
+            case PEEKED_TRUE:
+                result = "true";
+                break;
+            case PEEKED_FALSE:
+                result = "false";
+                break;
+            case PEEKED_STRING:
+                result = readString();
+                break;
+            case PEEKED_NUMBER:
+                result = new String(buffer, pos, peekedNumberLength, ASCII);
+                pos += peekedNumberLength;
+                break;
+            default:
+                throw unexpected("a string", p);
+        }
+        peeked = PEEKED_NONE;
+        return result;
+    }
+
+    /**
+     * Reads the next value as a long, straight from the input bytes.
+     *
+     * @return the value, or null for a JSON null.
+     * @throws IOException if the input can't be read.
+     * @throws NumberFormatException if the value isn't a long.
+     */
+    public Long nextLong() throws IOException {
+        final int p = peekInternal();
+        if (p != PEEKED_NUMBER) {
+            final String value = nextString();
+            return value == null ? null : Long.valueOf(value);
+        }
+        final long value = parseLong(pos, peekedNumberLength);
+        pos += peekedNumberLength;
+        peeked = PEEKED_NONE;
+        return Long.valueOf(value);
+    }
+
+    /**
+     * Reads the next value as an integer, straight from the input bytes.
+     *
+     * @return the value, or null for a JSON null.
+     * @throws IOException if the input can't be read.
+     * @throws NumberFormatException if the value isn't an integer.
+     */
+    public Integer nextInt() throws IOException {
+        final int p = peekInternal();
+        if (p != PEEKED_NUMBER) {
+            final String value = nextString();
+            return value == null ? null : Integer.valueOf(value);
+        }
+        final long value = parseLong(pos, peekedNumberLength);
+        if (value != (int) value) {
+            throw new NumberFormatException("For input string: \""
+                    + new String(buffer, pos, peekedNumberLength, ASCII) + "\"");
+        }
+        pos += peekedNumberLength;
+        peeked = PEEKED_NONE;
+        return Integer.valueOf((int) value);
+    }
+
+    /**
+     * Reads the next value as a double, straight from the input bytes.
+     *
+     * @return the value, or null for a JSON null.
+     * @throws IOException if the input can't be read.
+     * @throws NumberFormatException if the value isn't a number.
+     */
+    public Double nextDouble() throws IOException {
+        final int p = peekInternal();
+        if (p != PEEKED_NUMBER) {
+            final String value = nextString();
+            return value == null ? null : Double.valueOf(value);
+        }
+        final double value = parseDouble(pos, peekedNumberLength);
+        pos += peekedNumberLength;
+        peeked = PEEKED_NONE;
+        return Double.valueOf(value);
+    }
+
+    /**
+     * Reads the next value as a boolean. Strings are parsed with
+     * {@link Boolean#valueOf(String)}.
+     *
+     * @return the value, or null for a JSON null.
+     * @throws IOException if the input can't be read.
+     */
+    public Boolean nextBoolean() throws IOException {
+        final int p = peekInternal();
+        if (p == PEEKED_TRUE || p == PEEKED_FALSE) {
+            peeked = PEEKED_NONE;
+            return Boolean.valueOf(p == PEEKED_TRUE);
+        }
+        final String value = nextString();
+        return value == null ? null : Boolean.valueOf(value);
+    }
+
+    /**
+     * Reads the next value as Base64 encoded data, decoding it straight from
+     * the input bytes.
+     *
+     * @return the decoded bytes, or null for a JSON null.
+     * @throws IOException if the input can't be read.
+     * @throws IllegalArgumentException if the value isn't valid Base64.
+     */
+    public byte[] nextBase64() throws IOException {
+        final int p = peekInternal();
+        if (p != PEEKED_STRING) {
+            return Base64.decode(nextString());
+        }
+        scanString();
+        final byte[] result;
+        if (stringEscaped) {
+            result = Base64.decode(decodeString(pos, stringEnd));
+        } else {
+            final byte[] encoded = new byte[stringEnd - pos];
+            System.arraycopy(buffer, pos, encoded, 0, encoded.length);
+            result = Base64.decode(encoded);
+        }
+        pos = stringEnd + 1;
+        peeked = PEEKED_NONE;
+        return result;
+    }
+
+    @Override
+    public void skipValue() throws IOException {
+        int count = 0;
+        do {
+            final int p = peekInternal();
+            if (p == PEEKED_BEGIN_ARRAY) {
+                push(EMPTY_ARRAY);
+                count++;
+            } else if (p == PEEKED_BEGIN_OBJECT) {
+                push(EMPTY_OBJECT);
+                count++;
+            } else if (p == PEEKED_END_ARRAY || p == PEEKED_END_OBJECT) {
+                stackSize--;
+                count--;
+            } else if (p == PEEKED_STRING || p == PEEKED_NAME) {
+                scanString();
+                pos = stringEnd + 1;
+            } else if (p == PEEKED_NUMBER) {
+                pos += peekedNumberLength;
+            } else if (p == PEEKED_EOF) {
+                throw new IllegalStateException("Expected a value but was END_DOCUMENT");
+            }
+            peeked = PEEKED_NONE;
+        } while (count > 0);
+    }
+
+    @Override
+    public AwsJsonToken peek() throws IOException {
+        final int p;
+        try {
+            p = peekInternal();
+        } catch (final EOFException e) {
+            return null;
+        }
+        return toToken(p);
+    }
+
+    @Override
+    public void close() throws IOException {
+        peeked = PEEKED_NONE;
+        stack[0] = CLOSED;
+        stackSize = 1;
+        in.close();
+    }
+
+    private void expect(int expected, String token) throws IOException {
+        final int p = peekInternal();
+        if (p != expected) {
+            throw new IllegalStateException("Expected " + token + " but was " + toToken(p));
+        }
+    }
+
+    private IllegalStateException unexpected(String expected, int p) {
+        return new IllegalStateException("Expected " + expected + " but was " + toToken(p));
+    }
+
+    private static AwsJsonToken toToken(int p) {
+        switch (p) {
+            case PEEKED_BEGIN_OBJECT:
+                return AwsJsonToken.BEGIN_OBJECT;
+            case PEEKED_END_OBJECT:
+                return AwsJsonToken.END_OBJECT;
+            case PEEKED_BEGIN_ARRAY:
+                return AwsJsonToken.BEGIN_ARRAY;
+            case PEEKED_END_ARRAY:
+                return AwsJsonToken.END_ARRAY;
+            case PEEKED_TRUE:
+            case PEEKED_FALSE:
+                return AwsJsonToken.VALUE_BOOLEAN;
+            case PEEKED_NULL:
+                return AwsJsonToken.VALUE_NULL;
+            case PEEKED_STRING:
+                return AwsJsonToken.VALUE_STRING;
+            case PEEKED_NUMBER:
+                return AwsJsonToken.VALUE_NUMBER;
+            case PEEKED_NAME:
+                return AwsJsonToken.FIELD_NAME;
+            default:
+                return null;
+        }
+    }
+
+    private void push(int scope) {
+        if (stackSize == stack.length) {
+            final int[] newStack = new int[stackSize * 2];
+            System.arraycopy(stack, 0, newStack, 0, stackSize);
+            stack = newStack;
+        }
+        stack[stackSize++] = scope;
+    }
+
+    private int peekInternal() throws IOException {
+        return peeked != PEEKED_NONE ? peeked : doPeek();
+    }
+
+    private int doPeek() throws IOException {
+        final int top = stackSize - 1;
+        final int peekStack = stack[top];
+        int c;
+        if (peekStack == EMPTY_ARRAY) {
+            stack[top] = NONEMPTY_ARRAY;
+        } else if (peekStack == NONEMPTY_ARRAY) {
+            c = nextNonWhitespace();
+            if (c == ']') {
+                return peeked = PEEKED_END_ARRAY;
+            } else if (c != ',') {
+                throw syntaxError("Unterminated array");
+            }
+        } else if (peekStack == EMPTY_OBJECT || peekStack == NONEMPTY_OBJECT) {
+            stack[top] = DANGLING_NAME;
+            if (peekStack == NONEMPTY_OBJECT) {
+                c = nextNonWhitespace();
+                if (c == '}') {
+                    return peeked = PEEKED_END_OBJECT;
+                } else if (c != ',') {
+                    throw syntaxError("Unterminated object");
+                }
+            }
+            c = nextNonWhitespace();
+            if (c == '"') {
+                return peeked = PEEKED_NAME;
+            } else if (c == '}' && peekStack == EMPTY_OBJECT) {
+                return peeked = PEEKED_END_OBJECT;
+            }
+            throw syntaxError("Expected name");
+        } else if (peekStack == DANGLING_NAME) {
+            stack[top] = NONEMPTY_OBJECT;
+            if (nextNonWhitespace() != ':') {
+                throw syntaxError("Expected ':'");
+            }
+        } else if (peekStack == EMPTY_DOCUMENT) {
+            stack[top] = NONEMPTY_DOCUMENT;
+        } else if (peekStack == NONEMPTY_DOCUMENT) {
+            if (nextNonWhitespace() == -1) {
+                return peeked = PEEKED_EOF;
+            }
+            throw syntaxError("Expected end of document");
+        } else if (peekStack == CLOSED) {
+            throw new IllegalStateException("JsonReader is closed");
+        }
+
+        c = nextNonWhitespace();
+        switch (c) {
+            case -1:
+                throw new EOFException("End of input");
+            case ']':
+                if (peekStack == EMPTY_ARRAY) {
+                    return peeked = PEEKED_END_ARRAY;
+                }
+                throw syntaxError("Unexpected value");
+            case '[':
+                return peeked = PEEKED_BEGIN_ARRAY;
+            case '{':
+                return peeked = PEEKED_BEGIN_OBJECT;
+            case '"':
+                return peeked = PEEKED_STRING;
+            case 't':
+                return peeked = consumeLiteral("rue", PEEKED_TRUE);
+            case 'f':
+                return peeked = consumeLiteral("alse", PEEKED_FALSE);
+            case 'n':
+                return peeked = consumeLiteral("ull", PEEKED_NULL);
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    pos--;
+                    peekedNumberLength = scanNumber();
+                    return peeked = PEEKED_NUMBER;
+                }
+                throw syntaxError("Unexpected character '" + (char) c + "'");
+        }
+    }
+
+    /**
+     * Consumes the rest of a literal whose first character was read.
+     */
+    private int consumeLiteral(String rest, int result) throws IOException {
+        final int length = rest.length();
+        if (!fill(length)) {
+            throw new EOFException("End of input");
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer[pos + i] != rest.charAt(i)) {
+                throw syntaxError("Unexpected literal");
+            }
+        }
+        pos += length;
+        return result;
+    }
+
+    /**
+     * Makes sure the number starting at {@link #pos} is fully buffered.
+     *
+     * @return the length of the number.
+     */
+    private int scanNumber() throws IOException {
+        int i = 0;
+        while (true) {
+            if (pos + i == limit && !fill(i + 1)) {
+                return i;
+            }
+            final byte b = buffer[pos + i];
+            if ((b >= '0' && b <= '9') || b == '-' || b == '+' || b == '.' || b == 'e'
+                    || b == 'E') {
+                i++;
+            } else {
+                return i;
+            }
+        }
+    }
+
+    /**
+     * Makes sure the string whose content starts at {@link #pos} is fully
+     * buffered, and sets {@link #stringEnd}, {@link #stringEscaped} and
+     * {@link #stringNonAscii}.
+     */
+    private void scanString() throws IOException {
+        boolean escaped = false;
+        boolean nonAscii = false;
+        int i = pos;
+        while (true) {
+            if (i == limit) {
+                final int scanned = i - pos;
+                if (!fill(scanned + 1)) {
+                    throw new EOFException("Unterminated string");
+                }
+                i = pos + scanned;
+            }
+            final byte b = buffer[i];
+            if (b == '"') {
+                break;
+            } else if (b == '\\') {
+                escaped = true;
+                // Skip the escaped character, which may be a quote.
+                i++;
+                if (i == limit) {
+                    final int scanned = i - pos;
+                    if (!fill(scanned + 1)) {
+                        throw new EOFException("Unterminated string");
+                    }
+                    i = pos + scanned;
+                }
+            } else if (b < 0) {
+                nonAscii = true;
+            }
+            i++;
+        }
+        stringEnd = i;
+        stringEscaped = escaped;
+        stringNonAscii = nonAscii;
+    }
+
+    private String readString() throws IOException {
+        scanString();
+        final String result;
+        if (stringEscaped) {
+            result = decodeString(pos, stringEnd);
+        } else if (stringNonAscii) {
+            result = new String(buffer, pos, stringEnd - pos, StringUtils.UTF8);
+        } else {
+            result = new String(buffer, pos, stringEnd - pos, ASCII);
+        }
+        pos = stringEnd + 1;
+        return result;
+    }
+
+    private String readName() throws IOException {
+        scanString();
+        final int length = stringEnd - pos;
+        if (stringEscaped || stringNonAscii || length > MAX_CACHED_NAME_LENGTH) {
+            return readString();
+        }
+
+        int hash = 0;
+        for (int i = pos; i < stringEnd; i++) {
+            hash = 31 * hash + buffer[i];
+        }
+        final int index = (hash ^ (hash >>> 16)) & (NAME_CACHE_SIZE - 1);
+        String name = NAME_CACHE[index];
+        if (name == null || !matches(name, pos, length)) {
+            name = new String(buffer, pos, length, ASCII);
+            NAME_CACHE[index] = name;
+        }
+        pos = stringEnd + 1;
+        return name;
+    }
+
+    private boolean matches(String name, int start, int length) {
+        if (name.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (name.charAt(i) != buffer[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decodes a string with escapes. The UTF-8 runs between escapes are
+     * decoded as a whole.
+     */
+    private String decodeString(int start, int end) throws IOException {
+        final StringBuilder builder = new StringBuilder(end - start);
+        int runStart = start;
+        int i = start;
+        while (i < end) {
+            if (buffer[i] != '\\') {
+                i++;
+                continue;
+            }
+            if (i > runStart) {
+                builder.append(new String(buffer, runStart, i - runStart, StringUtils.UTF8));
+            }
+            final byte escaped = buffer[i + 1];
+            i += 2;
+            switch (escaped) {
+                case 'u':
+                    if (i + 4 > end) {
+                        throw syntaxError("Unterminated escape sequence");
+                    }
+                    int value = 0;
+                    for (int j = i; j < i + 4; j++) {
+                        final int digit = Character.digit(buffer[j], 16);
+                        if (digit < 0) {
+                            throw syntaxError("Invalid escape sequence");
+                        }
+                        value = (value << 4) | digit;
+                    }
+                    builder.append((char) value);
+                    i += 4;
+                    break;
+                case 'b':
+                    builder.append('\b');
+                    break;
+                case 'f':
+                    builder.append('\f');
+                    break;
+                case 'n':
+                    builder.append('\n');
+                    break;
+                case 'r':
+                    builder.append('\r');
+                    break;
+                case 't':
+                    builder.append('\t');
+                    break;
+                case '"':
+                case '\\':
+                case '/':
+                    builder.append((char) escaped);
+                    break;
+                default:
+                    throw syntaxError("Invalid escape sequence");
+            }
+            runStart = i;
+        }
+        if (end > runStart) {
+            builder.append(new String(buffer, runStart, end - runStart, StringUtils.UTF8));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Parses a buffered number as a long, falling back to
+     * {@link Long#parseLong(String)} for numbers that may overflow or aren't
+     * plain integers.
+     */
+    private long parseLong(int start, int length) {
+        final boolean negative = length > 0 && buffer[start] == '-';
+        final int first = negative ? start + 1 : start;
+        final int end = start + length;
+        if (end > first && end - first <= MAX_LONG_DIGITS) {
+            long value = 0;
+            int i = first;
+            for (; i < end; i++) {
+                final byte b = buffer[i];
+                if (b < '0' || b > '9') {
+                    break;
+                }
+                value = value * 10 + (b - '0');
+            }
+            if (i == end) {
+                return negative ? -value : value;
+            }
+        }
+        return Long.parseLong(new String(buffer, start, length, ASCII));
+    }
+
+    /**
+     * Parses a buffered number as a double. When both the digits and the
+     * power of ten are exactly representable, a single multiplication or
+     * division gives the correctly rounded result; anything else goes through
+     * {@link Double#parseDouble(String)}.
+     */
+    private double parseDouble(int start, int length) {
+        final int end = start + length;
+        int i = start;
+        final boolean negative = i < end && buffer[i] == '-';
+        if (negative) {
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean fraction = false;
+        boolean exact = i < end;
+        for (; i < end && exact; i++) {
+            final byte b = buffer[i];
+            if (b >= '0' && b <= '9') {
+                if (mantissa != 0 || b != '0') {
+                    digits++;
+                }
+                if (digits > MAX_LONG_DIGITS) {
+                    exact = false;
+                    break;
+                }
+                mantissa = mantissa * 10 + (b - '0');
+                if (fraction) {
+                    exponent--;
+                }
+            } else if (b == '.' && !fraction) {
+                fraction = true;
+            } else if (b == 'e' || b == 'E') {
+                break;
+            } else {
+                exact = false;
+            }
+        }
+
+        if (exact && i < end) {
+            // Exponent part.
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (buffer[i] == '-' || buffer[i] == '+')) {
+                negativeExponent = buffer[i] == '-';
+                i++;
+            }
+            int explicitExponent = 0;
+            exact = i < end && end - i <= 3;
+            for (; i < end && exact; i++) {
+                final byte b = buffer[i];
+                if (b < '0' || b > '9') {
+                    exact = false;
+                } else {
+                    explicitExponent = explicitExponent * 10 + (b - '0');
+                }
+            }
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+
+        if (exact && mantissa < MAX_EXACT_MANTISSA && exponent >= -22 && exponent <= 22) {
+            final double value = exponent >= 0
+                    ? mantissa * POWERS_OF_TEN[exponent]
+                    : mantissa / POWERS_OF_TEN[-exponent];
+            return negative ? -value : value;
+        }
+        return Double.parseDouble(new String(buffer, start, length, ASCII));
+    }
+
+    /**
+     * Reads the next non whitespace byte.
+     *
+     * @return the byte, or -1 at the end of the input.
+     */
+    private int nextNonWhitespace() throws IOException {
+        while (true) {
+            if (pos == limit && !fill(1)) {
+                return -1;
+            }
+            final byte b = buffer[pos++];
+            if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+                return b;
+            }
+        }
+    }
+
+    /**
+     * Makes sure at least {@code minimum} bytes are buffered from
+     * {@link #pos}, moving them to the start of the buffer and growing it as
+     * needed.
+     *
+     * @return false if the input ended first.
+     */
+    private boolean fill(int minimum) throws IOException {
+        if (limit - pos >= minimum) {
+            return true;
+        }
+        if (pos > 0) {
+            limit -= pos;
+            System.arraycopy(buffer, pos, buffer, 0, limit);
+            pos = 0;
+        }
+        if (minimum > buffer.length) {
+            final byte[] newBuffer = new byte[Math.max(minimum, buffer.length * 2)];
+            System.arraycopy(buffer, 0, newBuffer, 0, limit);
+            buffer = newBuffer;
+        }
+        while (limit < minimum) {
+            final int read = in.read(buffer, limit, buffer.length - limit);
+            if (read == -1) {
+                return false;
+            }
+            limit += read;
+        }
+        return true;
+    }
+
+    private IOException syntaxError(String message) {
+        return new IOException(message + " at offset " + pos);
+    }
+}
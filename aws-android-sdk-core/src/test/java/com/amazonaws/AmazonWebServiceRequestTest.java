@@ -15,7 +15,9 @@
 
 package com.amazonaws;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 
 import com.amazonaws.auth.AWSCredentials;
@@ -40,6 +42,17 @@ public class AmazonWebServiceRequestTest {
         assertNotNull(awsr.getRequestClientOptions());
     }
 
+    @Test
+    public void testSdkClientExecutionTimeout() {
+        AmazonWebServiceRequest awsr = new TestRequest();
+        assertNull(awsr.getSdkClientExecutionTimeout());
+        awsr.setSdkClientExecutionTimeout(1000);
+        assertEquals(Integer.valueOf(1000), awsr.getSdkClientExecutionTimeout());
+
+        TestRequest copy = awsr.copyBaseTo(new TestRequest());
+        assertEquals(Integer.valueOf(1000), copy.getSdkClientExecutionTimeout());
+    }
+
     private class TestRequest extends AmazonWebServiceRequest {
     }
 }
@@ -26,6 +26,7 @@ import com.amazonaws.retry.RetryPolicy;
 
 import org.junit.Test;
 
+import java.io.File;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 
@@ -127,6 +128,40 @@ public class ClientConfigurationTest {
         assertSame(trustManager, c.getTrustManager());
         c.setTrustManager(null);
         assertNull(c.getTrustManager());
+
+        File dir = new File("tls-sessions");
+        c.withTlsSessionCacheDirectory(dir);
+        assertSame(dir, c.getTlsSessionCacheDirectory());
+        c.setTlsSessionCacheDirectory(null);
+        assertNull(c.getTlsSessionCacheDirectory());
+
+        c.withPrewarmConnections(true);
+        assertTrue(c.isPrewarmConnections());
+        c.setPrewarmConnections(false);
+        assertFalse(c.isPrewarmConnections());
+
+        assertEquals(ClientConfiguration.DEFAULT_REQUEST_COMPRESSION_THRESHOLD,
+                c.getRequestCompressionThreshold());
+        c.withRequestCompressionThreshold(1024);
+        assertEquals(1024, c.getRequestCompressionThreshold());
+        c.setRequestCompressionThreshold(-1);
+        assertEquals(-1, c.getRequestCompressionThreshold());
+
+        assertEquals(0, c.getClientExecutionTimeout());
+        c.withClientExecutionTimeout(5000);
+        assertEquals(5000, c.getClientExecutionTimeout());
+        c.setClientExecutionTimeout(0);
+        assertEquals(0, c.getClientExecutionTimeout());
+
+        assertFalse(c.isHedgeRequests());
+        c.withHedgeRequests(true);
+        assertTrue(c.isHedgeRequests());
+        c.setHedgeRequests(false);
+        assertFalse(c.isHedgeRequests());
+
+        assertEquals(ClientConfiguration.DEFAULT_HEDGING_PERCENTILE, c.getHedgingPercentile(), 0);
+        c.withHedgingPercentile(99);
+        assertEquals(99, c.getHedgingPercentile(), 0);
     }
 
     @Test
@@ -154,6 +189,12 @@ public class ClientConfigurationTest {
         TrustManager trustManager = new TrustManager() {
         };
         c.withTrustManager(trustManager);
+        c.withTlsSessionCacheDirectory(new File("tls-sessions"));
+        c.withPrewarmConnections(true);
+        c.withRequestCompressionThreshold(2048);
+        c.withClientExecutionTimeout(3000);
+        c.withHedgeRequests(true);
+        c.withHedgingPercentile(90);
 
         ClientConfiguration n = new ClientConfiguration(c);
         assertEquals(c.getConnectionTimeout(), n.getConnectionTimeout());
@@ -173,6 +214,12 @@ public class ClientConfigurationTest {
         assertEquals(c.getSocketTimeout(), n.getSocketTimeout());
         assertEquals(c.getUserAgent(), n.getUserAgent());
         assertSame(c.getTrustManager(), n.getTrustManager());
+        assertSame(c.getTlsSessionCacheDirectory(), n.getTlsSessionCacheDirectory());
+        assertEquals(c.isPrewarmConnections(), n.isPrewarmConnections());
+        assertEquals(c.getRequestCompressionThreshold(), n.getRequestCompressionThreshold());
+        assertEquals(c.getClientExecutionTimeout(), n.getClientExecutionTimeout());
+        assertEquals(c.isHedgeRequests(), n.isHedgeRequests());
+        assertEquals(c.getHedgingPercentile(), n.getHedgingPercentile(), 0);
     }
 
 }
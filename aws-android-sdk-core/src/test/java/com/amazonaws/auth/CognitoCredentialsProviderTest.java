@@ -0,0 +1,161 @@
+/*
+ * Copyright 2010-2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.auth;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.amazonaws.services.securitytoken.AWSSecurityTokenService;
+
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class CognitoCredentialsProviderTest {
+
+    private static final long ONE_HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final long TWO_MINUTES = TimeUnit.MINUTES.toMillis(2);
+
+    /**
+     * Tests that valid credentials are returned without waiting for a thread
+     * holding the credentials lock.
+     */
+    @Test
+    public void testValidCredentialsDoNotTakeLock() throws Exception {
+        final StubCognitoCredentialsProvider provider = new StubCognitoCredentialsProvider();
+        provider.setCredentials("valid", ONE_HOUR);
+
+        final AtomicReference<AWSSessionCredentials> result = new AtomicReference<AWSSessionCredentials>();
+        provider.credentialsLock.writeLock().lock();
+        try {
+            final Thread reader = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    result.set(provider.getCredentials());
+                }
+            });
+            reader.start();
+            reader.join(TimeUnit.SECONDS.toMillis(5));
+        } finally {
+            provider.credentialsLock.writeLock().unlock();
+        }
+
+        assertNotNull(result.get());
+        assertEquals("valid", result.get().getAWSAccessKeyId());
+        assertEquals(0, provider.sessions.get());
+    }
+
+    /**
+     * Tests that credentials within the refresh threshold are still returned
+     * while a single background refresh replaces them.
+     */
+    @Test
+    public void testSingleBackgroundRefreshWithinThreshold() throws Exception {
+        final StubCognitoCredentialsProvider provider = new StubCognitoCredentialsProvider();
+        provider.setCredentials("old", TWO_MINUTES);
+        provider.release = new CountDownLatch(1);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals("old", provider.getCredentials().getAWSAccessKeyId());
+        }
+        assertTrue(provider.started.await(5, TimeUnit.SECONDS));
+        provider.release.countDown();
+
+        final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (!"refreshed".equals(provider.getCredentials().getAWSAccessKeyId())
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals("refreshed", provider.getCredentials().getAWSAccessKeyId());
+        assertEquals(1, provider.sessions.get());
+        assertEquals(1, provider.getSessionRefreshCount());
+    }
+
+    /**
+     * Tests that expired credentials are refreshed before being returned.
+     */
+    @Test
+    public void testExpiredCredentialsRefreshSynchronously() {
+        final StubCognitoCredentialsProvider provider = new StubCognitoCredentialsProvider();
+        provider.setCredentials("expired", -1);
+
+        assertEquals("refreshed", provider.getCredentials().getAWSAccessKeyId());
+        assertEquals(1, provider.sessions.get());
+
+        provider.clearCredentials();
+        assertEquals("refreshed", provider.getCredentials().getAWSAccessKeyId());
+        assertEquals(2, provider.sessions.get());
+    }
+
+    /**
+     * Tests that lock-free readers only see credentials together with the
+     * expiration they were published with.
+     */
+    @Test
+    public void testCredentialsArePublishedWithTheirExpiration() {
+        final StubCognitoCredentialsProvider provider = new StubCognitoCredentialsProvider();
+        provider.setCredentials("valid", ONE_HOUR);
+
+        provider.credentialsLock.writeLock().lock();
+        try {
+            provider.sessionCredentials = new BasicSessionCredentials("partial", "secret", "token");
+            assertEquals("valid", provider.getCurrentCredentials().getAWSAccessKeyId());
+            provider.setSessionCredentialsExpiration(new Date(System.currentTimeMillis() + ONE_HOUR));
+            assertEquals("partial", provider.getCurrentCredentials().getAWSAccessKeyId());
+        } finally {
+            provider.credentialsLock.writeLock().unlock();
+        }
+
+        provider.clearCredentials();
+        assertNull(provider.getCurrentCredentials());
+    }
+
+    private static class StubCognitoCredentialsProvider extends CognitoCredentialsProvider {
+        private final AtomicInteger sessions = new AtomicInteger();
+        private final CountDownLatch started = new CountDownLatch(1);
+        private volatile CountDownLatch release;
+
+        StubCognitoCredentialsProvider() {
+            super((AWSCognitoIdentityProvider) null, (String) null, (String) null,
+                    (AWSSecurityTokenService) null);
+        }
+
+        void setCredentials(String accessKey, long expiresInMillis) {
+            sessionCredentials = new BasicSessionCredentials(accessKey, "secret", "token");
+            setSessionCredentialsExpiration(new Date(System.currentTimeMillis() + expiresInMillis));
+        }
+
+        @Override
+        protected void startSession() {
+            sessions.incrementAndGet();
+            started.countDown();
+            if (release != null) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            setCredentials("refreshed", ONE_HOUR);
+        }
+    }
+}
@@ -25,6 +25,7 @@ import com.amazonaws.AmazonServiceException.ErrorType;
 import com.amazonaws.AmazonWebServiceRequest;
 import com.amazonaws.AmazonWebServiceResponse;
 import com.amazonaws.ClientConfiguration;
+import com.amazonaws.ClientExecutionTimeoutException;
 import com.amazonaws.DefaultRequest;
 import com.amazonaws.Request;
 import com.amazonaws.RequestClientOptions;
@@ -36,7 +37,10 @@ import com.amazonaws.handlers.CredentialsRequestHandler;
 import com.amazonaws.handlers.RequestHandler2;
 import com.amazonaws.internal.CRC32MismatchException;
 import com.amazonaws.metrics.RequestMetricCollector;
+import com.amazonaws.retry.RetryPolicy;
 import com.amazonaws.util.AWSRequestMetrics;
+import com.amazonaws.util.IOUtils;
+import com.amazonaws.util.StringUtils;
 
 import org.easymock.Capture;
 import org.easymock.EasyMock;
@@ -51,6 +55,7 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class AmazonHttpClientTest {
     private HttpClient httpClient;
@@ -727,4 +732,146 @@ public class AmazonHttpClientTest {
         String userAgent = request.getHeaders().get("User-Agent");
         assertEquals("same user agent", targetUserAgent, userAgent);
     }
+
+    @Test
+    public void testPrewarmSendsHeadRequestToEndpointRoot() throws IOException {
+        HttpResponse response = HttpResponse.builder().statusCode(404).build();
+        Capture<HttpRequest> capture = new Capture<HttpRequest>();
+        EasyMock.expect(httpClient.execute(EasyMock.capture(capture))).andReturn(response);
+        EasyMock.replay(httpClient);
+
+        client.prewarm(URI.create("https://sqs.us-east-1.amazonaws.com"));
+
+        assertEquals("HEAD", capture.getValue().getMethod());
+        assertEquals("https://sqs.us-east-1.amazonaws.com/",
+                capture.getValue().getUri().toString());
+        EasyMock.verify(httpClient);
+    }
+
+    @Test
+    public void testPrewarmIgnoresFailures() throws IOException {
+        EasyMock.expect(httpClient.execute(EasyMock.<HttpRequest> anyObject()))
+                .andThrow(new IOException("BOOM"));
+        EasyMock.replay(httpClient);
+
+        client.prewarm(URI.create("https://sqs.us-east-1.amazonaws.com"));
+
+        EasyMock.verify(httpClient);
+    }
+
+    @Test
+    public void testClientExecutionTimeoutStopsRetries() throws IOException {
+        final IOException exception = new IOException("BOOM");
+        EasyMock.expect(httpClient.execute(EasyMock.<HttpRequest> anyObject()))
+                .andThrow(exception).once();
+        EasyMock.replay(httpClient);
+
+        // the first retry would start after the deadline
+        ClientConfiguration config = new ClientConfiguration()
+                .withClientExecutionTimeout(100)
+                .withRetryPolicy(new RetryPolicy(null, new RetryPolicy.BackoffStrategy() {
+                    @Override
+                    public long delayBeforeNextRetry(AmazonWebServiceRequest originalRequest,
+                            AmazonClientException exception, int retriesAttempted) {
+                        return 1000;
+                    }
+                }, 3, false));
+        client = new AmazonHttpClient(config, httpClient);
+
+        Request<?> request = new DefaultRequest<Object>("testsvc");
+        request.setEndpoint(URI.create("http://testsvc.region.amazonaws.com"));
+
+        long start = System.currentTimeMillis();
+        try {
+            client.execute(request, null, null, new ExecutionContext());
+            Assert.fail("Expected ClientExecutionTimeoutException");
+        } catch (ClientExecutionTimeoutException e) {
+            assertSame(exception, e.getCause().getCause());
+            assertTrue(System.currentTimeMillis() - start < 1000);
+        }
+        EasyMock.verify(httpClient);
+    }
+
+    @Test
+    public void testRequestExecutionTimeoutInterruptsWaitForResponse() {
+        HttpClient slowHttpClient = new HttpClient() {
+            @Override
+            public HttpResponse execute(HttpRequest request) throws IOException {
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                return HttpResponse.builder().statusCode(200).build();
+            }
+
+            @Override
+            public void shutdown() {
+            }
+        };
+        client = new AmazonHttpClient(new ClientConfiguration(), slowHttpClient);
+
+        AmazonWebServiceRequest originalRequest = new AmazonWebServiceRequest() {
+        };
+        originalRequest.setSdkClientExecutionTimeout(100);
+        Request<?> request = new DefaultRequest<Object>(originalRequest, "testsvc");
+        request.setEndpoint(URI.create("http://testsvc.region.amazonaws.com"));
+
+        long start = System.currentTimeMillis();
+        try {
+            client.execute(request, null, null, new ExecutionContext());
+            Assert.fail("Expected ClientExecutionTimeoutException");
+        } catch (ClientExecutionTimeoutException e) {
+            assertTrue(System.currentTimeMillis() - start < 1000);
+        }
+    }
+
+    @Test
+    public void testIdempotentRequestIsHedgedOnceLatenciesAreKnown() throws IOException {
+        final AtomicInteger calls = new AtomicInteger();
+        HttpClient stubHttpClient = new HttpClient() {
+            @Override
+            public HttpResponse execute(HttpRequest request) throws IOException {
+                // the 21st request is slow, its hedge isn't
+                if (calls.incrementAndGet() == LatencyTracker.MIN_SAMPLES + 1) {
+                    try {
+                        Thread.sleep(1000);
+                    } catch (InterruptedException e) {
+                        throw new IOException(e);
+                    }
+                }
+                assertEquals("{}", IOUtils.toString(request.getContent()));
+                return HttpResponse.builder().statusCode(200).build();
+            }
+
+            @Override
+            public void shutdown() {
+            }
+        };
+        client = new AmazonHttpClient(new ClientConfiguration().withHedgeRequests(true),
+                stubHttpClient);
+        HttpResponseHandler<AmazonWebServiceResponse<String>> responseHandler =
+                new HttpResponseHandler<AmazonWebServiceResponse<String>>() {
+                    @Override
+                    public AmazonWebServiceResponse<String> handle(HttpResponse response) {
+                        return new AmazonWebServiceResponse<String>();
+                    }
+
+                    @Override
+                    public boolean needsConnectionLeftOpen() {
+                        return false;
+                    }
+                };
+
+        for (int i = 0; i <= LatencyTracker.MIN_SAMPLES; i++) {
+            Request<?> request = new DefaultRequest<Object>("testsvc");
+            request.setEndpoint(URI.create("http://testsvc.region.amazonaws.com"));
+            request.setIdempotent(true);
+            request.setContent(new ByteArrayInputStream("{}".getBytes(StringUtils.UTF8)));
+            long start = System.currentTimeMillis();
+            client.execute(request, responseHandler, null, new ExecutionContext());
+            assertTrue(System.currentTimeMillis() - start < 1000);
+        }
+        assertEquals(LatencyTracker.MIN_SAMPLES + 2, calls.get());
+    }
 }
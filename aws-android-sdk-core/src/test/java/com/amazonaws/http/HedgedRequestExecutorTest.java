@@ -0,0 +1,238 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.amazonaws.ClientExecutionTimeoutException;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class HedgedRequestExecutorTest {
+
+    private static final long HEDGE_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private static HttpRequest newRequest() {
+        return new HttpRequest("GET", URI.create("https://s3.amazonaws.com/bucket/key"));
+    }
+
+    /**
+     * Answers the n-th request after delays[n] with statuses[n], or fails if
+     * the status is negative. Aborting a request interrupts its wait.
+     */
+    private static class StubHttpClient implements HttpClient {
+        private final long[] delays;
+        private final int[] statuses;
+        final AtomicInteger calls = new AtomicInteger();
+        final ClosingStream[] contents;
+        final boolean[] aborted;
+        final CountDownLatch completed;
+
+        StubHttpClient(long[] delays, int[] statuses) {
+            this.delays = delays;
+            this.statuses = statuses;
+            this.contents = new ClosingStream[delays.length];
+            this.aborted = new boolean[delays.length];
+            this.completed = new CountDownLatch(delays.length);
+        }
+
+        @Override
+        public HttpResponse execute(HttpRequest request) throws IOException {
+            final int call = calls.getAndIncrement();
+            final Thread thread = Thread.currentThread();
+            request.setAbortAction(new Runnable() {
+                @Override
+                public void run() {
+                    thread.interrupt();
+                }
+            });
+            try {
+                Thread.sleep(delays[call]);
+                if (statuses[call] < 0) {
+                    throw new IOException("BOOM " + call);
+                }
+                contents[call] = new ClosingStream();
+                return HttpResponse.builder().statusCode(statuses[call])
+                        .content(contents[call]).build();
+            } catch (InterruptedException e) {
+                aborted[call] = true;
+                throw new IOException(e);
+            } finally {
+                completed.countDown();
+            }
+        }
+
+        @Override
+        public void shutdown() {
+        }
+    }
+
+    private static class ClosingStream extends ByteArrayInputStream {
+        volatile boolean closed;
+
+        ClosingStream() {
+            super(new byte[0]);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    @Test
+    public void testFastResponseIsNotHedged() throws Exception {
+        StubHttpClient httpClient = new StubHttpClient(new long[] {
+                0, 0
+        }, new int[] {
+                200, 200
+        });
+        LatencyTracker latencyTracker = new LatencyTracker();
+
+        HttpResponse response = new HedgedRequestExecutor(httpClient, latencyTracker)
+                .execute(newRequest(), newRequest(), HEDGE_DELAY_NANOS, ExecutionDeadline.NONE);
+
+        assertSame(httpClient.contents[0], response.getRawContent());
+        Thread.sleep(100);
+        assertEquals(1, httpClient.calls.get());
+    }
+
+    @Test
+    public void testSlowRequestIsHedgedAndFirstResponseWins() throws Exception {
+        StubHttpClient httpClient = new StubHttpClient(new long[] {
+                500, 0
+        }, new int[] {
+                200, 200
+        });
+
+        long start = System.nanoTime();
+        HttpResponse response = new HedgedRequestExecutor(httpClient, null)
+                .execute(newRequest(), newRequest(), HEDGE_DELAY_NANOS, ExecutionDeadline.NONE);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertSame(httpClient.contents[1], response.getRawContent());
+        assertTrue("hedge answered first: " + elapsedMillis, elapsedMillis < 400);
+        assertFalse(httpClient.contents[1].closed);
+        // the slow attempt is disconnected
+        assertTrue(httpClient.completed.await(100, TimeUnit.MILLISECONDS));
+        assertTrue(httpClient.aborted[0]);
+    }
+
+    @Test
+    public void testServerErrorWaitsForOtherAttempt() throws Exception {
+        StubHttpClient httpClient = new StubHttpClient(new long[] {
+                100, 200
+        }, new int[] {
+                503, 200
+        });
+
+        HttpResponse response = new HedgedRequestExecutor(httpClient, null)
+                .execute(newRequest(), newRequest(), HEDGE_DELAY_NANOS, ExecutionDeadline.NONE);
+
+        assertEquals(200, response.getStatusCode());
+        assertTrue(httpClient.contents[0].closed);
+    }
+
+    @Test
+    public void testLastFailureIsThrown() throws Exception {
+        StubHttpClient httpClient = new StubHttpClient(new long[] {
+                100, 0
+        }, new int[] {
+                -1, -1
+        });
+
+        try {
+            new HedgedRequestExecutor(httpClient, null)
+                    .execute(newRequest(), newRequest(), HEDGE_DELAY_NANOS, ExecutionDeadline.NONE);
+            fail("Expected IOException");
+        } catch (IOException e) {
+            assertEquals("BOOM 0", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testDeadline() throws Exception {
+        StubHttpClient httpClient = new StubHttpClient(new long[] {
+                500
+        }, new int[] {
+                200
+        });
+
+        long start = System.nanoTime();
+        try {
+            new HedgedRequestExecutor(httpClient, null)
+                    .execute(newRequest(), null, 0, ExecutionDeadline.start(100));
+            fail("Expected ClientExecutionTimeoutException");
+        } catch (ClientExecutionTimeoutException e) {
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            assertTrue("gave up at the deadline: " + elapsedMillis, elapsedMillis < 400);
+        }
+        assertTrue(httpClient.aborted[0]);
+    }
+
+    @Test
+    public void testDeadlineWithoutHedgeRunsOnCallingThread() throws Exception {
+        final Thread caller = Thread.currentThread();
+        final boolean[] onCaller = new boolean[1];
+        HttpClient httpClient = new StubHttpClient(new long[] {
+                0
+        }, new int[] {
+                200
+        }) {
+            @Override
+            public HttpResponse execute(HttpRequest request) throws IOException {
+                onCaller[0] = Thread.currentThread() == caller;
+                return super.execute(request);
+            }
+        };
+
+        HttpRequest request = newRequest();
+        HttpResponse response = new HedgedRequestExecutor(httpClient, null)
+                .execute(request, null, 0, ExecutionDeadline.start(1000));
+
+        assertEquals(200, response.getStatusCode());
+        assertTrue(onCaller[0]);
+        // the returned response is no longer disconnected by the deadline
+        assertFalse(request.abort());
+    }
+
+    @Test
+    public void testLatenciesAreRecorded() throws Exception {
+        StubHttpClient httpClient = new StubHttpClient(new long[LatencyTracker.MIN_SAMPLES],
+                new int[LatencyTracker.MIN_SAMPLES]);
+        Arrays.fill(httpClient.statuses, 200);
+        LatencyTracker latencyTracker = new LatencyTracker();
+
+        for (int i = 0; i < LatencyTracker.MIN_SAMPLES; i++) {
+            assertEquals(-1, latencyTracker.getPercentile(95));
+            new HedgedRequestExecutor(httpClient, latencyTracker)
+                    .execute(newRequest(), null, 0, ExecutionDeadline.start(1000));
+        }
+        assertTrue(latencyTracker.getPercentile(95) >= 0);
+    }
+}
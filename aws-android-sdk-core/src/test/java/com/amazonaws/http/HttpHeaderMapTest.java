@@ -0,0 +1,111 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+public class HttpHeaderMapTest {
+
+    @Test
+    public void testNamesAreCaseInsensitive() {
+        HttpHeaderMap headers = new HttpHeaderMap();
+        headers.put(HttpHeader.CONTENT_TYPE, "text/plain");
+        assertEquals("text/plain", headers.put("content-type", "application/json"));
+        assertEquals(1, headers.size());
+        assertEquals("application/json", headers.get("CONTENT-TYPE"));
+        assertTrue(headers.containsKey("Content-type"));
+        assertEquals("first name is kept", HttpHeader.CONTENT_TYPE, headers.nameAt(0));
+        assertNull(headers.get("Content-Length"));
+        assertNull(headers.get(null));
+    }
+
+    @Test
+    public void testInsertionOrderAndGrowth() {
+        HttpHeaderMap headers = new HttpHeaderMap(1);
+        for (int i = 0; i < 20; i++) {
+            headers.put("key" + i, "value" + i);
+        }
+        assertEquals(20, headers.size());
+        int i = 0;
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            assertEquals("key" + i, header.getKey());
+            assertEquals("value" + i, header.getValue());
+            assertEquals("value" + i, headers.valueAt(i));
+            i++;
+        }
+        assertEquals(20, i);
+    }
+
+    @Test
+    public void testRemove() {
+        HttpHeaderMap headers = new HttpHeaderMap();
+        headers.put("a", "1");
+        headers.put("b", "2");
+        headers.put("c", "3");
+        assertEquals("2", headers.remove("B"));
+        assertNull(headers.remove("b"));
+        assertEquals(Arrays.asList("a", "c"), new ArrayList<String>(headers.keySet()));
+
+        Iterator<Map.Entry<String, String>> iterator = headers.entrySet().iterator();
+        iterator.next();
+        iterator.remove();
+        assertEquals("c", iterator.next().getKey());
+        assertFalse(iterator.hasNext());
+        assertEquals(1, headers.size());
+        assertEquals("3", headers.get("c"));
+
+        headers.clear();
+        assertTrue(headers.isEmpty());
+    }
+
+    @Test
+    public void testEqualsOtherMaps() {
+        HttpHeaderMap headers = new HttpHeaderMap();
+        Map<String, String> expected = new HashMap<String, String>();
+        headers.put("Host", "s3.amazonaws.com");
+        expected.put("Host", "s3.amazonaws.com");
+        headers.put("x-amz-date", "20190101T000000Z");
+        expected.put("x-amz-date", "20190101T000000Z");
+        assertEquals(expected, headers);
+        assertEquals(headers, expected);
+        assertEquals(expected.hashCode(), headers.hashCode());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testReadOnlyPut() {
+        new HttpHeaderMap().readOnly().put("key", "value");
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testReadOnlyRemove() {
+        HttpHeaderMap headers = new HttpHeaderMap();
+        headers.put("key", "value");
+        Iterator<Map.Entry<String, String>> iterator = headers.readOnly().entrySet().iterator();
+        iterator.next();
+        iterator.remove();
+    }
+}
@@ -70,4 +70,16 @@ public class HttpRequestFactoryTest {
         final Map<String, String> headers = httpRequest.getHeaders();
         assertEquals("accept encoding is gzip", "gzip", headers.get("Accept-Encoding"));
     }
+
+    @Test
+    public void testDisabledCompressionKeepsRequestAcceptEncoding() {
+        final HttpRequest identity = factory.createHttpRequest(request, clientConfiguration, context);
+        assertEquals("accept encoding is identity", "identity",
+                identity.getHeaders().get("Accept-Encoding"));
+
+        request.addHeader("Accept-Encoding", "gzip");
+        final HttpRequest httpRequest = factory.createHttpRequest(request, clientConfiguration, context);
+        assertEquals("accept encoding is kept", "gzip",
+                httpRequest.getHeaders().get("Accept-Encoding"));
+    }
 }
@@ -16,6 +16,7 @@
 package com.amazonaws.http;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
@@ -87,4 +88,22 @@ public class HttpRequestTest {
         request = new HttpRequest(method, uri);
         request.getHeaders().put("key", "value");
     }
+
+    @Test
+    public void testAbortable() {
+        request = new HttpRequest(method, uri);
+        assertFalse("no abort action", request.isAbortable());
+
+        final boolean[] aborted = new boolean[1];
+        request.setAbortAction(new Runnable() {
+            @Override
+            public void run() {
+                aborted[0] = true;
+            }
+        });
+        assertTrue("abort action set", request.isAbortable());
+        assertTrue("aborted", request.abort());
+        assertTrue("action ran", aborted[0]);
+        assertTrue("still abortable", request.isAbortable());
+    }
 }
@@ -73,6 +73,20 @@ public class HttpResponseTest {
         response.getHeaders().put("key", "value");
     }
 
+    @Test
+    public void testBuilderIsReusableAfterBuild() {
+        builder = HttpResponse.builder()
+                .statusCode(statusCode)
+                .header("key1", "value1");
+        HttpResponse first = builder.build();
+        HttpResponse second = builder.header("key2", "value2").build();
+
+        assertEquals(1, first.getHeaders().size());
+        assertEquals(2, second.getHeaders().size());
+        assertEquals("value1", second.getHeaders().get("key1"));
+        assertEquals("value2", second.getHeaders().get("key2"));
+    }
+
     @Test
     public void testContentEncodingGZIP() throws Exception {
         String str = "content to be zipped";
@@ -87,6 +101,20 @@ public class HttpResponseTest {
         assertEquals("unzip correctly", str, result);
     }
 
+    @Test
+    public void testHeadersAreCaseInsensitive() throws Exception {
+        String str = "content to be zipped";
+        builder = HttpResponse.builder()
+                .header("content-encoding", "gzip")
+                .header("X-Amzn-RequestId", "id")
+                .content(getGzippedInputStream(str));
+        response = builder.build();
+        assertEquals("id", response.getHeaders().get("x-amzn-requestid"));
+        assertEquals("first name is kept", "content-encoding",
+                response.getHeaders().keySet().iterator().next());
+        assertEquals("unzip correctly", str, IOUtils.toString(response.getContent()));
+    }
+
     @Test
     public void testContentEncodingIdentity() throws Exception {
         builder = HttpResponse.builder()
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.http;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class LatencyTrackerTest {
+
+    @Test
+    public void testPercentileNeedsMinimumSamples() {
+        LatencyTracker tracker = new LatencyTracker();
+        for (int i = 1; i < LatencyTracker.MIN_SAMPLES; i++) {
+            tracker.record(i);
+        }
+        assertEquals(-1, tracker.getPercentile(95));
+        tracker.record(LatencyTracker.MIN_SAMPLES);
+        assertEquals(19, tracker.getPercentile(95));
+        assertEquals(20, tracker.getPercentile(100));
+        assertEquals(10, tracker.getPercentile(50));
+    }
+
+    @Test
+    public void testOnlyLastSamplesAreKept() {
+        LatencyTracker tracker = new LatencyTracker();
+        for (int i = 0; i < LatencyTracker.MAX_SAMPLES; i++) {
+            tracker.record(1000);
+        }
+        for (int i = 0; i < LatencyTracker.MAX_SAMPLES; i++) {
+            tracker.record(i + 1);
+        }
+        assertEquals(LatencyTracker.MAX_SAMPLES, tracker.getPercentile(100));
+        assertEquals(LatencyTracker.MAX_SAMPLES / 2, tracker.getPercentile(50));
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.http;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.amazonaws.DefaultRequest;
+import com.amazonaws.Request;
+import com.amazonaws.util.IOUtils;
+import com.amazonaws.util.ReplayableWriterInputStream;
+import com.amazonaws.util.StringUtils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+
+public class RequestCompressorTest {
+
+    private static final byte[] CONTENT;
+    static {
+        StringBuilder sb = new StringBuilder("{\"Records\":[");
+        for (int i = 0; i < 100; i++) {
+            sb.append("{\"Data\":\"ZGF0YQ==\",\"PartitionKey\":\"key\"},");
+        }
+        sb.append("{}]}");
+        CONTENT = sb.toString().getBytes(StringUtils.UTF8);
+    }
+
+    private Request<?> request;
+
+    @Before
+    public void setup() {
+        request = new DefaultRequest<Object>("dummy");
+        request.setContent(new ReplayableWriterInputStream(
+                new ReplayableWriterInputStream.ContentWriter() {
+                    @Override
+                    public void writeTo(OutputStream out) throws Exception {
+                        out.write(CONTENT);
+                    }
+                }));
+        request.addHeader(HttpHeader.CONTENT_LENGTH, Integer.toString(CONTENT.length));
+        request.setCompressible(true);
+    }
+
+    @Test
+    public void testCompressesReplayableContent() throws Exception {
+        assertTrue(RequestCompressor.compress(request, 0));
+
+        assertEquals("gzip", request.getHeaders().get(HttpHeader.CONTENT_ENCODING));
+        ReplayableWriterInputStream content = (ReplayableWriterInputStream) request.getContent();
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        content.writeTo(first);
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+        content.writeTo(second);
+
+        assertArrayEquals(first.toByteArray(), second.toByteArray());
+        assertEquals(Integer.toString(first.size()),
+                request.getHeaders().get(HttpHeader.CONTENT_LENGTH));
+        assertTrue(first.size() < CONTENT.length);
+        assertArrayEquals(CONTENT, gunzip(first.toByteArray()));
+        // the content read by other consumers is compressed too
+        assertArrayEquals(first.toByteArray(), IOUtils.toByteArray(content));
+    }
+
+    @Test
+    public void testCompressesMarkableContent() throws Exception {
+        request.setContent(new ByteArrayInputStream(CONTENT));
+
+        assertTrue(RequestCompressor.compress(request, CONTENT.length));
+
+        ReplayableWriterInputStream content = (ReplayableWriterInputStream) request.getContent();
+        for (int i = 0; i < 2; i++) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            content.writeTo(out);
+            assertArrayEquals(CONTENT, gunzip(out.toByteArray()));
+        }
+    }
+
+    @Test
+    public void testSkipsContentBelowThreshold() {
+        InputStream content = request.getContent();
+
+        assertFalse(RequestCompressor.compress(request, CONTENT.length + 1));
+
+        assertSame(content, request.getContent());
+        assertNull(request.getHeaders().get(HttpHeader.CONTENT_ENCODING));
+    }
+
+    @Test
+    public void testSkipsWhenDisabled() {
+        assertFalse(RequestCompressor.compress(request, -1));
+        assertNull(request.getHeaders().get(HttpHeader.CONTENT_ENCODING));
+    }
+
+    @Test
+    public void testSkipsRequestsNotCompressible() {
+        request.setCompressible(false);
+        assertFalse(RequestCompressor.compress(request, 0));
+
+        request.setCompressible(true);
+        request.setStreaming(true);
+        assertFalse(RequestCompressor.compress(request, 0));
+        assertNull(request.getHeaders().get(HttpHeader.CONTENT_ENCODING));
+    }
+
+    @Test
+    public void testSkipsEncodedContent() {
+        InputStream content = request.getContent();
+        request.addHeader(HttpHeader.CONTENT_ENCODING, "aws-chunked");
+
+        assertFalse(RequestCompressor.compress(request, 0));
+
+        assertSame(content, request.getContent());
+        assertEquals("aws-chunked", request.getHeaders().get(HttpHeader.CONTENT_ENCODING));
+    }
+
+    @Test
+    public void testSkipsContentThatCannotBeReplayed() {
+        request.setContent(new InputStream() {
+            @Override
+            public int read() {
+                return -1;
+            }
+        });
+        assertFalse(RequestCompressor.compress(request, 0));
+        assertNull(request.getHeaders().get(HttpHeader.CONTENT_ENCODING));
+    }
+
+    @Test
+    public void testWritesCompressedContentOncePerPass() throws Exception {
+        final int[] passes = new int[1];
+        request = new DefaultRequest<Object>("dummy");
+        request.setContent(new ReplayableWriterInputStream(
+                new ReplayableWriterInputStream.ContentWriter() {
+                    @Override
+                    public void writeTo(OutputStream out) throws Exception {
+                        passes[0]++;
+                        out.write(CONTENT);
+                    }
+                }));
+        request.setCompressible(true);
+
+        assertTrue(RequestCompressor.compress(request, 0));
+        ReplayableWriterInputStream content = (ReplayableWriterInputStream) request.getContent();
+        content.getContentSha256();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        content.writeTo(out);
+
+        // one pass to measure and hash the compressed content, one to send it
+        assertEquals(2, passes[0]);
+        assertEquals(Integer.toString(out.size()),
+                request.getHeaders().get(HttpHeader.CONTENT_LENGTH));
+    }
+
+    @Test
+    public void testSetsContentLengthWhenNotCompressing() {
+        request = new DefaultRequest<Object>("dummy");
+        request.setContent(new ReplayableWriterInputStream(
+                new ReplayableWriterInputStream.ContentWriter() {
+                    @Override
+                    public void writeTo(OutputStream out) throws Exception {
+                        out.write(CONTENT);
+                    }
+                }));
+        request.setCompressible(true);
+
+        assertFalse(RequestCompressor.compress(request, -1));
+
+        assertEquals(Integer.toString(CONTENT.length),
+                request.getHeaders().get(HttpHeader.CONTENT_LENGTH));
+        assertNull(request.getHeaders().get(HttpHeader.CONTENT_ENCODING));
+    }
+
+    private static byte[] gunzip(byte[] bytes) throws Exception {
+        return IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(bytes)));
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.amazonaws.util.AWSRequestMetrics.Field;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+public class MetricHistogramRecorderTest {
+
+    @Test
+    public void testBuckets() {
+        long previousLowest = -1;
+        for (int bucket = 0; bucket < MetricHistogramRecorder.BUCKET_COUNT; bucket++) {
+            long lowest = MetricHistogramRecorder.lowestValue(bucket);
+            long highest = MetricHistogramRecorder.highestValue(bucket);
+            assertTrue(lowest > previousLowest);
+            assertEquals(bucket, MetricHistogramRecorder.bucketIndex(lowest));
+            assertEquals(bucket, MetricHistogramRecorder.bucketIndex(highest));
+            // Relative precision of the buckets
+            assertTrue(bucket == MetricHistogramRecorder.BUCKET_COUNT - 1
+                    || highest - lowest <= lowest / 32);
+            previousLowest = lowest;
+        }
+        assertEquals(MetricHistogramRecorder.BUCKET_COUNT - 1,
+                MetricHistogramRecorder.bucketIndex(Long.MAX_VALUE));
+        assertEquals(0, MetricHistogramRecorder.bucketIndex(-1));
+    }
+
+    @Test
+    public void testSnapshotAndReset() {
+        MetricHistogramRecorder recorder = new MetricHistogramRecorder();
+        for (int i = 1; i <= 1000; i++) {
+            recorder.record(Field.HttpRequestTime, i * 1000000L);
+        }
+        recorder.record(Field.RequestCount, 2);
+
+        List<MetricHistogram> histograms = recorder.snapshotAndReset();
+        assertEquals(2, histograms.size());
+        MetricHistogram requestTime = find(histograms, Field.HttpRequestTime);
+        assertEquals(1000, requestTime.getCount());
+        assertEquals(500500000000L, requestTime.getSum());
+        assertEquals(500500000.0, requestTime.getMean(), 0.0);
+        assertWithinPrecision(1000000L, requestTime.getMin());
+        assertWithinPrecision(1000000000L, requestTime.getMax());
+        assertWithinPrecision(500000000L, requestTime.getValueAtPercentile(50));
+        assertWithinPrecision(990000000L, requestTime.getValueAtPercentile(99));
+        assertEquals(2, find(histograms, Field.RequestCount).getMax());
+
+        assertTrue(recorder.snapshotAndReset().isEmpty());
+    }
+
+    @Test
+    public void testOtherMetricTypes() {
+        MetricHistogramRecorder recorder = new MetricHistogramRecorder();
+        MetricType custom = metricType("Custom");
+        int index = recorder.indexOf(custom);
+        assertTrue(index >= Field.values().length);
+        assertEquals(index, recorder.indexOf(custom));
+        recorder.record(custom, 5);
+        assertEquals(5, find(recorder.snapshotAndReset(), custom).getSum());
+    }
+
+    @Test
+    public void testTooManyMetricTypes() {
+        MetricHistogramRecorder recorder = new MetricHistogramRecorder();
+        for (int i = Field.values().length; i < MetricHistogramRecorder.MAX_METRIC_TYPES; i++) {
+            assertEquals(i, recorder.indexOf(metricType("Custom" + i)));
+        }
+        MetricType ignored = metricType("Ignored");
+        assertEquals(-1, recorder.indexOf(ignored));
+        recorder.record(ignored, 1);
+        assertTrue(recorder.snapshotAndReset().isEmpty());
+    }
+
+    @Test
+    public void testMergesThreads() throws Exception {
+        final MetricHistogramRecorder recorder = new MetricHistogramRecorder();
+        final int threads = 4;
+        final int values = 10000;
+        final CountDownLatch recorded = new CountDownLatch(threads);
+        final CountDownLatch snapshotTaken = new CountDownLatch(1);
+        Thread[] recorders = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            recorders[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < values; j++) {
+                        recorder.record(Field.RequestSigningTime, j);
+                    }
+                    recorded.countDown();
+                    try {
+                        snapshotTaken.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    recorder.record(Field.RequestSigningTime, 1);
+                }
+            });
+            recorders[i].start();
+        }
+
+        recorded.await();
+        MetricHistogram histogram = find(recorder.snapshotAndReset(), Field.RequestSigningTime);
+        assertEquals(threads * values, histogram.getCount());
+        assertEquals(threads * (values * (values - 1L) / 2), histogram.getSum());
+
+        snapshotTaken.countDown();
+        for (Thread thread : recorders) {
+            thread.join();
+        }
+        // Values of finished threads are still exported.
+        histogram = find(recorder.snapshotAndReset(), Field.RequestSigningTime);
+        assertEquals(threads, histogram.getCount());
+        assertTrue(recorder.snapshotAndReset().isEmpty());
+    }
+
+    @Test
+    public void testRetiresDeadThreadsWithoutSnapshot() throws Exception {
+        final MetricHistogramRecorder recorder = new MetricHistogramRecorder();
+        final int threads = 50;
+        for (int i = 0; i < threads; i++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    recorder.record(Field.RequestSigningTime, 100);
+                }
+            });
+            thread.start();
+            thread.join();
+        }
+        // Only the last thread's recorder is left; the others were retired.
+        assertEquals(1, recorder.threadRecorderCount());
+        MetricHistogram histogram = find(recorder.snapshotAndReset(), Field.RequestSigningTime);
+        assertEquals(threads, histogram.getCount());
+        assertEquals(threads * 100L, histogram.getSum());
+        assertEquals(0, recorder.threadRecorderCount());
+        assertTrue(recorder.snapshotAndReset().isEmpty());
+    }
+
+    @Test
+    public void testExportToSink() {
+        final MetricHistogram[] exported = new MetricHistogram[1];
+        AwsSdkMetrics.exportMetricHistograms();
+        AwsSdkMetrics.setMetricHistogramSink(new MetricHistogramSink() {
+            @Override
+            public void export(List<MetricHistogram> histograms) {
+                exported[0] = histograms.get(0);
+            }
+        });
+        try {
+            AwsSdkMetrics.exportMetricHistograms();
+            assertNull(exported[0]);
+
+            AwsSdkMetrics.getMetricHistogramRecorder().record(Field.RetryPauseTime, 10);
+            List<MetricHistogram> histograms = AwsSdkMetrics.exportMetricHistograms();
+            assertEquals(1, histograms.size());
+            assertSame(histograms.get(0), exported[0]);
+            assertSame(Field.RetryPauseTime, exported[0].getMetricType());
+        } finally {
+            AwsSdkMetrics.setMetricHistogramSink(null);
+        }
+    }
+
+    private static MetricType metricType(final String name) {
+        return new SimpleMetricType() {
+            @Override
+            public String name() {
+                return name;
+            }
+        };
+    }
+
+    private static MetricHistogram find(List<MetricHistogram> histograms, MetricType type) {
+        for (MetricHistogram histogram : histograms) {
+            if (histogram.getMetricType() == type) {
+                return histogram;
+            }
+        }
+        throw new AssertionError("No histogram for " + type.name());
+    }
+
+    private static void assertWithinPrecision(long expected, long actual) {
+        assertTrue(expected + " ~ " + actual, Math.abs(expected - actual) <= expected / 32);
+    }
+}
@@ -16,6 +16,8 @@
 package com.amazonaws.regions;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
@@ -66,4 +68,44 @@ public class RegionUtilsTest {
 
     }
 
+    @Test
+    public void testGetRegionByName() {
+        for (Region region : RegionUtils.getRegions()) {
+            assertSame(region, RegionUtils.getRegion(region.getName()));
+        }
+        assertNull(RegionUtils.getRegion("bogus-region-1"));
+        assertNull(RegionUtils.getRegion(null));
+    }
+
+    @Test
+    public void testGetRegionByEndpointSharedByRegions() {
+        // sts.amazonaws.com is the STS endpoint of several regions; the first
+        // one listed is returned.
+        Region expected = null;
+        for (Region region : RegionUtils.getRegions()) {
+            if ("sts.amazonaws.com".equals(region.getServiceEndpoint("sts"))) {
+                expected = region;
+                break;
+            }
+        }
+        assertSame(expected, RegionUtils.getRegionByEndpoint("https://sts.amazonaws.com"));
+    }
+
+    @Test
+    public void testGetRegionsForUnknownService() {
+        assertTrue(RegionUtils.getRegionsForService("bogus-service").isEmpty());
+    }
+
+    @Test
+    public void testRegionsForServiceAreACopy() {
+        List<Region> regions = RegionUtils.getRegionsForService(ServiceAbbreviations.SimpleDB);
+        int size = regions.size();
+        regions.clear();
+        assertEquals(size, RegionUtils.getRegionsForService(ServiceAbbreviations.SimpleDB).size());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testRegionsAreImmutable() {
+        RegionUtils.getRegions().clear();
+    }
 }
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.retry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+public class AdaptiveRetryControllerTest {
+
+    private static final URI ENDPOINT = URI.create("https://service.us-east-1.amazonaws.com");
+    private static final URI OTHER_ENDPOINT = URI.create("https://service.us-west-2.amazonaws.com");
+
+    @Test
+    public void testRetryCapacity() {
+        AdaptiveRetryController controller = new FakeClockController(20, 0);
+        AmazonClientException timeout = new AmazonClientException("timeout",
+                new SocketTimeoutException());
+
+        assertEquals(AdaptiveRetryController.TIMEOUT_RETRY_COST,
+                controller.acquireRetryCapacity(timeout));
+        assertEquals(AdaptiveRetryController.RETRY_COST,
+                controller.acquireRetryCapacity(serviceException(500)));
+        assertEquals(5, controller.getAvailableRetryCapacity());
+        assertEquals(-1, controller.acquireRetryCapacity(timeout));
+        assertEquals(5, controller.getAvailableRetryCapacity());
+
+        // A successful retry returns its cost, a first attempt a single token.
+        controller.onSuccess(ENDPOINT, AdaptiveRetryController.TIMEOUT_RETRY_COST);
+        assertEquals(15, controller.getAvailableRetryCapacity());
+        controller.onSuccess(ENDPOINT, 0);
+        assertEquals(16, controller.getAvailableRetryCapacity());
+        for (int i = 0; i < 10; i++) {
+            controller.onSuccess(ENDPOINT, 0);
+        }
+        assertEquals(20, controller.getAvailableRetryCapacity());
+    }
+
+    @Test
+    public void testCircuitOpensAfterConsecutiveServerErrors() {
+        FakeClockController controller = new FakeClockController(500, 3);
+        controller.onFailure(ENDPOINT, serviceException(503));
+        controller.onFailure(ENDPOINT, serviceException(500));
+        // Client errors reset the count: the endpoint is up.
+        controller.onFailure(ENDPOINT, serviceException(400));
+        controller.onFailure(ENDPOINT, serviceException(502));
+        controller.onFailure(ENDPOINT, ioException());
+        assertFalse(controller.isCircuitOpen(ENDPOINT));
+
+        controller.onFailure(ENDPOINT, serviceException(500));
+        assertTrue(controller.isCircuitOpen(ENDPOINT));
+        assertFalse(controller.isCircuitOpen(OTHER_ENDPOINT));
+        assertFalse(controller.isCircuitOpen(URI.create("http://service.us-east-1.amazonaws.com")));
+        assertCircuitOpen(controller, ENDPOINT);
+        controller.beforeAttempt(OTHER_ENDPOINT);
+    }
+
+    @Test
+    public void testCircuitProbe() {
+        FakeClockController controller = new FakeClockController(500, 1);
+        controller.onFailure(ENDPOINT, ioException());
+        assertCircuitOpen(controller, ENDPOINT);
+
+        // A single probe is let through after the open time.
+        controller.advance(AdaptiveRetryController.DEFAULT_OPEN_CIRCUIT_MILLIS);
+        assertFalse(controller.isCircuitOpen(ENDPOINT));
+        controller.beforeAttempt(ENDPOINT);
+        assertCircuitOpen(controller, ENDPOINT);
+
+        // A failed probe opens the circuit again.
+        controller.onFailure(ENDPOINT, serviceException(500));
+        controller.advance(AdaptiveRetryController.DEFAULT_OPEN_CIRCUIT_MILLIS - 1);
+        assertCircuitOpen(controller, ENDPOINT);
+
+        // A lost probe does not keep the circuit open forever.
+        controller.advance(1);
+        controller.beforeAttempt(ENDPOINT);
+        controller.advance(AdaptiveRetryController.DEFAULT_OPEN_CIRCUIT_MILLIS);
+        controller.beforeAttempt(ENDPOINT);
+
+        // A successful probe closes the circuit.
+        controller.onSuccess(ENDPOINT, 0);
+        assertFalse(controller.isCircuitOpen(ENDPOINT));
+        controller.beforeAttempt(ENDPOINT);
+        controller.beforeAttempt(ENDPOINT);
+    }
+
+    @Test
+    public void testCircuitBreakingDisabled() {
+        FakeClockController controller = new FakeClockController(500, 0);
+        for (int i = 0; i < 10; i++) {
+            controller.onFailure(ENDPOINT, serviceException(500));
+        }
+        assertFalse(controller.isCircuitOpen(ENDPOINT));
+        controller.beforeAttempt(ENDPOINT);
+    }
+
+    @Test
+    public void testThrottlingEnablesRateLimiting() {
+        FakeClockRateLimiter rateLimiter = new FakeClockRateLimiter();
+        AdaptiveRetryController controller = new AdaptiveRetryController(500, 1, 1000,
+                rateLimiter);
+        controller.onFailure(ENDPOINT, serviceException(500));
+        assertFalse(controller.isRateLimiting());
+
+        AmazonServiceException throttling = serviceException(400);
+        throttling.setErrorCode("ThrottlingException");
+        controller.onFailure(OTHER_ENDPOINT, throttling);
+        assertTrue(controller.isRateLimiting());
+        // Throttling is not an endpoint failure.
+        assertFalse(controller.isCircuitOpen(OTHER_ENDPOINT));
+
+        controller = new AdaptiveRetryController(500, 1, 1000, new FakeClockRateLimiter());
+        controller.onFailure(ENDPOINT, serviceException(429));
+        assertTrue(controller.isRateLimiting());
+    }
+
+    @Test
+    public void testRateLimiterLearnsFromThrottling() throws InterruptedException {
+        FakeClockRateLimiter rateLimiter = new FakeClockRateLimiter();
+        rateLimiter.acquire();
+        assertEquals(0, rateLimiter.sleptSeconds, 0.0);
+
+        // 10 requests per second for 2 seconds
+        for (int i = 0; i < 20; i++) {
+            rateLimiter.updateSendingRate(false);
+            rateLimiter.time += 0.1;
+        }
+        assertFalse(rateLimiter.isEnabled());
+        double measuredRate = rateLimiter.getMeasuredTxRate();
+        assertEquals(10, measuredRate, 1);
+
+        rateLimiter.updateSendingRate(true);
+        assertTrue(rateLimiter.isEnabled());
+        double throttledRate = rateLimiter.getFillRate();
+        assertEquals(measuredRate * 0.7, throttledRate, 1);
+
+        // Requests are now sent at the throttled rate, once the tokens left in
+        // the bucket are used.
+        for (int i = 0; i < 5; i++) {
+            rateLimiter.acquire();
+        }
+        double sleptSeconds = rateLimiter.sleptSeconds;
+        int requests = 14;
+        for (int i = 0; i < requests; i++) {
+            rateLimiter.acquire();
+        }
+        assertEquals(requests / throttledRate, rateLimiter.sleptSeconds - sleptSeconds, 0.01);
+
+        // The rate grows back with successful requests.
+        for (int i = 0; i < 100; i++) {
+            rateLimiter.acquire();
+            rateLimiter.updateSendingRate(false);
+        }
+        assertTrue(rateLimiter.getFillRate() > measuredRate);
+    }
+
+    private static void assertCircuitOpen(AdaptiveRetryController controller, URI endpoint) {
+        assertTrue(controller.isCircuitOpen(endpoint));
+        try {
+            controller.beforeAttempt(endpoint);
+            fail("AmazonClientException is expected.");
+        } catch (AmazonClientException ace) {
+            assertTrue(ace.getMessage().contains(endpoint.toString()));
+        }
+    }
+
+    private static AmazonServiceException serviceException(int statusCode) {
+        AmazonServiceException ase = new AmazonServiceException("Fake service exception.");
+        ase.setStatusCode(statusCode);
+        ase.setErrorCode("InternalFailure");
+        return ase;
+    }
+
+    private static AmazonClientException ioException() {
+        return new AmazonClientException("Unable to execute HTTP request",
+                new IOException("Connection refused"));
+    }
+
+    private static final class FakeClockController extends AdaptiveRetryController {
+        private long nanos = 1000;
+
+        FakeClockController(int retryCapacity, int failureThreshold) {
+            super(retryCapacity, failureThreshold, DEFAULT_OPEN_CIRCUIT_MILLIS,
+                    new FakeClockRateLimiter());
+        }
+
+        void advance(long millis) {
+            nanos += TimeUnit.MILLISECONDS.toNanos(millis);
+        }
+
+        @Override
+        long currentTimeNanos() {
+            return nanos;
+        }
+    }
+
+    private static final class FakeClockRateLimiter extends ClientRateLimiter {
+        private double time = 100;
+        private double sleptSeconds;
+
+        @Override
+        double now() {
+            return time;
+        }
+
+        @Override
+        void sleep(long nanos) {
+            double seconds = nanos / (double) TimeUnit.SECONDS.toNanos(1);
+            sleptSeconds += seconds;
+            time += seconds;
+        }
+    }
+}
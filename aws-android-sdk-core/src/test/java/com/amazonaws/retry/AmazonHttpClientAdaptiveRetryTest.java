@@ -0,0 +1,202 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.retry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.AmazonWebServiceResponse;
+import com.amazonaws.http.ExecutionContext;
+import com.amazonaws.http.HttpRequest;
+import com.amazonaws.http.HttpResponse;
+import com.amazonaws.http.HttpResponseHandler;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URI;
+
+/**
+ * Tests that {@link com.amazonaws.http.AmazonHttpClient} reports the attempts
+ * of a request to the {@link AdaptiveRetryController} of its retry policy.
+ */
+public class AmazonHttpClientAdaptiveRetryTest extends RetryPolicyTestBase {
+
+    private static final int MAX_ERROR_RETRY = 5;
+    private static final URI ENDPOINT = URI.create("http://non-existent-service.amazonaws.com");
+
+    private static final HttpResponseHandler<AmazonWebServiceResponse<Object>> responseHandler =
+            new HttpResponseHandler<AmazonWebServiceResponse<Object>>() {
+                @Override
+                public AmazonWebServiceResponse<Object> handle(HttpResponse response) {
+                    return new AmazonWebServiceResponse<Object>();
+                }
+
+                @Override
+                public boolean needsConnectionLeftOpen() {
+                    return false;
+                }
+            };
+
+    private AdaptiveRetryController controller;
+
+    @Before
+    public void resetRetryPolicy() {
+        retryCondition = new ContextDataCollectionRetryCondition();
+        backoffStrategy = new ContextDataCollectionBackoffStrategy();
+    }
+
+    @Test
+    public void testRetriesStopWhenRetryCapacityIsExhausted() {
+        setController(new AdaptiveRetryController(12, 0, 0));
+        CountingHttpClient httpClient = new CountingHttpClient(503, Integer.MAX_VALUE);
+        injectMockHttpClient(testedClient, httpClient);
+
+        try {
+            execute();
+            fail("AmazonServiceException is expected.");
+        } catch (AmazonServiceException ase) {
+            assertEquals(503, ase.getStatusCode());
+        }
+        // The first attempt, then two retries of 5 tokens each
+        assertEquals(3, httpClient.attempts);
+        assertEquals(2, controller.getAvailableRetryCapacity());
+    }
+
+    @Test
+    public void testSuccessfulRetryReturnsRetryCapacity() {
+        setController(new AdaptiveRetryController(100, 0, 0));
+        CountingHttpClient httpClient = new CountingHttpClient(500, 2);
+        injectMockHttpClient(testedClient, httpClient);
+
+        execute();
+        assertEquals(3, httpClient.attempts);
+        // The tokens of the last retry are returned.
+        assertEquals(95, controller.getAvailableRetryCapacity());
+    }
+
+    @Test
+    public void testOpenCircuitFailsRequestsImmediately() {
+        setController(new AdaptiveRetryController(500, 3, 60 * 1000L));
+        CountingHttpClient httpClient = new CountingHttpClient(500, Integer.MAX_VALUE);
+        injectMockHttpClient(testedClient, httpClient);
+
+        try {
+            execute();
+            fail("AmazonClientException is expected.");
+        } catch (AmazonServiceException ase) {
+            fail("The circuit should have been opened before the last retry.");
+        } catch (AmazonClientException ace) {
+            assertTrue(ace.getMessage().contains("circuit"));
+        }
+        assertEquals(3, httpClient.attempts);
+        assertTrue(controller.isCircuitOpen(ENDPOINT));
+
+        try {
+            execute();
+            fail("AmazonClientException is expected.");
+        } catch (AmazonClientException ace) {
+            assertFalse(ace instanceof AmazonServiceException);
+        }
+        assertEquals(3, httpClient.attempts);
+    }
+
+    @Test
+    public void testIOExceptionsOpenCircuit() {
+        setController(new AdaptiveRetryController(500, 2, 60 * 1000L));
+        injectMockHttpClient(testedClient,
+                new ThrowingExceptionHttpClient(new IOException("fake IOException")));
+
+        try {
+            execute();
+            fail("AmazonClientException is expected.");
+        } catch (AmazonClientException ace) {
+            assertTrue(ace.getMessage().contains("circuit"));
+        }
+        assertTrue(controller.isCircuitOpen(ENDPOINT));
+    }
+
+    @Test
+    public void testThrottlingEnablesRateLimiting() {
+        setController(new AdaptiveRetryController());
+        injectMockHttpClient(testedClient, new ReturnServiceErrorHttpClient(429, "TooManyRequests"));
+        assertFalse(controller.isRateLimiting());
+
+        clientConfiguration.setRetryPolicy(new RetryPolicy(retryCondition, backoffStrategy, 0,
+                false, controller));
+        try {
+            execute();
+            fail("AmazonServiceException is expected.");
+        } catch (AmazonServiceException ase) {
+            assertEquals(429, ase.getStatusCode());
+        }
+        assertTrue(controller.isRateLimiting());
+    }
+
+    @Test
+    public void testAdaptiveRetryPolicies() {
+        RetryPolicy policy = PredefinedRetryPolicies.getAdaptiveRetryPolicy();
+        assertTrue(policy.getAdaptiveRetryController() != null);
+        assertTrue(policy.isMaxErrorRetryInClientConfigHonored());
+        assertTrue(policy.getAdaptiveRetryController() != PredefinedRetryPolicies
+                .getAdaptiveRetryPolicy().getAdaptiveRetryController());
+
+        policy = PredefinedRetryPolicies.getAdaptiveRetryPolicyWithCustomMaxRetries(7);
+        assertEquals(7, policy.getMaxErrorRetry());
+        assertFalse(policy.isMaxErrorRetryInClientConfigHonored());
+        assertTrue(PredefinedRetryPolicies.DEFAULT.getAdaptiveRetryController() == null);
+    }
+
+    private void setController(AdaptiveRetryController controller) {
+        this.controller = controller;
+        clientConfiguration.setRetryPolicy(new RetryPolicy(retryCondition, backoffStrategy,
+                MAX_ERROR_RETRY, false, controller));
+    }
+
+    private void execute() {
+        testedClient.execute(getSampleRequestWithRepeatableContent(originalRequest),
+                responseHandler,
+                errorResponseHandler,
+                new ExecutionContext(false));
+    }
+
+    /**
+     * A mock HttpClient that returns the given error status code for the first
+     * attempts, then an empty successful response.
+     */
+    private static final class CountingHttpClient extends ReturnServiceErrorHttpClient {
+        private final int failedAttempts;
+        private int attempts;
+
+        CountingHttpClient(int statusCode, int failedAttempts) {
+            super(statusCode, "InternalFailure");
+            this.failedAttempts = failedAttempts;
+        }
+
+        @Override
+        public HttpResponse execute(HttpRequest request) throws IOException {
+            if (attempts++ < failedAttempts) {
+                return super.execute(request);
+            }
+            return HttpResponse.builder().statusCode(200).statusText("OK").build();
+        }
+    }
+}
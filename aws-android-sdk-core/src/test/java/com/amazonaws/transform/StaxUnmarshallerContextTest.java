@@ -105,6 +105,27 @@ public class StaxUnmarshallerContextTest {
         assertFalse("expression not match", context.testExpression("imageSet/item_id", 2));
     }
 
+    @Test
+    public void testExpressionAfterNestedElements() throws Exception {
+        context = getContext(XML_STRING, null);
+        while (context.nextEvent() != XmlPullParser.END_DOCUMENT) {
+            if (context.testExpression("imageSet/item", 2)) {
+                assertEquals(3, context.getCurrentDepth());
+                assertTrue(context.nextEvent() == XmlPullParser.START_TAG);
+                assertTrue(context.testExpression("imageSet/item/id", 2));
+                assertTrue("full path", context.testExpression(
+                        "DescribeImagesResponse/imageSet/item/id", 1));
+                assertFalse("longer than the path", context.testExpression(
+                        "root/DescribeImagesResponse/imageSet/item/id", 0));
+                assertFalse("attributes are not tracked", context.testExpression(
+                        "item/@id", 3));
+                assertEquals("id", context.readText());
+                assertEquals(3, context.getCurrentDepth());
+            }
+        }
+        assertEquals(0, context.getCurrentDepth());
+    }
+
     @Test
     public void testMetadata() throws Exception {
         String key = "AWS_REQUEST_ID";
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.amazonaws.http.ExecutionContext;
+import com.amazonaws.metrics.AwsSdkMetrics;
+import com.amazonaws.metrics.MetricHistogram;
+import com.amazonaws.metrics.MetricHistogramRecorder;
+import com.amazonaws.metrics.MetricType;
+import com.amazonaws.util.AWSRequestMetrics.Field;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class AWSRequestMetricsHistogramSupportTest {
+
+    @Test
+    public void testRecordsEventsAndCounters() throws Exception {
+        MetricHistogramRecorder recorder = new MetricHistogramRecorder();
+        for (int i = 0; i < 3; i++) {
+            AWSRequestMetrics metrics = new AWSRequestMetricsHistogramSupport(recorder);
+            metrics.startEvent(Field.ClientExecuteTime);
+            metrics.startEvent(Field.HttpRequestTime);
+            Thread.sleep(2);
+            metrics.endEvent(Field.HttpRequestTime);
+            metrics.setCounter(Field.RequestCount, 1);
+            metrics.setCounter(Field.RequestCount, 2);
+            metrics.incrementCounter(Field.Exception.name());
+            metrics.addProperty(Field.StatusCode, 200);
+            metrics.endEvent(Field.ClientExecuteTime);
+        }
+
+        Map<MetricType, MetricHistogram> histograms = byType(recorder.snapshotAndReset());
+        assertEquals(4, histograms.size());
+        MetricHistogram requestTime = histograms.get(Field.HttpRequestTime);
+        assertEquals(3, requestTime.getCount());
+        assertTrue(requestTime.getMin() >= 2000000L);
+        assertTrue(histograms.get(Field.ClientExecuteTime).getMin() >= requestTime.getMin());
+        // Counters are recorded once per request, with their final value.
+        assertEquals(3, histograms.get(Field.RequestCount).getCount());
+        assertEquals(6, histograms.get(Field.RequestCount).getSum());
+        assertEquals(3, histograms.get(Field.Exception).getSum());
+    }
+
+    @Test
+    public void testIgnoresEventsNotStarted() {
+        MetricHistogramRecorder recorder = new MetricHistogramRecorder();
+        AWSRequestMetrics metrics = new AWSRequestMetricsHistogramSupport(recorder);
+        metrics.endEvent(Field.RequestSigningTime);
+        metrics.startEvent("UnknownEvent");
+        metrics.endEvent("UnknownEvent");
+        assertTrue(recorder.snapshotAndReset().isEmpty());
+        assertFalse(metrics.isEnabled());
+    }
+
+    @Test
+    public void testExecutionContext() {
+        AwsSdkMetrics.setMetricHistogramsEnabled(true);
+        try {
+            assertTrue(new ExecutionContext(null, false, null)
+                    .getAwsRequestMetrics() instanceof AWSRequestMetricsHistogramSupport);
+            assertTrue(new ExecutionContext(null, true, null)
+                    .getAwsRequestMetrics() instanceof AWSRequestMetricsFullSupport);
+        } finally {
+            AwsSdkMetrics.setMetricHistogramsEnabled(false);
+        }
+        assertEquals(AWSRequestMetrics.class,
+                new ExecutionContext(null, false, null).getAwsRequestMetrics().getClass());
+    }
+
+    private static Map<MetricType, MetricHistogram> byType(List<MetricHistogram> histograms) {
+        Map<MetricType, MetricHistogram> map = new HashMap<MetricType, MetricHistogram>();
+        for (MetricHistogram histogram : histograms) {
+            map.put(histogram.getMetricType(), histogram);
+        }
+        return map;
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.amazonaws.AmazonClientException;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+
+public class ReplayableWriterInputStreamTest {
+
+    private static final byte[] CONTENT = "{\"StreamName\":\"stream\",\"Records\":[]}"
+            .getBytes(StringUtils.UTF8);
+
+    private static class CountingWriter implements ReplayableWriterInputStream.ContentWriter {
+        int calls;
+
+        @Override
+        public void writeTo(OutputStream out) throws Exception {
+            calls++;
+            out.write(CONTENT, 0, 10);
+            out.write(CONTENT, 10, CONTENT.length - 10);
+            out.close();
+        }
+    }
+
+    @Test
+    public void testLengthAndHashComputedInOnePass() throws Exception {
+        CountingWriter writer = new CountingWriter();
+        ReplayableWriterInputStream in = new ReplayableWriterInputStream(writer);
+
+        assertEquals(CONTENT.length, in.getContentLength());
+        assertArrayEquals(MessageDigest.getInstance("SHA-256").digest(CONTENT),
+                in.getContentSha256());
+        assertEquals(1, writer.calls);
+    }
+
+    @Test
+    public void testWriteToStreamsEachTime() throws Exception {
+        CountingWriter writer = new CountingWriter();
+        ReplayableWriterInputStream in = new ReplayableWriterInputStream(writer);
+
+        for (int i = 0; i < 2; i++) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            in.writeTo(out);
+            assertArrayEquals(CONTENT, out.toByteArray());
+        }
+        assertEquals(2, writer.calls);
+    }
+
+    @Test
+    public void testReadBuffersOnceAndSupportsReset() throws Exception {
+        CountingWriter writer = new CountingWriter();
+        ReplayableWriterInputStream in = new ReplayableWriterInputStream(writer);
+
+        assertTrue(in.markSupported());
+        in.mark(-1);
+        assertArrayEquals(CONTENT, IOUtils.toByteArray(in));
+        in.reset();
+        assertArrayEquals(CONTENT, IOUtils.toByteArray(in));
+        assertEquals(-1, in.read());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        in.writeTo(out);
+        assertArrayEquals(CONTENT, out.toByteArray());
+        assertEquals(CONTENT.length, in.getContentLength());
+        assertEquals(1, writer.calls);
+    }
+
+    @Test
+    public void testWriterFailureIsWrapped() throws Exception {
+        final Exception cause = new Exception("marshalling failed");
+        ReplayableWriterInputStream in = new ReplayableWriterInputStream(
+                new ReplayableWriterInputStream.ContentWriter() {
+                    @Override
+                    public void writeTo(OutputStream out) throws Exception {
+                        throw cause;
+                    }
+                });
+        try {
+            in.getContentLength();
+            fail("Expected AmazonClientException");
+        } catch (AmazonClientException e) {
+            assertSame(cause, e.getCause());
+        }
+    }
+
+    @Test
+    public void testIOExceptionIsRethrown() throws Exception {
+        ReplayableWriterInputStream in = new ReplayableWriterInputStream(new CountingWriter());
+        try {
+            in.writeTo(new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    throw new IOException("broken pipe");
+                }
+            });
+            fail("Expected IOException");
+        } catch (IOException e) {
+            assertEquals("broken pipe", e.getMessage());
+        }
+    }
+}
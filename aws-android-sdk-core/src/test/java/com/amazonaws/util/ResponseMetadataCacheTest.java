@@ -17,6 +17,7 @@ package com.amazonaws.util;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import com.amazonaws.AmazonWebServiceRequest;
 import com.amazonaws.ResponseMetadata;
@@ -61,6 +62,88 @@ public class ResponseMetadataCacheTest {
         assertEquals(metadata4, cache.get(key4));
     }
 
+    /** Tests that adding an entry again replaces its metadata. */
+    @Test
+    public void testReplace() {
+        ResponseMetadataCache cache = new ResponseMetadataCache(2);
+
+        AmazonWebServiceRequest key1 = new TestRequest();
+        AmazonWebServiceRequest key2 = new TestRequest();
+        ResponseMetadata metadata1 = newResponseMetadata();
+        ResponseMetadata metadata2 = newResponseMetadata();
+        ResponseMetadata metadata3 = newResponseMetadata();
+
+        cache.add(key1, metadata1);
+        cache.add(key2, metadata2);
+        cache.add(key1, metadata3);
+        assertEquals(metadata3, cache.get(key1));
+        assertEquals(metadata2, cache.get(key2));
+    }
+
+    /** Tests that a cache of size 0 retains nothing. */
+    @Test
+    public void testDisabled() {
+        ResponseMetadataCache cache = new ResponseMetadataCache(0);
+
+        AmazonWebServiceRequest key = new TestRequest();
+        cache.add(key, newResponseMetadata());
+        assertNull(cache.get(key));
+        assertNull(cache.get(null));
+    }
+
+    /** Tests that concurrent adds keep the cache bounded. */
+    @Test
+    public void testConcurrentAdds() throws Exception {
+        final ResponseMetadataCache cache = new ResponseMetadataCache(10);
+        final AmazonWebServiceRequest[] keys = new AmazonWebServiceRequest[4 * 1000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = new TestRequest();
+        }
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final int offset = t * 1000;
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 1000; i++) {
+                        cache.add(keys[offset + i], newResponseMetadata());
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        int cached = 0;
+        for (AmazonWebServiceRequest key : keys) {
+            if (cache.get(key) != null) {
+                cached++;
+            }
+        }
+        assertTrue(cached <= 10);
+    }
+
+    /** Tests that the keys of collected objects are aged out as well. */
+    @Test
+    public void testCollectedKeysAreAgedOut() {
+        ResponseMetadataCache cache = new ResponseMetadataCache(10);
+
+        for (int i = 0; i < 10000; i++) {
+            cache.add(new TestRequest(), newResponseMetadata());
+            if (i % 1000 == 0) {
+                System.gc();
+            }
+        }
+        assertTrue(cache.getQueuedKeyCount() <= 10);
+
+        AmazonWebServiceRequest key = new TestRequest();
+        ResponseMetadata metadata = newResponseMetadata();
+        cache.add(key, metadata);
+        assertEquals(metadata, cache.get(key));
+    }
+
     private class TestRequest extends AmazonWebServiceRequest {
     }
 
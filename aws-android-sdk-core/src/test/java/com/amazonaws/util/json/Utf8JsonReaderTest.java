@@ -0,0 +1,188 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.util.json;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.amazonaws.util.StringUtils;
+import com.amazonaws.util.json.JsonUtils.JsonEngine;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.util.Random;
+
+public class Utf8JsonReaderTest {
+    private static final String JSON_STRING = "{\"string\":\"h\\u00e9llo\\n\\\"é\\\"\","
+            + "\"long\":-1234567890123,"
+            + "\"int\":42,"
+            + "\"double\":-2.5e3,"
+            + "\"boolean\":true,"
+            + "\"null\":null,"
+            + "\"array\":[1,\"two\",{\"three\":[]}],"
+            + "\"blob\":\"aGVsbG8=\","
+            + "\"big\":12345678901234567890,"
+            + "\"object\":{}}";
+
+    @Test
+    public void testReadTypedValues() throws IOException {
+        Utf8JsonReader reader = reader(JSON_STRING);
+        checkDocument(reader);
+    }
+
+    @Test
+    public void testReadOneByteAtATime() throws IOException {
+        final byte[] bytes = JSON_STRING.getBytes(StringUtils.UTF8);
+        Utf8JsonReader reader = new Utf8JsonReader(new InputStream() {
+            private int pos;
+
+            @Override
+            public int read() {
+                return pos < bytes.length ? bytes[pos++] & 0xff : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (pos == bytes.length) {
+                    return -1;
+                }
+                b[off] = bytes[pos++];
+                return 1;
+            }
+        });
+        checkDocument(reader);
+    }
+
+    @Test
+    public void testMatchesGsonReader() throws IOException {
+        AwsJsonReader gson = new GsonFactory().getJsonReader(new StringReader(JSON_STRING));
+        Utf8JsonReader utf8 = reader(JSON_STRING);
+        while (gson.peek() != null) {
+            AwsJsonToken token = gson.peek();
+            assertEquals(token, utf8.peek());
+            switch (token) {
+                case BEGIN_OBJECT:
+                    gson.beginObject();
+                    utf8.beginObject();
+                    break;
+                case END_OBJECT:
+                    gson.endObject();
+                    utf8.endObject();
+                    break;
+                case BEGIN_ARRAY:
+                    gson.beginArray();
+                    utf8.beginArray();
+                    break;
+                case END_ARRAY:
+                    gson.endArray();
+                    utf8.endArray();
+                    break;
+                case FIELD_NAME:
+                    assertEquals(gson.nextName(), utf8.nextName());
+                    break;
+                default:
+                    assertEquals(gson.nextString(), utf8.nextString());
+            }
+        }
+        assertNull(utf8.peek());
+    }
+
+    @Test
+    public void testFieldNamesAreShared() throws IOException {
+        Utf8JsonReader first = reader("{\"RequestId\":1}");
+        first.beginObject();
+        Utf8JsonReader second = reader("{\"RequestId\":1}");
+        second.beginObject();
+        assertSame(first.nextName(), second.nextName());
+    }
+
+    @Test
+    public void testParseDouble() throws IOException {
+        Random random = new Random(1);
+        for (int i = 0; i < 10000; i++) {
+            double value = random.nextDouble() * Math.pow(10, random.nextInt(30) - 15);
+            String s = i % 2 == 0 ? Double.toString(value) : String.format("%.6f", value);
+            Utf8JsonReader reader = reader("[" + s + "]");
+            reader.beginArray();
+            assertEquals(s, Double.parseDouble(s), reader.nextDouble(), 0);
+        }
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testIntOverflow() throws IOException {
+        Utf8JsonReader reader = reader("[4294967296]");
+        reader.beginArray();
+        reader.nextInt();
+    }
+
+    @Test
+    public void testEmptyDocument() throws IOException {
+        assertNull(reader("").peek());
+    }
+
+    @Test
+    public void testJsonUtilsEngine() throws IOException {
+        InputStream in = new ByteArrayInputStream(new byte[0]);
+        JsonUtils.setJsonEngine(JsonEngine.Utf8);
+        assertTrue(JsonUtils.getJsonReader(in) instanceof Utf8JsonReader);
+        JsonUtils.setJsonEngine(JsonEngine.Gson);
+        assertFalse(JsonUtils.getJsonReader(in) instanceof Utf8JsonReader);
+    }
+
+    private static void checkDocument(Utf8JsonReader reader) throws IOException {
+        reader.beginObject();
+        assertEquals("string", reader.nextName());
+        assertEquals("héllo\n\"é\"", reader.nextString());
+        assertEquals("long", reader.nextName());
+        assertEquals(Long.valueOf(-1234567890123L), reader.nextLong());
+        assertEquals("int", reader.nextName());
+        assertEquals(Integer.valueOf(42), reader.nextInt());
+        assertEquals("double", reader.nextName());
+        assertEquals(-2500.0, reader.nextDouble(), 0);
+        assertEquals("boolean", reader.nextName());
+        assertEquals(AwsJsonToken.VALUE_BOOLEAN, reader.peek());
+        assertEquals(Boolean.TRUE, reader.nextBoolean());
+        assertEquals("null", reader.nextName());
+        assertNull(reader.nextLong());
+        assertEquals("array", reader.nextName());
+        assertTrue(reader.isContainer());
+        reader.skipValue();
+        assertEquals("blob", reader.nextName());
+        assertArrayEquals("hello".getBytes(StringUtils.UTF8), reader.nextBase64());
+        assertEquals("big", reader.nextName());
+        assertEquals("12345678901234567890", reader.nextString());
+        assertEquals("object", reader.nextName());
+        reader.beginObject();
+        assertFalse(reader.hasNext());
+        reader.endObject();
+        assertFalse(reader.hasNext());
+        reader.endObject();
+        assertNull(reader.peek());
+        reader.close();
+    }
+
+    private static Utf8JsonReader reader(String json) {
+        return new Utf8JsonReader(new ByteArrayInputStream(json.getBytes(StringUtils.UTF8)));
+    }
+}
@@ -51,6 +51,7 @@ public class BatchGetItemRequestMarshaller implements
         String target = "DynamoDB_20120810.BatchGetItem";
         request.addHeader("X-Amz-Target", target);
         request.setHttpMethod(HttpMethodName.POST);
+        request.setIdempotent(true);
 
         String uriResourcePath = "/";
         request.setResourcePath(uriResourcePath);
@@ -50,6 +50,7 @@ public class GetItemRequestMarshaller implements
         String target = "DynamoDB_20120810.GetItem";
         request.addHeader("X-Amz-Target", target);
         request.setHttpMethod(HttpMethodName.POST);
+        request.setIdempotent(true);
 
         String uriResourcePath = "/";
         request.setResourcePath(uriResourcePath);
@@ -49,6 +49,7 @@ public class QueryRequestMarshaller implements Marshaller<Request<QueryRequest>,
         String target = "DynamoDB_20120810.Query";
         request.addHeader("X-Amz-Target", target);
         request.setHttpMethod(HttpMethodName.POST);
+        request.setIdempotent(true);
 
         String uriResourcePath = "/";
         request.setResourcePath(uriResourcePath);
@@ -16,14 +16,12 @@ package com.amazonaws.services.kinesis.model.transform;
 
 import static com.amazonaws.util.StringUtils.UTF8;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.util.Map;
 import java.util.List;
-import java.util.zip.GZIPOutputStream;
 
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.Request;
@@ -32,6 +30,7 @@ import com.amazonaws.http.HttpMethodName;
 import com.amazonaws.services.kinesis.model.*;
 import com.amazonaws.transform.Marshaller;
 import com.amazonaws.util.BinaryUtils;
+import com.amazonaws.util.ReplayableWriterInputStream;
 import com.amazonaws.util.StringUtils;
 import com.amazonaws.util.StringInputStream;
 import com.amazonaws.util.json.AwsJsonWriter;
@@ -42,7 +41,7 @@ import com.amazonaws.util.json.JsonUtils;
  */
 public class PutRecordRequestMarshaller implements Marshaller<Request<PutRecordRequest>, PutRecordRequest> {
 
-    public Request<PutRecordRequest> marshall(PutRecordRequest putRecordRequest) {
+    public Request<PutRecordRequest> marshall(final PutRecordRequest putRecordRequest) {
     if (putRecordRequest == null) {
         throw new AmazonClientException("Invalid argument passed to marshall(...)");
     }
@@ -55,43 +54,48 @@ public class PutRecordRequestMarshaller implements Marshaller<Request<PutRecordR
         request.setResourcePath("");
         
         try {
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            GZIPOutputStream gos = new GZIPOutputStream(baos, 8192);
-            Writer writer = new OutputStreamWriter(gos, StringUtils.UTF8);
-            AwsJsonWriter jsonWriter = JsonUtils.getJsonWriter(writer);
-
-            jsonWriter.beginObject();
-            
-            if (putRecordRequest.getStreamName() != null) {
-                jsonWriter.name("StreamName").value(putRecordRequest.getStreamName());
-            }
-            if (putRecordRequest.getData() != null) {
-                jsonWriter.name("Data").value(putRecordRequest.getData());
-            }
-            if (putRecordRequest.getPartitionKey() != null) {
-                jsonWriter.name("PartitionKey").value(putRecordRequest.getPartitionKey());
-            }
-            if (putRecordRequest.getExplicitHashKey() != null) {
-                jsonWriter.name("ExplicitHashKey").value(putRecordRequest.getExplicitHashKey());
-            }
-            if (putRecordRequest.getSequenceNumberForOrdering() != null) {
-                jsonWriter.name("SequenceNumberForOrdering").value(putRecordRequest.getSequenceNumberForOrdering());
-            }
-
-            jsonWriter.endObject();
-            jsonWriter.flush();
-            gos.finish();
-            writer.close();
-
-            byte[] content = baos.toByteArray();
-            request.setContent(new ByteArrayInputStream(content));
-            request.addHeader("Content-Length", Integer.toString(content.length));
+            ReplayableWriterInputStream content = new ReplayableWriterInputStream(
+                    new ReplayableWriterInputStream.ContentWriter() {
+                        @Override
+                        public void writeTo(OutputStream out) throws Exception {
+                            writeContent(putRecordRequest, out);
+                        }
+                    });
+            request.setContent(content);
             request.addHeader("Content-Type", "application/x-amz-json-1.1");
-            request.addHeader("Content-Encoding", "gzip");
+            request.setCompressible(true);
         } catch(Throwable t) {
             throw new AmazonClientException("Unable to marshall request to JSON: " + t.getMessage(), t);
         }
 
         return request;
     }
+
+    private static void writeContent(PutRecordRequest putRecordRequest, OutputStream out)
+            throws Exception {
+        Writer writer = new OutputStreamWriter(out, StringUtils.UTF8);
+        AwsJsonWriter jsonWriter = JsonUtils.getJsonWriter(writer);
+
+        jsonWriter.beginObject();
+        
+        if (putRecordRequest.getStreamName() != null) {
+            jsonWriter.name("StreamName").value(putRecordRequest.getStreamName());
+        }
+        if (putRecordRequest.getData() != null) {
+            jsonWriter.name("Data").value(putRecordRequest.getData());
+        }
+        if (putRecordRequest.getPartitionKey() != null) {
+            jsonWriter.name("PartitionKey").value(putRecordRequest.getPartitionKey());
+        }
+        if (putRecordRequest.getExplicitHashKey() != null) {
+            jsonWriter.name("ExplicitHashKey").value(putRecordRequest.getExplicitHashKey());
+        }
+        if (putRecordRequest.getSequenceNumberForOrdering() != null) {
+            jsonWriter.name("SequenceNumberForOrdering").value(putRecordRequest.getSequenceNumberForOrdering());
+        }
+
+        jsonWriter.endObject();
+        jsonWriter.flush();
+        writer.close();
+    }
 }
@@ -16,12 +16,10 @@
 package com.amazonaws.services.kinesis.model.transform;
 
 import static com.amazonaws.util.StringUtils.UTF8;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.StringWriter;
 import java.io.Writer;
-import java.util.zip.GZIPOutputStream;
 
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.Request;
@@ -30,6 +28,7 @@ import com.amazonaws.http.HttpMethodName;
 import com.amazonaws.services.kinesis.model.*;
 import com.amazonaws.transform.Marshaller;
 import com.amazonaws.util.BinaryUtils;
+import com.amazonaws.util.ReplayableWriterInputStream;
 import com.amazonaws.util.StringUtils;
 import com.amazonaws.util.StringInputStream;
 import com.amazonaws.util.json.AwsJsonWriter;
@@ -41,7 +40,7 @@ import com.amazonaws.util.json.JsonUtils;
 public class PutRecordsRequestMarshaller implements
         Marshaller<Request<PutRecordsRequest>, PutRecordsRequest> {
 
-    public Request<PutRecordsRequest> marshall(PutRecordsRequest putRecordsRequest) {
+    public Request<PutRecordsRequest> marshall(final PutRecordsRequest putRecordsRequest) {
         if (putRecordsRequest == null) {
             throw new AmazonClientException(
                     "Invalid argument passed to marshall(PutRecordsRequest)");
@@ -56,39 +55,15 @@ public class PutRecordsRequestMarshaller implements
         String uriResourcePath = "/";
         request.setResourcePath(uriResourcePath);
         try {
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            GZIPOutputStream gos = new GZIPOutputStream(baos, 8192);
-            Writer writer = new OutputStreamWriter(gos, StringUtils.UTF8);
-            AwsJsonWriter jsonWriter = JsonUtils.getJsonWriter(writer);
-            jsonWriter.beginObject();
-
-            if (putRecordsRequest.getRecords() != null) {
-                java.util.List<PutRecordsRequestEntry> records = putRecordsRequest.getRecords();
-                jsonWriter.name("Records");
-                jsonWriter.beginArray();
-                for (PutRecordsRequestEntry recordsItem : records) {
-                    if (recordsItem != null) {
-                        PutRecordsRequestEntryJsonMarshaller.getInstance().marshall(recordsItem,
-                                jsonWriter);
-                    }
-                }
-                jsonWriter.endArray();
-            }
-            if (putRecordsRequest.getStreamName() != null) {
-                String streamName = putRecordsRequest.getStreamName();
-                jsonWriter.name("StreamName");
-                jsonWriter.value(streamName);
-            }
-
-            jsonWriter.endObject();
-            jsonWriter.flush();
-            gos.finish();
-            writer.close();
-
-            byte[] content = baos.toByteArray();
-            request.setContent(new ByteArrayInputStream(content));
-            request.addHeader("Content-Length", Integer.toString(content.length));
-            request.addHeader("Content-Encoding", "gzip");
+            ReplayableWriterInputStream content = new ReplayableWriterInputStream(
+                    new ReplayableWriterInputStream.ContentWriter() {
+                        @Override
+                        public void writeTo(OutputStream out) throws Exception {
+                            writeContent(putRecordsRequest, out);
+                        }
+                    });
+            request.setContent(content);
+            request.setCompressible(true);
         } catch (Throwable t) {
             throw new AmazonClientException(
                     "Unable to marshall request to JSON: " + t.getMessage(), t);
@@ -99,4 +74,33 @@ public class PutRecordsRequestMarshaller implements
 
         return request;
     }
+
+    private static void writeContent(PutRecordsRequest putRecordsRequest, OutputStream out)
+            throws Exception {
+        Writer writer = new OutputStreamWriter(out, StringUtils.UTF8);
+        AwsJsonWriter jsonWriter = JsonUtils.getJsonWriter(writer);
+        jsonWriter.beginObject();
+
+        if (putRecordsRequest.getRecords() != null) {
+            java.util.List<PutRecordsRequestEntry> records = putRecordsRequest.getRecords();
+            jsonWriter.name("Records");
+            jsonWriter.beginArray();
+            for (PutRecordsRequestEntry recordsItem : records) {
+                if (recordsItem != null) {
+                    PutRecordsRequestEntryJsonMarshaller.getInstance().marshall(recordsItem,
+                            jsonWriter);
+                }
+            }
+            jsonWriter.endArray();
+        }
+        if (putRecordsRequest.getStreamName() != null) {
+            String streamName = putRecordsRequest.getStreamName();
+            jsonWriter.name("StreamName");
+            jsonWriter.value(streamName);
+        }
+
+        jsonWriter.endObject();
+        jsonWriter.flush();
+        writer.close();
+    }
 }
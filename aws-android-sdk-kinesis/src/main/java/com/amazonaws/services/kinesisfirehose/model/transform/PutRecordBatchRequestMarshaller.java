@@ -16,12 +16,10 @@
 package com.amazonaws.services.kinesisfirehose.model.transform;
 
 import static com.amazonaws.util.StringUtils.UTF8;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.StringWriter;
 import java.io.Writer;
-import java.util.zip.GZIPOutputStream;
 
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.Request;
@@ -30,6 +28,7 @@ import com.amazonaws.http.HttpMethodName;
 import com.amazonaws.services.kinesisfirehose.model.*;
 import com.amazonaws.transform.Marshaller;
 import com.amazonaws.util.BinaryUtils;
+import com.amazonaws.util.ReplayableWriterInputStream;
 import com.amazonaws.util.StringUtils;
 import com.amazonaws.util.StringInputStream;
 import com.amazonaws.util.json.AwsJsonWriter;
@@ -41,7 +40,7 @@ import com.amazonaws.util.json.JsonUtils;
 public class PutRecordBatchRequestMarshaller implements
         Marshaller<Request<PutRecordBatchRequest>, PutRecordBatchRequest> {
 
-    public Request<PutRecordBatchRequest> marshall(PutRecordBatchRequest putRecordBatchRequest) {
+    public Request<PutRecordBatchRequest> marshall(final PutRecordBatchRequest putRecordBatchRequest) {
         if (putRecordBatchRequest == null) {
             throw new AmazonClientException(
                     "Invalid argument passed to marshall(PutRecordBatchRequest)");
@@ -56,38 +55,15 @@ public class PutRecordBatchRequestMarshaller implements
         String uriResourcePath = "/";
         request.setResourcePath(uriResourcePath);
         try {
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            GZIPOutputStream gos = new GZIPOutputStream(baos, 8192);
-            Writer writer = new OutputStreamWriter(gos, StringUtils.UTF8);
-            AwsJsonWriter jsonWriter = JsonUtils.getJsonWriter(writer);
-            jsonWriter.beginObject();
-
-            if (putRecordBatchRequest.getDeliveryStreamName() != null) {
-                String deliveryStreamName = putRecordBatchRequest.getDeliveryStreamName();
-                jsonWriter.name("DeliveryStreamName");
-                jsonWriter.value(deliveryStreamName);
-            }
-            if (putRecordBatchRequest.getRecords() != null) {
-                java.util.List<Record> records = putRecordBatchRequest.getRecords();
-                jsonWriter.name("Records");
-                jsonWriter.beginArray();
-                for (Record recordsItem : records) {
-                    if (recordsItem != null) {
-                        RecordJsonMarshaller.getInstance().marshall(recordsItem, jsonWriter);
-                    }
-                }
-                jsonWriter.endArray();
-            }
-
-            jsonWriter.endObject();
-            jsonWriter.flush();
-            gos.finish();
-            writer.close();
-
-            byte[] content = baos.toByteArray();
-            request.setContent(new ByteArrayInputStream(content));
-            request.addHeader("Content-Length", Integer.toString(content.length));
-            request.addHeader("Content-Encoding", "gzip");
+            ReplayableWriterInputStream content = new ReplayableWriterInputStream(
+                    new ReplayableWriterInputStream.ContentWriter() {
+                        @Override
+                        public void writeTo(OutputStream out) throws Exception {
+                            writeContent(putRecordBatchRequest, out);
+                        }
+                    });
+            request.setContent(content);
+            request.setCompressible(true);
         } catch (Throwable t) {
             throw new AmazonClientException(
                     "Unable to marshall request to JSON: " + t.getMessage(), t);
@@ -98,4 +74,32 @@ public class PutRecordBatchRequestMarshaller implements
 
         return request;
     }
+
+    private static void writeContent(PutRecordBatchRequest putRecordBatchRequest, OutputStream out)
+            throws Exception {
+        Writer writer = new OutputStreamWriter(out, StringUtils.UTF8);
+        AwsJsonWriter jsonWriter = JsonUtils.getJsonWriter(writer);
+        jsonWriter.beginObject();
+
+        if (putRecordBatchRequest.getDeliveryStreamName() != null) {
+            String deliveryStreamName = putRecordBatchRequest.getDeliveryStreamName();
+            jsonWriter.name("DeliveryStreamName");
+            jsonWriter.value(deliveryStreamName);
+        }
+        if (putRecordBatchRequest.getRecords() != null) {
+            java.util.List<Record> records = putRecordBatchRequest.getRecords();
+            jsonWriter.name("Records");
+            jsonWriter.beginArray();
+            for (Record recordsItem : records) {
+                if (recordsItem != null) {
+                    RecordJsonMarshaller.getInstance().marshall(recordsItem, jsonWriter);
+                }
+            }
+            jsonWriter.endArray();
+        }
+
+        jsonWriter.endObject();
+        jsonWriter.flush();
+        writer.close();
+    }
 }
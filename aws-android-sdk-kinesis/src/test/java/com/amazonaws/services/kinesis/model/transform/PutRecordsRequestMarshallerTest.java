@@ -16,6 +16,7 @@
 package com.amazonaws.services.kinesis.model.transform;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import com.amazonaws.Request;
@@ -28,12 +29,10 @@ import com.amazonaws.util.json.JsonUtils;
 import org.apache.commons.lang.RandomStringUtils;
 import org.junit.Test;
 
-import java.io.ByteArrayInputStream;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.zip.GZIPInputStream;
 
 public class PutRecordsRequestMarshallerTest {
 
@@ -53,13 +52,12 @@ public class PutRecordsRequestMarshallerTest {
         PutRecordsRequestMarshaller marshaller = new PutRecordsRequestMarshaller();
         Request<PutRecordsRequest> request = marshaller.marshall(putRecordsRequest);
 
-        assertEquals("content encoding", "gzip", request.getHeaders().get("Content-Encoding"));
+        assertTrue("compressed by the client", request.isCompressible());
+        assertNull("content encoding", request.getHeaders().get("Content-Encoding"));
         byte[] content = IOUtils.toByteArray(request.getContent());
-        assertEquals("content length", request.getHeaders().get("Content-Length"),
-                String.valueOf(content.length));
-        GZIPInputStream gis = new GZIPInputStream(new ByteArrayInputStream(content));
-        String str = IOUtils.toString(gis);
-        assertTrue("content is compressed", content.length < str.length());
+        assertNull("content length, set by the client",
+                request.getHeaders().get("Content-Length"));
+        String str = new String(content, StringUtils.UTF8);
         Map<String, String> map = JsonUtils.jsonToMap(str);
         assertEquals("StreamName", "stream name", map.get("StreamName"));
     }
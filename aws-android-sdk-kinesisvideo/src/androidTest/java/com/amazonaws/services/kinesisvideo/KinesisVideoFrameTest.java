@@ -1,8 +1,10 @@
 package com.amazonaws.services.kinesisvideo;
 
+import com.amazonaws.kinesisvideo.producer.FrameBufferPool;
 import com.amazonaws.kinesisvideo.producer.KinesisVideoFrame;
 
 import org.junit.Test;
+import org.junit.runner.RunWith;
 
 import java.nio.ByteBuffer;
 
@@ -10,6 +12,8 @@ import android.support.test.runner.AndroidJUnit4;
 
 import static com.amazonaws.kinesisvideo.producer.FrameFlags.FRAME_FLAG_NONE;
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotSame;
 
 @RunWith(AndroidJUnit4.class)
 public class KinesisVideoFrameTest {
@@ -25,4 +29,24 @@ public class KinesisVideoFrameTest {
             assertEquals(rawData[i], actualDataPassed[i]);
         }
     }
+
+    @Test
+    public void testReleaseIsIdempotent() {
+        FrameBufferPool pool = new FrameBufferPool(2, 16);
+        ByteBuffer data = pool.lease(4);
+        data.put(new byte[] {1, 2, 3, 4}).flip();
+        KinesisVideoFrame frame = new KinesisVideoFrame(0, FRAME_FLAG_NONE, 0,
+                0, 1, data, pool);
+        frame.release();
+        frame.release();
+        assertEquals(0, pool.getLeasedCount());
+        assertFalse(pool.release(data));
+
+        // The buffer was queued once, so both buffers of the pool are leased again.
+        ByteBuffer first = pool.lease(4);
+        ByteBuffer second = pool.lease(4);
+        assertNotSame(first, second);
+        assertEquals(0, pool.getExhaustedCount());
+        assertEquals(2, pool.getLeasedCount());
+    }
 }
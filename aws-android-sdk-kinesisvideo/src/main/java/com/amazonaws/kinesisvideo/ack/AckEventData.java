@@ -21,6 +21,7 @@ public class AckEventData {
     private String type;
     private int errorCode;
     private long fragmentTimecode;
+    private String fragmentNumber;
 
     public String getType() {
         return type;
@@ -45,4 +46,12 @@ public class AckEventData {
     public void setFragmentTimecode(long fragmentTimecode) {
         this.fragmentTimecode = fragmentTimecode;
     }
+
+    public String getFragmentNumber() {
+        return fragmentNumber;
+    }
+
+    public void setFragmentNumber(String fragmentNumber) {
+        this.fragmentNumber = fragmentNumber;
+    }
 }
@@ -166,6 +166,9 @@ public final class PutMediaClient {
     }
 
     private OutputStream throttleStream(final OutputStream rawOutputStream) {
+        if (mBuilder.mBandwidthThrottler != null) {
+            return new BandwidthThrottledOutputStream(rawOutputStream, mBuilder.mBandwidthThrottler);
+        }
         if (mBuilder.upstreamKbps != null) {
             final BandwidthThrottler throttler = new BandwidthThrottlerImpl(mBuilder.upstreamKbps * BITS_IN_A_KILOBIT);
             return new BandwidthThrottledOutputStream(rawOutputStream, throttler);
@@ -236,6 +239,7 @@ public final class PutMediaClient {
         private boolean mLogUsedBandwidth;
         private String mFileOutputPath;
         private Long upstreamKbps;
+        private BandwidthThrottler mBandwidthThrottler;
         private Consumer<Exception> mCompletion;
         // TODO: Set to correct output channel
         private Log mLog = new Log(Log.SYSTEM_OUT);
@@ -306,6 +310,16 @@ public final class PutMediaClient {
             return this;
         }
 
+        /**
+         * Throttles the upload through the given throttler instead of a new one created from
+         * {@link #upstreamKbps(long)}. Sharing one throttler between the clients of several streams caps their
+         * combined upstream bandwidth.
+         */
+        public Builder bandwidthThrottler(final BandwidthThrottler throttler) {
+            mBandwidthThrottler = throttler;
+            return this;
+        }
+
         public Builder log(final Log log) {
             mLog = Preconditions.checkNotNull(log);
             return this;
@@ -17,6 +17,7 @@
 
 package com.amazonaws.kinesisvideo.encoding;
 
+import com.amazonaws.kinesisvideo.ack.AckEventData;
 import com.amazonaws.kinesisvideo.common.function.Consumer;
 import com.amazonaws.kinesisvideo.common.logging.Log;
 import com.amazonaws.kinesisvideo.model.Response;
@@ -32,10 +33,12 @@ import java.util.Map;
 
 public final class ChunkDecoder {
     private static final int HEX_RADIX = 16;
-    private static final int MAX_BUFFER_BYTES = 128 * 128;
+    private static final int DECIMAL_RADIX = 10;
     private static final int BUFFER_SIZE = 4 * 1024;
-    private static final String LINE_DELIMITER = "\r\n";
-    private static final String PAYLOAD_DELIMITER = "\r\n\r\n";
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+    private static final byte SPACE = ' ';
+    private static final byte COLON = ':';
     // TODO: Set to correct output channel
     private static final Log LOG = new Log(Log.SYSTEM_OUT);
 
@@ -47,17 +50,16 @@ public final class ChunkDecoder {
     }
 
     private static Map<String, String> parseHeaders(final InputStream inputStream) {
-
-        String[] headerParts;
         final Map<String, String> headers = new HashMap<String, String>();
+        final byte[] buffer = new byte[BUFFER_SIZE];
 
         try {
-            final String headersAsString =
-                    readInputStream(inputStream, PAYLOAD_DELIMITER.getBytes(StandardCharsets.UTF_8));
-            for (final String line : headersAsString.split(LINE_DELIMITER)) {
-                headerParts = line.split(":", 2);
-                if (headerParts.length == 2) {
-                    headers.put(headerParts[0].trim(), headerParts[1].trim());
+            int length;
+            while ((length = readLine(inputStream, buffer)) > 0) {
+                final int colon = indexOf(buffer, 0, length, COLON);
+                if (colon > 0) {
+                    headers.put(trimmedString(buffer, 0, colon),
+                            trimmedString(buffer, colon + 1, length));
                 }
             }
         } catch (final Throwable e) {
@@ -73,14 +75,23 @@ public final class ChunkDecoder {
 
     private static ResponseStatus parseStatusLine(final InputStream inputStream) {
         try {
-            final String statusLine = readInputStream(inputStream, LINE_DELIMITER.getBytes(StandardCharsets.UTF_8));
-            final String[] statusLineArray = statusLine.split("\\s");
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            final int length = readLine(inputStream, buffer);
+            final int protocolEnd = indexOf(buffer, 0, length, SPACE);
+            if (protocolEnd < 0) {
+                throw new IllegalArgumentException("Malformed status line");
+            }
+            int statusEnd = indexOf(buffer, protocolEnd + 1, length, SPACE);
+            if (statusEnd < 0) {
+                statusEnd = length;
+            }
 
             return ResponseStatus
                     .builder()
-                    .protocol(statusLineArray[0])
-                    .statusCode(Integer.parseInt(statusLineArray[1]))
-                    .reason(joinSubArray(statusLineArray, 2))
+                    .protocol(new String(buffer, 0, protocolEnd, StandardCharsets.US_ASCII))
+                    .statusCode((int) ChunkedAckDecoder.parseLong(buffer, protocolEnd + 1, statusEnd,
+                            DECIMAL_RADIX))
+                    .reason(statusEnd < length ? trimmedString(buffer, statusEnd + 1, length) : "")
                     .build();
 
         } catch (final Throwable e) {
@@ -88,29 +99,47 @@ public final class ChunkDecoder {
         }
     }
 
-    private static String joinSubArray(final String[] array, final int startIndex) {
-        final StringBuilder builder = new StringBuilder();
-
-        for (int i = startIndex; i < array.length; i++) {
-            builder.append(array[i]);
-
-            if (i < array.length - 1) {
-                builder.append(" ");
+    /**
+     * Reads a CRLF (or bare LF) terminated line into the buffer one byte at a
+     * time, so nothing past the line is consumed from the stream.
+     *
+     * @return the length of the line without the line terminator, or -1 if
+     *         the stream ended before any byte was read
+     */
+    private static int readLine(final InputStream inputStream, final byte[] buffer) throws IOException {
+        int length = 0;
+        int b;
+        while ((b = inputStream.read()) >= 0) {
+            if (b == LF) {
+                return length > 0 && buffer[length - 1] == CR ? length - 1 : length;
+            }
+            if (length == buffer.length) {
+                throw new IOException("Line exceeds " + buffer.length + " bytes");
             }
+            buffer[length++] = (byte) b;
         }
-
-        return builder.toString();
+        return length == 0 ? -1 : length;
     }
 
-    private static String readInputStream(final InputStream inputStream, final byte[] delimiter)
-            throws IOException {
+    private static int indexOf(final byte[] buffer, final int from, final int to, final byte value) {
+        for (int i = from; i < to; i++) {
+            if (buffer[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
 
-        final byte[] buffer = new byte[BUFFER_SIZE];
-        int result = 0, offset = 0;
-        do {
-            result = inputStream.read(buffer, offset++, 1);
-        } while (result > -1 && arrayIndexOf(buffer, 0, offset, delimiter) == -1);
-        return new String(buffer, 0 , offset, StandardCharsets.UTF_8);
+    private static String trimmedString(final byte[] buffer, final int from, final int to) {
+        int start = from;
+        int end = to;
+        while (start < end && ChunkedAckDecoder.isWhitespace(buffer[start])) {
+            start++;
+        }
+        while (end > start && ChunkedAckDecoder.isWhitespace(buffer[end - 1])) {
+            end--;
+        }
+        return new String(buffer, start, end - start, StandardCharsets.UTF_8);
     }
 
     public static int arrayIndexOf(final byte[] haystack, final int tail, final int head, final byte[] needle) {
@@ -133,18 +162,28 @@ public final class ChunkDecoder {
         return -1;
     }
 
+    /**
+     * Parses the hexadecimal chunk size stored between tail and head of a ring
+     * buffer in place, ignoring surrounding whitespace.
+     */
     public static int parseChunkSize(final byte[] buffer, final int tail, final int head) {
-        byte[] tmp;
-        if (tail < head) {
-            tmp = new byte[head - tail];
-            System.arraycopy(buffer, tail, tmp, 0, head - tail);
-        } else {
-            final int len = head + buffer.length - tail;
-            tmp = new byte[len];
-            System.arraycopy(buffer, tail, tmp, 0, buffer.length - tail);
-            System.arraycopy(buffer, 0, tmp, buffer.length - tail, head);
+        final int length = tail < head ? head - tail : head + buffer.length - tail;
+        int size = 0;
+        boolean hasDigits = false;
+        for (int i = 0; i < length; i++) {
+            final byte b = buffer[(tail + i) % buffer.length];
+            final int digit = Character.digit(b, HEX_RADIX);
+            if (digit >= 0) {
+                size = (size << 4) + digit;
+                hasDigits = true;
+            } else if (!ChunkedAckDecoder.isWhitespace(b)) {
+                throw new NumberFormatException("Invalid character in chunk size: " + (char) b);
+            }
+        }
+        if (!hasDigits) {
+            throw new NumberFormatException("Empty chunk size");
         }
-        return Integer.parseInt(new String(tmp, 0, tmp.length, StandardCharsets.UTF_8).trim(), HEX_RADIX);
+        return size;
     }
 
     public static Response parseStatusLineAndHeaders(final InputStream inputStream) {
@@ -181,42 +220,21 @@ public final class ChunkDecoder {
 
     public static Integer decodeAckInResponseBody(final InputStream inputStream,
                                                   final Consumer<String> ackTimestampConsumer) {
-        final BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.US_ASCII));
-        String line;
-        int chunkSize;
-        int numBytesRead, offset, ackCount = 0;
+        final ChunkedAckDecoder decoder = new ChunkedAckDecoder(inputStream);
+        int ackCount = 0;
 
         try {
-            skipResponseHeaders(reader);
-            line = skipEmptyLines(reader);
+            skipResponseHeaders(inputStream);
 
             // Parse chunk data
-            LOG.debug("Chunk size: " + line);
-            do {
-                chunkSize = Integer.parseInt(line.trim(), HEX_RADIX);
-                if (chunkSize == 0) {
-                    break;
-                }
-
-                final char[] buff = new char[MAX_BUFFER_BYTES];
-                offset = 0;
-                do {
-                    numBytesRead = reader.read(buff, offset, chunkSize + 2 - offset);
-                    if (numBytesRead < 0) {
-                        throw new RuntimeException("Unexpected end of stream while reading chunked data");
-                    }
-
-                    offset += numBytesRead;
-                } while (offset < chunkSize + 2);
-
+            while (decoder.readChunk() > 0) {
                 // send the ack string to ack consumer with the exact number of bytes
-                final String chunk = new String(buff, 0, chunkSize);
+                final String chunk = new String(decoder.getChunkBuffer(), 0, decoder.getChunkLength(),
+                        StandardCharsets.US_ASCII);
                 LOG.debug("Chunk: " + chunk);
                 ackTimestampConsumer.accept(chunk);
-
-                line = reader.readLine();
-                LOG.debug("Chunk size: " + line);
-            } while (line != null);
+                ackCount++;
+            }
         } catch (final Throwable e) {
             throw new RuntimeException("Exception while decoding Ack in response ! ", e);
         }
@@ -224,60 +242,37 @@ public final class ChunkDecoder {
         return ackCount;
     }
 
-    private static String skipEmptyLines(final BufferedReader reader) throws Throwable {
-        String line;
-
-        do {
-            line = reader.readLine();
+    /**
+     * Decodes the chunked ACK response body into {@link AckEventData} without
+     * going through intermediate strings. See
+     * {@link ChunkedAckDecoder#decodeAcks(Consumer)}.
+     */
+    public static int decodeAckEventsInResponseBody(final InputStream inputStream,
+                                                    final Consumer<AckEventData> ackEventConsumer) {
+        try {
+            skipResponseHeaders(inputStream);
+            return new ChunkedAckDecoder(inputStream).decodeAcks(ackEventConsumer);
+        } catch (final Throwable e) {
+            throw new RuntimeException("Exception while decoding Ack in response ! ", e);
         }
-        while (line != null && line.isEmpty());
-
-        return line;
     }
 
     /**
-     * Read and throw aways all raw bytes for the response headers.
-     * <p>
-     * FIXME we could have a function to read and parse response instead
-     * The caller could just not throw away the return value. This will be
-     * useful for ChunkDecoder::decodeHeaders
-     *
-     * @param reader
-     * @return
-     * @throws Throwable
+     * Read and throw away all raw bytes for the response headers, i.e.
+     * everything up to and including the first blank line that follows a
+     * non-blank line.
      */
-    private static String skipResponseHeaders(final BufferedReader reader) throws Throwable {
-        String line;
-
-        line = skipEmptyLines(reader);
-        LOG.debug("Skip header: " + line);
-        if (isStatusLine(line)) {
-            do {
-                line = reader.readLine();
-                LOG.debug("Skip header: " + line);
-            }
-            while (isNotBlank(line));
-        }
+    private static void skipResponseHeaders(final InputStream inputStream) throws IOException {
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        int length;
 
-        return line;
-    }
+        // Skip empty lines before the status line
+        do {
+            length = readLine(inputStream, buffer);
+        } while (length == 0);
 
-    private static boolean isNotBlank(final CharSequence cs) {
-        final int strLen = cs == null ? 0 : cs.length();
-        if (cs == null || strLen == 0) {
-            return false;
-        }
-        for (int i = 0; i < strLen; i++) {
-            if (!Character.isWhitespace(cs.charAt(i))) {
-                return true;
-            }
+        while (length > 0) {
+            length = readLine(inputStream, buffer);
         }
-        return false;
     }
-
-    private static boolean isStatusLine(final String line) {
-        // FIXME
-        return true;
-    }
-
 }
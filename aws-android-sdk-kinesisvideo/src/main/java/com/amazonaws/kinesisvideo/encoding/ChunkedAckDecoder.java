@@ -0,0 +1,387 @@
+/**
+ * Copyright 2017-2018 Amazon.com,
+ * Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Amazon Software License (the "License").
+ * You may not use this file except in compliance with the
+ * License. A copy of the License is located at
+ *
+ *     http://aws.amazon.com/asl/
+ *
+ * or in the "license" file accompanying this file. This file is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, express or implied. See the License
+ * for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.kinesisvideo.encoding;
+
+import com.amazonaws.kinesisvideo.ack.AckEventData;
+import com.amazonaws.kinesisvideo.common.function.Consumer;
+import com.amazonaws.kinesisvideo.common.preconditions.Preconditions;
+
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Streaming decoder for the chunked PutMedia ACK response body.
+ * <p>
+ * The stream is read through a read-ahead buffer, chunks are read into a
+ * single buffer that is reused for the lifetime of the decoder, and ACK JSON
+ * objects are scanned in place. An ACK split across chunks is kept at the
+ * start of the buffer until the rest of it arrives. The only allocations in
+ * steady state are the fragment numbers and the buffer growing to fit the
+ * largest chunk seen so far.
+ * <p>
+ * Not thread safe: use one decoder per ACK stream.
+ */
+public final class ChunkedAckDecoder {
+    private static final int INITIAL_BUFFER_SIZE = 4 * 1024;
+    private static final int READ_BUFFER_SIZE = 4 * 1024;
+    private static final int MAX_CHUNK_SIZE = 128 * 128;
+    private static final int HEX_RADIX = 16;
+    private static final int DECIMAL_RADIX = 10;
+
+    private static final byte[] EVENT_TYPE = bytes("EventType");
+    private static final byte[] FRAGMENT_TIMECODE = bytes("FragmentTimecode");
+    private static final byte[] ERROR_ID = bytes("ErrorId");
+    private static final byte[] FRAGMENT_NUMBER = bytes("FragmentNumber");
+
+    private static final String[] EVENT_TYPES = {
+            "BUFFERING", "RECEIVED", "PERSISTED", "ERROR", "IDLE"
+    };
+    private static final byte[][] EVENT_TYPE_BYTES = new byte[EVENT_TYPES.length][];
+
+    static {
+        for (int i = 0; i < EVENT_TYPES.length; i++) {
+            EVENT_TYPE_BYTES[i] = bytes(EVENT_TYPES[i]);
+        }
+    }
+
+    private final InputStream inputStream;
+    private final AckEventData event = new AckEventData();
+    private final byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+    private int readPosition;
+    private int readLimit;
+    private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+    private int length;
+
+    public ChunkedAckDecoder(@NonNull final InputStream inputStream) {
+        this.inputStream = Preconditions.checkNotNull(inputStream);
+    }
+
+    /**
+     * Reads the next chunk of the response body into the internal buffer.
+     *
+     * @return the size of the chunk, or -1 at the terminating zero-size chunk
+     *         or at the end of the stream
+     * @throws IOException on a read error or a malformed chunk
+     */
+    public int readChunk() throws IOException {
+        final int chunkSize = readChunkInto(0);
+        length = Math.max(chunkSize, 0);
+        return chunkSize;
+    }
+
+    /**
+     * Reads the next chunk into the buffer after the first offset bytes,
+     * which are kept.
+     *
+     * @return the size of the chunk, or -1 at the terminating zero-size chunk
+     *         or at the end of the stream
+     */
+    private int readChunkInto(final int offset) throws IOException {
+        final int chunkSize = readChunkSize();
+        if (chunkSize <= 0) {
+            return -1;
+        }
+        if (chunkSize > MAX_CHUNK_SIZE) {
+            throw new IOException("Chunk size " + chunkSize + " exceeds the maximum of " + MAX_CHUNK_SIZE);
+        }
+        if (buffer.length < offset + chunkSize) {
+            buffer = Arrays.copyOf(buffer, Math.max(offset + chunkSize, buffer.length * 2));
+        }
+        readFully(buffer, offset, chunkSize);
+        skipLineEnd();
+        return chunkSize;
+    }
+
+    /**
+     * @return the buffer holding the last chunk read by {@link #readChunk()}.
+     *         Only the first {@link #getChunkLength()} bytes are valid, and the
+     *         content is overwritten by the next call to {@link #readChunk()}.
+     */
+    public byte[] getChunkBuffer() {
+        return buffer;
+    }
+
+    public int getChunkLength() {
+        return length;
+    }
+
+    /**
+     * Decodes all the remaining chunks and emits an {@link AckEventData} for
+     * every ACK object found in them. The same {@link AckEventData} instance
+     * is reused for every event, so consumers must copy anything they need to
+     * keep after {@link Consumer#accept(Object)} returns.
+     *
+     * @param ackConsumer consumer of the decoded ACKs
+     * @return the number of ACKs emitted
+     * @throws IOException on a read error or a malformed chunk
+     */
+    public int decodeAcks(@NonNull final Consumer<AckEventData> ackConsumer) throws IOException {
+        Preconditions.checkNotNull(ackConsumer);
+        int ackCount = 0;
+        // Bytes of an ACK split across chunks, at the start of the buffer
+        int pending = 0;
+        int chunkSize;
+        while ((chunkSize = readChunkInto(pending)) > 0) {
+            final int end = pending + chunkSize;
+            int position = 0;
+            while (position < end) {
+                final int next = parseAck(buffer, position, end, event);
+                if (next < 0) {
+                    break;
+                }
+                ackConsumer.accept(event);
+                ackCount++;
+                position = next;
+            }
+
+            final int start = indexOf(buffer, position, end, (byte) '{');
+            pending = start < 0 ? 0 : end - start;
+            if (pending > MAX_CHUNK_SIZE) {
+                throw new IOException("ACK exceeds the maximum size of " + MAX_CHUNK_SIZE);
+            }
+            System.arraycopy(buffer, Math.max(start, 0), buffer, 0, pending);
+        }
+        length = 0;
+        return ackCount;
+    }
+
+    /**
+     * Scans the first ACK JSON object in buffer[from, to) into the given event.
+     *
+     * @return the index right after the closing brace of the object, or -1 if
+     *         there is no complete object in the range
+     */
+    static int parseAck(final byte[] buffer, final int from, final int to, final AckEventData event) {
+        int i = from;
+        while (i < to && buffer[i] != '{') {
+            i++;
+        }
+        if (i == to) {
+            return -1;
+        }
+        i++;
+
+        event.setType(null);
+        event.setErrorCode(0);
+        event.setFragmentTimecode(0);
+        event.setFragmentNumber(null);
+
+        while (i < to) {
+            final byte b = buffer[i];
+            if (b == '}') {
+                return i + 1;
+            }
+            if (b != '"') {
+                i++;
+                continue;
+            }
+
+            // Field name
+            final int nameStart = i + 1;
+            final int nameEnd = indexOf(buffer, nameStart, to, (byte) '"');
+            if (nameEnd < 0) {
+                return -1;
+            }
+            i = indexOf(buffer, nameEnd + 1, to, (byte) ':');
+            if (i < 0) {
+                return -1;
+            }
+            i = skipWhitespace(buffer, i + 1, to);
+            if (i == to) {
+                return -1;
+            }
+
+            // Field value
+            final int valueStart;
+            final int valueEnd;
+            if (buffer[i] == '"') {
+                valueStart = i + 1;
+                valueEnd = indexOf(buffer, valueStart, to, (byte) '"');
+                if (valueEnd < 0) {
+                    return -1;
+                }
+                i = valueEnd + 1;
+            } else {
+                valueStart = i;
+                while (i < to && buffer[i] != ',' && buffer[i] != '}' && !isWhitespace(buffer[i])) {
+                    i++;
+                }
+                valueEnd = i;
+            }
+
+            if (regionEquals(buffer, nameStart, nameEnd, EVENT_TYPE)) {
+                event.setType(eventType(buffer, valueStart, valueEnd));
+            } else if (regionEquals(buffer, nameStart, nameEnd, FRAGMENT_TIMECODE)) {
+                event.setFragmentTimecode(parseLong(buffer, valueStart, valueEnd, DECIMAL_RADIX));
+            } else if (regionEquals(buffer, nameStart, nameEnd, ERROR_ID)) {
+                event.setErrorCode((int) parseLong(buffer, valueStart, valueEnd, DECIMAL_RADIX));
+            } else if (regionEquals(buffer, nameStart, nameEnd, FRAGMENT_NUMBER)) {
+                event.setFragmentNumber(new String(buffer, valueStart, valueEnd - valueStart,
+                        StandardCharsets.US_ASCII));
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Parses a hexadecimal chunk size line, ignoring surrounding whitespace
+     * and any chunk extension.
+     */
+    private int readChunkSize() throws IOException {
+        int b;
+        // Skip leading empty lines and whitespace
+        do {
+            b = readByte();
+        } while (b >= 0 && isWhitespace((byte) b));
+        if (b < 0) {
+            return -1;
+        }
+
+        int size = 0;
+        while (b >= 0 && b != '\n') {
+            final int digit = Character.digit(b, HEX_RADIX);
+            if (digit >= 0) {
+                if (size > (Integer.MAX_VALUE >> 4)) {
+                    throw new IOException("Chunk size overflow");
+                }
+                size = (size << 4) + digit;
+            } else if (b == ';') {
+                // Chunk extension, skip the rest of the line
+                skipLineEnd();
+                return size;
+            } else if (!isWhitespace((byte) b)) {
+                throw new IOException("Invalid character in chunk size: " + (char) b);
+            }
+            b = readByte();
+        }
+        return size;
+    }
+
+    /**
+     * Reads a byte through the read-ahead buffer.
+     *
+     * @return the byte, or -1 at the end of the stream
+     */
+    private int readByte() throws IOException {
+        if (readPosition == readLimit && !fillReadBuffer()) {
+            return -1;
+        }
+        return readBuffer[readPosition++] & 0xFF;
+    }
+
+    private void readFully(final byte[] destination, final int offset, final int count) throws IOException {
+        int copied = Math.min(count, readLimit - readPosition);
+        System.arraycopy(readBuffer, readPosition, destination, offset, copied);
+        readPosition += copied;
+        while (copied < count) {
+            final int read = inputStream.read(destination, offset + copied, count - copied);
+            if (read < 0) {
+                throw new IOException("Unexpected end of stream while reading chunked data");
+            }
+            copied += read;
+        }
+    }
+
+    private boolean fillReadBuffer() throws IOException {
+        final int read = inputStream.read(readBuffer, 0, readBuffer.length);
+        if (read <= 0) {
+            return false;
+        }
+        readPosition = 0;
+        readLimit = read;
+        return true;
+    }
+
+    private void skipLineEnd() throws IOException {
+        int b;
+        do {
+            b = readByte();
+        } while (b >= 0 && b != '\n');
+    }
+
+    private static String eventType(final byte[] buffer, final int from, final int to) {
+        for (int i = 0; i < EVENT_TYPE_BYTES.length; i++) {
+            if (regionEquals(buffer, from, to, EVENT_TYPE_BYTES[i])) {
+                return EVENT_TYPES[i];
+            }
+        }
+        return new String(buffer, from, to - from, StandardCharsets.UTF_8);
+    }
+
+    static long parseLong(final byte[] buffer, final int from, final int to, final int radix) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && buffer[i] == '-') {
+            negative = true;
+            i++;
+        }
+        if (i == to) {
+            throw new NumberFormatException("Empty number");
+        }
+        long value = 0;
+        for (; i < to; i++) {
+            final int digit = Character.digit(buffer[i], radix);
+            if (digit < 0) {
+                throw new NumberFormatException("Invalid digit: " + (char) buffer[i]);
+            }
+            value = value * radix + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    private static boolean regionEquals(final byte[] buffer, final int from, final int to, final byte[] expected) {
+        if (to - from != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (buffer[from + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(final byte[] buffer, final int from, final int to, final byte value) {
+        for (int i = from; i < to; i++) {
+            if (buffer[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int skipWhitespace(final byte[] buffer, final int from, final int to) {
+        int i = from;
+        while (i < to && isWhitespace(buffer[i])) {
+            i++;
+        }
+        return i;
+    }
+
+    static boolean isWhitespace(final byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+
+    private static byte[] bytes(final String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -32,6 +32,9 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.amazonaws.kinesisvideo.common.function.Consumer;
 import com.amazonaws.kinesisvideo.common.logging.Log;
@@ -47,6 +50,22 @@ public final class ParallelSimpleHttpClient implements HttpClient {
     private static final String HOST_HEADER = "Host";
     private final Log log;
 
+    /**
+     * Executor for the payload sending and response reading loops of all the clients. The sender and receiver
+     * callbacks are blocking, so each active stream holds one thread for each of them for as long as it runs. The
+     * threads are reused across streams and reconnects instead of creating two new executors for every connection.
+     */
+    private static final ExecutorService STREAMING_EXECUTOR = Executors.newCachedThreadPool(new ThreadFactory() {
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable, "KinesisVideoStreaming-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
     private static final Consumer<OutputStream> NO_OP_SENDER = new Consumer<OutputStream>() {
         @Override
         public void accept(final OutputStream outputStream) {
@@ -133,8 +152,8 @@ public final class ParallelSimpleHttpClient implements HttpClient {
     private Socket mSocket;
     private InputStream mInputStream;
     private OutputStream mOutputStream;
-    private ExecutorService payloadSender;
-    private ExecutorService responseReceiver;
+    private Future<?> payloadSender;
+    private Future<?> responseReceiver;
 
     private ParallelSimpleHttpClient(final Builder builder) {
             mBuilder = builder;
@@ -240,8 +259,7 @@ public final class ParallelSimpleHttpClient implements HttpClient {
 
     private void sendPayloadInBackground() {
         if (mBuilder.mSender != null) {
-            payloadSender = Executors.newFixedThreadPool(1);
-            payloadSender.execute(
+            payloadSender = STREAMING_EXECUTOR.submit(
                     new Runnable() {
                         @Override
                         public void run() {
@@ -258,7 +276,6 @@ public final class ParallelSimpleHttpClient implements HttpClient {
                                 if (storedException != null) {
                                     mBuilder.mCompletion.accept(storedException);
                                 }
-                                payloadSender.shutdownNow();
                             }
                         }
                     });
@@ -267,8 +284,7 @@ public final class ParallelSimpleHttpClient implements HttpClient {
 
     private void receiveResponseInBackground() {
         if (mBuilder.mReceiver != null) {
-            responseReceiver = Executors.newFixedThreadPool(1);
-            responseReceiver.execute(
+            responseReceiver = STREAMING_EXECUTOR.submit(
                     new Runnable() {
                         @Override
                         public void run() {
@@ -282,7 +298,6 @@ public final class ParallelSimpleHttpClient implements HttpClient {
                                 storedException = e;
                             } finally {
                                 mBuilder.mCompletion.accept(storedException);
-                                responseReceiver.shutdownNow();
                                 closeSocket();
                             }
                         }
@@ -305,9 +320,15 @@ public final class ParallelSimpleHttpClient implements HttpClient {
 
     @Override
     public void close() throws IOException {
-        payloadSender.shutdownNow();
-        responseReceiver.shutdownNow();
+        cancel(payloadSender);
+        cancel(responseReceiver);
         closeSocket();
         mBuilder.mCompletion.accept(null);
     }
+
+    private static void cancel(final Future<?> task) {
+        if (task != null) {
+            task.cancel(true);
+        }
+    }
 }
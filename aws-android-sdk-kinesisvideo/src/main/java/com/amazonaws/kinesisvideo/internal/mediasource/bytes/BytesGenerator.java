@@ -31,7 +31,7 @@ import com.amazonaws.logging.LogFactory;
 
 public class BytesGenerator {
     private static final int DISCRETENESS_10HZ = 10;
-    private static final int MAX_FRAME_SIZE_BYTES_1024 = 1024;
+    static final int MAX_FRAME_SIZE_BYTES_1024 = 1024;
 
     private OnStreamDataAvailable streamDataAvailable;
 
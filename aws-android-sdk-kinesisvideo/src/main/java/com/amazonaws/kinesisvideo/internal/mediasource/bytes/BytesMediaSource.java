@@ -52,6 +52,7 @@ import com.amazonaws.kinesisvideo.client.mediasource.MediaSourceState;
 import com.amazonaws.kinesisvideo.common.exception.KinesisVideoException;
 import com.amazonaws.kinesisvideo.common.preconditions.Preconditions;
 import com.amazonaws.kinesisvideo.internal.mediasource.OnStreamDataAvailable;
+import com.amazonaws.kinesisvideo.producer.FrameBufferPool;
 import com.amazonaws.kinesisvideo.producer.KinesisVideoFrame;
 import com.amazonaws.kinesisvideo.producer.StreamCallbacks;
 import com.amazonaws.kinesisvideo.producer.StreamInfo;
@@ -61,8 +62,11 @@ public class BytesMediaSource implements MediaSource {
     private static final String TAG = "BytesMediaSource";
     private static final int KEY_FRAME_EVERY_60_FRAMES = 60;
     private static final long DEFAULT_FRAME_DURATION_33MS = 33L;
+    private static final int FRAME_BUFFER_POOL_SIZE = 4;
 
     private final String streamName;
+    private final FrameBufferPool framePool =
+            new FrameBufferPool(FRAME_BUFFER_POOL_SIZE, BytesGenerator.MAX_FRAME_SIZE_BYTES_1024);
 
     private BytesMediaSourceConfiguration configuration;
     private MediaSourceState mediaSourceState;
@@ -164,7 +168,8 @@ public class BytesMediaSource implements MediaSource {
                         decodingTs,
                         presentationTs,
                         frameDuration,
-                        data);
+                        data,
+                        framePool);
 
                 // ignore frame of size 0 or duration of 0
                 if (frame.getSize() == 0 || frameDuration == 0) {
@@ -289,7 +289,12 @@ public class NativeKinesisVideoProducerStream implements KinesisVideoProducerStr
                     streamMetrics.getCurrentTransferRate());
         }
 
-        mKinesisVideoProducerJni.putFrame(mStreamHandle, kinesisVideoFrame);
+        try {
+            mKinesisVideoProducerJni.putFrame(mStreamHandle, kinesisVideoFrame);
+        } finally {
+            // The native producer has copied the frame into its content store
+            kinesisVideoFrame.release();
+        }
     }
 
     @Override
@@ -17,24 +17,30 @@
 
 package com.amazonaws.kinesisvideo.internal.service;
 
+import com.amazonaws.kinesisvideo.ack.AckEventData;
 import com.amazonaws.kinesisvideo.common.function.Consumer;
 import com.amazonaws.kinesisvideo.common.logging.Log;
 import com.amazonaws.kinesisvideo.common.preconditions.Preconditions;
+import com.amazonaws.kinesisvideo.encoding.ChunkedAckDecoder;
 import com.amazonaws.kinesisvideo.internal.producer.KinesisVideoProducerStream;
+import com.amazonaws.kinesisvideo.producer.FragmentAckType;
+import com.amazonaws.kinesisvideo.producer.KinesisVideoFragmentAck;
 import com.amazonaws.kinesisvideo.producer.ProducerException;
 
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 class AckConsumer implements Consumer<InputStream> {
     private static final long STOPPED_TIMEOUT_IN_MILLISECONDS = 15000;
-    private static final int FOUR_KB = 4096;
-    private static final String END_OF_STREAM_MSG = "0";
+    /**
+     * Result of the ACKs that aren't errors, SERVICE_CALL_RESULT_OK in the
+     * native code.
+     */
+    private static final int SERVICE_CALL_RESULT_OK = 200;
     private final KinesisVideoProducerStream stream;
     private InputStream ackStream = null;
     private final CountDownLatch stoppedLatch;
@@ -67,44 +73,64 @@ class AckConsumer implements Consumer<InputStream> {
     private void processAckInputStream() {
         Preconditions.checkNotNull(stream);
 
-        final byte[] buffer = new byte[FOUR_KB];
-        int bytesRead;
         log.info("Starting ACK processing");
         try {
-            while (!closed) {
-                // This is a blocking operation
-                bytesRead = ackStream.read(buffer);
-
-                String bytesString = null;
-                if (bytesRead > 0) {
-                    bytesString = new String(buffer, 0, bytesRead, StandardCharsets.UTF_8);
-                }
-
-                // Check for end-of-stream and 0 before processing
-                if (bytesRead == -1 || END_OF_STREAM_MSG.equals(bytesString)) {
-                    // End-of-stream
-                    log.debug("Received end-of-stream for ACKs.");
-                    closed = true;
-                } else if (bytesRead != 0) {
-                    log.debug("Received ACK bits: " + bytesString);
-                    try {
-                        stream.parseFragmentAck(uploadHandle, bytesString);
-                    } catch (final ProducerException e) {
-                        // Log the exception
-                        log.exception(e, "Processing ACK threw an exception. Logging and continuing. ");
-                    }
+            // This is a blocking operation
+            final int ackCount = new ChunkedAckDecoder(ackStream).decodeAcks(new Consumer<AckEventData>() {
+                @Override
+                public void accept(final AckEventData ack) {
+                    processAck(ack);
                 }
-            }
+            });
 
-            log.debug("Finished reading ACKs stream");
+            log.debug("Received end-of-stream for ACKs after " + ackCount + " ACKs.");
+            closed = true;
         } catch (final IOException e) {
-            // Log and exit
-            log.exception(e);
+            if (closed) {
+                log.debug("ACK stream closed");
+            } else {
+                // Log and exit
+                log.exception(e);
+            }
         } finally {
             stoppedLatch.countDown();
         }
     }
 
+    private void processAck(final AckEventData ack) {
+        final int ackType = ackType(ack.getType());
+        if (ackType == FragmentAckType.FRAGMENT_ACK_TYPE_UNDEFINED) {
+            log.warn("Ignoring ACK of unknown type " + ack.getType());
+            return;
+        }
+
+        final String fragmentNumber = ack.getFragmentNumber();
+        final int result = ackType == FragmentAckType.FRAGMENT_ACK_TYPE_ERROR
+                ? ack.getErrorCode() : SERVICE_CALL_RESULT_OK;
+        try {
+            stream.fragmentAck(uploadHandle, new KinesisVideoFragmentAck(ackType, ack.getFragmentTimecode(),
+                    fragmentNumber == null ? "" : fragmentNumber, result));
+        } catch (final ProducerException e) {
+            // Log the exception
+            log.exception(e, "Processing ACK threw an exception. Logging and continuing. ");
+        }
+    }
+
+    private static int ackType(final String type) {
+        if ("BUFFERING".equals(type)) {
+            return FragmentAckType.FRAGMENT_ACK_TYPE_BUFFERING;
+        } else if ("RECEIVED".equals(type)) {
+            return FragmentAckType.FRAGMENT_ACK_TYPE_RECEIVED;
+        } else if ("PERSISTED".equals(type)) {
+            return FragmentAckType.FRAGMENT_ACK_TYPE_PERSISTED;
+        } else if ("ERROR".equals(type)) {
+            return FragmentAckType.FRAGMENT_ACK_TYPE_ERROR;
+        } else if ("IDLE".equals(type)) {
+            return FragmentAckType.FRAGMENT_ACK_TYPE_IDLE;
+        }
+        return FragmentAckType.FRAGMENT_ACK_TYPE_UNDEFINED;
+    }
+
     public void close() throws ProducerException {
         // Trigger stopping
         closed = true;
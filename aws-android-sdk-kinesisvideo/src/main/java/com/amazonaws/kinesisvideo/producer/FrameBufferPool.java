@@ -0,0 +1,175 @@
+/**
+ * Copyright 2017-2018 Amazon.com,
+ * Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Amazon Software License (the "License").
+ * You may not use this file except in compliance with the
+ * License. A copy of the License is located at
+ *
+ *     http://aws.amazon.com/asl/
+ *
+ * or in the "license" file accompanying this file. This file is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, express or implied. See the License
+ * for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.kinesisvideo.producer;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * Fixed-size pool of direct byte buffers used to hold frame data on its way
+ * to the native producer.
+ *
+ * Buffers are leased with {@link #lease(int)} and returned with
+ * {@link #release(ByteBuffer)}. When all buffers are leased, or a frame is
+ * larger than the pool buffer capacity, a one-off direct buffer is allocated
+ * instead so frames are never dropped; these events are counted and exposed
+ * through {@link #getExhaustedCount()}.
+ */
+public class FrameBufferPool {
+    /**
+     * Capacity of each pooled buffer
+     */
+    private final int mBufferCapacity;
+
+    /**
+     * Buffers available for lease
+     */
+    private final BlockingQueue<ByteBuffer> mFreeBuffers;
+
+    /**
+     * All the buffers owned by the pool. Compared by identity as ByteBuffer equality is content based.
+     */
+    private final Set<ByteBuffer> mPooledBuffers;
+
+    /**
+     * Pooled buffers currently leased, compared by identity
+     */
+    private final Set<ByteBuffer> mLeasedBuffers =
+            Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<ByteBuffer, Boolean>()));
+
+    private final AtomicInteger mLeasedCount = new AtomicInteger();
+    private final AtomicInteger mHighWaterMark = new AtomicInteger();
+    private final AtomicInteger mExhaustedCount = new AtomicInteger();
+
+    public FrameBufferPool(final int bufferCount, final int bufferCapacity) {
+        if (bufferCount <= 0) {
+            throw new IllegalArgumentException("bufferCount must be positive");
+        }
+        if (bufferCapacity <= 0) {
+            throw new IllegalArgumentException("bufferCapacity must be positive");
+        }
+
+        mBufferCapacity = bufferCapacity;
+        mFreeBuffers = new ArrayBlockingQueue<ByteBuffer>(bufferCount);
+        final Set<ByteBuffer> pooledBuffers = Collections.newSetFromMap(new IdentityHashMap<ByteBuffer, Boolean>());
+        for (int i = 0; i < bufferCount; i++) {
+            final ByteBuffer buffer = ByteBuffer.allocateDirect(bufferCapacity);
+            pooledBuffers.add(buffer);
+            mFreeBuffers.add(buffer);
+        }
+        // Never modified after construction, safe for concurrent reads
+        mPooledBuffers = Collections.unmodifiableSet(pooledBuffers);
+    }
+
+    /**
+     * Leases a direct buffer with its position set to 0 and its limit set to size.
+     *
+     * @param size number of bytes needed
+     * @return a pooled buffer, or a newly allocated one if the pool is exhausted
+     */
+    @NonNull
+    public ByteBuffer lease(final int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("size must not be negative");
+        }
+
+        ByteBuffer buffer = size <= mBufferCapacity ? mFreeBuffers.poll() : null;
+        if (buffer == null) {
+            mExhaustedCount.incrementAndGet();
+            buffer = ByteBuffer.allocateDirect(size);
+        } else {
+            mLeasedBuffers.add(buffer);
+            updateHighWaterMark(mLeasedCount.incrementAndGet());
+        }
+
+        buffer.clear();
+        buffer.limit(size);
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer leased from this pool. Buffers that aren't currently
+     * leased from the pool, e.g. the ones allocated when the pool was
+     * exhausted or ones already returned, are ignored.
+     *
+     * @param buffer buffer to return
+     * @return true if the buffer was returned to the pool
+     */
+    public boolean release(@Nullable final ByteBuffer buffer) {
+        if (buffer == null || !mLeasedBuffers.remove(buffer)) {
+            return false;
+        }
+
+        mLeasedCount.decrementAndGet();
+        return mFreeBuffers.offer(buffer);
+    }
+
+    public int getBufferCapacity() {
+        return mBufferCapacity;
+    }
+
+    public int getBufferCount() {
+        return mPooledBuffers.size();
+    }
+
+    /**
+     * @return number of pooled buffers currently leased
+     */
+    public int getLeasedCount() {
+        return mLeasedCount.get();
+    }
+
+    /**
+     * @return the highest number of pooled buffers leased at the same time
+     */
+    public int getHighWaterMark() {
+        return mHighWaterMark.get();
+    }
+
+    /**
+     * @return number of leases that could not be served from the pool
+     */
+    public int getExhaustedCount() {
+        return mExhaustedCount.get();
+    }
+
+    private void updateHighWaterMark(final int leased) {
+        int current;
+        do {
+            current = mHighWaterMark.get();
+        } while (leased > current && !mHighWaterMark.compareAndSet(current, leased));
+    }
+
+    @Override
+    public String toString() {
+        return new StringBuilder().append(getClass().getSimpleName()).append("{")
+                .append("mBufferCount=").append(getBufferCount())
+                .append(", mBufferCapacity=").append(mBufferCapacity)
+                .append(", mLeasedCount=").append(mLeasedCount.get())
+                .append(", mHighWaterMark=").append(mHighWaterMark.get())
+                .append(", mExhaustedCount=").append(mExhaustedCount.get()).append("}").toString();
+    }
+}
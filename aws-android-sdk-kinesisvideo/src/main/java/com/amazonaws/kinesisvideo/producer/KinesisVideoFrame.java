@@ -22,6 +22,7 @@ import static java.util.Objects.requireNonNull;
 import java.nio.ByteBuffer;
 
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
 /**
  * Kinesis Video frame representation.
@@ -61,14 +62,42 @@ public class KinesisVideoFrame {
      */
     private final ByteBuffer mData;
 
+    /**
+     * Pool the frame data buffers are leased from, if any
+     */
+    @Nullable
+    private final FrameBufferPool mPool;
+
+    /**
+     * Direct copy of heap backed frame data leased from the pool
+     */
+    @Nullable
+    private ByteBuffer mLeasedData;
+
+    /**
+     * Whether the pooled buffers were returned to the pool
+     */
+    private boolean mReleased;
+
     public KinesisVideoFrame(int index, int flags, long decodingTs, long presentationTs, long duration,
             @NonNull ByteBuffer data) {
+        this(index, flags, decodingTs, presentationTs, duration, data, null);
+    }
+
+    /**
+     * Creates a frame backed by a buffer pool. The frame takes ownership of data: if it was leased from the pool,
+     * it is wrapped without copying and returned to the pool by {@link #release()}. Heap backed data is copied
+     * into a pooled direct buffer instead of a newly allocated one when the native producer reads it.
+     */
+    public KinesisVideoFrame(int index, int flags, long decodingTs, long presentationTs, long duration,
+            @NonNull ByteBuffer data, @Nullable FrameBufferPool pool) {
         mIndex = index;
         mFlags = flags;
         mDecodingTs = decodingTs;
         mPresentationTs = presentationTs;
         mDuration = duration;
         mData = requireNonNull(data);
+        mPool = pool;
         // In some devices encoder would generate frames with more than 3 trailing zeros
         // which is not allowed by AnnexB specification
         removeTrailingZeros();
@@ -103,8 +132,17 @@ public class KinesisVideoFrame {
         ByteBuffer byteBuffer = mData;
         try {
             if (mData.hasArray()) {
-                byteBuffer = ByteBuffer.allocateDirect(mData.remaining());
-                byteBuffer.put(mData);
+                if (mPool == null) {
+                    byteBuffer = ByteBuffer.allocateDirect(mData.remaining());
+                    byteBuffer.put(mData);
+                } else {
+                    if (mLeasedData == null) {
+                        mLeasedData = mPool.lease(mData.remaining());
+                        mLeasedData.put(mData.duplicate());
+                        mLeasedData.flip();
+                    }
+                    byteBuffer = mLeasedData.duplicate();
+                }
             }
         } catch(final Exception e) {
             // Some Android implementations throw when accessing hasArray() API. We will ignore it
@@ -113,6 +151,24 @@ public class KinesisVideoFrame {
         return byteBuffer;
     }
 
+    /**
+     * Returns the pooled buffers held by this frame to the pool. Called once the frame has been handed to
+     * the native producer; the frame data must not be used afterwards. No-op for frames without a pool and
+     * for frames already released.
+     */
+    public void release() {
+        if (mPool == null || mReleased) {
+            return;
+        }
+
+        mReleased = true;
+        mPool.release(mData);
+        if (mLeasedData != null) {
+            mPool.release(mLeasedData);
+            mLeasedData = null;
+        }
+    }
+
     @Override public String toString() {
         return new StringBuilder().append(getClass().getSimpleName()).append("{").append("mIndex=").append(mIndex)
                 .append(", mFlags=").append(mFlags).append(", mDecodingTs=").append(mDecodingTs)
@@ -17,21 +17,26 @@
 
 package com.amazonaws.kinesisvideo.socket;
 
+import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.KeyManager;
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLPeerUnverifiedException;
+import javax.net.ssl.SSLSocket;
 import javax.net.ssl.TrustManager;
-import javax.net.ssl.X509TrustManager;
 
 import java.net.InetAddress;
 import java.net.Socket;
 import java.net.URI;
 import java.security.SecureRandom;
-import java.security.cert.X509Certificate;
 
 public class SocketFactory {
     private static final int DEFAULT_HTTP_PORT = 80;
     private static final int DEFAULT_HTTPS_PORT = 443;
     private static final KeyManager[] NO_KEY_MANAGERS = null;
+    private static final TrustManager[] DEFAULT_TRUST_MANAGERS = null;
+    private static final int HANDSHAKE_TIMEOUT_MILLIS = 30 * 1000;
+    private static final int NO_TIMEOUT = 0;
+    private static SSLContext sslContext;
 
     public Socket createSocket(final URI uri) {
         try {
@@ -46,33 +51,44 @@ public class SocketFactory {
         final int port = getPort(uri);
 
         return isHttps(uri)
-                ? createSslSocket(address, port)
+                ? createSslSocket(getHost(uri), address, port)
                 : new Socket(address, port);
     }
 
-    private Socket createSslSocket(final InetAddress address, final int port) throws Exception {
-        final SSLContext context = SSLContext.getInstance("TLSv1.2");
-        context.init(NO_KEY_MANAGERS, trustAllCertificates(), new SecureRandom());
-        return context.getSocketFactory().createSocket(address, port);
-
+    /**
+     * Creates a TLS socket that trusts the platform's certificate authorities, and checks that the certificate
+     * of the server matches the host before any data is sent.
+     */
+    private Socket createSslSocket(final String host, final InetAddress address, final int port) throws Exception {
+        final SSLSocket socket = (SSLSocket) getSslContext().getSocketFactory()
+                .createSocket(new Socket(address, port), host, port, true);
+        try {
+            socket.setSoTimeout(HANDSHAKE_TIMEOUT_MILLIS);
+            socket.startHandshake();
+            if (!HttpsURLConnection.getDefaultHostnameVerifier().verify(host, socket.getSession())) {
+                throw new SSLPeerUnverifiedException("Certificate does not match host " + host);
+            }
+            socket.setSoTimeout(NO_TIMEOUT);
+            return socket;
+        } catch (final Exception e) {
+            socket.close();
+            throw e;
+        }
     }
 
-    public TrustManager[] trustAllCertificates() {
-        return new TrustManager[]{
-                new X509TrustManager() {
-                    public X509Certificate[] getAcceptedIssuers() {
-                        return new X509Certificate[0];
-                    }
-
-                    public void checkClientTrusted(final X509Certificate[] certs, final String authType) {
-
-                    }
-
-                    public void checkServerTrusted(final X509Certificate[] certs, final String authType) {
-
-                    }
-                }
-        };
+    /**
+     * TLS sessions are cached per SSLContext, so a single context is shared by all the sockets. This lets
+     * reconnects and additional streams to the same endpoint resume the session instead of doing a full handshake.
+     */
+    private SSLContext getSslContext() throws Exception {
+        synchronized (SocketFactory.class) {
+            if (sslContext == null) {
+                final SSLContext context = SSLContext.getInstance("TLSv1.2");
+                context.init(NO_KEY_MANAGERS, DEFAULT_TRUST_MANAGERS, new SecureRandom());
+                sslContext = context;
+            }
+            return sslContext;
+        }
     }
 
     private boolean isHttps(final URI uri) {
@@ -18,6 +18,7 @@
 package com.amazonaws.kinesisvideo.stream.throttling;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 
 /**
@@ -53,6 +54,9 @@ public class BandwidthThrottledOutputStream extends OutputStream {
         int bytesWritten = 0;
         while (bytesWritten < len) {
             final int allowedBytesToWrite = throttler.getAllowedBytes(len - bytesWritten);
+            if (allowedBytesToWrite <= 0) {
+                throw new InterruptedIOException("Interrupted while waiting for upload bandwidth");
+            }
             outputStream.write(b, off + bytesWritten, allowedBytesToWrite);
             bytesWritten += allowedBytesToWrite; // TODO: actually use the returned value of write()
         }
@@ -32,7 +32,8 @@ public interface BandwidthThrottler {
      * Get the allowed number of bytes to read from or write to socket.
      *
      * @param len maximum number of bytes.
-     * @return allowed bytes
+     * @return allowed bytes, or 0 if the calling thread was interrupted while waiting for bandwidth. The interrupt
+     *         status of the thread is kept.
      */
     int getAllowedBytes(int len);
 }
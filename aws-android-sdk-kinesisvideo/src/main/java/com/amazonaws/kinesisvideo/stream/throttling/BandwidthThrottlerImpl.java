@@ -27,6 +27,9 @@ import java.util.Random;
  * The maximum upstream kbps can be set via {@link #setUpstreamKbps(long)}. Note that, 'byte' will be explicitly called
  * out. Any 'b' or 'B' (in variable names with camel case) will refer to bit.
  * <p>
+ * The throttler is thread safe, so a single instance can be shared by several streams to enforce an overall
+ * upstream budget.
+ * <p>
  * TODO: implement for input.
  */
 public class BandwidthThrottlerImpl implements BandwidthThrottler {
@@ -50,21 +53,26 @@ public class BandwidthThrottlerImpl implements BandwidthThrottler {
         setUpstreamKbps(maxBps / BITS_IN_A_KILOBIT);
     }
 
-    private static void sleep(final long sleepDuration) {
+    /**
+     * @return false if the thread was interrupted, in which case the interrupt status is restored
+     */
+    private static boolean sleep(final long sleepDuration) {
         try {
             Thread.sleep(sleepDuration);
+            return true;
         } catch (final InterruptedException ex) {
-            Thread.interrupted();
+            Thread.currentThread().interrupt();
+            return false;
         }
     }
 
-    public void setAbsoluteMaxBps(final long maxBps) {
+    public synchronized void setAbsoluteMaxBps(final long maxBps) {
         this.absoluteMaxBps = maxBps;
         setMaxBps(this.upstream, this.upstream.maxBps);
     }
 
     @Override
-    public void setUpstreamKbps(final long kbps) {
+    public synchronized void setUpstreamKbps(final long kbps) {
         checkArgument(kbps > 0, String.format("Given bandwidth value %d is not positive.", kbps));
         final long bps = (kbps * BITS_IN_A_KILOBIT) / BITS_IN_A_BYTE;
         setMaxBps(this.upstream, bps);
@@ -75,10 +83,15 @@ public class BandwidthThrottlerImpl implements BandwidthThrottler {
         int allowed;
 
         while ((allowed = getAllowedBytesWrite(len)) <= 0) {
+            if (Thread.currentThread().isInterrupted()) {
+                return 0;
+            }
             long sleepDuration = timeToNextReset(this.upstream);
             if (sleepDuration > 0) {
                 sleepDuration += randomGenerator.nextInt(MAX_RANDOM_VALUE);
-                BandwidthThrottlerImpl.sleep(sleepDuration);
+                if (!BandwidthThrottlerImpl.sleep(sleepDuration)) {
+                    return 0;
+                }
             }
         }
 
@@ -92,11 +105,11 @@ public class BandwidthThrottlerImpl implements BandwidthThrottler {
         params.reset();
     }
 
-    private long timeToNextReset(final ThrottlingParams params) {
+    private synchronized long timeToNextReset(final ThrottlingParams params) {
         return params.timeToNextReset();
     }
 
-    private int getAllowedBytesWrite(final int len) {
+    private synchronized int getAllowedBytesWrite(final int len) {
         return getAllowedBytesInternal(this.upstream, len);
     }
 
@@ -120,7 +133,7 @@ public class BandwidthThrottlerImpl implements BandwidthThrottler {
     }
 
     /**
-     * Helper class to store parameters related to throttling.
+     * Helper class to store parameters related to throttling. Guarded by the monitor of the throttler.
      */
     private static class ThrottlingParams {
         private long maxBps;
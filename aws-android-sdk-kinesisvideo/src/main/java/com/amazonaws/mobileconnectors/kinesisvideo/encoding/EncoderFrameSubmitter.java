@@ -137,9 +137,12 @@ public class EncoderFrameSubmitter {
                                                final Image cameraFrame) {
         final Image codecInputImage = mEncoder.getInputImage(inputBufferIndex);
 
-        for (int i = 0; i < cameraFrame.getPlanes().length; i++) {
-            final ByteBuffer sourceImagePlane = cameraFrame.getPlanes()[i].getBuffer();
-            final ByteBuffer destinationImagePlane = codecInputImage.getPlanes()[i].getBuffer();
+        // getPlanes() returns a new copy of the planes array on every call
+        final Image.Plane[] sourcePlanes = cameraFrame.getPlanes();
+        final Image.Plane[] destinationPlanes = codecInputImage.getPlanes();
+        for (int i = 0; i < sourcePlanes.length; i++) {
+            final ByteBuffer sourceImagePlane = sourcePlanes[i].getBuffer();
+            final ByteBuffer destinationImagePlane = destinationPlanes[i].getBuffer();
             copyBuffer(sourceImagePlane, destinationImagePlane);
         }
     }
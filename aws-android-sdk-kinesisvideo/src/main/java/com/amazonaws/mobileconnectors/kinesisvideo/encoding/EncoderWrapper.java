@@ -100,7 +100,7 @@ public class EncoderWrapper {
     private void getDataFromEncoder(final boolean endOfStream) {
         boolean stopReadingFromEncoder = false;
         while(!stopReadingFromEncoder) {
-            mBufferInfo = new MediaCodec.BufferInfo();
+            // dequeueOutputBuffer overwrites every field, so the same BufferInfo is reused for every frame
             int outputBufferId = mEncoder.dequeueOutputBuffer(mBufferInfo, TIMEOUT_USEC);
             switch (outputBufferId) {
                 case MediaCodec.INFO_TRY_AGAIN_LATER:
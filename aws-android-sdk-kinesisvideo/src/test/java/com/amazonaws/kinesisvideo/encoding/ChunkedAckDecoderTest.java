@@ -0,0 +1,181 @@
+/**
+ * Copyright 2017-2018 Amazon.com,
+ * Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Amazon Software License (the "License").
+ * You may not use this file except in compliance with the
+ * License. A copy of the License is located at
+ *
+ *     http://aws.amazon.com/asl/
+ *
+ * or in the "license" file accompanying this file. This file is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, express or implied. See the License
+ * for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.kinesisvideo.encoding;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.amazonaws.kinesisvideo.ack.AckEventData;
+import com.amazonaws.kinesisvideo.common.function.Consumer;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ChunkedAckDecoderTest {
+    private static final String RECEIVED_ACK =
+            "{\"EventType\":\"RECEIVED\",\"FragmentTimecode\":1234,"
+                    + "\"FragmentNumber\":\"91343852333181432392682062607743920146264217\"}";
+    private static final String ERROR_ACK =
+            "{\"EventType\":\"ERROR\",\"FragmentTimecode\":5678,"
+                    + "\"FragmentNumber\":\"91343852333181432392682062607743920146264218\","
+                    + "\"ErrorId\":4004,\"ErrorCode\":\"INVALID_MKV_DATA\"}";
+    private static final String IDLE_ACK = "{\"EventType\":\"IDLE\"}";
+
+    @Test
+    public void testDecodesAcksInChunks() throws Exception {
+        final List<String> acks = decode(chunk(RECEIVED_ACK) + chunk(IDLE_ACK + ERROR_ACK) + "0\r\n\r\n");
+
+        assertEquals(3, acks.size());
+        assertEquals("RECEIVED 1234 91343852333181432392682062607743920146264217 0", acks.get(0));
+        assertEquals("IDLE 0 null 0", acks.get(1));
+        assertEquals("ERROR 5678 91343852333181432392682062607743920146264218 4004", acks.get(2));
+    }
+
+    @Test
+    public void testDecodesAckSplitAcrossChunks() throws Exception {
+        for (int split = 1; split < RECEIVED_ACK.length(); split++) {
+            final String body = chunk(IDLE_ACK + RECEIVED_ACK.substring(0, split))
+                    + chunk(RECEIVED_ACK.substring(split) + "\n") + "0\r\n\r\n";
+
+            final List<String> acks = decode(body);
+
+            assertEquals("split at " + split, 2, acks.size());
+            assertEquals("IDLE 0 null 0", acks.get(0));
+            assertEquals("split at " + split,
+                    "RECEIVED 1234 91343852333181432392682062607743920146264217 0", acks.get(1));
+        }
+    }
+
+    @Test
+    public void testDecodesAckSplitAcrossManyChunks() throws Exception {
+        final StringBuilder body = new StringBuilder();
+        for (int i = 0; i < ERROR_ACK.length(); i += 7) {
+            body.append(chunk(ERROR_ACK.substring(i, Math.min(i + 7, ERROR_ACK.length()))));
+        }
+        body.append("0\r\n\r\n");
+
+        final List<String> acks = decode(body.toString());
+
+        assertEquals(1, acks.size());
+        assertEquals("ERROR 5678 91343852333181432392682062607743920146264218 4004", acks.get(0));
+    }
+
+    @Test
+    public void testReadsThroughBuffer() throws Exception {
+        final StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            body.append(chunk(RECEIVED_ACK));
+        }
+        body.append("0\r\n\r\n");
+        final CountingInputStream inputStream = new CountingInputStream(
+                body.toString().getBytes(StandardCharsets.US_ASCII));
+
+        final int ackCount = new ChunkedAckDecoder(inputStream).decodeAcks(new Consumer<AckEventData>() {
+            @Override
+            public void accept(final AckEventData ack) {
+            }
+        });
+
+        assertEquals(50, ackCount);
+        assertEquals("single byte reads", 0, inputStream.singleByteReads);
+        assertTrue("reads " + inputStream.reads, inputStream.reads < 10);
+    }
+
+    @Test
+    public void testReadChunk() throws Exception {
+        final ChunkedAckDecoder decoder = new ChunkedAckDecoder(stream(chunk("abc") + chunk("de") + "0\r\n\r\n"));
+
+        assertEquals(3, decoder.readChunk());
+        assertEquals("abc", new String(decoder.getChunkBuffer(), 0, decoder.getChunkLength(),
+                StandardCharsets.US_ASCII));
+        assertEquals(2, decoder.readChunk());
+        assertEquals("de", new String(decoder.getChunkBuffer(), 0, decoder.getChunkLength(),
+                StandardCharsets.US_ASCII));
+        assertEquals(-1, decoder.readChunk());
+        assertEquals(0, decoder.getChunkLength());
+    }
+
+    @Test
+    public void testEndOfStreamWithoutTerminatingChunk() throws Exception {
+        final List<String> acks = decode(chunk(RECEIVED_ACK));
+
+        assertEquals(1, acks.size());
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncatedChunk() throws Exception {
+        decode("20\r\n{\"EventType\"");
+    }
+
+    @Test
+    public void testParseAckNeedsCompleteObject() {
+        final AckEventData event = new AckEventData();
+        final byte[] bytes = RECEIVED_ACK.getBytes(StandardCharsets.US_ASCII);
+
+        assertEquals(-1, ChunkedAckDecoder.parseAck(bytes, 0, bytes.length - 1, event));
+        assertEquals(bytes.length, ChunkedAckDecoder.parseAck(bytes, 0, bytes.length, event));
+        assertEquals("RECEIVED", event.getType());
+    }
+
+    private static List<String> decode(final String body) throws IOException {
+        final List<String> acks = new ArrayList<String>();
+        new ChunkedAckDecoder(stream(body)).decodeAcks(new Consumer<AckEventData>() {
+            @Override
+            public void accept(final AckEventData ack) {
+                acks.add(ack.getType() + " " + ack.getFragmentTimecode() + " " + ack.getFragmentNumber()
+                        + " " + ack.getErrorCode());
+            }
+        });
+        return acks;
+    }
+
+    private static String chunk(final String data) {
+        return Integer.toHexString(data.length()) + "\r\n" + data + "\r\n";
+    }
+
+    private static InputStream stream(final String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static class CountingInputStream extends ByteArrayInputStream {
+        private int reads;
+        private int singleByteReads;
+
+        CountingInputStream(final byte[] bytes) {
+            super(bytes);
+        }
+
+        @Override
+        public synchronized int read() {
+            singleByteReads++;
+            return super.read();
+        }
+
+        @Override
+        public synchronized int read(final byte[] b, final int off, final int len) {
+            reads++;
+            return super.read(b, off, len);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * Copyright 2017-2018 Amazon.com,
+ * Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Amazon Software License (the "License").
+ * You may not use this file except in compliance with the
+ * License. A copy of the License is located at
+ *
+ *     http://aws.amazon.com/asl/
+ *
+ * or in the "license" file accompanying this file. This file is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, express or implied. See the License
+ * for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.kinesisvideo.internal.service;
+
+import static org.junit.Assert.assertEquals;
+
+import com.amazonaws.kinesisvideo.common.logging.Log;
+import com.amazonaws.kinesisvideo.internal.producer.KinesisVideoProducerStream;
+import com.amazonaws.kinesisvideo.producer.FragmentAckType;
+import com.amazonaws.kinesisvideo.producer.KinesisVideoFragmentAck;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class AckConsumerTest {
+    private static final long UPLOAD_HANDLE = 7;
+
+    @Test
+    public void testForwardsDecodedAcksToStream() throws Exception {
+        final String persisted = "{\"EventType\":\"PERSISTED\",\"FragmentTimecode\":1000,"
+                + "\"FragmentNumber\":\"12345\"}";
+        final String error = "{\"EventType\":\"ERROR\",\"FragmentTimecode\":2000,"
+                + "\"FragmentNumber\":\"12346\",\"ErrorId\":4004,\"ErrorCode\":\"INVALID_MKV_DATA\"}";
+        // The PERSISTED ACK is split across two chunks.
+        final String body = chunk(persisted.substring(0, 20)) + chunk(persisted.substring(20))
+                + chunk("{\"EventType\":\"IDLE\"}" + error) + chunk("{\"EventType\":\"UNKNOWN\"}")
+                + "0\r\n\r\n";
+
+        final List<Object[]> calls = new ArrayList<Object[]>();
+        final AckConsumer consumer = new AckConsumer(UPLOAD_HANDLE, recordingStream(calls),
+                new Log(Log.SYSTEM_OUT));
+        consumer.accept(new ByteArrayInputStream(body.getBytes(StandardCharsets.US_ASCII)));
+        consumer.close();
+
+        assertEquals(3, calls.size());
+        assertAck(calls.get(0), FragmentAckType.FRAGMENT_ACK_TYPE_PERSISTED, 1000, "12345", 200);
+        assertAck(calls.get(1), FragmentAckType.FRAGMENT_ACK_TYPE_IDLE, 0, "", 200);
+        assertAck(calls.get(2), FragmentAckType.FRAGMENT_ACK_TYPE_ERROR, 2000, "12346", 4004);
+    }
+
+    private static void assertAck(final Object[] call, final int type, final long timestamp,
+                                  final String sequenceNumber, final int result) {
+        assertEquals("fragmentAck", call[0]);
+        assertEquals(UPLOAD_HANDLE, call[1]);
+        final KinesisVideoFragmentAck ack = (KinesisVideoFragmentAck) call[2];
+        assertEquals(type, ack.getAckType().getIntType());
+        assertEquals(timestamp, ack.getTimestamp());
+        assertEquals(sequenceNumber, ack.getSequenceNumber());
+        assertEquals(result, ack.getResult());
+    }
+
+    private static KinesisVideoProducerStream recordingStream(final List<Object[]> calls) {
+        return (KinesisVideoProducerStream) Proxy.newProxyInstance(AckConsumerTest.class.getClassLoader(),
+                new Class<?>[] {KinesisVideoProducerStream.class},
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(final Object proxy, final Method method, final Object[] args) {
+                        final Object[] call = new Object[args == null ? 1 : args.length + 1];
+                        call[0] = method.getName();
+                        if (args != null) {
+                            System.arraycopy(args, 0, call, 1, args.length);
+                        }
+                        calls.add(call);
+                        return null;
+                    }
+                });
+    }
+
+    private static String chunk(final String data) {
+        return Integer.toHexString(data.length()) + "\r\n" + data + "\r\n";
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ * Copyright 2017-2018 Amazon.com,
+ * Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Amazon Software License (the "License").
+ * You may not use this file except in compliance with the
+ * License. A copy of the License is located at
+ *
+ *     http://aws.amazon.com/asl/
+ *
+ * or in the "license" file accompanying this file. This file is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, express or implied. See the License
+ * for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.kinesisvideo.stream.throttling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class BandwidthThrottlerImplTest {
+    private static final long EIGHT_KILOBITS = 8 * 1024;
+
+    @Test
+    public void allowsBytesWithinBudget() {
+        final BandwidthThrottler throttler = new BandwidthThrottlerImpl(EIGHT_KILOBITS);
+
+        assertEquals(10, throttler.getAllowedBytes(10));
+    }
+
+    @Test(timeout = 10000)
+    public void interruptStopsThrottledWriter() throws Exception {
+        final BandwidthThrottledOutputStream outputStream = new BandwidthThrottledOutputStream(
+                new ByteArrayOutputStream(), new BandwidthThrottlerImpl(EIGHT_KILOBITS));
+        final AtomicReference<Exception> failure = new AtomicReference<Exception>();
+        final AtomicReference<Boolean> interrupted = new AtomicReference<Boolean>();
+
+        final Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    outputStream.write(new byte[1024 * 1024]);
+                } catch (final Exception e) {
+                    failure.set(e);
+                }
+                interrupted.set(Thread.currentThread().isInterrupted());
+            }
+        });
+        writer.start();
+        Thread.sleep(200);
+        writer.interrupt();
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+
+        assertFalse(writer.isAlive());
+        assertTrue(failure.get() instanceof InterruptedIOException);
+        assertTrue(interrupted.get());
+    }
+}
@@ -18,6 +18,8 @@ import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.net.HttpURLConnection;
 import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Invocation handler for Lambda.
@@ -32,6 +34,8 @@ class LambdaInvocationHandler implements InvocationHandler {
     private final AWSLambda lambda;
     private final LambdaDataBinder binder;
     private final ClientContext clientContext;
+    private final ConcurrentMap<Method, InvocationPlan> invocationPlans =
+            new ConcurrentHashMap<Method, InvocationPlan>();
 
     // -------------------------------------------------------------
     // Constructors
@@ -43,9 +47,26 @@ class LambdaInvocationHandler implements InvocationHandler {
      */
     public LambdaInvocationHandler(AWSLambda lambda, LambdaDataBinder binder,
             ClientContext clientContext) {
+        this(lambda, binder, clientContext, null);
+    }
+
+    /**
+     * @param lambda lambda client
+     * @param binder data binder
+     * @param clientContext client context, null if unavailable
+     * @param interfaceClass the proxied interface whose invocation plans are
+     *            computed upfront, null to compute them on first invocation
+     */
+    LambdaInvocationHandler(AWSLambda lambda, LambdaDataBinder binder,
+            ClientContext clientContext, Class<?> interfaceClass) {
         this.lambda = lambda;
         this.binder = binder;
         this.clientContext = clientContext;
+        if (interfaceClass != null) {
+            for (final Method method : interfaceClass.getMethods()) {
+                invocationPlans.put(method, new InvocationPlan(method));
+            }
+        }
     }
 
     // -------------------------------------------------------------
@@ -54,57 +75,57 @@ class LambdaInvocationHandler implements InvocationHandler {
     @Override
     public Object invoke(Object proxy, Method method, Object[] args)
             throws Throwable {
-        validateInterfaceMethod(method, args);
+        final InvocationPlan plan = getInvocationPlan(method);
+        plan.validate(args);
 
         // With Android version before Lollipop (API level 22), args can be an
         // empty array when the method takes no arguments.
         final Object buildArg = (args == null || args.length == 0) ? null : args[0];
-        final InvokeRequest invokeRequest = buildInvokeRequest(method, buildArg);
+        final InvokeRequest invokeRequest = buildInvokeRequest(plan, buildArg);
         final InvokeResult invokeResult = lambda.invoke(invokeRequest);
 
-        return processInvokeResult(method, invokeResult);
+        return processInvokeResult(plan, invokeResult);
     }
 
     // -------------------------------------------------------------
     // Methods - Private
     // -------------------------------------------------------------
     void validateInterfaceMethod(Method method, Object[] args) {
-        if (method.getAnnotation(LambdaFunction.class) == null) {
-            throw new UnsupportedOperationException("No LambdaFunction annotation for method "
-                    + method.getName());
-        }
-
-        if (args != null && args.length > 1) {
-            throw new UnsupportedOperationException(
-                    "LambdaFunctions take either 0 or 1 arguments.");
-        }
+        getInvocationPlan(method).validate(args);
     }
 
     InvokeRequest buildInvokeRequest(Method method, Object object) throws IOException {
-        final LambdaFunction lambdaFunction = method.getAnnotation(LambdaFunction.class);
-
-        final InvokeRequest invokeRequest = new InvokeRequest();
-
-        if (lambdaFunction.functionName().isEmpty()) {
-            invokeRequest.setFunctionName(method.getName());
-        } else {
-            invokeRequest.setFunctionName(lambdaFunction.functionName());
-        }
+        return buildInvokeRequest(getInvocationPlan(method), object);
+    }
 
-        invokeRequest.setLogType(lambdaFunction.logType());
+    Object processInvokeResult(Method method, InvokeResult invokeResult)
+            throws IOException {
+        return processInvokeResult(getInvocationPlan(method), invokeResult);
+    }
 
-        // If the log type is other than 'None', force to be RequestResponse.
-        if (!LogType.None.toString().equals(lambdaFunction.logType())) {
-            invokeRequest.setInvocationType(InvocationType.RequestResponse);
-        } else {
-            invokeRequest.setInvocationType(lambdaFunction.invocationType());
+    InvocationPlan getInvocationPlan(Method method) {
+        InvocationPlan plan = invocationPlans.get(method);
+        if (plan == null) {
+            // Methods of other interfaces, such as Object#toString()
+            final InvocationPlan newPlan = new InvocationPlan(method);
+            plan = invocationPlans.putIfAbsent(method, newPlan);
+            if (plan == null) {
+                plan = newPlan;
+            }
         }
+        return plan;
+    }
 
-        if (!lambdaFunction.qualifier().isEmpty()) {
-            invokeRequest.setQualifier(lambdaFunction.qualifier());
-        }
+    private InvokeRequest buildInvokeRequest(InvocationPlan plan, Object object)
+            throws IOException {
+        final InvokeRequest invokeRequest = new InvokeRequest();
+        invokeRequest.setFunctionName(plan.functionName);
+        invokeRequest.setLogType(plan.logType);
+        invokeRequest.setInvocationType(plan.invocationType);
+        invokeRequest.setQualifier(plan.qualifier);
 
-        // set base64 encoded client context string
+        // set base64 encoded client context string, cached by the client
+        // context until it changes
         if (clientContext != null) {
             invokeRequest.setClientContext(clientContext.toBase64String());
         }
@@ -114,10 +135,10 @@ class LambdaInvocationHandler implements InvocationHandler {
         return invokeRequest;
     }
 
-    Object processInvokeResult(Method method, InvokeResult invokeResult)
+    private Object processInvokeResult(InvocationPlan plan, InvokeResult invokeResult)
             throws IOException {
         if (invokeResult.getLogResult() != null) {
-            LOGGER.debug(method.getName() + " log: "
+            LOGGER.debug(plan.methodName + " log: "
                     + new String(Base64.decode(invokeResult.getLogResult()), StringUtils.UTF8));
         }
 
@@ -128,11 +149,67 @@ class LambdaInvocationHandler implements InvocationHandler {
 
         // deserialize payload
         if (invokeResult.getStatusCode() == HttpURLConnection.HTTP_NO_CONTENT
-                || void.class.equals(method.getReturnType())) {
+                || void.class.equals(plan.returnType)) {
             return null;
         }
 
-        return binder.deserialize(invokeResult.getPayload().array(),
-                method.getReturnType());
+        return binder.deserialize(invokeResult.getPayload().array(), plan.returnType);
+    }
+
+    /**
+     * What an interface method invokes, read once from its
+     * {@link LambdaFunction} annotation.
+     */
+    static final class InvocationPlan {
+        private static final String TOO_MANY_ARGUMENTS =
+                "LambdaFunctions take either 0 or 1 arguments.";
+
+        final String methodName;
+        final Class<?> returnType;
+        /** Why the method can't be invoked, null if it can. */
+        final String unsupportedReason;
+        final String functionName;
+        final String logType;
+        final String invocationType;
+        final String qualifier;
+
+        InvocationPlan(Method method) {
+            methodName = method.getName();
+            returnType = method.getReturnType();
+
+            final LambdaFunction lambdaFunction = method.getAnnotation(LambdaFunction.class);
+            if (lambdaFunction == null) {
+                unsupportedReason = "No LambdaFunction annotation for method " + methodName;
+                functionName = null;
+                logType = null;
+                invocationType = null;
+                qualifier = null;
+                return;
+            }
+            unsupportedReason = method.getParameterTypes().length > 1
+                    ? TOO_MANY_ARGUMENTS
+                    : null;
+
+            functionName = lambdaFunction.functionName().isEmpty()
+                    ? methodName
+                    : lambdaFunction.functionName();
+            logType = lambdaFunction.logType();
+            // If the log type is other than 'None', force to be RequestResponse.
+            invocationType = LogType.None.toString().equals(logType)
+                    ? lambdaFunction.invocationType()
+                    : InvocationType.RequestResponse.toString();
+            qualifier = lambdaFunction.qualifier().isEmpty()
+                    ? null
+                    : lambdaFunction.qualifier();
+        }
+
+        void validate(Object[] args) {
+            if (unsupportedReason != null) {
+                throw new UnsupportedOperationException(unsupportedReason);
+            }
+            if (args != null && args.length > 1) {
+                throw new UnsupportedOperationException(TOO_MANY_ARGUMENTS);
+            }
+        }
     }
 }
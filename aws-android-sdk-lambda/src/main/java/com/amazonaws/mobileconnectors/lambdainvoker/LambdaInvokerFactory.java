@@ -329,7 +329,7 @@ public class LambdaInvokerFactory {
                 new Class<?>[] {
                     interfaceClass
                 },
-                new LambdaInvocationHandler(lambda, binder, clientContext));
+                new LambdaInvocationHandler(lambda, binder, clientContext, interfaceClass));
         return interfaceClass.cast(proxy);
     }
 
@@ -15,20 +15,29 @@
 
 package com.amazonaws.mobileconnectors.lambdainvoker;
 
+import com.amazonaws.AmazonClientException;
 import com.amazonaws.util.StringUtils;
 import com.google.gson.Gson;
 
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
 import java.io.Reader;
+import java.io.Writer;
 
 /**
  * A Json data binder backed by Gson.
  */
 public class LambdaJsonBinder implements LambdaDataBinder {
 
+    /** Largest buffer kept for serializing the next payload of a thread. */
+    static final int MAX_RETAINED_BUFFER_SIZE = 64 * 1024;
+
     private final Gson gson;
+    private final ThreadLocal<SerializationBuffer> buffers = new ThreadLocal<SerializationBuffer>();
 
     /**
      * Constructs a Lambda Json binder.
@@ -49,6 +58,38 @@ public class LambdaJsonBinder implements LambdaDataBinder {
 
     @Override
     public byte[] serialize(Object object) {
-        return gson.toJson(object).getBytes(StringUtils.UTF8);
+        SerializationBuffer buffer = buffers.get();
+        if (buffer == null) {
+            buffer = new SerializationBuffer();
+            buffers.set(buffer);
+        }
+        // Writes the encoded Json straight to bytes, without the intermediate
+        // string.
+        buffer.bytes.reset();
+        try {
+            gson.toJson(object, buffer.writer);
+            buffer.writer.flush();
+        } catch (final IOException e) {
+            buffers.remove();
+            throw new AmazonClientException("Failed to serialize payload", e);
+        } catch (final RuntimeException e) {
+            // The writer may still hold part of the payload.
+            buffers.remove();
+            throw e;
+        }
+        final byte[] content = buffer.bytes.toByteArray();
+        if (content.length > MAX_RETAINED_BUFFER_SIZE) {
+            buffers.remove();
+        }
+        return content;
+    }
+
+    /**
+     * A byte buffer and its UTF-8 writer, reused by the payloads serialized
+     * on a thread.
+     */
+    private static final class SerializationBuffer {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final Writer writer = new OutputStreamWriter(bytes, StringUtils.UTF8);
     }
 }
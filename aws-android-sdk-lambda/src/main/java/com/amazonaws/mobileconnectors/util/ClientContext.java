@@ -64,7 +64,7 @@ public class ClientContext {
     static final String SHARED_PREFERENCES = "com.amazonaws.common";
 
     private final JSONObject json;
-    private String base64String;
+    private volatile String base64String;
 
     /**
      * Constructs a new client context.
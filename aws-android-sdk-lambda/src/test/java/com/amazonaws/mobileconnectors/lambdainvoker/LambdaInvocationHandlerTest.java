@@ -18,6 +18,8 @@ package com.amazonaws.mobileconnectors.lambdainvoker;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import com.amazonaws.ClientConfiguration;
 import com.amazonaws.services.lambda.AWSLambda;
@@ -294,6 +296,32 @@ public class LambdaInvocationHandlerTest {
         }
     }
 
+    @Test
+    public void testInvocationPlansAreReused() throws Exception {
+        Method echo = getMethod("echo", String.class);
+        LambdaInvocationHandler.InvocationPlan plan = handler.getInvocationPlan(echo);
+        assertSame("same plan", plan, handler.getInvocationPlan(echo));
+        assertSame("same plan", plan, handler.getInvocationPlan(getMethod("echo", String.class)));
+        assertEquals("function name", "echo", plan.functionName);
+        assertEquals("return type", String.class, plan.returnType);
+
+        String input = "hello world";
+        InvokeRequest first = handler.buildInvokeRequest(echo, input);
+        InvokeRequest second = handler.buildInvokeRequest(echo, input);
+        assertTrue("new request", first != second);
+        assertArrayEquals("payload", first.getPayload().array(), second.getPayload().array());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testInvokeObjectMethod() {
+        invoker.toString();
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testInvokeNoAnnotation() {
+        invoker.noAnnotation();
+    }
+
     private Method getMethod(String name, Class<?>... classes)
             throws NoSuchMethodException, SecurityException {
         return MockInterface.class.getMethod(name, classes);
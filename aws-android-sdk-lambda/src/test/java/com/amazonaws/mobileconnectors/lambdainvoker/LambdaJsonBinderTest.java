@@ -15,10 +15,15 @@
 
 package com.amazonaws.mobileconnectors.lambdainvoker;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
+import com.amazonaws.util.StringUtils;
+
 import org.junit.Test;
 
+import java.util.Arrays;
+
 public class LambdaJsonBinderTest {
 
     @Test
@@ -30,4 +35,25 @@ public class LambdaJsonBinderTest {
         assertEquals("first name", target.getFirstName(), nameInfo.getFirstName());
         assertEquals("last name", target.getLastName(), nameInfo.getLastName());
     }
+
+    @Test
+    public void testSerializeReusesBuffer() {
+        LambdaJsonBinder jsonBinder = new LambdaJsonBinder();
+        assertArrayEquals("null", "null".getBytes(StringUtils.UTF8), jsonBinder.serialize(null));
+
+        char[] chars = new char[LambdaJsonBinder.MAX_RETAINED_BUFFER_SIZE];
+        Arrays.fill(chars, '\u00e9');
+        String large = new String(chars);
+        byte[] data = jsonBinder.serialize(large);
+        assertEquals("large payload", large, jsonBinder.deserialize(data, String.class));
+
+        // Each payload only holds its own bytes.
+        String[] values = {
+                "a longer first value", "b", "\u4e16\u754c"
+        };
+        for (String value : values) {
+            assertArrayEquals(value, ("\"" + value + "\"").getBytes(StringUtils.UTF8),
+                    jsonBinder.serialize(value));
+        }
+    }
 }
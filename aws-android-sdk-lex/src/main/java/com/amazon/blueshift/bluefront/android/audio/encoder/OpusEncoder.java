@@ -140,6 +140,22 @@ public class OpusEncoder implements AudioEncoder {
         return encodeOpus(mOpusEncoder, samples, mPacketSize);
     }
 
+    @Override
+    public synchronized int encode(final short[] samples, final int numSamples, final byte[] output,
+            final int outputOffset) throws AudioEncoderException {
+        Preconditions.checkArgument(output.length - outputOffset >= mPacketSize, "Output buffer is too small");
+
+        final byte[] packet = encode(samples, numSamples);
+        System.arraycopy(packet, 0, output, outputOffset, packet.length);
+        return packet.length;
+    }
+
+    @Override
+    public int getMaxEncodedSize(final int numSamples) {
+        // Constant bitrate, one packet per frame.
+        return mPacketSize;
+    }
+
     @Override
     public MediaType getMediaType() {
         return mMediaType;
@@ -0,0 +1,352 @@
+/*
+ * Copyright 2017-2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.lex.interactionkit.internal.audio;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A single-producer/single-consumer ring buffer that moves recorded audio from
+ * the recording thread to the thread uploading it.
+ * <p>
+ * Unlike {@link java.io.PipedOutputStream}, writes never block and never
+ * synchronize with the reader: the recording thread copies the bytes into the
+ * ring and publishes the new write position. The reader parks only while the
+ * ring is empty and is unparked by the next write or by {@link #close()}. The
+ * capacity must be large enough to hold the longest utterance; writing more
+ * than the free space fails instead of stalling the microphone.
+ * <p>
+ * The consumer stream supports {@link InputStream#mark(int)} so that a request
+ * sending the audio can be retried: the bytes after the mark are kept in the
+ * ring, whatever the read limit, until the next mark.
+ * <p>
+ * The buffer also measures how long audio waits in the ring between being
+ * written and being read, i.e. the latency it adds from capture to send.
+ */
+public class AudioRingBuffer {
+
+    /**
+     * How long the reader parks before re-checking the ring, in case an unpark is missed.
+     */
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    /**
+     * Number of write timestamps kept for latency measurement.
+     */
+    private static final int MAX_TIMESTAMPS = 256;
+
+    private final byte[] mBuffer;
+
+    /**
+     * Total bytes written, only updated by the producer.
+     */
+    private volatile long mWritePosition;
+
+    /**
+     * Total bytes read, only updated by the consumer.
+     */
+    private volatile long mReadPosition;
+
+    /**
+     * Read position to go back to on reset, or -1 without a mark. Only
+     * updated by the consumer.
+     */
+    private volatile long mMarkPosition = -1;
+
+    private volatile boolean mClosed;
+
+    /**
+     * The consumer thread while it is parked waiting for data.
+     */
+    private volatile Thread mWaitingReader;
+
+    // Write end positions and times, a second SPSC ring used for latency measurement.
+    private final long[] mTimestampPositions = new long[MAX_TIMESTAMPS];
+    private final long[] mTimestampNanos = new long[MAX_TIMESTAMPS];
+    private volatile long mTimestampsWritten;
+    private volatile long mTimestampsRead;
+
+    private final AtomicLong mLatencySamples = new AtomicLong();
+    private final AtomicLong mTotalLatencyNanos = new AtomicLong();
+    private final AtomicLong mMaxLatencyNanos = new AtomicLong();
+
+    private final OutputStream mOutputStream = new OutputStream() {
+        @Override
+        public void write(final int b) throws IOException {
+            AudioRingBuffer.this.write(new byte[] {
+                    (byte) b
+            }, 0, 1);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            AudioRingBuffer.this.write(b, off, len);
+        }
+
+        @Override
+        public void close() {
+            AudioRingBuffer.this.close();
+        }
+    };
+
+    private final InputStream mInputStream = new InputStream() {
+        private final byte[] mSingleByte = new byte[1];
+
+        @Override
+        public int read() throws IOException {
+            final int read = AudioRingBuffer.this.read(mSingleByte, 0, 1);
+            return read < 0 ? -1 : mSingleByte[0] & 0xff;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            return AudioRingBuffer.this.read(b, off, len);
+        }
+
+        @Override
+        public int available() {
+            return (int) (mWritePosition - mReadPosition);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public void mark(final int readlimit) {
+            AudioRingBuffer.this.mark();
+        }
+
+        @Override
+        public void reset() throws IOException {
+            AudioRingBuffer.this.reset();
+        }
+
+        @Override
+        public void close() {
+            AudioRingBuffer.this.close();
+        }
+    };
+
+    /**
+     * Create a ring buffer.
+     *
+     * @param capacity the capacity in bytes.
+     */
+    public AudioRingBuffer(final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        mBuffer = new byte[capacity];
+    }
+
+    /**
+     * Get the stream the recording thread writes to.
+     *
+     * @return the producer stream.
+     */
+    public OutputStream getOutputStream() {
+        return mOutputStream;
+    }
+
+    /**
+     * Get the stream the uploading thread reads from.
+     *
+     * @return the consumer stream.
+     */
+    public InputStream getInputStream() {
+        return mInputStream;
+    }
+
+    /**
+     * Copy bytes into the ring. Never blocks.
+     *
+     * @param b the source bytes.
+     * @param off the offset in the source.
+     * @param len the number of bytes to write.
+     * @throws IOException if the buffer is closed or does not have enough free space.
+     */
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        if (mClosed) {
+            throw new IOException("Audio buffer is closed");
+        }
+        if (len == 0) {
+            return;
+        }
+
+        final long writePosition = mWritePosition;
+        // The bytes after the mark may be read again.
+        final long markPosition = mMarkPosition;
+        final long keptPosition = markPosition < 0 ? mReadPosition : markPosition;
+        final int free = mBuffer.length - (int) (writePosition - keptPosition);
+        if (len > free) {
+            throw new IOException("Audio buffer overflow, " + len + " bytes written with "
+                    + free + " bytes free");
+        }
+
+        final int start = (int) (writePosition % mBuffer.length);
+        final int firstPart = Math.min(len, mBuffer.length - start);
+        System.arraycopy(b, off, mBuffer, start, firstPart);
+        System.arraycopy(b, off + firstPart, mBuffer, 0, len - firstPart);
+
+        recordTimestamp(writePosition + len);
+        // Publish the data to the reader.
+        mWritePosition = writePosition + len;
+        LockSupport.unpark(mWaitingReader);
+    }
+
+    /**
+     * Read bytes from the ring, waiting until some are available.
+     *
+     * @param b the destination.
+     * @param off the offset in the destination.
+     * @param len the maximum number of bytes to read.
+     * @return the number of bytes read, or -1 once the buffer is closed and drained.
+     * @throws IOException if the reading thread is interrupted.
+     */
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+
+        final long readPosition = mReadPosition;
+        long writePosition;
+        while ((writePosition = mWritePosition) == readPosition) {
+            if (mClosed) {
+                // Re-check so bytes written right before close are not lost.
+                if (mWritePosition == readPosition) {
+                    return -1;
+                }
+                continue;
+            }
+            mWaitingReader = Thread.currentThread();
+            if (mWritePosition == readPosition && !mClosed) {
+                LockSupport.parkNanos(this, MAX_PARK_NANOS);
+            }
+            mWaitingReader = null;
+            if (Thread.interrupted()) {
+                throw new IOException("Interrupted while waiting for audio");
+            }
+        }
+
+        final int count = (int) Math.min(len, writePosition - readPosition);
+        final int start = (int) (readPosition % mBuffer.length);
+        final int firstPart = Math.min(count, mBuffer.length - start);
+        System.arraycopy(mBuffer, start, b, off, firstPart);
+        System.arraycopy(mBuffer, 0, b, off + firstPart, count - firstPart);
+
+        mReadPosition = readPosition + count;
+        recordLatency(readPosition + count);
+        return count;
+    }
+
+    /**
+     * Mark the current read position. The bytes read from now on are kept in
+     * the ring until the next mark, and are read again after
+     * {@link #reset()}.
+     */
+    public void mark() {
+        mMarkPosition = mReadPosition;
+    }
+
+    /**
+     * Go back to the marked read position.
+     *
+     * @throws IOException if the buffer was never marked.
+     */
+    public void reset() throws IOException {
+        final long markPosition = mMarkPosition;
+        if (markPosition < 0) {
+            throw new IOException("Audio buffer was not marked");
+        }
+        mReadPosition = markPosition;
+    }
+
+    /**
+     * Close the buffer. The reader gets the remaining bytes and then end of
+     * stream.
+     */
+    public void close() {
+        mClosed = true;
+        LockSupport.unpark(mWaitingReader);
+    }
+
+    /**
+     * Get the number of bytes waiting to be read.
+     *
+     * @return the number of buffered bytes.
+     */
+    public int getBufferedBytes() {
+        return (int) (mWritePosition - mReadPosition);
+    }
+
+    /**
+     * Get the average time audio waited in the buffer before being read.
+     *
+     * @return the average latency in milliseconds.
+     */
+    public double getAverageLatencyMillis() {
+        final long samples = mLatencySamples.get();
+        return samples == 0 ? 0 : mTotalLatencyNanos.get() / (double) samples
+                / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Get the longest time audio waited in the buffer before being read.
+     *
+     * @return the maximum latency in milliseconds.
+     */
+    public double getMaxLatencyMillis() {
+        return mMaxLatencyNanos.get() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    private void recordTimestamp(final long endPosition) {
+        final long written = mTimestampsWritten;
+        // Measurement is sampled: writes are not timed while the reader is behind.
+        if (written - mTimestampsRead < MAX_TIMESTAMPS) {
+            final int index = (int) (written % MAX_TIMESTAMPS);
+            mTimestampPositions[index] = endPosition;
+            mTimestampNanos[index] = System.nanoTime();
+            mTimestampsWritten = written + 1;
+        }
+    }
+
+    private void recordLatency(final long readPosition) {
+        final long written = mTimestampsWritten;
+        final long now = System.nanoTime();
+        long timestampsRead = mTimestampsRead;
+        while (timestampsRead < written) {
+            final int index = (int) (timestampsRead % MAX_TIMESTAMPS);
+            if (mTimestampPositions[index] > readPosition) {
+                break;
+            }
+            final long latency = now - mTimestampNanos[index];
+            mLatencySamples.incrementAndGet();
+            mTotalLatencyNanos.addAndGet(latency);
+            long max;
+            do {
+                max = mMaxLatencyNanos.get();
+            } while (latency > max && !mMaxLatencyNanos.compareAndSet(max, latency));
+            timestampsRead++;
+        }
+        mTimestampsRead = timestampsRead;
+    }
+}
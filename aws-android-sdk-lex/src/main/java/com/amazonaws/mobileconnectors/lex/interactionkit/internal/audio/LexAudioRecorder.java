@@ -28,8 +28,7 @@ import com.google.common.base.Preconditions;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.PipedInputStream;
-import java.io.PipedOutputStream;
+import java.io.OutputStream;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -60,14 +59,14 @@ public class LexAudioRecorder extends AudioRecorder implements ChunkedAudioSourc
     private long mRecordStartTime;
 
     /**
-     * Stream to be read by wake word service.
+     * Buffer between the recording thread and the thread uploading the audio.
      */
-    private PipedInputStream mConsumerStream;
+    private AudioRingBuffer mAudioBuffer;
 
     /**
-     * Stream used to output recorded audio.
+     * Reused to hold the encoded bytes of each recorded sample buffer.
      */
-    private PipedOutputStream mProducerStream;
+    private byte[] mEncodedBuffer = new byte[0];
 
     /**
      * The state of the audio recorder before recording the next sample.
@@ -179,7 +178,7 @@ public class LexAudioRecorder extends AudioRecorder implements ChunkedAudioSourc
 
     @Override
     public InputStream getConsumerStream() {
-        return mConsumerStream;
+        return mAudioBuffer.getInputStream();
     }
 
     /**
@@ -188,18 +187,21 @@ public class LexAudioRecorder extends AudioRecorder implements ChunkedAudioSourc
      * @throws AudioSourceException thrown if failed to open consumer stream.
      */
     protected void setupStreamPipe() throws AudioSourceException {
-        // Calculate pipe size.
+        // Calculate pipe size. Writes to the pipe never block, so it must hold
+        // all the audio that can be recorded, rounded up, plus a second of slack
+        // for the samples recorded while the timeouts are handled.
         final int maxTotalAudioLengthInMills = mAudioTimeouts.getNoSpeechTimeout()
                 + mAudioTimeouts.getMaxSpeechTimeout();
+        final int maxTotalAudioLengthInSeconds = (int) TimeUnit.MILLISECONDS.toSeconds(
+                maxTotalAudioLengthInMills) + 2;
         final int pipeSize = AudioRecorder.DEFAULT_SAMPLE_RATE
-                * (int) TimeUnit.MILLISECONDS.toSeconds(maxTotalAudioLengthInMills)
+                * maxTotalAudioLengthInSeconds
                 * (SAMPLE_SIZE / Byte.SIZE);
 
         // Set up the audio stream pipe.
-        mProducerStream = new PipedOutputStream();
         try {
-            mConsumerStream = new PipedInputStream(mProducerStream, pipeSize);
-        } catch (final IOException e) {
+            mAudioBuffer = new AudioRingBuffer(pipeSize);
+        } catch (final IllegalArgumentException e) {
             throw new AudioSourceException("Error openning consumer stream", e);
         }
     }
@@ -258,11 +260,14 @@ public class LexAudioRecorder extends AudioRecorder implements ChunkedAudioSourc
             currentState = mVAD.processSamples(buffer, numSamplesRead);
 
             // Encode audio for sending to service.
-            final byte[] compressedBuffer = mAudioEncoder.encode(buffer, numSamplesRead);
+            final int maxEncodedSize = mAudioEncoder.getMaxEncodedSize(numSamplesRead);
+            if (mEncodedBuffer.length < maxEncodedSize) {
+                mEncodedBuffer = new byte[maxEncodedSize];
+            }
+            final int encodedSize = mAudioEncoder.encode(buffer, numSamplesRead, mEncodedBuffer, 0);
 
             try {
-                mProducerStream.write(compressedBuffer, 0, compressedBuffer.length);
-                mProducerStream.flush();
+                mAudioBuffer.write(mEncodedBuffer, 0, encodedSize);
             } catch (final IOException e) {
                 throw new AudioSourceException(
                         "Error writing to audio upload output stream", e);
@@ -314,8 +319,10 @@ public class LexAudioRecorder extends AudioRecorder implements ChunkedAudioSourc
      */
     @Override
     protected void cleanUpUtilityComponents() throws IOException {
-        mProducerStream.close();
+        mAudioBuffer.close();
         Log.v(TAG, "Released producer stream");
+        Log.d(TAG, String.format("Audio buffer latency avg %.2f ms, max %.2f ms",
+                mAudioBuffer.getAverageLatencyMillis(), mAudioBuffer.getMaxLatencyMillis()));
 
         mAudioEncoder.close();
         Log.v(TAG, "Clean up audio encoder");
@@ -326,8 +333,8 @@ public class LexAudioRecorder extends AudioRecorder implements ChunkedAudioSourc
      *
      * @return the producer stream.
      */
-    PipedOutputStream getProducerStream() {
-        return mProducerStream;
+    OutputStream getProducerStream() {
+        return mAudioBuffer.getOutputStream();
     }
 
     /**
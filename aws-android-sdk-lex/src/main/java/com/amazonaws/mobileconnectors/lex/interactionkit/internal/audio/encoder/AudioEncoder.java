@@ -34,6 +34,31 @@ public interface AudioEncoder extends Closeable {
      */
     byte[] encode(short[] samples, int numSamples) throws AudioEncoderException;
 
+    /**
+     * Encode PCM samples into a caller supplied buffer, avoiding a new array
+     * per call.
+     *
+     * @param samples the samples to compress.
+     * @param numSamples the number of samples int the buffer to compress.
+     * @param output the buffer to write the compressed audio bytes to, must
+     *            have at least {@link #getMaxEncodedSize(int)} bytes after
+     *            outputOffset.
+     * @param outputOffset the offset in the output buffer.
+     * @return the number of bytes written to the output buffer.
+     * @throws AudioEncoderException when there's an error encoding the audio.
+     */
+    int encode(short[] samples, int numSamples, byte[] output, int outputOffset)
+            throws AudioEncoderException;
+
+    /**
+     * Get the maximum number of bytes the next call to encode can produce for
+     * the given number of samples.
+     *
+     * @param numSamples the number of samples to encode.
+     * @return the maximum encoded size in bytes.
+     */
+    int getMaxEncodedSize(int numSamples);
+
     /**
      * The MediaType of the compressed audio.
      *
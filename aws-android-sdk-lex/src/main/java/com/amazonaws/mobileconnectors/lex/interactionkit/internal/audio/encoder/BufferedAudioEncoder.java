@@ -19,8 +19,6 @@ import com.google.common.base.Preconditions;
 import com.google.common.net.MediaType;
 
 import java.nio.ShortBuffer;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * A buffering audio encoder that buffers audio and only encodes full frames of
@@ -45,54 +43,49 @@ public class BufferedAudioEncoder implements AudioEncoder {
     @Override
     public byte[] encode(final short[] samples, final int numSamples)
             throws AudioEncoderException {
+        final byte[] buffer = new byte[getMaxEncodedSize(numSamples)];
+        final int encoded = encode(samples, numSamples, buffer, 0);
+        if (encoded == buffer.length) {
+            return buffer;
+        }
+        final byte[] result = new byte[encoded];
+        System.arraycopy(buffer, 0, result, 0, encoded);
+        return result;
+    }
+
+    @Override
+    public int encode(final short[] samples, final int numSamples, final byte[] output,
+            final int outputOffset) throws AudioEncoderException {
         Preconditions.checkArgument(samples.length >= numSamples,
                 "Number of samples cannot exceed buffer size");
+        Preconditions.checkArgument(output.length - outputOffset >= getMaxEncodedSize(numSamples),
+                "Output buffer is too small");
 
         int samplesProcessed = 0;
-        int toWrite = 0;
-
-        final List<byte[]> encodedBytesList = new ArrayList<byte[]>();
-        final short[] buffer = new short[mSamplesBuffer.capacity()];
+        int offset = outputOffset;
 
         // Loop while there are enough samples to fill the buffer.
         while (mSamplesBuffer.remaining() <= numSamples - samplesProcessed) {
             // Copy samples into buffer.
-            toWrite = mSamplesBuffer.remaining();
-            System.arraycopy(samples, samplesProcessed, buffer, 0, toWrite);
-
-            mSamplesBuffer.put(buffer, 0, toWrite);
+            final int toWrite = mSamplesBuffer.remaining();
+            mSamplesBuffer.put(samples, samplesProcessed, toWrite);
             samplesProcessed += toWrite;
 
             // Process samples.
-            encodedBytesList
-                    .add(mEncoder.encode(mSamplesBuffer.array(), mSamplesBuffer.capacity()));
+            offset += mEncoder.encode(mSamplesBuffer.array(), mSamplesBuffer.capacity(), output,
+                    offset);
             mSamplesBuffer.clear();
         }
 
         // If any samples remain, copy into buffer.
         mSamplesBuffer.put(samples, samplesProcessed, numSamples - samplesProcessed);
-        return concatenateBytes(encodedBytesList);
+        return offset - outputOffset;
     }
 
-    /**
-     * Concatenate a list of byte arrays into one array.
-     *
-     * @param byteList the list of byte arrays.
-     * @return the concatenated byte array.
-     */
-    private byte[] concatenateBytes(final List<byte[]> byteList) {
-        int size = 0;
-        for (final byte[] byteArray : byteList) {
-            size += byteArray.length;
-        }
-
-        final byte[] concatenatedByteArray = new byte[size];
-        int offset = 0;
-        for (final byte[] byteArray : byteList) {
-            System.arraycopy(byteArray, 0, concatenatedByteArray, offset, byteArray.length);
-            offset += byteArray.length;
-        }
-        return concatenatedByteArray;
+    @Override
+    public int getMaxEncodedSize(final int numSamples) {
+        final int frames = (mSamplesBuffer.position() + numSamples) / mSamplesBuffer.capacity();
+        return frames * mEncoder.getMaxEncodedSize(mSamplesBuffer.capacity());
     }
 
     @Override
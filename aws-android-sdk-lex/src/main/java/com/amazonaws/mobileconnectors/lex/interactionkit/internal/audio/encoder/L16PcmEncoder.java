@@ -36,23 +36,45 @@ public class L16PcmEncoder implements AudioEncoder {
      */
     private static final MediaType MEDIA_TYPE = MediaType.parse("audio/x-l16");
 
+    /**
+     * Whether samples are written least significant byte first.
+     */
+    private static final boolean LITTLE_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+
     @Override
     public byte[] encode(final short[] samples, final int numSamples)
             throws AudioEncoderException {
+        final byte[] buffer = new byte[getMaxEncodedSize(numSamples)];
+        encode(samples, numSamples, buffer, 0);
+        return buffer;
+    }
+
+    @Override
+    public int encode(final short[] samples, final int numSamples, final byte[] output,
+            final int outputOffset) throws AudioEncoderException {
         Preconditions.checkArgument(samples.length >= numSamples,
                 "Sample buffer length must be at least as long as numSamples");
-        final byte[] buffer = new byte[numSamples * 2];
-        for (int i = 0; i < numSamples; i++) {
-            // One sample is two bytes.
-            if (ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN) {
-                buffer[i * 2] = (byte) (samples[i] & 0xff);
-                buffer[i * 2 + 1] = (byte) ((samples[i] >> Byte.SIZE) & 0xff);
-            } else {
-                buffer[i * 2] = (byte) ((samples[i] >> Byte.SIZE) & 0xff);
-                buffer[i * 2 + 1] = (byte) (samples[i] & 0xff);
+        Preconditions.checkArgument(output.length - outputOffset >= getMaxEncodedSize(numSamples),
+                "Output buffer is too small");
+        int offset = outputOffset;
+        // One sample is two bytes.
+        if (LITTLE_ENDIAN) {
+            for (int i = 0; i < numSamples; i++) {
+                output[offset++] = (byte) (samples[i] & 0xff);
+                output[offset++] = (byte) ((samples[i] >> Byte.SIZE) & 0xff);
+            }
+        } else {
+            for (int i = 0; i < numSamples; i++) {
+                output[offset++] = (byte) ((samples[i] >> Byte.SIZE) & 0xff);
+                output[offset++] = (byte) (samples[i] & 0xff);
             }
         }
-        return buffer;
+        return offset - outputOffset;
+    }
+
+    @Override
+    public int getMaxEncodedSize(final int numSamples) {
+        return numSamples * 2;
     }
 
     @Override
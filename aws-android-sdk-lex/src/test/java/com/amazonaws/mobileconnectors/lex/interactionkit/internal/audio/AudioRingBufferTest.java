@@ -0,0 +1,144 @@
+/*
+ * Copyright 2017-2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.lex.interactionkit.internal.audio;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.http.HttpClient;
+import com.amazonaws.http.HttpRequest;
+import com.amazonaws.http.HttpResponse;
+import com.amazonaws.internal.StaticCredentialsProvider;
+import com.amazonaws.services.lexrts.AmazonLexRuntimeClient;
+import com.amazonaws.services.lexrts.model.PostContentRequest;
+import com.amazonaws.util.IOUtils;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+public class AudioRingBufferTest {
+
+    private static final byte[] AUDIO = "0123456789".getBytes();
+
+    /**
+     * Fails the first request with a server error, or with an exception if
+     * failWithException is set, and accepts the next one. Keeps the content of
+     * every request.
+     */
+    private static class FlakyHttpClient implements HttpClient {
+        private final boolean failWithException;
+        final List<byte[]> contents = new ArrayList<byte[]>();
+
+        FlakyHttpClient(boolean failWithException) {
+            this.failWithException = failWithException;
+        }
+
+        @Override
+        public HttpResponse execute(HttpRequest request) throws IOException {
+            contents.add(IOUtils.toByteArray(request.getContent()));
+            if (contents.size() > 1) {
+                return HttpResponse.builder().statusCode(200)
+                        .content(new ByteArrayInputStream(new byte[0])).build();
+            }
+            if (failWithException) {
+                throw new IOException("Connection reset");
+            }
+            return HttpResponse.builder().statusCode(500).statusText("Internal Server Error")
+                    .header("x-amzn-ErrorType", "InternalFailureException")
+                    .content(new ByteArrayInputStream("{\"message\":\"BOOM\"}".getBytes()))
+                    .build();
+        }
+
+        @Override
+        public void shutdown() {
+        }
+    }
+
+    private static AudioRingBuffer newRecordedBuffer() throws IOException {
+        final AudioRingBuffer buffer = new AudioRingBuffer(AUDIO.length);
+        buffer.write(AUDIO, 0, AUDIO.length);
+        buffer.close();
+        return buffer;
+    }
+
+    @Test
+    public void testResetReadsTheAudioAgain() throws IOException {
+        final InputStream in = newRecordedBuffer().getInputStream();
+
+        assertTrue(in.markSupported());
+        in.mark(-1);
+        assertArrayEquals(AUDIO, IOUtils.toByteArray(in));
+        in.reset();
+        assertArrayEquals(AUDIO, IOUtils.toByteArray(in));
+    }
+
+    @Test
+    public void testMarkedAudioIsNotOverwritten() throws IOException {
+        final AudioRingBuffer buffer = new AudioRingBuffer(AUDIO.length);
+        buffer.getInputStream().mark(-1);
+        buffer.write(AUDIO, 0, AUDIO.length);
+        final byte[] read = new byte[AUDIO.length];
+        assertEquals(AUDIO.length, buffer.read(read, 0, read.length));
+
+        try {
+            buffer.write(AUDIO, 0, 1);
+            fail("Expected IOException");
+        } catch (final IOException e) {
+            // the ring still holds the marked audio
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testResetWithoutMark() throws IOException {
+        newRecordedBuffer().getInputStream().reset();
+    }
+
+    @Test
+    public void testPostContentIsRetriedAfterServerError() throws IOException {
+        assertPostContentIsRetried(new FlakyHttpClient(false));
+    }
+
+    @Test
+    public void testPostContentIsRetriedAfterIOException() throws IOException {
+        assertPostContentIsRetried(new FlakyHttpClient(true));
+    }
+
+    private void assertPostContentIsRetried(FlakyHttpClient httpClient) throws IOException {
+        final AmazonLexRuntimeClient client = new AmazonLexRuntimeClient(
+                new StaticCredentialsProvider(new BasicAWSCredentials("access", "secret")),
+                new ClientConfiguration(), httpClient);
+
+        client.postContent(new PostContentRequest()
+                .withBotName("bot")
+                .withBotAlias("alias")
+                .withUserId("user")
+                .withContentType("audio/l16; rate=16000; channels=1")
+                .withInputStream(newRecordedBuffer().getInputStream()));
+
+        assertEquals(2, httpClient.contents.size());
+        assertArrayEquals(AUDIO, httpClient.contents.get(0));
+        assertArrayEquals(AUDIO, httpClient.contents.get(1));
+    }
+}
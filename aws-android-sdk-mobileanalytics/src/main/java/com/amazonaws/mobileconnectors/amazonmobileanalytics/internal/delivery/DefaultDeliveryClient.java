@@ -37,12 +37,18 @@ import org.json.JSONObject;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 /**
  * @deprecated The Amazon Mobile Analytics SDK for Android is deprecated as of release 2.9.0. Please use the Amazon Pinpoint SDK for Android along with Amazon Pinpoint service instead.
@@ -55,8 +61,9 @@ public class DefaultDeliveryClient implements DeliveryClient {
             + VersionInfoUtils.getVersion();
 
     private static final String TAG = "DefaultDeliveryClient";
-    private final static int MAX_EVENT_OPERATIONS = 1000;
+    final static int MAX_EVENT_OPERATIONS = 1000;
     private final static int MAX_SUBMIT_OPERATIONS = 100;
+    private final static int MAX_EVENTS_PER_APPEND = 100;
     private static final int CLIPPED_EVENT_LENGTH = 5;
     static final String KEY_MAX_SUBMISSION_SIZE = "maxSubmissionSize";
     static final long DEFAULT_MAX_SUBMISSION_SIZE = 1024 * 100;
@@ -64,6 +71,25 @@ public class DefaultDeliveryClient implements DeliveryClient {
     static final int DEFAULT_MAX_SUBMISSIONS_ALLOWED = 3;
     static final Set<Integer> RETRY_REQUEST_CODES;
 
+    /**
+     * What happens to an event recorded while MAX_EVENT_OPERATIONS events are
+     * already waiting to be stored: BACKPRESSURE_SPILL hands it to the store
+     * task through an overflow queue of up to MAX_SPILLED_EVENTS events,
+     * BACKPRESSURE_BLOCK waits for room in the queue before spilling it,
+     * BACKPRESSURE_SAMPLE spills one event out of KEY_BACKPRESSURE_SAMPLE_RATE
+     * and sheds the others. Events beyond MAX_SPILLED_EVENTS are shed.
+     */
+    static final String KEY_BACKPRESSURE_POLICY = "eventBackpressurePolicy";
+    static final String BACKPRESSURE_SPILL = "spill";
+    static final String BACKPRESSURE_BLOCK = "block";
+    static final String BACKPRESSURE_SAMPLE = "sample";
+    static final String DEFAULT_BACKPRESSURE_POLICY = BACKPRESSURE_SPILL;
+    static final String KEY_BACKPRESSURE_BLOCK_MILLIS = "eventBackpressureBlockMillis";
+    static final long DEFAULT_BACKPRESSURE_BLOCK_MILLIS = 100L;
+    static final String KEY_BACKPRESSURE_SAMPLE_RATE = "eventBackpressureSampleRate";
+    static final int DEFAULT_BACKPRESSURE_SAMPLE_RATE = 10;
+    static final int MAX_SPILLED_EVENTS = MAX_EVENT_OPERATIONS * 10;
+
     private final DefaultDeliveryPolicyFactory policyFactory;
     private final ExecutorService eventsRunnableQueue;
     private final ExecutorService submissionRunnableQueue;
@@ -72,7 +98,23 @@ public class DefaultDeliveryClient implements DeliveryClient {
     private final EventStore eventStore;
     private final EventAdapter<JSONObject> eventAdapter;
     private final AtomicLong avgWriteEventTimeMillis = new AtomicLong(25L);
-    private final AtomicLong eventsProcessed = new AtomicLong(0L);
+    private final BlockingQueue<InternalEvent> pendingEvents = new LinkedBlockingQueue<InternalEvent>(
+            MAX_EVENT_OPERATIONS);
+    private final Queue<InternalEvent> spilledEvents = new ConcurrentLinkedQueue<InternalEvent>();
+    private final AtomicInteger spilledEventCount = new AtomicInteger(0);
+    private final AtomicBoolean storeScheduled = new AtomicBoolean(false);
+    private final Runnable storePendingEventsRunnable = new Runnable() {
+        @Override
+        public void run() {
+            // Events queued from now on schedule another run.
+            storeScheduled.set(false);
+            storePendingEvents();
+        }
+    };
+    private final AtomicLong eventsAccepted = new AtomicLong(0L);
+    private final AtomicLong eventsCoalesced = new AtomicLong(0L);
+    private final AtomicLong eventsShed = new AtomicLong(0L);
+    private final AtomicLong eventsOverflowed = new AtomicLong(0L);
 
     private long lastAttemptTime = 0;
 
@@ -87,11 +129,11 @@ public class DefaultDeliveryClient implements DeliveryClient {
     public static DefaultDeliveryClient newInstance(AnalyticsContext context,
             boolean allowWANDelivery) {
 
-        // create a service that is single threaded and only allows
-        // MAX_OPERATIONS to be enqueued at one time
+        // create a service that is single threaded; events wait in
+        // pendingEvents, so it only runs a few tasks at a time. Tasks are
+        // never run on the recording thread.
         ExecutorService eventsExService = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
-                new LinkedBlockingQueue<Runnable>(
-                        MAX_EVENT_OPERATIONS), new ThreadPoolExecutor.DiscardPolicy());
+                new LinkedBlockingQueue<Runnable>(MAX_EVENT_OPERATIONS));
         ExecutorService submissionsExService = new ThreadPoolExecutor(1, 1, 0L,
                 TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(
                         MAX_SUBMIT_OPERATIONS), new ThreadPoolExecutor.DiscardPolicy());
@@ -125,51 +167,174 @@ public class DefaultDeliveryClient implements DeliveryClient {
 
     @Override
     public void enqueueEventForDelivery(final InternalEvent event) {
-        final long startEnqueueTimeMillis = System.currentTimeMillis();
-        final long origEventsProcessed = eventsProcessed.get();
-        eventsRunnableQueue.execute(new Runnable() {
-            @Override
-            public void run() {
-                long start = System.currentTimeMillis();
-                try {
-                    boolean eventStored = eventStore.put(eventAdapter.translateFromEvent(event)
-                            .toString());
-                    // log that an event has been recorded
-                    if (eventStored) {
-                        Log.i(TAG, String.format("Event: '%s' recorded to local filestore",
-                                StringUtil.clipString(event.getEventType(), CLIPPED_EVENT_LENGTH,
-                                        true)));
-                        Log.d(TAG, String.format("Time of enqueueEventForDelivery: %d",
-                                System.currentTimeMillis() - start));
-                    } else {
-                        Log.w(TAG, String.format(
-                                "Event: '%s' failed to record to local filestore",
-                                StringUtil.clipString(event.getEventType(), CLIPPED_EVENT_LENGTH,
-                                        true)));
-                    }
-                } catch (EventStoreException e) {
-                    Log.w(TAG,
-                            String.format("Event: '%s' failed to record to local filestore",
-                                    StringUtil.clipString(event.getEventType(),
-                                            CLIPPED_EVENT_LENGTH, true)));
-                } finally {
-                    calculateAndSetAverageWriteEventTime(origEventsProcessed,
-                            startEnqueueTimeMillis);
+        if (pendingEvents.offer(event)) {
+            eventsAccepted.incrementAndGet();
+            scheduleStore();
+        } else {
+            handleBackpressure(event);
+        }
+    }
+
+    private void scheduleStore() {
+        if (storeScheduled.compareAndSet(false, true)) {
+            try {
+                eventsRunnableQueue.execute(storePendingEventsRunnable);
+            } catch (RejectedExecutionException e) {
+                // the events stay queued for the next store
+                storeScheduled.set(false);
+                Log.w(TAG, "Unable to schedule storing the recorded events", e);
+            }
+        }
+    }
+
+    /**
+     * @return the number of events taken in for delivery, queued or spilled.
+     */
+    public long getAcceptedEventCount() {
+        return eventsAccepted.get();
+    }
+
+    /**
+     * @return the number of events appended to the event store together with
+     *         the previous event of their batch, in the same write.
+     */
+    public long getCoalescedEventCount() {
+        return eventsCoalesced.get();
+    }
+
+    /**
+     * @return the number of events dropped because too many events were
+     *         waiting to be stored.
+     */
+    public long getShedEventCount() {
+        return eventsShed.get();
+    }
+
+    private void handleBackpressure(final InternalEvent event) {
+        final String policy = optString(KEY_BACKPRESSURE_POLICY, DEFAULT_BACKPRESSURE_POLICY);
+        if (BACKPRESSURE_BLOCK.equals(policy)) {
+            try {
+                if (pendingEvents.offer(event, optLong(KEY_BACKPRESSURE_BLOCK_MILLIS,
+                        DEFAULT_BACKPRESSURE_BLOCK_MILLIS), TimeUnit.MILLISECONDS)) {
+                    // The queue is full, so a store is already scheduled.
+                    eventsAccepted.incrementAndGet();
+                    return;
                 }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
-        });
+        } else if (BACKPRESSURE_SAMPLE.equals(policy)) {
+            final int sampleRate = Math.max(1, optInt(KEY_BACKPRESSURE_SAMPLE_RATE,
+                    DEFAULT_BACKPRESSURE_SAMPLE_RATE));
+            if (eventsOverflowed.incrementAndGet() % sampleRate != 0) {
+                eventsShed.incrementAndGet();
+                Log.w(TAG, String.format("Event: '%s' shed, too many events waiting to be stored",
+                        StringUtil.clipString(event.getEventType(), CLIPPED_EVENT_LENGTH, true)));
+                return;
+            }
+        }
+
+        // Spills the event to the store task without touching the store here.
+        if (spilledEventCount.incrementAndGet() > MAX_SPILLED_EVENTS) {
+            spilledEventCount.decrementAndGet();
+            eventsShed.incrementAndGet();
+            Log.w(TAG, String.format("Event: '%s' shed, too many events waiting to be stored",
+                    StringUtil.clipString(event.getEventType(), CLIPPED_EVENT_LENGTH, true)));
+            return;
+        }
+        spilledEvents.offer(event);
+        eventsAccepted.incrementAndGet();
+        scheduleStore();
     }
 
-    private void calculateAndSetAverageWriteEventTime(long origEventsProcessed,
-            long enqueueTimeMillis) {
-        long currentEventsProcessed = eventsProcessed.addAndGet(1L);
-        long eventsWrittenDelta = currentEventsProcessed - origEventsProcessed;
-        long durationInMillis = System.currentTimeMillis() - enqueueTimeMillis;
-        double decimalAvg = (double) durationInMillis / (double) eventsWrittenDelta;
-        long avg = (long) Math.ceil(decimalAvg);
+    /**
+     * Stores the queued events, then the spilled ones, appending up to
+     * MAX_EVENTS_PER_APPEND events in each write.
+     */
+    void storePendingEvents() {
+        final List<InternalEvent> batch = new ArrayList<InternalEvent>();
+        while (true) {
+            pendingEvents.drainTo(batch, MAX_EVENTS_PER_APPEND);
+            InternalEvent spilled;
+            while (batch.size() < MAX_EVENTS_PER_APPEND
+                    && (spilled = spilledEvents.poll()) != null) {
+                spilledEventCount.decrementAndGet();
+                batch.add(spilled);
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            storeEvents(batch);
+            batch.clear();
+        }
+    }
+
+    private void storeEvents(final List<InternalEvent> events) {
+        final long start = System.currentTimeMillis();
+        final List<String> eventTypes = new ArrayList<String>(events.size());
+        final List<String> serializedEvents = new ArrayList<String>(events.size());
+        for (final InternalEvent event : events) {
+            final String eventType = StringUtil.clipString(event.getEventType(),
+                    CLIPPED_EVENT_LENGTH, true);
+            try {
+                serializedEvents.add(eventAdapter.translateFromEvent(event).toString());
+                eventTypes.add(eventType);
+            } catch (RuntimeException e) {
+                // one bad event does not fail the whole batch
+                Log.w(TAG, String.format("Event: '%s' failed to record to local filestore",
+                        eventType), e);
+            }
+        }
+
+        int stored = 0;
+        try {
+            if (!serializedEvents.isEmpty()) {
+                stored = eventStore.put(serializedEvents);
+            }
+        } catch (EventStoreException e) {
+            Log.w(TAG, "Events failed to record to local filestore", e);
+        }
+        if (stored > 1) {
+            eventsCoalesced.addAndGet(stored - 1);
+        }
+
+        // log the events that have been recorded
+        for (int i = 0; i < eventTypes.size(); i++) {
+            if (i < stored) {
+                Log.i(TAG, String.format("Event: '%s' recorded to local filestore",
+                        eventTypes.get(i)));
+            } else {
+                Log.w(TAG, String.format("Event: '%s' failed to record to local filestore",
+                        eventTypes.get(i)));
+            }
+        }
+        final long duration = System.currentTimeMillis() - start;
+        Log.d(TAG, String.format("Time of enqueueEventForDelivery: %d", duration));
+        calculateAndSetAverageWriteEventTime(events.size(), duration);
+    }
+
+    private void calculateAndSetAverageWriteEventTime(int events, long durationInMillis) {
+        double decimalAvg = (double) durationInMillis / (double) events;
+        // at least 1 millisecond, to still wait for events being stored
+        long avg = Math.max(1L, (long) Math.ceil(decimalAvg));
         avgWriteEventTimeMillis.set(avg);
     }
 
+    private String optString(String key, String defaultValue) {
+        final String value = context.getConfiguration().optString(key, defaultValue);
+        return value != null ? value : defaultValue;
+    }
+
+    private long optLong(String key, long defaultValue) {
+        final Long value = context.getConfiguration().optLong(key, defaultValue);
+        return value != null ? value : defaultValue;
+    }
+
+    private int optInt(String key, int defaultValue) {
+        final Integer value = context.getConfiguration().optInt(key, defaultValue);
+        return value != null ? value : defaultValue;
+    }
+
     private long getSubmissionLatchWaitTime() {
         // 1.5 is a buffer to allow more time since this is based on an average
         return (long) (avgWriteEventTimeMillis.get() * MAX_EVENT_OPERATIONS * 1.5);
@@ -240,13 +405,19 @@ public class DefaultDeliveryClient implements DeliveryClient {
             lastAttemptTime = System.currentTimeMillis();
 
             final CountDownLatch submitWaitLatch = new CountDownLatch(1);
-            eventsRunnableQueue.execute(new Runnable() {
-                @Override
-                public void run() {
-
-                    submitWaitLatch.countDown();
-                }
-            });
+            try {
+                eventsRunnableQueue.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        // store the events recorded before this attempt
+                        storePendingEvents();
+                        submitWaitLatch.countDown();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // submit what is already stored
+                submitWaitLatch.countDown();
+            }
 
             submissionRunnableQueue.execute(new Runnable() {
 
@@ -16,6 +16,7 @@
 package com.amazonaws.mobileconnectors.amazonmobileanalytics.internal.delivery;
 
 import java.util.Iterator;
+import java.util.List;
 /**
  * @deprecated The Amazon Mobile Analytics SDK for Android is deprecated as of release 2.9.0. Please use the Amazon Pinpoint SDK for Android along with Amazon Pinpoint service instead.
  */
@@ -23,6 +24,16 @@ import java.util.Iterator;
 public interface EventStore {
     public boolean put(final String event) throws EventStoreException;
 
+    /**
+     * Appends the events in order, in a single write.
+     *
+     * @param events the serialized events.
+     * @return the number of events stored, from the start of the list; the
+     *         others did not fit in the store or failed to be written.
+     * @throws EventStoreException if the store can't be opened.
+     */
+    public int put(final List<String> events) throws EventStoreException;
+
     public EventIterator iterator();
 
     public static interface EventIterator extends Iterator<String> {
@@ -33,6 +33,8 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.Writer;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.locks.ReentrantLock;
 /**
  * @deprecated The Amazon Mobile Analytics SDK for Android is deprecated as of release 2.9.0. Please use the Amazon Pinpoint SDK for Android along with Amazon Pinpoint service instead.
@@ -44,6 +46,8 @@ public class FileEventStore implements EventStore {
     static final String EVENT_FILE_NAME = "eventsFile";
     static final String KEY_MAX_STORAGE_SIZE = "maxStorageSize";
     static final double ERROR_LENGTH_THRESHOLD_PERCENTAGE = 1.1;
+    /** characters written between flushes, to know how many events made it to the file */
+    private static final int FLUSH_CHARS = 8 * 1024;
     private final ReentrantLock accessLock = new ReentrantLock(true);
 
     static long MAX_STORAGE_SIZE = 1024 * 1024 * 5L;
@@ -62,7 +66,12 @@ public class FileEventStore implements EventStore {
 
     @Override
     public boolean put(final String event) throws EventStoreException {
-        boolean success = false;
+        return put(Collections.singletonList(event)) == 1;
+    }
+
+    @Override
+    public int put(final List<String> events) throws EventStoreException {
+        int stored = 0;
         BufferedWriter writer = null;
 
         accessLock.lock();
@@ -71,21 +80,35 @@ public class FileEventStore implements EventStore {
             if (writer != null) {
                 final long maxStorageSize = context.getConfiguration().optLong(
                         KEY_MAX_STORAGE_SIZE, MAX_STORAGE_SIZE);
-                if (eventsFile.length() + event.length() <= maxStorageSize) {
+                long storageSize = eventsFile.length();
+                int written = 0;
+                int unflushedChars = 0;
+                for (final String event : events) {
+                    if (storageSize + event.length() > maxStorageSize) {
+                        break;
+                    }
                     writer.write(event);
                     writer.newLine();
-                    writer.flush();
-                    success = true;
+                    storageSize += event.length() + 1;
+                    unflushedChars += event.length() + 1;
+                    written++;
+                    if (unflushedChars >= FLUSH_CHARS) {
+                        writer.flush();
+                        stored = written;
+                        unflushedChars = 0;
+                    }
                 }
+                writer.flush();
+                stored = written;
             }
         } catch (IOException e) {
-            Log.e(TAG, "Failed to persist the event", e);
+            Log.e(TAG, "Failed to persist the events", e);
         } finally {
             tryCloseWriter(writer);
             accessLock.unlock();
         }
 
-        return success;
+        return stored;
     }
 
     private boolean tryCreateEventsFile() {
@@ -111,6 +111,14 @@ public class DefaultDeliveryClientTest extends MobileAnalyticsTestBase {
                         DefaultDeliveryClient.DEFAULT_MAX_SUBMISSIONS_ALLOWED)).thenReturn(
                 DefaultDeliveryClient.DEFAULT_MAX_SUBMISSIONS_ALLOWED);
 
+        // the event store stores all the events it is given
+        when(mockEventStore.put(any(List.class))).thenAnswer(new Answer<Integer>() {
+            @Override
+            public Integer answer(InvocationOnMock invocation) throws Throwable {
+                return ((List<?>) invocation.getArguments()[0]).size();
+            }
+        });
+
         when(mockRequest.getRequestClientOptions()).thenReturn(new RequestClientOptions());
         when(mockRequestBuilder.createRecordEventsRequest(any(JSONArray.class), any(String.class)))
                 .thenReturn(mockRequest);
@@ -135,21 +143,137 @@ public class DefaultDeliveryClientTest extends MobileAnalyticsTestBase {
         target.enqueueEventForDelivery(mockEvent);
         target.enqueueEventForDelivery(mockEvent);
 
+        // the queued events are stored by a single runnable
         ArgumentCaptor<Runnable> runnableCaptor = ArgumentCaptor.forClass(Runnable.class);
-        verify(mockEventExecutor, times(3)).execute(runnableCaptor.capture());
-        assertThat(runnableCaptor.getAllValues().size(), is(3));
+        verify(mockEventExecutor, times(1)).execute(runnableCaptor.capture());
+        assertThat(runnableCaptor.getAllValues().size(), is(1));
         for (Runnable runnable : runnableCaptor.getAllValues()) {
             runnable.run();
         }
 
         // capture the strings that were written to the event store
-        ArgumentCaptor<String> putEventCaptor = ArgumentCaptor.forClass(String.class);
-        verify(mockEventStore, times(3)).put(putEventCaptor.capture());
+        List<String> eventStrings = verifyEventsStored(1).get(0);
 
-        assertThat(putEventCaptor.getAllValues().size(), is(3));
-        for (String eventString : putEventCaptor.getAllValues()) {
+        assertThat(eventStrings.size(), is(3));
+        for (String eventString : eventStrings) {
             assertThat(eventString, is(expectedJson.toString()));
         }
+        assertThat(target.getAcceptedEventCount(), is(3L));
+        assertThat(target.getCoalescedEventCount(), is(2L));
+        assertThat(target.getShedEventCount(), is(0L));
+    }
+
+    @Test
+    public void enqueueEventForDelivery_eventsQueuedWhileStoring_scheduledAgain()
+            throws JSONException {
+        InternalEvent mockEvent = mockEvent();
+
+        target.enqueueEventForDelivery(mockEvent);
+        ArgumentCaptor<Runnable> runnableCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(mockEventExecutor, times(1)).execute(runnableCaptor.capture());
+        runnableCaptor.getValue().run();
+
+        target.enqueueEventForDelivery(mockEvent);
+        verify(mockEventExecutor, times(2)).execute(runnableCaptor.capture());
+        runnableCaptor.getValue().run();
+
+        verifyEventsStored(2);
+        assertThat(target.getAcceptedEventCount(), is(2L));
+        assertThat(target.getCoalescedEventCount(), is(0L));
+    }
+
+    @Test
+    public void enqueueEventForDelivery_queueFull_eventSpilledToStore() throws JSONException {
+        InternalEvent mockEvent = mockEvent();
+        for (int i = 0; i <= DefaultDeliveryClient.MAX_EVENT_OPERATIONS; i++) {
+            target.enqueueEventForDelivery(mockEvent);
+        }
+
+        // the last event is not stored from the calling thread
+        verifyEventsStored(0);
+        assertThat(target.getAcceptedEventCount(),
+                is(DefaultDeliveryClient.MAX_EVENT_OPERATIONS + 1L));
+        assertThat(target.getShedEventCount(), is(0L));
+
+        // the store task stores the queued events in batches, then the spilled one
+        target.storePendingEvents();
+        List<List<String>> appends = verifyEventsStored(11);
+        assertThat(appends.get(0).size(), is(100));
+        assertThat(appends.get(10).size(), is(1));
+        assertThat(target.getCoalescedEventCount(),
+                is(DefaultDeliveryClient.MAX_EVENT_OPERATIONS - 10L));
+    }
+
+    @Test
+    public void enqueueEventForDelivery_tooManySpilledEvents_eventsShed() throws JSONException {
+        InternalEvent mockEvent = mockEvent();
+        final int recorded = DefaultDeliveryClient.MAX_EVENT_OPERATIONS
+                + DefaultDeliveryClient.MAX_SPILLED_EVENTS + 3;
+        for (int i = 0; i < recorded; i++) {
+            target.enqueueEventForDelivery(mockEvent);
+        }
+
+        verifyEventsStored(0);
+        assertThat(target.getShedEventCount(), is(3L));
+        assertThat(target.getAcceptedEventCount(), is(recorded - 3L));
+    }
+
+    @Test
+    public void enqueueEventForDelivery_queueFullWithSamplePolicy_eventsShed()
+            throws JSONException {
+        when(mockConfig.optString(DefaultDeliveryClient.KEY_BACKPRESSURE_POLICY,
+                DefaultDeliveryClient.DEFAULT_BACKPRESSURE_POLICY))
+                .thenReturn(DefaultDeliveryClient.BACKPRESSURE_SAMPLE);
+        when(mockConfig.optInt(DefaultDeliveryClient.KEY_BACKPRESSURE_SAMPLE_RATE,
+                DefaultDeliveryClient.DEFAULT_BACKPRESSURE_SAMPLE_RATE)).thenReturn(2);
+        InternalEvent mockEvent = mockEvent();
+        for (int i = 0; i < DefaultDeliveryClient.MAX_EVENT_OPERATIONS + 4; i++) {
+            target.enqueueEventForDelivery(mockEvent);
+        }
+
+        // one overflowing event out of 2 is spilled
+        assertThat(target.getAcceptedEventCount(),
+                is(DefaultDeliveryClient.MAX_EVENT_OPERATIONS + 2L));
+        assertThat(target.getShedEventCount(), is(2L));
+
+        target.storePendingEvents();
+        assertThat(verifyEventsStored(11).get(10).size(), is(2));
+    }
+
+    @Test
+    public void enqueueEventForDelivery_queueFullWithBlockPolicy_eventQueuedWhenRoom()
+            throws Exception {
+        when(mockConfig.optString(DefaultDeliveryClient.KEY_BACKPRESSURE_POLICY,
+                DefaultDeliveryClient.DEFAULT_BACKPRESSURE_POLICY))
+                .thenReturn(DefaultDeliveryClient.BACKPRESSURE_BLOCK);
+        when(mockConfig.optLong(DefaultDeliveryClient.KEY_BACKPRESSURE_BLOCK_MILLIS,
+                DefaultDeliveryClient.DEFAULT_BACKPRESSURE_BLOCK_MILLIS)).thenReturn(10000L);
+        final InternalEvent mockEvent = mockEvent();
+        for (int i = 0; i < DefaultDeliveryClient.MAX_EVENT_OPERATIONS; i++) {
+            target.enqueueEventForDelivery(mockEvent);
+        }
+
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                target.enqueueEventForDelivery(mockEvent);
+            }
+        });
+        producer.start();
+        while (producer.getState() != Thread.State.TIMED_WAITING && producer.isAlive()) {
+            Thread.sleep(1);
+        }
+        target.storePendingEvents();
+        producer.join();
+        target.storePendingEvents();
+
+        // the blocked event waited in the queue instead of being spilled
+        int stored = 0;
+        for (List<String> append : verifyEventsStored(11)) {
+            stored += append.size();
+        }
+        assertThat(stored, is(DefaultDeliveryClient.MAX_EVENT_OPERATIONS + 1));
+        assertThat(target.getShedEventCount(), is(0L));
     }
 
     @Test
@@ -459,6 +583,24 @@ public class DefaultDeliveryClientTest extends MobileAnalyticsTestBase {
         }
     }
 
+    private InternalEvent mockEvent() throws JSONException {
+        InternalEvent mockEvent = mock(InternalEvent.class);
+        when(mockEvent.getEventType()).thenReturn("event_type");
+        JSONObject json = new JSONObject();
+        json.put("event_type", "event_type");
+        when(mockAdapter.translateFromEvent(mockEvent)).thenReturn(json);
+        return mockEvent;
+    }
+
+    @SuppressWarnings({
+            "unchecked", "rawtypes"
+    })
+    private List<List<String>> verifyEventsStored(int numExpectedAppends) {
+        ArgumentCaptor<List> putEventsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(mockEventStore, times(numExpectedAppends)).put(putEventsCaptor.capture());
+        return (List) putEventsCaptor.getAllValues();
+    }
+
     private DeliveryPolicy setupConnectivityPolicy(boolean returnVal) {
         DeliveryPolicy policy = mock(DeliveryPolicy.class);
         when(policy.isAllowed()).thenReturn(returnVal);
@@ -22,15 +22,14 @@ import com.amazonaws.http.HttpMethodName;
 import com.amazonaws.services.pinpointanalytics.model.Event;
 import com.amazonaws.services.pinpointanalytics.model.PutEventsRequest;
 import com.amazonaws.transform.Marshaller;
+import com.amazonaws.util.ReplayableWriterInputStream;
 import com.amazonaws.util.StringUtils;
 import com.amazonaws.util.json.AwsJsonWriter;
 import com.amazonaws.util.json.JsonUtils;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
-import java.util.zip.GZIPOutputStream;
 
 /**
  * JSON request marshaller for PutEventsRequest
@@ -39,7 +38,7 @@ public class PutEventsRequestMarshaller implements
         Marshaller<Request<PutEventsRequest>, PutEventsRequest> {
 
     @Override
-    public Request<PutEventsRequest> marshall(PutEventsRequest putEventsRequest) {
+    public Request<PutEventsRequest> marshall(final PutEventsRequest putEventsRequest) {
         if (putEventsRequest == null) {
             throw new AmazonClientException("Invalid argument passed to marshall(PutEventsRequest)");
         }
@@ -59,33 +58,15 @@ public class PutEventsRequestMarshaller implements
         final String uriResourcePath = "/2014-06-05/events";
         request.setResourcePath(uriResourcePath);
         try {
-            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            final GZIPOutputStream gos = new GZIPOutputStream(baos, 8192);
-            final Writer writer = new OutputStreamWriter(gos, StringUtils.UTF8);
-            final AwsJsonWriter jsonWriter = JsonUtils.getJsonWriter(writer);
-            jsonWriter.beginObject();
-
-            if (putEventsRequest.getEvents() != null) {
-                final java.util.List<Event> events = putEventsRequest.getEvents();
-                jsonWriter.name("events");
-                jsonWriter.beginArray();
-                for (final Event eventsItem : events) {
-                    if (eventsItem != null) {
-                        EventJsonMarshaller.getInstance().marshall(eventsItem, jsonWriter);
-                    }
-                }
-                jsonWriter.endArray();
-            }
-
-            jsonWriter.endObject();
-            jsonWriter.flush();
-            gos.finish();
-            writer.close();
-
-            final byte[] content = baos.toByteArray();
-            request.setContent(new ByteArrayInputStream(content));
-            request.addHeader("Content-Length", Integer.toString(content.length));
-            request.addHeader("Content-Encoding", "gzip");
+            final ReplayableWriterInputStream content = new ReplayableWriterInputStream(
+                    new ReplayableWriterInputStream.ContentWriter() {
+                        @Override
+                        public void writeTo(OutputStream out) throws Exception {
+                            writeContent(putEventsRequest, out);
+                        }
+                    });
+            request.setContent(content);
+            request.setCompressible(true);
         } catch (final Throwable t) {
             throw new AmazonClientException(
                     "Unable to marshall request to JSON: " + t.getMessage(), t);
@@ -96,4 +77,27 @@ public class PutEventsRequestMarshaller implements
 
         return request;
     }
+
+    private static void writeContent(PutEventsRequest putEventsRequest, OutputStream out)
+            throws Exception {
+        final Writer writer = new OutputStreamWriter(out, StringUtils.UTF8);
+        final AwsJsonWriter jsonWriter = JsonUtils.getJsonWriter(writer);
+        jsonWriter.beginObject();
+
+        if (putEventsRequest.getEvents() != null) {
+            final java.util.List<Event> events = putEventsRequest.getEvents();
+            jsonWriter.name("events");
+            jsonWriter.beginArray();
+            for (final Event eventsItem : events) {
+                if (eventsItem != null) {
+                    EventJsonMarshaller.getInstance().marshall(eventsItem, jsonWriter);
+                }
+            }
+            jsonWriter.endArray();
+        }
+
+        jsonWriter.endObject();
+        jsonWriter.flush();
+        writer.close();
+    }
 }
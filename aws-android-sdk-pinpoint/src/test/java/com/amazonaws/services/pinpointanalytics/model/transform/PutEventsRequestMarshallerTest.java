@@ -16,6 +16,7 @@
 package com.amazonaws.services.pinpointanalytics.model.transform;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import com.amazonaws.Request;
@@ -25,16 +26,15 @@ import com.amazonaws.services.pinpointanalytics.model.Session;
 import com.amazonaws.services.pinpointanalytics.model.transform.PutEventsRequestMarshaller;
 import com.amazonaws.util.DateUtils;
 import com.amazonaws.util.IOUtils;
+import com.amazonaws.util.StringUtils;
 
 import org.junit.Test;
 
-import java.io.ByteArrayInputStream;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.zip.GZIPInputStream;
 
 public class PutEventsRequestMarshallerTest {
     @Test
@@ -47,14 +47,13 @@ public class PutEventsRequestMarshallerTest {
         PutEventsRequestMarshaller marshaller = new PutEventsRequestMarshaller();
         Request<PutEventsRequest> request = marshaller.marshall(putEventsRequest);
 
-        assertEquals("content encoding", "gzip", request.getHeaders().get("Content-Encoding"));
+        assertTrue("compressed by the client", request.isCompressible());
+        assertNull("content encoding", request.getHeaders().get("Content-Encoding"));
         byte[] content = IOUtils.toByteArray(request.getContent());
-        System.out.println(content.length);
-        assertEquals("content length", request.getHeaders().get("Content-Length"),
-                String.valueOf(content.length));
-        GZIPInputStream gis = new GZIPInputStream(new ByteArrayInputStream(content));
-        String str = IOUtils.toString(gis);
-        assertTrue("data is compressed", content.length < str.length());
+        assertNull("content length, set by the client",
+                request.getHeaders().get("Content-Length"));
+        String str = new String(content, StringUtils.UTF8);
+        assertTrue("events are marshalled", str.contains("\"events\""));
     }
 
     private Event createEvent() {
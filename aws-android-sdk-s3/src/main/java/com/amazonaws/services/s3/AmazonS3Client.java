@@ -876,7 +876,8 @@ public class AmazonS3Client extends AmazonWebServiceClient implements AmazonS3 {
                 listObjectsRequest.getMaxKeys().intValue() >= 0) {
             request.addParameter("max-keys", listObjectsRequest.getMaxKeys().toString());
         }
-        return invoke(request, new Unmarshallers.ListObjectsUnmarshaller(shouldSDKDecodeResponse),
+        return invoke(request, new Unmarshallers.ListObjectsUnmarshaller(shouldSDKDecodeResponse,
+                listObjectsRequest.getObjectSummaryListener()),
                 listObjectsRequest.getBucketName(), null);
     }
 
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.services.s3.internal;
+
+import com.amazonaws.internal.SdkFilterInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Filtered input stream implementation that replaces carriage return (\r)
+ * characters of a UTF-8 encoded XML document with the XML character entity
+ * {@code &#013;} as the document is read, to prevent the SAX parser from
+ * misinterpreting 0x0D characters as 0x0A. The byte 0x0D never occurs inside
+ * a multi-byte UTF-8 sequence, so the document doesn't need to be decoded.
+ */
+public final class CarriageReturnEscapingInputStream extends SdkFilterInputStream {
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private static final byte CARRIAGE_RETURN = '\r';
+
+    private static final byte[] ESCAPED_CARRIAGE_RETURN = {
+            '&', '#', '0', '1', '3', ';'
+    };
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int limit;
+
+    /**
+     * Index of the next byte of {@link #ESCAPED_CARRIAGE_RETURN} to return, or
+     * its length if no escape is being returned.
+     */
+    private int escapePosition = ESCAPED_CARRIAGE_RETURN.length;
+
+    /**
+     * @param in The UTF-8 encoded XML document.
+     */
+    public CarriageReturnEscapingInputStream(InputStream in) {
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        final byte[] b = new byte[1];
+        final int bytesRead = read(b, 0, 1);
+        return bytesRead == -1 ? -1 : b[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+
+        int count = 0;
+        while (count < len) {
+            if (escapePosition < ESCAPED_CARRIAGE_RETURN.length) {
+                b[off + count++] = ESCAPED_CARRIAGE_RETURN[escapePosition++];
+                continue;
+            }
+
+            if (position == limit) {
+                // Don't block for more data once some has been returned.
+                if (count > 0) {
+                    break;
+                }
+                final int bytesRead = super.read(buffer, 0, buffer.length);
+                if (bytesRead == -1) {
+                    return -1;
+                }
+                position = 0;
+                limit = bytesRead;
+                continue;
+            }
+
+            // Copy the run of bytes up to the next carriage return.
+            final int end = Math.min(limit, position + len - count);
+            int runEnd = position;
+            while (runEnd < end && buffer[runEnd] != CARRIAGE_RETURN) {
+                runEnd++;
+            }
+            System.arraycopy(buffer, position, b, off + count, runEnd - position);
+            count += runEnd - position;
+            position = runEnd;
+            if (runEnd < end) {
+                position++;
+                escapePosition = 0;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (n <= 0) {
+            return 0;
+        }
+        final byte[] skipped = new byte[(int) Math.min(n, BUFFER_SIZE)];
+        long remaining = n;
+        while (remaining > 0) {
+            final int bytesRead = read(skipped, 0, (int) Math.min(remaining, skipped.length));
+            if (bytesRead == -1) {
+                break;
+            }
+            remaining -= bytesRead;
+        }
+        return n - remaining;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return ESCAPED_CARRIAGE_RETURN.length - escapePosition + limit - position
+                + in.available();
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+        // mark isn't supported
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+}
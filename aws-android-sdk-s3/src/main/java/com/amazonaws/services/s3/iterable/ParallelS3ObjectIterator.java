@@ -0,0 +1,428 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.services.s3.iterable;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.model.ListNextBatchOfObjectsRequest;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Iterates the objects of an {@link S3Objects} by listing prefix partitions
+ * concurrently.
+ * <p>
+ * A listing with a delimiter discovers the common prefixes under the prefix
+ * of the {@link S3Objects}. Each common prefix is a partition listed in full
+ * by one of a bounded number of threads, while the objects that have no
+ * common prefix come from the discovery listing itself. In ordered mode the
+ * partitions are returned one after the other in key order, which is the
+ * order of a sequential listing; otherwise summaries are returned as soon as
+ * any partition produces them.
+ * </p>
+ * <p>
+ * At most a bounded number of summaries are buffered for each partition, and
+ * the threads listing later partitions wait for room as long as the iterator
+ * is being consumed. If the iterator isn't consumed for
+ * {@link #ABANDON_TIMEOUT_MINUTES} minutes, the listing is abandoned and its
+ * threads stop.
+ * </p>
+ */
+final class ParallelS3ObjectIterator implements Iterator<S3ObjectSummary> {
+
+    /** Delimiter used to discover the partitions. */
+    static final String PARTITION_DELIMITER = "/";
+
+    /** Summaries buffered for each partition. */
+    private static final int PARTITION_CAPACITY = 1000;
+
+    static final long ABANDON_TIMEOUT_MINUTES = 5;
+
+    private static final long MAX_POLL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /** Marks the end of a partition, or of all the partitions. */
+    private static final Object END = new Object();
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private final S3Objects objects;
+    private final boolean ordered;
+    private final int partitionCapacity;
+    private final long abandonTimeoutNanos;
+    private final long pollNanos;
+    private final ThreadPoolExecutor executor;
+
+    /** Partitions in key order, ordered mode only. */
+    private final BlockingQueue<Object> partitions = new LinkedBlockingQueue<Object>();
+
+    /** All summaries, unordered mode only. */
+    private final BlockingQueue<Object> summaries;
+
+    /** Discovery and partitions still listing, unordered mode only. */
+    private final AtomicInteger activeListings = new AtomicInteger(1);
+
+    private volatile boolean abandoned = false;
+
+    /** Last time the consumer took or waited for a summary. */
+    private volatile long lastConsumedNanos;
+
+    /**
+     * Partition of the objects without a common prefix since the last common
+     * prefix, while it is open. Ordered mode and discovery thread only.
+     */
+    private BlockingQueue<Object> topLevel = null;
+
+    private boolean started = false;
+    private boolean finished = false;
+    private BlockingQueue<Object> currentPartition = null;
+    private S3ObjectSummary nextSummary = null;
+    private RuntimeException failure = null;
+
+    ParallelS3ObjectIterator(S3Objects objects, int parallelism, boolean ordered) {
+        this(objects, parallelism, ordered, PARTITION_CAPACITY,
+                TimeUnit.MINUTES.toNanos(ABANDON_TIMEOUT_MINUTES));
+    }
+
+    /**
+     * @param partitionCapacity the summaries buffered for each partition.
+     * @param abandonTimeoutNanos how long the iterator may go unconsumed
+     *            before the listing is abandoned.
+     */
+    ParallelS3ObjectIterator(S3Objects objects, int parallelism, boolean ordered,
+            int partitionCapacity, long abandonTimeoutNanos) {
+        this.objects = objects;
+        this.ordered = ordered;
+        this.partitionCapacity = partitionCapacity;
+        this.abandonTimeoutNanos = abandonTimeoutNanos;
+        this.pollNanos = Math.max(1, Math.min(MAX_POLL_NANOS, abandonTimeoutNanos / 4));
+        this.summaries = new LinkedBlockingQueue<Object>(partitionCapacity * parallelism);
+        this.executor = new ThreadPoolExecutor(parallelism, parallelism,
+                abandonTimeoutNanos, TimeUnit.NANOSECONDS, new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        final Thread thread = new Thread(runnable,
+                                "S3Objects-" + THREAD_COUNT.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return peekNextSummary() != null;
+    }
+
+    @Override
+    public S3ObjectSummary next() {
+        final S3ObjectSummary summary = peekNextSummary();
+        if (summary == null) {
+            throw new NoSuchElementException();
+        }
+        nextSummary = null;
+        return summary;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    @SuppressWarnings("unchecked")
+    private S3ObjectSummary peekNextSummary() {
+        lastConsumedNanos = System.nanoTime();
+        if (!started) {
+            started = true;
+            startDiscovery();
+        }
+        while (nextSummary == null) {
+            if (failure != null) {
+                throw failure;
+            }
+            if (finished) {
+                return null;
+            }
+
+            final Object element;
+            if (ordered) {
+                if (currentPartition == null) {
+                    final Object partition = take(partitions);
+                    if (partition == END) {
+                        finish();
+                        continue;
+                    }
+                    currentPartition = (BlockingQueue<Object>) partition;
+                }
+                element = take(currentPartition);
+                if (element == END) {
+                    currentPartition = null;
+                    continue;
+                }
+            } else {
+                element = take(summaries);
+                if (element == END) {
+                    finish();
+                    continue;
+                }
+            }
+
+            if (element instanceof RuntimeException) {
+                failure = (RuntimeException) element;
+                finish();
+            } else {
+                nextSummary = (S3ObjectSummary) element;
+            }
+        }
+        return nextSummary;
+    }
+
+    private void finish() {
+        finished = true;
+        // Stop the listings still running, e.g. after a failure.
+        abandoned = true;
+        executor.shutdownNow();
+    }
+
+    private Object take(BlockingQueue<Object> queue) {
+        try {
+            Object element;
+            while ((element = queue.poll(pollNanos, TimeUnit.NANOSECONDS)) == null) {
+                // Waiting for a partition isn't being gone.
+                lastConsumedNanos = System.nanoTime();
+                if (abandoned) {
+                    throw new AmazonClientException(
+                            "The listing was abandoned after not being consumed for "
+                                    + ABANDON_TIMEOUT_MINUTES + " minutes");
+                }
+            }
+            return element;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException("Interrupted while listing objects", e);
+        }
+    }
+
+    /**
+     * Hands an element over to the consumer, waiting for room as long as the
+     * consumer is active. In ordered mode a later partition may wait for all
+     * the earlier ones to be consumed.
+     *
+     * @throws AbandonedException if the consumer is gone.
+     */
+    private void put(BlockingQueue<Object> queue, Object element) throws InterruptedException {
+        while (!abandoned) {
+            if (queue.offer(element, pollNanos, TimeUnit.NANOSECONDS)) {
+                return;
+            }
+            if (System.nanoTime() - lastConsumedNanos > abandonTimeoutNanos) {
+                abandoned = true;
+            }
+        }
+        throw new AbandonedException();
+    }
+
+    /**
+     * Hands a failure over to the consumer, unless it is gone.
+     */
+    private void fail(BlockingQueue<Object> queue, RuntimeException failure) {
+        try {
+            put(queue, failure);
+        } catch (final AbandonedException e) {
+            // Nobody is consuming.
+        } catch (final InterruptedException e) {
+            abandoned = true;
+        }
+    }
+
+    private void startDiscovery() {
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    discover();
+                } catch (final AbandonedException e) {
+                    return;
+                } catch (final InterruptedException e) {
+                    abandoned = true;
+                    return;
+                } catch (final RuntimeException e) {
+                    fail(discoveryFailurePartition(), e);
+                } catch (final Error e) {
+                    fail(discoveryFailurePartition(),
+                            new AmazonClientException("Unable to list objects", e));
+                    throw e;
+                } finally {
+                    if (ordered) {
+                        partitions.offer(END);
+                    } else {
+                        endListing();
+                    }
+                }
+            }
+        }, "S3Objects-" + THREAD_COUNT.incrementAndGet());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Lists the top level of the prefix with the partition delimiter. Objects
+     * are returned directly; common prefixes are listed as partitions.
+     */
+    private void discover() throws InterruptedException {
+        ListObjectsRequest req = new ListObjectsRequest(objects.getBucketName(),
+                objects.getPrefix(), null, PARTITION_DELIMITER, objects.getBatchSize());
+
+        while (true) {
+            final ObjectListing listing = objects.getS3().listObjects(req);
+            final List<S3ObjectSummary> summaryList = listing.getObjectSummaries();
+            final List<String> prefixes = listing.getCommonPrefixes();
+
+            // Merge the objects and the common prefixes in key order.
+            int i = 0;
+            int j = 0;
+            while (i < summaryList.size() || j < prefixes.size()) {
+                if (j == prefixes.size() || (i < summaryList.size()
+                        && S3Objects.compareKeys(summaryList.get(i).getKey(), prefixes.get(j)) < 0)) {
+                    final S3ObjectSummary summary = summaryList.get(i++);
+                    if (!ordered) {
+                        put(summaries, summary);
+                    } else {
+                        if (topLevel == null) {
+                            topLevel = newPartition();
+                            partitions.put(topLevel);
+                        }
+                        put(topLevel, summary);
+                    }
+                } else {
+                    if (topLevel != null) {
+                        put(topLevel, END);
+                        topLevel = null;
+                    }
+                    listPartition(prefixes.get(j++));
+                }
+            }
+
+            if (!listing.isTruncated()) {
+                break;
+            }
+            req = new ListNextBatchOfObjectsRequest(listing).toListObjectsRequest();
+        }
+        if (topLevel != null) {
+            put(topLevel, END);
+            topLevel = null;
+        }
+    }
+
+    /**
+     * Returns the queue in which a failure of the discovery is next in key
+     * order: the open top level partition, which the consumer reads up to the
+     * failure, or else a new partition after all the queued ones.
+     */
+    private BlockingQueue<Object> discoveryFailurePartition() {
+        if (!ordered) {
+            return summaries;
+        }
+        if (topLevel == null) {
+            topLevel = newPartition();
+            partitions.offer(topLevel);
+        }
+        return topLevel;
+    }
+
+    private void listPartition(final String prefix) throws InterruptedException {
+        final BlockingQueue<Object> partition;
+        if (ordered) {
+            partition = newPartition();
+            partitions.put(partition);
+        } else {
+            partition = summaries;
+            activeListings.incrementAndGet();
+        }
+
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    ListObjectsRequest req = new ListObjectsRequest(objects.getBucketName(),
+                            prefix, null, null, objects.getBatchSize());
+                    while (true) {
+                        final ObjectListing listing = objects.getS3().listObjects(req);
+                        for (final S3ObjectSummary summary : listing.getObjectSummaries()) {
+                            put(partition, summary);
+                        }
+                        if (!listing.isTruncated()) {
+                            break;
+                        }
+                        req = new ListNextBatchOfObjectsRequest(listing).toListObjectsRequest();
+                    }
+                    if (ordered) {
+                        put(partition, END);
+                    }
+                } catch (final AbandonedException e) {
+                    return;
+                } catch (final InterruptedException e) {
+                    abandoned = true;
+                    return;
+                } catch (final RuntimeException e) {
+                    fail(partition, e);
+                } catch (final Error e) {
+                    fail(partition, new AmazonClientException("Unable to list objects", e));
+                    throw e;
+                } finally {
+                    if (!ordered) {
+                        endListing();
+                    }
+                }
+            }
+        });
+    }
+
+    private void endListing() {
+        if (activeListings.decrementAndGet() == 0) {
+            // The failure or the last summary may still be waiting for room.
+            try {
+                put(summaries, END);
+            } catch (final AbandonedException e) {
+                // Nobody is consuming.
+            } catch (final InterruptedException e) {
+                abandoned = true;
+            }
+        }
+    }
+
+    private BlockingQueue<Object> newPartition() {
+        return new LinkedBlockingQueue<Object>(partitionCapacity);
+    }
+
+    /**
+     * Thrown to stop listing when the consumer is gone.
+     */
+    private static final class AbandonedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+    }
+}
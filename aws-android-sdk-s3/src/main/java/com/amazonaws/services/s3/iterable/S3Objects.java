@@ -15,12 +15,19 @@
 
 package com.amazonaws.services.s3.iterable;
 
+import com.amazonaws.AmazonClientException;
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ListNextBatchOfObjectsRequest;
 import com.amazonaws.services.s3.model.ListObjectsRequest;
 import com.amazonaws.services.s3.model.ObjectListing;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.amazonaws.services.s3.model.S3ObjectSummaryListener;
 
 import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Provides an easy way to iterate Amazon S3 objects in a "foreach" statement.
@@ -34,14 +41,28 @@ import java.util.Iterator;
  * <p>
  * The list of {@link S3ObjectSummary}s will be fetched lazily, a page at a
  * time, as they are needed. The size of the page can be controlled with the
- * {@link S3Objects#withBatchSize(int)} method.
+ * {@link S3Objects#withBatchSize(int)} method. With
+ * {@link S3Objects#withStreaming(boolean)}, the summaries of a page are
+ * returned as soon as they are parsed instead of after the whole page has
+ * been received. With {@link S3Objects#withParallelism(int)}, the common
+ * prefixes under the prefix are listed concurrently, which speeds up listing
+ * large buckets organized with "/" delimited keys.
  */
 public final class S3Objects implements Iterable<S3ObjectSummary> {
 
+    /** Summaries buffered ahead of the consumer in streaming mode. */
+    private static final int STREAMING_CAPACITY = 1000;
+
+    /** Marks the end of a streaming listing. */
+    private static final Object STREAMING_END = new Object();
+
     private AmazonS3 s3;
     private String prefix = null;
     private String bucketName;
     private Integer batchSize = null;
+    private boolean streaming = false;
+    private int parallelism = 1;
+    private boolean orderedResults = true;
 
     private S3Objects(AmazonS3 s3, String bucketName) {
         this.s3 = s3;
@@ -92,6 +113,67 @@ public final class S3Objects implements Iterable<S3ObjectSummary> {
         return batchSize;
     }
 
+    /**
+     * Sets whether the object summaries are streamed, i.e. returned while a
+     * page is being parsed on a background thread instead of once the whole
+     * page has been received. The next page is requested once the current
+     * one has been parsed, and at most 1000 summaries are buffered ahead of
+     * the iterator.
+     *
+     * @param streaming true to stream the object summaries.
+     * @return the S3Objects.
+     */
+    @SuppressWarnings("checkstyle:hiddenfield")
+    public S3Objects withStreaming(boolean streaming) {
+        this.streaming = streaming;
+        return this;
+    }
+
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    /**
+     * Sets how many prefix partitions are listed at the same time. With more
+     * than one, the objects are listed by discovering the common prefixes
+     * delimited by "/" under the prefix and listing each of them, at most
+     * {@code parallelism} at a time, on background threads.
+     *
+     * @param parallelism How many partitions to list concurrently, 1 to list
+     *            sequentially.
+     * @return the S3Objects.
+     */
+    @SuppressWarnings("checkstyle:hiddenfield")
+    public S3Objects withParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Sets whether the objects listed in parallel are returned in key order,
+     * like a sequential listing, which is the default. Unordered results are
+     * returned as soon as any partition lists them.
+     *
+     * @param orderedResults false to return objects in any order.
+     * @return the S3Objects.
+     */
+    @SuppressWarnings("checkstyle:hiddenfield")
+    public S3Objects withOrderedResults(boolean orderedResults) {
+        this.orderedResults = orderedResults;
+        return this;
+    }
+
+    public boolean isOrderedResults() {
+        return orderedResults;
+    }
+
     public String getPrefix() {
         return prefix;
     }
@@ -147,9 +229,216 @@ public final class S3Objects implements Iterable<S3ObjectSummary> {
 
     }
 
+    /**
+     * Iterates the object summaries as they are parsed. The pages are listed
+     * one after the other on a background thread, which hands the summaries
+     * over through a bounded queue and waits while it is full. If the
+     * iterator isn't consumed for
+     * {@link ParallelS3ObjectIterator#ABANDON_TIMEOUT_MINUTES} minutes, the
+     * listing is abandoned.
+     */
+    private class StreamingS3ObjectIterator implements Iterator<S3ObjectSummary> {
+
+        private final BlockingQueue<Object> parsed =
+                new LinkedBlockingQueue<Object>(STREAMING_CAPACITY);
+
+        /** Last time the consumer took or waited for a summary. */
+        private volatile long lastConsumedNanos;
+
+        private boolean started = false;
+
+        private boolean finished = false;
+
+        private S3ObjectSummary nextSummary = null;
+
+        private RuntimeException failure = null;
+
+        /** Key of the last summary handed over, listing thread only. */
+        private String lastKey = null;
+
+        /** Whether the client notified the listener of the current page. */
+        private boolean pageNotified = false;
+
+        @Override
+        public boolean hasNext() {
+            return peekNextSummary() != null;
+        }
+
+        @Override
+        public S3ObjectSummary next() {
+            final S3ObjectSummary summary = peekNextSummary();
+            if (summary == null) {
+                throw new NoSuchElementException();
+            }
+            nextSummary = null;
+            return summary;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        private S3ObjectSummary peekNextSummary() {
+            lastConsumedNanos = System.nanoTime();
+            if (!started) {
+                started = true;
+                startListing();
+            }
+            while (nextSummary == null) {
+                if (failure != null) {
+                    throw failure;
+                }
+                if (finished) {
+                    return null;
+                }
+
+                final Object element;
+                try {
+                    element = parsed.take();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new AmazonClientException("Interrupted while listing objects", e);
+                }
+                lastConsumedNanos = System.nanoTime();
+
+                if (element == STREAMING_END) {
+                    finished = true;
+                } else if (element instanceof S3ObjectSummary) {
+                    nextSummary = (S3ObjectSummary) element;
+                } else {
+                    failure = (RuntimeException) element;
+                }
+            }
+            return nextSummary;
+        }
+
+        private void startListing() {
+            final Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        listPages();
+                        put(STREAMING_END);
+                    } catch (final AbandonedException e) {
+                        return;
+                    } catch (final RuntimeException e) {
+                        offer(e);
+                    } catch (final Error e) {
+                        offer(new AmazonClientException("Unable to list objects", e));
+                        throw e;
+                    }
+                }
+            }, "S3Objects-" + getBucketName());
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        private void listPages() {
+            final S3ObjectSummaryListener listener = new S3ObjectSummaryListener() {
+                @Override
+                public void objectSummaryParsed(S3ObjectSummary objectSummary) {
+                    pageNotified = true;
+                    handOver(objectSummary);
+                }
+            };
+
+            ListObjectsRequest req = new ListObjectsRequest();
+            req.setBucketName(getBucketName());
+            req.setPrefix(getPrefix());
+            req.setMaxKeys(getBatchSize());
+            while (true) {
+                pageNotified = false;
+                req.setObjectSummaryListener(listener);
+                final ObjectListing objectListing = getS3().listObjects(req);
+                if (!pageNotified) {
+                    // The client didn't notify the listener.
+                    for (final S3ObjectSummary summary : objectListing.getObjectSummaries()) {
+                        handOver(summary);
+                    }
+                }
+                if (!objectListing.isTruncated()) {
+                    return;
+                }
+                req = new ListNextBatchOfObjectsRequest(objectListing).toListObjectsRequest();
+            }
+        }
+
+        /**
+         * Hands a summary over to the consumer, unless it was handed over
+         * already. The client retries a request whose response is cut off,
+         * and the listener is then notified again from the start of the page.
+         */
+        private void handOver(S3ObjectSummary summary) {
+            final String key = summary.getKey();
+            if (lastKey != null && key != null && compareKeys(key, lastKey) <= 0) {
+                return;
+            }
+            lastKey = key;
+            put(summary);
+        }
+
+        private void put(Object element) {
+            try {
+                while (!parsed.offer(element, 1, TimeUnit.SECONDS)) {
+                    if (System.nanoTime() - lastConsumedNanos > TimeUnit.MINUTES
+                            .toNanos(ParallelS3ObjectIterator.ABANDON_TIMEOUT_MINUTES)) {
+                        throw new AbandonedException();
+                    }
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AbandonedException();
+            }
+        }
+
+        /**
+         * Hands a failure over to the consumer, unless it is gone.
+         */
+        private void offer(RuntimeException e) {
+            if (System.nanoTime() - lastConsumedNanos <= TimeUnit.MINUTES
+                    .toNanos(ParallelS3ObjectIterator.ABANDON_TIMEOUT_MINUTES)) {
+                try {
+                    put(e);
+                } catch (final AbandonedException abandoned) {
+                    // Nobody is consuming.
+                }
+            }
+        }
+    }
+
+    /**
+     * Compares keys in the order S3 lists them, the order of their UTF-8
+     * bytes, which is the order of their code points.
+     */
+    static int compareKeys(String a, String b) {
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            final int ca = a.codePointAt(i);
+            final int cb = b.codePointAt(j);
+            if (ca != cb) {
+                return ca < cb ? -1 : 1;
+            }
+            i += Character.charCount(ca);
+            j += Character.charCount(cb);
+        }
+        return (a.length() - i) - (b.length() - j);
+    }
+
+    /**
+     * Thrown to stop listing when the consumer is gone.
+     */
+    private static final class AbandonedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+    }
+
     @Override
     public Iterator<S3ObjectSummary> iterator() {
-        return new S3ObjectIterator();
+        if (parallelism > 1) {
+            return new ParallelS3ObjectIterator(this, parallelism, orderedResults);
+        }
+        return streaming ? new StreamingS3ObjectIterator() : new S3ObjectIterator();
     }
 
 }
@@ -121,6 +121,12 @@ public class ListObjectsRequest extends AmazonWebServiceRequest {
      */
     private boolean isRequesterPays;
 
+    /**
+     * Optional listener notified of each object summary as it is parsed from
+     * the response. Not sent to Amazon S3.
+     */
+    private transient S3ObjectSummaryListener objectSummaryListener;
+
     /**
      * Constructs a new {@link ListObjectsRequest} object. The caller must
      * populate the object fields before the request is ready to be executed.
@@ -501,4 +507,40 @@ public class ListObjectsRequest extends AmazonWebServiceRequest {
         return this;
     }
 
+    /**
+     * Gets the optional listener notified of each object summary as it is
+     * parsed from the response.
+     *
+     * @return The listener, or null if none was set.
+     * @see ListObjectsRequest#setObjectSummaryListener(S3ObjectSummaryListener)
+     */
+    public S3ObjectSummaryListener getObjectSummaryListener() {
+        return objectSummaryListener;
+    }
+
+    /**
+     * Sets an optional listener notified of each object summary as it is
+     * parsed from the response, so callers can start processing the objects
+     * of a page before the whole page has been received.
+     *
+     * @param objectSummaryListener The listener, or null for none.
+     */
+    public void setObjectSummaryListener(S3ObjectSummaryListener objectSummaryListener) {
+        this.objectSummaryListener = objectSummaryListener;
+    }
+
+    /**
+     * Sets an optional listener notified of each object summary as it is
+     * parsed from the response. It returns this updated ListObjectsRequest
+     * object so that additional method calls can be chained together.
+     *
+     * @param objectSummaryListener The listener, or null for none.
+     * @return The updated ListObjectsRequest object.
+     */
+    public ListObjectsRequest withObjectSummaryListener(
+            S3ObjectSummaryListener objectSummaryListener) {
+        setObjectSummaryListener(objectSummaryListener);
+        return this;
+    }
+
 }
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.services.s3.model;
+
+/**
+ * Listener notified of each {@link S3ObjectSummary} of a
+ * {@link ListObjectsRequest} as soon as it is parsed from the response,
+ * before the whole {@link ObjectListing} is available.
+ *
+ * @see ListObjectsRequest#setObjectSummaryListener(S3ObjectSummaryListener)
+ */
+public interface S3ObjectSummaryListener {
+
+    /**
+     * Called on the thread parsing the response for every object summary, in
+     * the order they are listed. The summary is also added to the
+     * {@link ObjectListing} returned by the request.
+     *
+     * @param objectSummary The object summary parsed.
+     */
+    void objectSummaryParsed(S3ObjectSummary objectSummary);
+}
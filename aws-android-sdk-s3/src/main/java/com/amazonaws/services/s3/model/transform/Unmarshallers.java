@@ -44,6 +44,7 @@ import com.amazonaws.services.s3.model.ObjectListing;
 import com.amazonaws.services.s3.model.Owner;
 import com.amazonaws.services.s3.model.PartListing;
 import com.amazonaws.services.s3.model.RequestPaymentConfiguration;
+import com.amazonaws.services.s3.model.S3ObjectSummaryListener;
 import com.amazonaws.services.s3.model.SetBucketAnalyticsConfigurationResult;
 import com.amazonaws.services.s3.model.SetBucketInventoryConfigurationResult;
 import com.amazonaws.services.s3.model.SetBucketMetricsConfigurationResult;
@@ -93,16 +94,23 @@ public class Unmarshallers {
             Unmarshaller<ObjectListing, InputStream> {
 
         private final boolean shouldSDKDecodeResponse;
+        private final S3ObjectSummaryListener objectSummaryListener;
 
         public ListObjectsUnmarshaller(final boolean shouldSDKDecodeResponse) {
+            this(shouldSDKDecodeResponse, null);
+        }
+
+        public ListObjectsUnmarshaller(final boolean shouldSDKDecodeResponse,
+                final S3ObjectSummaryListener objectSummaryListener) {
             this.shouldSDKDecodeResponse = shouldSDKDecodeResponse;
+            this.objectSummaryListener = objectSummaryListener;
         }
 
         @Override
         public ObjectListing unmarshall(InputStream in) throws Exception {
             return new XmlResponsesSaxParser()
                     .parseListBucketObjectsResponse(in,
-                            shouldSDKDecodeResponse)
+                            shouldSDKDecodeResponse, objectSummaryListener)
                     .getObjectListing();
         }
     }
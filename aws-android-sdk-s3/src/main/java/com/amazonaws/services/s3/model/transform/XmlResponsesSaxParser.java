@@ -18,9 +18,8 @@
 
 package com.amazonaws.services.s3.model.transform;
 
-import static com.amazonaws.util.StringUtils.UTF8;
-
 import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.internal.CarriageReturnEscapingInputStream;
 import com.amazonaws.services.s3.internal.Constants;
 import com.amazonaws.services.s3.internal.DeleteObjectsResponse;
 import com.amazonaws.services.s3.internal.ObjectExpirationResult;
@@ -79,6 +78,7 @@ import com.amazonaws.services.s3.model.RoutingRule;
 import com.amazonaws.services.s3.model.RoutingRuleCondition;
 import com.amazonaws.services.s3.model.S3Object;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.amazonaws.services.s3.model.S3ObjectSummaryListener;
 import com.amazonaws.services.s3.model.S3VersionSummary;
 import com.amazonaws.services.s3.model.Tag;
 import com.amazonaws.services.s3.model.TagSet;
@@ -123,7 +123,6 @@ import org.xml.sax.helpers.DefaultHandler;
 import org.xml.sax.helpers.XMLReaderFactory;
 
 import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -217,56 +216,14 @@ public class XmlResponsesSaxParser {
                 log.debug("Sanitizing XML document destined for handler " + handler.getClass());
             }
 
-            InputStream sanitizedInputStream = null;
-
-            try {
-
-                /*
-                 * Read object listing XML document from input stream provided
-                 * into a string buffer, so we can replace troublesome
-                 * characters before sending the document to the XML parser.
-                 */
-                final StringBuilder listingDocBuffer = new StringBuilder();
-                final BufferedReader br = new BufferedReader(
-                        new InputStreamReader(inputStream, Constants.DEFAULT_ENCODING));
-
-                final char[] buf = new char[8192];
-                int read = -1;
-                while ((read = br.read(buf)) != -1) {
-                    listingDocBuffer.append(buf, 0, read);
-                }
-                br.close();
-
-                /*
-                 * Replace any carriage return (\r) characters with explicit XML
-                 * character entities, to prevent the SAX parser from
-                 * misinterpreting 0x0D characters as 0x0A and being unable to
-                 * parse the XML.
-                 */
-                final String listingDoc = listingDocBuffer.toString().replaceAll("\r", "&#013;");
-
-                sanitizedInputStream = new ByteArrayInputStream(
-                        listingDoc.getBytes(UTF8));
-
-            } catch (final IOException e) {
-                throw e;
-
-            } catch (final Throwable t) {
-                try {
-                    inputStream.close();
-                } catch (final IOException e) {
-                    if (log.isErrorEnabled()) {
-                        log.error(
-                                "Unable to close response InputStream after failure sanitizing XML document",
-                                e);
-                    }
-                }
-                throw new AmazonClientException(
-                        "Failed to sanitize XML document destined for handler "
-                                + handler.getClass(),
-                        t);
-            }
-            return sanitizedInputStream;
+            /*
+             * Replace any carriage return (\r) characters with explicit XML
+             * character entities as the document is read, to prevent the SAX
+             * parser from misinterpreting 0x0D characters as 0x0A and being
+             * unable to parse the XML. Errors reading the document are handled
+             * by the parser.
+             */
+            return new CarriageReturnEscapingInputStream(inputStream);
         }
     }
 
@@ -363,7 +320,25 @@ public class XmlResponsesSaxParser {
     public ListBucketHandler parseListBucketObjectsResponse(InputStream inputStream,
             final boolean shouldSDKDecodeResponse)
             throws IOException {
-        final ListBucketHandler handler = new ListBucketHandler(shouldSDKDecodeResponse);
+        return parseListBucketObjectsResponse(inputStream, shouldSDKDecodeResponse, null);
+    }
+
+    /**
+     * Parses a ListBucket response XML document from an input stream,
+     * notifying a listener of each object summary as soon as it is parsed.
+     *
+     * @param inputStream XML data input stream.
+     * @param objectSummaryListener optional listener of the object summaries.
+     * @return the XML handler object populated with data parsed from the XML
+     *         stream.
+     * @throws AmazonClientException
+     */
+    public ListBucketHandler parseListBucketObjectsResponse(InputStream inputStream,
+            final boolean shouldSDKDecodeResponse,
+            final S3ObjectSummaryListener objectSummaryListener)
+            throws IOException {
+        final ListBucketHandler handler = new ListBucketHandler(shouldSDKDecodeResponse,
+                objectSummaryListener);
         parseXmlInputStream(handler, sanitizeXmlDocument(handler, inputStream));
         return handler;
     }
@@ -634,13 +609,20 @@ public class XmlResponsesSaxParser {
 
         private final ObjectListing objectListing = new ObjectListing();
         private final boolean shouldSDKDecodeResponse;
+        private final S3ObjectSummaryListener objectSummaryListener;
 
         private S3ObjectSummary currentObject = null;
         private Owner currentOwner = null;
         private String lastKey = null;
 
         public ListBucketHandler(final boolean shouldSDKDecodeResponse) {
+            this(shouldSDKDecodeResponse, null);
+        }
+
+        public ListBucketHandler(final boolean shouldSDKDecodeResponse,
+                final S3ObjectSummaryListener objectSummaryListener) {
             this.shouldSDKDecodeResponse = shouldSDKDecodeResponse;
+            this.objectSummaryListener = objectSummaryListener;
         }
 
         public ObjectListing getObjectListing() {
@@ -748,6 +730,9 @@ public class XmlResponsesSaxParser {
 
                 } else if (name.equals("Contents")) {
                     objectListing.getObjectSummaries().add(currentObject);
+                    if (objectSummaryListener != null) {
+                        objectSummaryListener.objectSummaryParsed(currentObject);
+                    }
                     currentObject = null;
                 }
             }
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.services.s3.internal;
+
+import static org.junit.Assert.assertEquals;
+
+import com.amazonaws.util.StringUtils;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+public class CarriageReturnEscapingInputStreamTest {
+
+    @Test
+    public void testEscapesCarriageReturns() throws Exception {
+        assertEquals("<Key>a&#013;b&#013;&#013;</Key>",
+                escape("<Key>a\rb\r\r</Key>"));
+        assertEquals("&#013;", escape("\r"));
+        assertEquals("no carriage return", escape("no carriage return"));
+        assertEquals("", escape(""));
+    }
+
+    @Test
+    public void testKeepsMultiByteCharacters() throws Exception {
+        assertEquals("<Key>é漢&#013;😀</Key>",
+                escape("<Key>é漢\r😀</Key>"));
+    }
+
+    @Test
+    public void testSingleByteReads() throws Exception {
+        InputStream in = new CarriageReturnEscapingInputStream(
+                new ByteArrayInputStream("a\rb".getBytes(StringUtils.UTF8)));
+        StringBuilder sb = new StringBuilder();
+        int b;
+        while ((b = in.read()) != -1) {
+            sb.append((char) b);
+        }
+        assertEquals("a&#013;b", sb.toString());
+    }
+
+    @Test
+    public void testLargeDocument() throws Exception {
+        StringBuilder original = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            original.append("<Key>key-").append(i).append("\r</Key>");
+            expected.append("<Key>key-").append(i).append("&#013;</Key>");
+        }
+        assertEquals(expected.toString(), escape(original.toString()));
+    }
+
+    @Test
+    public void testSkip() throws Exception {
+        InputStream in = new CarriageReturnEscapingInputStream(
+                new ByteArrayInputStream("a\rb".getBytes(StringUtils.UTF8)));
+        assertEquals(4, in.skip(4));
+        assertEquals("13;b", IOUtils.toString(in, "UTF-8"));
+    }
+
+    private static String escape(String document) throws Exception {
+        InputStream in = new CarriageReturnEscapingInputStream(
+                new ByteArrayInputStream(document.getBytes(StringUtils.UTF8)));
+        return new String(IOUtils.toByteArray(in), StringUtils.UTF8);
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.services.s3.iterable;
+
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+
+import java.util.Comparator;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A local stand-in for the ListObjects API of a bucket, with a simulated
+ * round trip latency.
+ */
+class InMemoryBucket {
+    private static final int DEFAULT_MAX_KEYS = 1000;
+
+    private final String bucketName;
+    /** Keys in the order S3 lists them, the order of their code points. */
+    private final SortedSet<String> keys = new TreeSet<String>(new Comparator<String>() {
+        @Override
+        public int compare(String a, String b) {
+            return S3Objects.compareKeys(a, b);
+        }
+    });
+    private final long latencyMillis;
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger concurrentRequests = new AtomicInteger();
+    private final AtomicInteger maxConcurrentRequests = new AtomicInteger();
+
+    InMemoryBucket(String bucketName, long latencyMillis) {
+        this.bucketName = bucketName;
+        this.latencyMillis = latencyMillis;
+    }
+
+    void add(String key) {
+        keys.add(key);
+    }
+
+    SortedSet<String> getKeys() {
+        return keys;
+    }
+
+    int getRequests() {
+        return requests.get();
+    }
+
+    int getMaxConcurrentRequests() {
+        return maxConcurrentRequests.get();
+    }
+
+    ObjectListing listObjects(ListObjectsRequest request) throws InterruptedException {
+        requests.incrementAndGet();
+        final int concurrent = concurrentRequests.incrementAndGet();
+        int max;
+        do {
+            max = maxConcurrentRequests.get();
+        } while (concurrent > max && !maxConcurrentRequests.compareAndSet(max, concurrent));
+        try {
+            Thread.sleep(latencyMillis);
+            return list(request);
+        } finally {
+            concurrentRequests.decrementAndGet();
+        }
+    }
+
+    private ObjectListing list(ListObjectsRequest request) {
+        final String prefix = request.getPrefix() == null ? "" : request.getPrefix();
+        final String delimiter = request.getDelimiter();
+        final int maxKeys = request.getMaxKeys() == null || request.getMaxKeys() <= 0
+                ? DEFAULT_MAX_KEYS : request.getMaxKeys();
+
+        final ObjectListing listing = new ObjectListing();
+        listing.setBucketName(bucketName);
+        listing.setPrefix(request.getPrefix());
+        listing.setDelimiter(delimiter);
+        listing.setMarker(request.getMarker());
+        listing.setMaxKeys(maxKeys);
+
+        final String marker = request.getMarker();
+        final String start = marker == null || S3Objects.compareKeys(marker, prefix) < 0
+                ? prefix : marker + "\0";
+        final SortedSet<String> candidates = keys.tailSet(start);
+        String lastReturned = null;
+        int count = 0;
+        for (final String key : candidates) {
+            if (!key.startsWith(prefix)) {
+                break;
+            }
+            if (marker != null && delimiter != null && marker.endsWith(delimiter)
+                    && key.startsWith(marker)) {
+                // Like S3, continue after the keys rolled up in a common
+                // prefix returned as the marker.
+                continue;
+            }
+            if (count == maxKeys) {
+                listing.setTruncated(true);
+                listing.setNextMarker(lastReturned);
+                break;
+            }
+
+            final int index = delimiter == null ? -1 : key.indexOf(delimiter, prefix.length());
+            if (index >= 0) {
+                final String commonPrefix = key.substring(0, index + delimiter.length());
+                if (!commonPrefix.equals(lastReturned)) {
+                    listing.getCommonPrefixes().add(commonPrefix);
+                    lastReturned = commonPrefix;
+                    count++;
+                }
+                continue;
+            }
+
+            final S3ObjectSummary summary = new S3ObjectSummary();
+            summary.setBucketName(bucketName);
+            summary.setKey(key);
+            listing.getObjectSummaries().add(summary);
+            lastReturned = key;
+            count++;
+        }
+        return listing;
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.services.s3.iterable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ListNextBatchOfObjectsRequest;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class S3ObjectsParallelTest {
+
+    private static final long LATENCY_MILLIS = 20;
+
+    private InMemoryBucket bucket;
+    private AmazonS3 s3;
+
+    /** Prefix whose listing fails with {@link #failure}. */
+    private volatile String failingPrefix;
+    /** Whether the discovery pages after the first fail with {@link #failure}. */
+    private volatile boolean failingNextDiscoveryPages;
+    /** Partition listings which wait for each other, if set. */
+    private volatile CountDownLatch concurrentPartitions;
+    private volatile boolean partitionsListedConcurrently = true;
+    private final AmazonClientException failure = new AmazonClientException("failed");
+
+    @Before
+    public void setUp() {
+        bucket = new InMemoryBucket("my-bucket", LATENCY_MILLIS);
+        bucket.add("a.txt");
+        for (int i = 0; i < 10; i++) {
+            for (int j = 0; j < 25; j++) {
+                bucket.add(String.format("photos/%02d/image-%03d.jpg", i, j));
+            }
+            bucket.add(String.format("photos/%02d.txt", i));
+        }
+        bucket.add("photos/z/last.jpg");
+        bucket.add("zeta");
+
+        s3 = mock(AmazonS3.class);
+        when(s3.listObjects(any(ListObjectsRequest.class))).thenAnswer(
+                new Answer<ObjectListing>() {
+                    @Override
+                    public ObjectListing answer(InvocationOnMock invocation) throws Throwable {
+                        return list((ListObjectsRequest) invocation.getArguments()[0]);
+                    }
+                });
+        when(s3.listNextBatchOfObjects(any(ObjectListing.class))).thenAnswer(
+                new Answer<ObjectListing>() {
+                    @Override
+                    public ObjectListing answer(InvocationOnMock invocation) throws Throwable {
+                        ObjectListing previous = (ObjectListing) invocation.getArguments()[0];
+                        return list(new ListNextBatchOfObjectsRequest(previous)
+                                .toListObjectsRequest());
+                    }
+                });
+    }
+
+    private ObjectListing list(ListObjectsRequest request) throws InterruptedException {
+        if (request.getPrefix() != null && request.getPrefix().equals(failingPrefix)) {
+            throw failure;
+        }
+        final boolean discovery = request.getDelimiter() != null;
+        if (discovery && failingNextDiscoveryPages && request.getMarker() != null) {
+            throw failure;
+        }
+        final CountDownLatch latch = concurrentPartitions;
+        if (!discovery && latch != null) {
+            latch.countDown();
+            if (!latch.await(5, TimeUnit.SECONDS)) {
+                partitionsListedConcurrently = false;
+            }
+        }
+        return bucket.listObjects(request);
+    }
+
+    @Test
+    public void testOrderedMatchesSequentialListing() {
+        List<String> expected = keys(S3Objects.withPrefix(s3, "my-bucket", "photos/")
+                .withBatchSize(10));
+        int sequentialRequests = bucket.getRequests();
+
+        List<String> actual = keys(S3Objects.withPrefix(s3, "my-bucket", "photos/")
+                .withBatchSize(10).withParallelism(4));
+
+        assertEquals(new ArrayList<String>(bucket.getKeys().tailSet("photos/")
+                .headSet("photos0")), expected);
+        assertEquals(expected, actual);
+        assertTrue(bucket.getMaxConcurrentRequests() > 1);
+        assertTrue(bucket.getRequests() > sequentialRequests);
+    }
+
+    @Test
+    public void testWholeBucket() {
+        List<String> actual = keys(S3Objects.inBucket(s3, "my-bucket").withParallelism(3));
+        assertEquals(new ArrayList<String>(bucket.getKeys()), actual);
+    }
+
+    @Test
+    public void testOrderedFollowsCodePointOrder() {
+        // U+1F600 sorts before U+FFFF in UTF-16 but after it in S3.
+        bucket.add("\uFFFF/a");
+        bucket.add("\uD83D\uDE00");
+        List<String> actual = keys(S3Objects.inBucket(s3, "my-bucket").withParallelism(3));
+        assertEquals(new ArrayList<String>(bucket.getKeys()), actual);
+        assertEquals("\uD83D\uDE00", actual.get(actual.size() - 1));
+    }
+
+    @Test
+    public void testUnorderedReturnsEveryObjectOnce() {
+        List<String> actual = keys(S3Objects.inBucket(s3, "my-bucket").withBatchSize(7)
+                .withParallelism(4).withOrderedResults(false));
+        Set<String> unique = new TreeSet<String>(actual);
+        assertEquals(actual.size(), unique.size());
+        assertEquals(bucket.getKeys(), unique);
+    }
+
+    @Test
+    public void testPartitionsAreListedConcurrently() {
+        // Each of the first partition listings waits for the 4 of them to start.
+        concurrentPartitions = new CountDownLatch(4);
+        List<String> actual = keys(S3Objects.withPrefix(s3, "my-bucket", "photos/")
+                .withBatchSize(5).withParallelism(4));
+
+        assertTrue(partitionsListedConcurrently);
+        assertEquals(0, concurrentPartitions.getCount());
+        assertEquals(new ArrayList<String>(bucket.getKeys().tailSet("photos/")
+                .headSet("photos0")), actual);
+    }
+
+    @Test
+    public void testPropagatesFailure() {
+        failingPrefix = "photos/03/";
+        List<String> listed = new ArrayList<String>();
+        try {
+            for (S3ObjectSummary summary : S3Objects.withPrefix(s3, "my-bucket", "photos/")
+                    .withParallelism(4)) {
+                listed.add(summary.getKey());
+            }
+            throw new AssertionError("Expected failure");
+        } catch (AmazonClientException e) {
+            assertSame(failure, e);
+        }
+        // Ordered results stop at the failed partition.
+        assertEquals("photos/03.txt", listed.get(listed.size() - 1));
+    }
+
+    @Test(timeout = 10000)
+    public void testDiscoveryFailureAfterTopLevelObjects() {
+        bucket = new InMemoryBucket("my-bucket", LATENCY_MILLIS);
+        bucket.add("dir/object");
+        for (int i = 0; i < 10; i++) {
+            bucket.add("top-" + i);
+        }
+        failingNextDiscoveryPages = true;
+
+        List<String> listed = new ArrayList<String>();
+        try {
+            for (S3ObjectSummary summary : S3Objects.inBucket(s3, "my-bucket")
+                    .withBatchSize(3).withParallelism(2)) {
+                listed.add(summary.getKey());
+            }
+            throw new AssertionError("Expected failure");
+        } catch (AmazonClientException e) {
+            assertSame(failure, e);
+        }
+        // The failure follows the top level objects of the first page.
+        assertEquals(Arrays.asList("dir/object", "top-0", "top-1"), listed);
+    }
+
+    @Test(timeout = 10000)
+    public void testSlowConsumerIsNotAbandoned() throws Exception {
+        bucket = new InMemoryBucket("my-bucket", 0);
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 20; j++) {
+                bucket.add(String.format("p%d/%02d", i, j));
+            }
+        }
+        S3Objects objects = S3Objects.inBucket(s3, "my-bucket");
+        Iterator<S3ObjectSummary> iterator = new ParallelS3ObjectIterator(objects, 3, true, 2,
+                TimeUnit.MILLISECONDS.toNanos(100));
+
+        // The later partitions wait longer than the timeout for the first
+        // one to be consumed.
+        List<String> listed = new ArrayList<String>();
+        while (iterator.hasNext()) {
+            listed.add(iterator.next().getKey());
+            Thread.sleep(10);
+        }
+        assertEquals(new ArrayList<String>(bucket.getKeys()), listed);
+    }
+
+    @Test(timeout = 10000)
+    public void testListingIsAbandonedWhenNotConsumed() throws Exception {
+        S3Objects objects = S3Objects.withPrefix(s3, "my-bucket", "photos/");
+        Iterator<S3ObjectSummary> iterator = new ParallelS3ObjectIterator(objects, 2, true, 2,
+                TimeUnit.MILLISECONDS.toNanos(100));
+        iterator.next();
+        Thread.sleep(500);
+        int requests = bucket.getRequests();
+        Thread.sleep(200);
+        assertEquals("listing stopped", requests, bucket.getRequests());
+        try {
+            while (iterator.hasNext()) {
+                iterator.next();
+            }
+            throw new AssertionError("Expected failure");
+        } catch (AmazonClientException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("abandoned"));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidParallelism() {
+        S3Objects.inBucket(s3, "my-bucket").withParallelism(0);
+    }
+
+    private static List<String> keys(S3Objects objects) {
+        List<String> keys = new ArrayList<String>();
+        for (S3ObjectSummary summary : objects) {
+            keys.add(summary.getKey());
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.services.s3.iterable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.amazonaws.services.s3.model.transform.XmlResponsesSaxParser;
+import com.amazonaws.util.StringUtils;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class S3ObjectsStreamingTest {
+
+    private AmazonS3 s3;
+    private S3Objects s3Objects;
+
+    @Before
+    public void setUp() {
+        s3 = mock(AmazonS3.class);
+        s3Objects = S3Objects.inBucket(s3, "my-bucket").withStreaming(true);
+    }
+
+    @Test
+    public void testReturnsSummariesBeforePageIsComplete() throws Exception {
+        final S3ObjectSummary first = summary("first");
+        final S3ObjectSummary second = summary("second");
+        final CountDownLatch firstReturned = new CountDownLatch(1);
+        final List<String> markers = new ArrayList<String>();
+
+        when(s3.listObjects(any(ListObjectsRequest.class))).thenAnswer(
+                new Answer<ObjectListing>() {
+                    @Override
+                    public ObjectListing answer(InvocationOnMock invocation) throws Throwable {
+                        ListObjectsRequest request = (ListObjectsRequest) invocation
+                                .getArguments()[0];
+                        markers.add(request.getMarker());
+                        ObjectListing listing = new ObjectListing();
+                        listing.setBucketName("my-bucket");
+                        if (request.getMarker() == null) {
+                            request.getObjectSummaryListener().objectSummaryParsed(first);
+                            listing.getObjectSummaries().add(first);
+                            // The rest of the page arrives after the first
+                            // summary has been consumed.
+                            assertTrue(firstReturned.await(5, TimeUnit.SECONDS));
+                            listing.setTruncated(true);
+                            listing.setNextMarker("first");
+                        } else {
+                            request.getObjectSummaryListener().objectSummaryParsed(second);
+                            listing.getObjectSummaries().add(second);
+                        }
+                        return listing;
+                    }
+                });
+
+        Iterator<S3ObjectSummary> iter = s3Objects.iterator();
+        assertTrue(iter.hasNext());
+        assertSame(first, iter.next());
+        firstReturned.countDown();
+        assertTrue(iter.hasNext());
+        assertSame(second, iter.next());
+        assertFalse(iter.hasNext());
+        assertEquals(Arrays.asList(null, "first"), markers);
+    }
+
+    @Test
+    public void testReturnsSummariesFromListingWithoutListener() throws Exception {
+        S3ObjectSummary first = summary("first");
+        S3ObjectSummary second = summary("second");
+        ObjectListing listing = new ObjectListing();
+        listing.getObjectSummaries().add(first);
+        listing.getObjectSummaries().add(second);
+        when(s3.listObjects(any(ListObjectsRequest.class))).thenReturn(listing);
+
+        Iterator<S3ObjectSummary> iter = s3Objects.iterator();
+        assertSame(first, iter.next());
+        assertSame(second, iter.next());
+        assertFalse(iter.hasNext());
+    }
+
+    @Test
+    public void testPropagatesFailure() throws Exception {
+        AmazonClientException failure = new AmazonClientException("failed");
+        when(s3.listObjects(any(ListObjectsRequest.class))).thenThrow(failure);
+
+        Iterator<S3ObjectSummary> iter = s3Objects.iterator();
+        for (int i = 0; i < 2; i++) {
+            try {
+                iter.hasNext();
+                throw new AssertionError("Expected failure");
+            } catch (AmazonClientException e) {
+                assertSame(failure, e);
+            }
+        }
+    }
+
+    @Test
+    public void testConnectionDroppedMidBodyDoesNotDuplicateSummaries() throws Exception {
+        final String body = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                + "<ListBucketResult xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">"
+                + "<Name>my-bucket</Name><Prefix></Prefix><MaxKeys>1000</MaxKeys>"
+                + "<IsTruncated>false</IsTruncated>"
+                + contents("a") + contents("b") + contents("c") + contents("d")
+                + "</ListBucketResult>";
+        final byte[] bytes = body.getBytes(StringUtils.UTF8);
+        final int dropAt = body.indexOf("<Contents><Key>c</Key>") + 10;
+
+        when(s3.listObjects(any(ListObjectsRequest.class))).thenAnswer(
+                new Answer<ObjectListing>() {
+                    @Override
+                    public ObjectListing answer(InvocationOnMock invocation) throws Throwable {
+                        ListObjectsRequest request = (ListObjectsRequest) invocation
+                                .getArguments()[0];
+                        XmlResponsesSaxParser parser = new XmlResponsesSaxParser();
+                        try {
+                            parser.parseListBucketObjectsResponse(
+                                    new DroppingInputStream(bytes, dropAt), false,
+                                    request.getObjectSummaryListener());
+                            throw new AssertionError("Expected the connection to drop");
+                        } catch (IOException e) {
+                            // Retried like AmazonHttpClient does.
+                        }
+                        return parser.parseListBucketObjectsResponse(
+                                new ByteArrayInputStream(bytes), false,
+                                request.getObjectSummaryListener()).getObjectListing();
+                    }
+                });
+
+        List<String> keys = new ArrayList<String>();
+        for (S3ObjectSummary summary : s3Objects) {
+            keys.add(summary.getKey());
+        }
+        assertEquals(Arrays.asList("a", "b", "c", "d"), keys);
+    }
+
+    @Test
+    public void testBuffersBoundedNumberOfSummaries() throws Exception {
+        final AtomicInteger notified = new AtomicInteger();
+        when(s3.listObjects(any(ListObjectsRequest.class))).thenAnswer(
+                new Answer<ObjectListing>() {
+                    @Override
+                    public ObjectListing answer(InvocationOnMock invocation) throws Throwable {
+                        ListObjectsRequest request = (ListObjectsRequest) invocation
+                                .getArguments()[0];
+                        ObjectListing listing = new ObjectListing();
+                        for (int i = 0; i < 5000; i++) {
+                            S3ObjectSummary summary = summary(String.format("key-%04d", i));
+                            request.getObjectSummaryListener().objectSummaryParsed(summary);
+                            listing.getObjectSummaries().add(summary);
+                            notified.incrementAndGet();
+                        }
+                        return listing;
+                    }
+                });
+
+        Iterator<S3ObjectSummary> iter = s3Objects.iterator();
+        assertEquals("key-0000", iter.next().getKey());
+        Thread.sleep(500);
+        assertTrue("notified " + notified.get(), notified.get() <= 1001);
+
+        int count = 1;
+        while (iter.hasNext()) {
+            assertEquals(String.format("key-%04d", count++), iter.next().getKey());
+        }
+        assertEquals(5000, count);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testRemoveNotSupported() throws Exception {
+        s3Objects.iterator().remove();
+    }
+
+    private static String contents(String key) {
+        return "<Contents><Key>" + key + "</Key>"
+                + "<LastModified>2019-01-01T00:00:00.000Z</LastModified>"
+                + "<ETag>&quot;etag&quot;</ETag><Size>1</Size>"
+                + "<StorageClass>STANDARD</StorageClass></Contents>";
+    }
+
+    /**
+     * Fails like a dropped connection after the first bytes.
+     */
+    private static class DroppingInputStream extends InputStream {
+        private final ByteArrayInputStream received;
+
+        DroppingInputStream(byte[] bytes, int length) {
+            received = new ByteArrayInputStream(bytes, 0, length);
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = received.read();
+            if (b < 0) {
+                throw new IOException("Connection reset");
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            final int read = received.read(b, off, len);
+            if (read < 0) {
+                throw new IOException("Connection reset");
+            }
+            return read;
+        }
+    }
+
+    private static S3ObjectSummary summary(String key) {
+        S3ObjectSummary summary = new S3ObjectSummary();
+        summary.setKey(key);
+        return summary;
+    }
+}
@@ -54,9 +54,11 @@ import com.amazonaws.services.sqs.model.SendMessageResult;
 import com.amazonaws.services.sqs.model.SetQueueAttributesRequest;
 import com.amazonaws.util.VersionInfoUtils;
 
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 
 /**
@@ -81,6 +83,12 @@ import java.util.concurrent.Future;
  * the buffer is empty will the calling thread have to wait for the messages to
  * be fetched. The size of the buffer and the maximum number of threads used for
  * prefetching are configurable. <br>
+ * By default, the batches of all the buffered clients run on a shared,
+ * unbounded pool of daemon threads. Set maxExecutorThreads in the
+ * {@link QueueBufferConfig} to give the client a bounded pool instead, and
+ * maxThreadsPerQueue to keep a slow queue from taking all of its threads.
+ * {@link #getQueueBufferMetrics()} reports the batches in flight per queue.
+ * <br>
  * AmazonSQSBufferedAsyncClient is thread-safe.<br>
  */
 public class AmazonSQSBufferedAsyncClient implements AmazonSQSAsync {
@@ -91,6 +99,7 @@ public class AmazonSQSBufferedAsyncClient implements AmazonSQSAsync {
     private final CachingMap buffers = new CachingMap(16, (float) 0.75, true);
     private final AmazonSQSAsync realSQS;
     private final QueueBufferConfig bufferConfigExemplar;
+    private final ExecutorService executor;
 
     public AmazonSQSBufferedAsyncClient(AmazonSQSAsync paramRealSQS) {
         this(paramRealSQS, new QueueBufferConfig());
@@ -102,6 +111,7 @@ public class AmazonSQSBufferedAsyncClient implements AmazonSQSAsync {
         config.validate();
         realSQS = paramRealSQS;
         bufferConfigExemplar = config;
+        executor = QueueBuffer.newClientExecutor(config);
     }
 
     /*
@@ -186,6 +196,9 @@ public class AmazonSQSBufferedAsyncClient implements AmazonSQSAsync {
         for (QueueBuffer buffer : buffers.values()) {
             buffer.shutdown();
         }
+        if (executor != QueueBuffer.executor) {
+            executor.shutdown();
+        }
         realSQS.shutdown();
     }
 
@@ -408,12 +421,26 @@ public class AmazonSQSBufferedAsyncClient implements AmazonSQSAsync {
         QueueBuffer toReturn = buffers.get(qUrl);
         if (null == toReturn) {
             QueueBufferConfig config = new QueueBufferConfig(bufferConfigExemplar);
-            toReturn = new QueueBuffer(config, qUrl, realSQS);
+            toReturn = new QueueBuffer(config, qUrl, realSQS, executor);
             buffers.put(qUrl, toReturn);
         }
         return toReturn;
     }
 
+    /**
+     * Returns a snapshot of the batches of each queue buffered by this client,
+     * such as the number of batches in flight.
+     *
+     * @return the metrics of the buffered queues. Never null
+     */
+    public synchronized List<QueueBufferMetrics> getQueueBufferMetrics() {
+        List<QueueBufferMetrics> metrics = new ArrayList<QueueBufferMetrics>(buffers.size());
+        for (QueueBuffer buffer : buffers.values()) {
+            metrics.add(buffer.getMetrics());
+        }
+        return metrics;
+    }
+
     class CachingMap extends LinkedHashMap<String, QueueBuffer> {
         private static final long serialVersionUID = 1;
         private static final int MAX_ENTRIES = 100;
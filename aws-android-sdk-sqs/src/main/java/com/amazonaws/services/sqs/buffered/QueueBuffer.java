@@ -26,10 +26,14 @@ import com.amazonaws.services.sqs.model.SendMessageRequest;
 import com.amazonaws.services.sqs.model.SendMessageResult;
 
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -51,9 +55,14 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 class QueueBuffer {
 
+    /** time idle threads of a bounded client pool are kept */
+    private static final long IDLE_THREAD_KEEP_ALIVE_SECONDS = 60;
+
     private final SendQueueBuffer sendBuffer;
     private final ReceiveQueueBuffer receiveBuffer;
+    private final QueueBufferExecutor queueExecutor;
     private final AmazonSQSAsync realSqs;
+    private final String qUrl;
     QueueBufferConfig config;
 
     /**
@@ -61,15 +70,64 @@ class QueueBuffer {
      * JVM can access hundreds of queues, it won't do to have hundreds of
      * executors spinning up hundreds of threads for each queue. The
      * DaemonThreadFactory creates daemon threads, which means they won't block
-     * the JVM from exiting if only they are still around.
+     * the JVM from exiting if only they are still around. Clients with
+     * {@code maxExecutorThreads} set use a bounded pool of their own instead.
      */
-    static ExecutorService executor = Executors.newCachedThreadPool(new DaemonThreadFactory());;
+    static ExecutorService executor = Executors.newCachedThreadPool(new DaemonThreadFactory());
 
     QueueBuffer(QueueBufferConfig paramConfig, String url, AmazonSQSAsync sqs) {
+        this(paramConfig, url, sqs, executor);
+    }
+
+    /**
+     * @param clientExecutor the executor shared by the queue buffers of the
+     *            client. The buffer runs at most
+     *            {@code config.getMaxThreadsPerQueue()} batches on it at the
+     *            same time.
+     */
+    QueueBuffer(QueueBufferConfig paramConfig, String url, AmazonSQSAsync sqs,
+            Executor clientExecutor) {
         realSqs = sqs;
         config = paramConfig;
-        sendBuffer = new SendQueueBuffer(sqs, executor, paramConfig, url);
-        receiveBuffer = new ReceiveQueueBuffer(sqs, executor, paramConfig, url);
+        qUrl = url;
+        queueExecutor = new QueueBufferExecutor(clientExecutor, paramConfig.getMaxThreadsPerQueue());
+        sendBuffer = new SendQueueBuffer(sqs, queueExecutor, paramConfig, url);
+        receiveBuffer = new ReceiveQueueBuffer(sqs,
+                queueExecutor.getExecutor(QueueBufferExecutor.Lane.RECEIVE), paramConfig, url);
+    }
+
+    /**
+     * Creates the executor shared by the queue buffers of a client: a pool of
+     * at most {@code config.getMaxExecutorThreads()} daemon threads, or the
+     * unbounded pool shared by all the clients if that is 0.
+     *
+     * @return the executor; the client must shut it down unless it is the
+     *         shared {@link #executor}
+     */
+    static ExecutorService newClientExecutor(QueueBufferConfig config) {
+        int maxThreads = config.getMaxExecutorThreads();
+        if (maxThreads <= 0) {
+            return executor;
+        }
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(maxThreads, maxThreads,
+                IDLE_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new DaemonThreadFactory());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * @return a snapshot of the batches of this buffer
+     */
+    QueueBufferMetrics getMetrics() {
+        return new QueueBufferMetrics(qUrl,
+                sendBuffer.getInflightSendMessageBatches(),
+                sendBuffer.getInflightDeleteMessageBatches(),
+                sendBuffer.getInflightChangeMessageVisibilityBatches(),
+                receiveBuffer.getInflightReceiveBatches(),
+                receiveBuffer.getBufferedMessages(),
+                queueExecutor.getRunningTasks(),
+                queueExecutor.getWaitingTasks());
     }
 
     /**
@@ -117,6 +117,39 @@ public class QueueBufferConfig {
 
     public static final int LONGPOLL_WAIT_TIMEOUT_SECONDS_DEFAULT = 20;
 
+    /**
+     * Should the number of pre-fetched receive batches adapt to the rate at
+     * which messages are consumed? If true, the buffer only pre-fetches the
+     * messages it expects to hand out within half of their visibility
+     * timeout, up to maxDoneReceiveBatches batches.
+     */
+    private boolean adaptivePrefetching;
+
+    /** true */
+    private static final boolean ADAPTIVE_PREFETCHING_DEFAULT = true;
+
+    /**
+     * The maximum number of threads a buffered client uses to run the batches
+     * of all its queues. Batches beyond that wait for a thread. Set it to 0 to
+     * share an unbounded pool of threads among all the buffered clients.
+     */
+    private int maxExecutorThreads;
+
+    /** 0, which means an unbounded pool shared by all the clients */
+    public static final int MAX_EXECUTOR_THREADS_DEFAULT = 0;
+
+    /**
+     * The maximum number of batches of a single queue running at the same
+     * time, so that a slow queue can't take all the threads of the client.
+     * Waiting send, delete, change visibility and receive batches of the queue
+     * take turns for the threads. Set it to 0 to not limit the batches of a
+     * queue.
+     */
+    private int maxThreadsPerQueue;
+
+    /** 0, which means no limit per queue */
+    public static final int MAX_THREADS_PER_QUEUE_DEFAULT = 0;
+
     public QueueBufferConfig(long maxBatchOpenMs,
             int maxInflightOutboundBatches,
             int maxInflightReceiveBatches,
@@ -136,6 +169,9 @@ public class QueueBufferConfig {
         this.visibilityTimeoutSeconds = visibilityTimeout;
         this.longPollWaitTimeoutSeconds = longPollTimeout;
         this.maxBatchSize = maxBatch;
+        this.adaptivePrefetching = ADAPTIVE_PREFETCHING_DEFAULT;
+        this.maxExecutorThreads = MAX_EXECUTOR_THREADS_DEFAULT;
+        this.maxThreadsPerQueue = MAX_THREADS_PER_QUEUE_DEFAULT;
     }
 
     public QueueBufferConfig() {
@@ -161,6 +197,9 @@ public class QueueBufferConfig {
         maxInflightOutboundBatches = other.maxInflightOutboundBatches;
         maxInflightReceiveBatches = other.maxInflightReceiveBatches;
         visibilityTimeoutSeconds = other.visibilityTimeoutSeconds;
+        adaptivePrefetching = other.adaptivePrefetching;
+        maxExecutorThreads = other.maxExecutorThreads;
+        maxThreadsPerQueue = other.maxThreadsPerQueue;
     }
 
     @Override
@@ -173,7 +212,10 @@ public class QueueBufferConfig {
                 + maxDoneReceiveBatches + ", maxBatchSizeBytes="
                 + maxBatchSizeBytes + ", visibilityTimeoutSeconds="
                 + visibilityTimeoutSeconds + ", longPollWaitTimeoutSeconds="
-                + longPollWaitTimeoutSeconds + "]";
+                + longPollWaitTimeoutSeconds + ", adaptivePrefetching="
+                + adaptivePrefetching + ", maxExecutorThreads="
+                + maxExecutorThreads + ", maxThreadsPerQueue="
+                + maxThreadsPerQueue + "]";
     }
 
     /**
@@ -427,6 +469,99 @@ public class QueueBufferConfig {
         return this;
     }
 
+    /**
+     * Should the number of pre-fetched receive batches adapt to the rate at
+     * which messages are consumed? If true, the buffer only pre-fetches the
+     * messages it expects to hand out within half of their visibility
+     * timeout, up to maxDoneReceiveBatches batches. If false, it always
+     * pre-fetches up to maxDoneReceiveBatches batches.
+     */
+    public boolean isAdaptivePrefetching() {
+        return adaptivePrefetching;
+    }
+
+    /**
+     * Should the number of pre-fetched receive batches adapt to the rate at
+     * which messages are consumed? If true, the buffer only pre-fetches the
+     * messages it expects to hand out within half of their visibility
+     * timeout, up to maxDoneReceiveBatches batches. If false, it always
+     * pre-fetches up to maxDoneReceiveBatches batches.
+     */
+    public void setAdaptivePrefetching(boolean adaptivePrefetching) {
+        this.adaptivePrefetching = adaptivePrefetching;
+    }
+
+    public QueueBufferConfig withAdaptivePrefetching(boolean adaptivePrefetching) {
+        this.adaptivePrefetching = adaptivePrefetching;
+        return this;
+    }
+
+    /**
+     * The maximum number of threads a buffered client uses to run the batches
+     * of all its queues. Batches beyond that wait for a thread. Set it to 0 to
+     * share an unbounded pool of threads among all the buffered clients.
+     * <p>
+     * With a bounded pool, the callbacks of asynchronous calls must not wait
+     * for other calls to the buffered client, as they run on the threads of
+     * the pool.
+     */
+    public int getMaxExecutorThreads() {
+        return maxExecutorThreads;
+    }
+
+    /**
+     * The maximum number of threads a buffered client uses to run the batches
+     * of all its queues. Batches beyond that wait for a thread. Set it to 0 to
+     * share an unbounded pool of threads among all the buffered clients.
+     * <p>
+     * With a bounded pool, the callbacks of asynchronous calls must not wait
+     * for other calls to the buffered client, as they run on the threads of
+     * the pool.
+     */
+    public void setMaxExecutorThreads(int maxExecutorThreads) {
+        this.maxExecutorThreads = maxExecutorThreads;
+    }
+
+    public QueueBufferConfig withMaxExecutorThreads(int maxExecutorThreads) {
+        this.maxExecutorThreads = maxExecutorThreads;
+        return this;
+    }
+
+    /**
+     * The maximum number of batches of a single queue running at the same
+     * time, so that a slow queue can't take all the threads of the client.
+     * Waiting send, delete, change visibility and receive batches of the queue
+     * take turns for the threads. Set it to 0 to not limit the batches of a
+     * queue.
+     * <p>
+     * Receive batches hold a thread for the whole long poll, so they run on
+     * at most {@code maxThreadsPerQueue - 1} threads, leaving at least one
+     * thread for the other batches.
+     */
+    public int getMaxThreadsPerQueue() {
+        return maxThreadsPerQueue;
+    }
+
+    /**
+     * The maximum number of batches of a single queue running at the same
+     * time, so that a slow queue can't take all the threads of the client.
+     * Waiting send, delete, change visibility and receive batches of the queue
+     * take turns for the threads. Set it to 0 to not limit the batches of a
+     * queue.
+     * <p>
+     * Receive batches hold a thread for the whole long poll, so they run on
+     * at most {@code maxThreadsPerQueue - 1} threads, leaving at least one
+     * thread for the other batches.
+     */
+    public void setMaxThreadsPerQueue(int maxThreadsPerQueue) {
+        this.maxThreadsPerQueue = maxThreadsPerQueue;
+    }
+
+    public QueueBufferConfig withMaxThreadsPerQueue(int maxThreadsPerQueue) {
+        this.maxThreadsPerQueue = maxThreadsPerQueue;
+        return this;
+    }
+
     /**
      * this method checks the config for validity. If the config is deemed to be
      * invalid, an informative exception is thrown.
@@ -438,6 +573,9 @@ public class QueueBufferConfig {
         if (visibilityTimeoutSeconds == 0) {
             throw new AmazonClientException("Visibility timeout value may not be equal to zero ");
         }
+        if (maxExecutorThreads < 0 || maxThreadsPerQueue < 0) {
+            throw new AmazonClientException("Thread limits may not be negative");
+        }
     }
 
 }
@@ -0,0 +1,222 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.services.sqs.buffered;
+
+import com.amazonaws.logging.Log;
+import com.amazonaws.logging.LogFactory;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * The partition of the client executor used by the batches of a single queue.
+ * It runs at most {@code maxThreadsPerQueue} batches of the queue at the same
+ * time on the client executor, so that a slow queue can't take all the threads
+ * of the client. Batches beyond that wait in a lane per type of batch, and the
+ * lanes take turns when a batch of the queue finishes, so that a burst of
+ * sends doesn't hold up deletes, change visibility and receive batches.
+ * Receive batches hold their thread for a whole long poll, so they run on at
+ * most {@code maxThreadsPerQueue - 1} threads, leaving at least one for the
+ * other batches.
+ * <p>
+ * Synchronization strategy: threads must hold the monitor of this object to
+ * modify the lanes or the number of running batches.
+ */
+class QueueBufferExecutor {
+
+    private static Log log = LogFactory.getLog(QueueBufferExecutor.class);
+
+    /** types of batches, each with its own lane of waiting batches */
+    enum Lane {
+        SEND, DELETE, CHANGE_VISIBILITY, RECEIVE
+    }
+
+    private final Executor executor;
+
+    /** maximum number of running batches, or 0 for no limit */
+    private final int maxRunning;
+
+    /** maximum number of running receive batches, if maxRunning is set */
+    private final int maxRunningReceives;
+
+    private final Executor[] laneExecutors = new Executor[Lane.values().length];
+
+    /** waiting batches of each lane. Synchronized by {@code this}. */
+    private final ArrayDeque<Runnable>[] waiting;
+
+    /** lane that gets the next free thread. Synchronized by {@code this}. */
+    private int nextLane;
+
+    /** number of batches of the queue on the executor. Synchronized by {@code this}. */
+    private int running;
+
+    /** number of receive batches of the queue on the executor. Synchronized by {@code this}. */
+    private int runningReceives;
+
+    @SuppressWarnings("unchecked")
+    QueueBufferExecutor(Executor paramExecutor, int paramMaxRunning) {
+        executor = paramExecutor;
+        maxRunning = paramMaxRunning;
+        maxRunningReceives = Math.max(1, paramMaxRunning - 1);
+        waiting = new ArrayDeque[Lane.values().length];
+        for (final Lane lane : Lane.values()) {
+            waiting[lane.ordinal()] = new ArrayDeque<Runnable>();
+            laneExecutors[lane.ordinal()] = new Executor() {
+                @Override
+                public void execute(Runnable task) {
+                    submit(lane, task);
+                }
+            };
+        }
+    }
+
+    /**
+     * @return the executor for the batches of the given type
+     */
+    Executor getExecutor(Lane lane) {
+        return laneExecutors[lane.ordinal()];
+    }
+
+    /**
+     * @return the number of batches of the queue running or waiting for a
+     *         thread of the client executor
+     */
+    synchronized int getRunningTasks() {
+        return running;
+    }
+
+    /**
+     * @return the number of batches of the queue waiting for one of the
+     *         batches of the queue to finish
+     */
+    synchronized int getWaitingTasks() {
+        int count = 0;
+        for (ArrayDeque<Runnable> lane : waiting) {
+            count += lane.size();
+        }
+        return count;
+    }
+
+    private void submit(Lane lane, Runnable task) {
+        synchronized (this) {
+            if (maxRunning > 0 && (running >= maxRunning || !canStart(lane.ordinal()))) {
+                waiting[lane.ordinal()].addLast(task);
+                return;
+            }
+            start(lane.ordinal());
+        }
+        try {
+            executor.execute(new PartitionTask(lane.ordinal(), task));
+        } catch (RejectedExecutionException e) {
+            synchronized (this) {
+                finish(lane.ordinal());
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Called when a batch of the queue finishes.
+     *
+     * @param finishedLane the lane of the batch that finished
+     * @return the next waiting batch to run in its place, taking the lanes in
+     *         turn, or null if no batch can run
+     */
+    private synchronized PartitionTask onTaskFinished(int finishedLane) {
+        finish(finishedLane);
+        for (int i = 0; i < waiting.length; i++) {
+            int lane = (nextLane + i) % waiting.length;
+            if (!canStart(lane)) {
+                continue;
+            }
+            Runnable task = waiting[lane].pollFirst();
+            if (task != null) {
+                nextLane = (lane + 1) % waiting.length;
+                start(lane);
+                return new PartitionTask(lane, task);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return false if the lane is the receive lane and receive batches
+     *         already run on all the threads they may use
+     */
+    private boolean canStart(int lane) {
+        return maxRunning <= 0 || lane != Lane.RECEIVE.ordinal()
+                || runningReceives < maxRunningReceives;
+    }
+
+    private void start(int lane) {
+        ++running;
+        if (lane == Lane.RECEIVE.ordinal()) {
+            ++runningReceives;
+        }
+    }
+
+    private void finish(int lane) {
+        --running;
+        if (lane == Lane.RECEIVE.ordinal()) {
+            --runningReceives;
+        }
+    }
+
+    /**
+     * Runs a batch and hands its thread permit over to the next waiting
+     * batch.
+     */
+    private final class PartitionTask implements Runnable {
+        private final int lane;
+        private final Runnable task;
+
+        PartitionTask(int paramLane, Runnable paramTask) {
+            lane = paramLane;
+            task = paramTask;
+        }
+
+        @Override
+        public void run() {
+            try {
+                task.run();
+            } finally {
+                runNext();
+            }
+        }
+
+        private void runNext() {
+            int finishedLane = lane;
+            PartitionTask next;
+            while ((next = onTaskFinished(finishedLane)) != null) {
+                try {
+                    executor.execute(next);
+                    return;
+                } catch (RejectedExecutionException e) {
+                    // the client executor is shutting down. run the batch
+                    // here rather than leave its futures pending forever.
+                    log.debug("Executor rejected a waiting batch, running it inline");
+                    try {
+                        next.task.run();
+                    } catch (RuntimeException re) {
+                        log.warn("Batch failed: " + re);
+                    }
+                    finishedLane = next.lane;
+                }
+            }
+        }
+    }
+}
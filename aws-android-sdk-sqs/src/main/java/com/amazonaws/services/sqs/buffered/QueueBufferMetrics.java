@@ -0,0 +1,120 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.services.sqs.buffered;
+
+/**
+ * A snapshot of the batches of a queue buffered by an
+ * {@link AmazonSQSBufferedAsyncClient}.
+ *
+ * @see AmazonSQSBufferedAsyncClient#getQueueBufferMetrics()
+ */
+public class QueueBufferMetrics {
+
+    private final String queueUrl;
+    private final int inflightSendMessageBatches;
+    private final int inflightDeleteMessageBatches;
+    private final int inflightChangeMessageVisibilityBatches;
+    private final int inflightReceiveMessageBatches;
+    private final int bufferedMessages;
+    private final int runningTasks;
+    private final int waitingTasks;
+
+    QueueBufferMetrics(String queueUrl, int inflightSendMessageBatches,
+            int inflightDeleteMessageBatches, int inflightChangeMessageVisibilityBatches,
+            int inflightReceiveMessageBatches, int bufferedMessages, int runningTasks,
+            int waitingTasks) {
+        this.queueUrl = queueUrl;
+        this.inflightSendMessageBatches = inflightSendMessageBatches;
+        this.inflightDeleteMessageBatches = inflightDeleteMessageBatches;
+        this.inflightChangeMessageVisibilityBatches = inflightChangeMessageVisibilityBatches;
+        this.inflightReceiveMessageBatches = inflightReceiveMessageBatches;
+        this.bufferedMessages = bufferedMessages;
+        this.runningTasks = runningTasks;
+        this.waitingTasks = waitingTasks;
+    }
+
+    /**
+     * @return the URL of the queue.
+     */
+    public String getQueueUrl() {
+        return queueUrl;
+    }
+
+    /**
+     * @return the number of SendMessageBatch batches open or in flight.
+     */
+    public int getInflightSendMessageBatches() {
+        return inflightSendMessageBatches;
+    }
+
+    /**
+     * @return the number of DeleteMessageBatch batches open or in flight.
+     */
+    public int getInflightDeleteMessageBatches() {
+        return inflightDeleteMessageBatches;
+    }
+
+    /**
+     * @return the number of ChangeMessageVisibilityBatch batches open or in
+     *         flight.
+     */
+    public int getInflightChangeMessageVisibilityBatches() {
+        return inflightChangeMessageVisibilityBatches;
+    }
+
+    /**
+     * @return the number of ReceiveMessage batches in flight.
+     */
+    public int getInflightReceiveMessageBatches() {
+        return inflightReceiveMessageBatches;
+    }
+
+    /**
+     * @return the number of pre-fetched messages waiting in the buffer.
+     */
+    public int getBufferedMessages() {
+        return bufferedMessages;
+    }
+
+    /**
+     * @return the number of batches of the queue running on the executor of
+     *         the client, or waiting for one of its threads.
+     */
+    public int getRunningTasks() {
+        return runningTasks;
+    }
+
+    /**
+     * @return the number of batches of the queue waiting because the queue
+     *         already runs maxThreadsPerQueue batches.
+     */
+    public int getWaitingTasks() {
+        return waitingTasks;
+    }
+
+    @Override
+    public String toString() {
+        return "QueueBufferMetrics [queueUrl=" + queueUrl
+                + ", inflightSendMessageBatches=" + inflightSendMessageBatches
+                + ", inflightDeleteMessageBatches=" + inflightDeleteMessageBatches
+                + ", inflightChangeMessageVisibilityBatches="
+                + inflightChangeMessageVisibilityBatches
+                + ", inflightReceiveMessageBatches=" + inflightReceiveMessageBatches
+                + ", bufferedMessages=" + bufferedMessages
+                + ", runningTasks=" + runningTasks
+                + ", waitingTasks=" + waitingTasks + "]";
+    }
+}
@@ -28,11 +28,11 @@ import com.amazonaws.logging.Log;
 import com.amazonaws.logging.LogFactory;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * The ReceiveQueueBuffer class is responsible for dequeueing of messages from a
@@ -40,19 +40,36 @@ import java.util.concurrent.TimeUnit;
  * the server and keeps them in a buffer which it uses to satisfy incoming
  * requests. The number of requests pre-fetched and kept in the buffer, as well
  * as the maximum number of threads used to retrieve the messages are
- * configurable.
+ * configurable. With adaptive prefetching, the buffer only pre-fetches the
+ * messages it expects to hand out within half of their visibility timeout, so
+ * that slow consumers don't receive messages that are about to expire.
  * <p>
- * Synchronization strategy: - Threads must hold the TaskSpawnSyncPoint object
- * monitor to spawn a new task or modify the number of inflight tasks - Threads
- * must hold the monitor of the "futures" list to modify the list - Threads must
- * hold the monitor of the "finishedTasks" list to modify the list - If you need
- * to lock both futures and finishedTasks, lock futures first and finishedTasks
- * second
+ * Synchronization strategy: - Futures, received messages and receive failures
+ * are handed over through concurrent queues without locking; a thread that
+ * takes a future it can't satisfy puts it back and checks the buffer again,
+ * so that a message received meanwhile is not missed - Threads must hold the
+ * taskSpawnSyncPoint object monitor to spawn a new task, modify the number of
+ * inflight tasks or update the consume rate
  */
 public class ReceiveQueueBuffer {
 
     private static Log log = LogFactory.getLog(ReceiveQueueBuffer.class);
 
+    /** maximum number of entries of a ChangeMessageVisibilityBatch request */
+    private static final int MAX_CHANGE_VISIBILITY_BATCH_SIZE = 10;
+
+    /** minimum time over which the consume rate is measured */
+    private static final long RATE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /** weight of the latest measurement of the consume rate */
+    private static final double RATE_SMOOTHING = 0.5;
+
+    /**
+     * fraction of the visibility timeout within which pre-fetched messages
+     * should be handed out
+     */
+    private static final double VISIBILITY_TIMEOUT_FRACTION = 0.5;
+
     private final QueueBufferConfig config;
 
     private final String qUrl;
@@ -65,9 +82,9 @@ public class ReceiveQueueBuffer {
 
     /**
      * This buffer's queue visibility timeout. Used to detect expired message
-     * that should not be returned by the {@code receiveMessage} call.
-     * Synchronized by {@code receiveMessageLock}. -1 indicates that the time is
-     * uninitialized.
+     * that should not be returned by the {@code receiveMessage} call. Fetched
+     * by the first receive batch unless the config overrides it. -1 indicates
+     * that the time is uninitialized.
      */
     private volatile long visibilityTimeoutNanos = -1;
 
@@ -78,8 +95,9 @@ public class ReceiveQueueBuffer {
     private volatile int inflightReceiveMessageBatches;
 
     /**
-     * synchronize on this object to create new receive batches or modify
-     * inflight message count
+     * synchronize on this object to create new receive batches, modify
+     * inflight message count or update the consume rate. Notified when an
+     * inflight batch finishes.
      */
     private final Object taskSpawnSyncPoint = new Object();
 
@@ -87,10 +105,34 @@ public class ReceiveQueueBuffer {
     volatile boolean shutDown = false;
 
     /** message delivery futures we gave out */
-    private final LinkedList<ReceiveMessageFuture> futures = new LinkedList<ReceiveMessageFuture>();
+    private final ConcurrentLinkedQueue<ReceiveMessageFuture> futures =
+            new ConcurrentLinkedQueue<ReceiveMessageFuture>();
+
+    /** received messages not handed out yet, oldest first */
+    private final ConcurrentLinkedQueue<ReceivedMessage> messages =
+            new ConcurrentLinkedQueue<ReceivedMessage>();
 
-    /** finished batches are stored in this list. */
-    private LinkedList<ReceiveMessageBatchTask> finishedTasks = new LinkedList<ReceiveMessageBatchTask>();
+    /** failures of finished batches not reported to a future yet */
+    private final ConcurrentLinkedQueue<Exception> failures =
+            new ConcurrentLinkedQueue<Exception>();
+
+    /** number of messages in {@code messages} */
+    private final AtomicInteger bufferedMessages = new AtomicInteger();
+
+    /** messages handed out since the start of the current rate window */
+    private final AtomicInteger consumedMessages = new AtomicInteger();
+
+    /**
+     * start of the current rate window. Synchronized by
+     * {@code taskSpawnSyncPoint}.
+     */
+    private long rateWindowStartNanos = System.nanoTime();
+
+    /**
+     * smoothed number of messages handed out per second. Synchronized by
+     * {@code taskSpawnSyncPoint}.
+     */
+    private double consumeRatePerSecond;
 
     ReceiveQueueBuffer(AmazonSQS paramSQS, Executor paramExecutor, QueueBufferConfig paramConfig,
             String url) {
@@ -108,13 +150,30 @@ public class ReceiveQueueBuffer {
     public void shutdown() {
         shutDown = true;
         try {
-            while (inflightReceiveMessageBatches > 0)
-                Thread.sleep(100);
+            synchronized (taskSpawnSyncPoint) {
+                while (inflightReceiveMessageBatches > 0) {
+                    taskSpawnSyncPoint.wait();
+                }
+            }
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
     }
 
+    /**
+     * @return the number of receive batches in flight
+     */
+    int getInflightReceiveBatches() {
+        return inflightReceiveMessageBatches;
+    }
+
+    /**
+     * @return the number of received messages waiting in the buffer
+     */
+    int getBufferedMessages() {
+        return bufferedMessages.get();
+    }
+
     /**
      * Submits the request for retrieval of messages from the queue and returns
      * a future that will be signalled when the request is satisfied. The future
@@ -148,18 +207,15 @@ public class ReceiveQueueBuffer {
     }
 
     /**
-     * Creates and returns a new future object. Sleeps if the list of
-     * already-issued but as yet unsatisfied futures is over a throttle limit.
+     * Creates and returns a new future object.
      *
      * @return never null
      */
     private ReceiveMessageFuture issueFuture(int size,
             QueueBufferCallback<ReceiveMessageRequest, ReceiveMessageResult> callback) {
-        synchronized (futures) {
-            ReceiveMessageFuture theFuture = new ReceiveMessageFuture(callback, size);
-            futures.addLast(theFuture);
-            return theFuture;
-        }
+        ReceiveMessageFuture theFuture = new ReceiveMessageFuture(callback, size);
+        futures.add(theFuture);
+        return theFuture;
     }
 
     /**
@@ -168,121 +224,91 @@ public class ReceiveQueueBuffer {
      * won't do anything.
      */
     private void satisfyFuturesFromBuffer() {
-        synchronized (futures) {
-            synchronized (finishedTasks) {
-                // attempt to satisfy futures until we run out of either futures
-                // or
-                // finished tasks
-                while ((!futures.isEmpty()) && (!finishedTasks.isEmpty())) {
-                    ReceiveMessageFuture currentFuture = futures.poll();
-                    fillFuture(currentFuture);
-                }
+        // attempt to satisfy futures until we run out of either futures or
+        // buffered results
+        while (!futures.isEmpty() && (!messages.isEmpty() || !failures.isEmpty())) {
+            ReceiveMessageFuture currentFuture = futures.poll();
+            if (currentFuture == null) {
+                // another thread got the last future
+                return;
+            }
+            if (!fillFuture(currentFuture)) {
+                // another thread got the results first, or they expired. give
+                // the future back; the loop condition checks again for results
+                // added before it was back in the queue.
+                futures.add(currentFuture);
             }
         }
     }
 
     /**
-     * Fills the future with whatever results were received by the full batch
-     * currently at the head of the completed batch queue. Those results may be
-     * retrieved messages, or an exception. this method assumes that you are
-     * holding the finished tasks lock locks when invoking it. violate this
-     * assumption at your own peril
+     * Fills the future with the oldest buffered messages that have not
+     * expired, or else with the oldest receive failure.
+     *
+     * @return false if there was nothing to fill the future with, in which
+     *         case the future is left untouched
      */
-    private void fillFuture(ReceiveMessageFuture f) {
-        ReceiveMessageResult r = new ReceiveMessageResult();
-        LinkedList<Message> messages = new LinkedList<Message>();
-        r.setMessages(messages);
-        Exception exception = null;
-
-        if (!finishedTasks.isEmpty()) {
-            ReceiveMessageBatchTask t = finishedTasks.getFirst();
-
-            exception = t.getException();
-            int retrieved = 0;
-            boolean batchDone = false;
-            while (retrieved < f.getRequestedSize())
-            {
-                Message m = t.removeMessage();
-                // a non-empty batch can still give back a null
-                // message if the message expired.
-                if (null != m) {
-                    messages.add(m);
-                    ++retrieved;
-                }
-                else {
-                    batchDone = true;
-                    break;
-                }
-
+    private boolean fillFuture(ReceiveMessageFuture f) {
+        List<Message> taken = new ArrayList<Message>(Math.min(f.getRequestedSize(),
+                config.getMaxBatchSize()));
+        long now = System.nanoTime();
+        while (taken.size() < f.getRequestedSize()) {
+            ReceivedMessage m = messages.poll();
+            if (m == null) {
+                break;
             }
-            // we may have just drained the batch.
-            batchDone = batchDone || t.isEmpty() || (exception != null);
-            if (batchDone) {
-                finishedTasks.removeFirst();
+            bufferedMessages.decrementAndGet();
+            // expired messages may have been delivered to another consumer
+            // already, throw them away.
+            if (m.isVisible(now)) {
+                taken.add(m.message);
             }
-            r.setMessages(messages);
         }
 
-        // if after the above runs the exception is not null,
-        // the finished batch has encountered an error, and we will
-        // report that in the Future. Otherwise, we will fill
-        // the future with the receive result
-        if (exception != null)
-            f.setFailure(exception);
-        else
+        if (!taken.isEmpty()) {
+            consumedMessages.addAndGet(taken.size());
+            ReceiveMessageResult r = new ReceiveMessageResult();
+            r.setMessages(taken);
             f.setSuccess(r);
+            return true;
+        }
 
-        // now, a bit of maintenance. remove empty non-exception-bearing
-        // batches so we can get new ones.
-        while (!finishedTasks.isEmpty()) {
-            ReceiveMessageBatchTask t = finishedTasks.getFirst();
-            if ((!t.isEmpty()) || (t.getException() != null)) {
-                // if we found a finished task that has useful content,
-                // our cleanup is done
-                break;
-            }
-            // throw away the empty batch.
-            finishedTasks.removeFirst();
+        // the finished batch has encountered an error, and we will report
+        // that in the Future.
+        Exception exception = failures.poll();
+        if (exception != null) {
+            f.setFailure(exception);
+            return true;
         }
+        return false;
     }
 
     /**
      * maybe create more receive tasks. extra receive tasks won't be created if
      * we are already at the maximum number of receive tasks, or if we are at
-     * the maximum number of prefetched buffers
+     * the desired number of prefetched buffers
      */
     private void spawnMoreReceiveTasks() {
 
         if (shutDown)
             return;
 
-        int desiredBatches = config.getMaxDoneReceiveBatches();
-        desiredBatches = desiredBatches < 1 ? 1 : desiredBatches;
+        synchronized (taskSpawnSyncPoint) {
+            int desiredBatches = desiredBatches();
+            int maxBatchSize = Math.max(1, config.getMaxBatchSize());
+            int bufferedBatches = (bufferedMessages.get() + maxBatchSize - 1) / maxBatchSize
+                    + failures.size();
 
-        synchronized (finishedTasks) {
-            if (finishedTasks.size() >= desiredBatches)
+            if (bufferedBatches >= desiredBatches)
                 return;
 
             // if we have some finished batches already, and
             // existing inflight batches will bring us to the limit,
-            // don't spawn more. if our finished tasks cache is empty, we will
+            // don't spawn more. if our buffer is empty, we will
             // always spawn a thread.
-            if (finishedTasks.size() > 0
-                    && (finishedTasks.size() + inflightReceiveMessageBatches) >= desiredBatches)
+            if (bufferedBatches > 0
+                    && (bufferedBatches + inflightReceiveMessageBatches) >= desiredBatches)
                 return;
-        }
-
-        synchronized (taskSpawnSyncPoint) {
-            if (visibilityTimeoutNanos == -1) {
-                GetQueueAttributesRequest request = new GetQueueAttributesRequest().
-                        withQueueUrl(qUrl).
-                        withAttributeNames("VisibilityTimeout");
-                ResultConverter.appendUserAgent(request, AmazonSQSBufferedAsyncClient.USER_AGENT);
-                long visibilityTimeoutSeconds = Long.parseLong(sqsClient
-                        .getQueueAttributes(request).getAttributes().get("VisibilityTimeout"));
-                visibilityTimeoutNanos = TimeUnit.NANOSECONDS.convert(visibilityTimeoutSeconds,
-                        TimeUnit.SECONDS);
-            }
 
             int max = config.getMaxInflightReceiveBatches();
             // must allow at least one inflight receive task, or receive won't
@@ -296,28 +322,97 @@ public class ReceiveQueueBuffer {
                 if (log.isTraceEnabled()) {
                     log.trace("Spawned receive batch #" + bufferCounter + " ("
                             + inflightReceiveMessageBatches
-                            + " of " + max + " inflight) for queue " + qUrl);
+                            + " of " + max + " inflight, " + desiredBatches
+                            + " desired) for queue " + qUrl);
                 }
                 executor.execute(task);
             }
         }
     }
 
+    /**
+     * Returns the number of received batches to keep in the buffer. Without
+     * adaptive prefetching, this is the configured maximum. With it, this is
+     * the number of batches the consumers are expected to take within half of
+     * the visibility timeout at the current consume rate, between one and the
+     * configured maximum. Must be called holding {@code taskSpawnSyncPoint}.
+     */
+    private int desiredBatches() {
+        int maxBatches = config.getMaxDoneReceiveBatches();
+        maxBatches = maxBatches < 1 ? 1 : maxBatches;
+        long visibilityNanos = visibilityTimeoutNanos;
+        if (!config.isAdaptivePrefetching() || visibilityNanos <= 0) {
+            return maxBatches;
+        }
+
+        long now = System.nanoTime();
+        long elapsed = now - rateWindowStartNanos;
+        if (elapsed >= RATE_WINDOW_NANOS) {
+            double windowRate = consumedMessages.getAndSet(0)
+                    * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+            consumeRatePerSecond = RATE_SMOOTHING * windowRate
+                    + (1 - RATE_SMOOTHING) * consumeRatePerSecond;
+            rateWindowStartNanos = now;
+        }
+
+        double expectedMessages = consumeRatePerSecond * VISIBILITY_TIMEOUT_FRACTION
+                * visibilityNanos / TimeUnit.SECONDS.toNanos(1);
+        double batches = Math.ceil(expectedMessages / Math.max(1, config.getMaxBatchSize()));
+        return (int) Math.max(1, Math.min(maxBatches, batches));
+    }
+
+    /**
+     * Returns the visibility timeout of the messages received by this buffer,
+     * fetching the queue attribute on first use unless the config overrides
+     * it. Called by the receive batches so that callers of
+     * {@code receiveMessageAsync} never wait for the queue attributes.
+     */
+    private long getVisibilityTimeoutNanos() {
+        if (config.getVisibilityTimeoutSeconds() > 0) {
+            visibilityTimeoutNanos = TimeUnit.NANOSECONDS.convert(
+                    config.getVisibilityTimeoutSeconds(), TimeUnit.SECONDS);
+            return visibilityTimeoutNanos;
+        }
+        if (visibilityTimeoutNanos == -1) {
+            synchronized (this) {
+                if (visibilityTimeoutNanos == -1) {
+                    GetQueueAttributesRequest request = new GetQueueAttributesRequest().
+                            withQueueUrl(qUrl).
+                            withAttributeNames("VisibilityTimeout");
+                    ResultConverter.appendUserAgent(request,
+                            AmazonSQSBufferedAsyncClient.USER_AGENT);
+                    long visibilityTimeoutSeconds = Long.parseLong(sqsClient
+                            .getQueueAttributes(request).getAttributes()
+                            .get("VisibilityTimeout"));
+                    visibilityTimeoutNanos = TimeUnit.NANOSECONDS.convert(
+                            visibilityTimeoutSeconds, TimeUnit.SECONDS);
+                }
+            }
+        }
+        return visibilityTimeoutNanos;
+    }
+
     /**
      * This method is called by the batches after they have finished retrieving
      * the messages.
      */
     void reportBatchFinished(ReceiveMessageBatchTask batch)
     {
-        synchronized (finishedTasks) {
-            finishedTasks.addLast(batch);
+        if (batch.exception != null) {
+            failures.add(batch.exception);
+        } else {
+            for (Message m : batch.messages) {
+                messages.add(new ReceivedMessage(m, batch.visibilityDeadlineNano));
+            }
+            int buffered = bufferedMessages.addAndGet(batch.messages.size());
             if (log.isTraceEnabled()) {
-                log.info("Queue " + qUrl + " now has " + finishedTasks.size()
-                        + " receive results cached ");
+                log.trace("Queue " + qUrl + " now has " + buffered
+                        + " received messages cached");
             }
         }
         synchronized (taskSpawnSyncPoint) {
             --inflightReceiveMessageBatches;
+            taskSpawnSyncPoint.notifyAll();
         }
         satisfyFuturesFromBuffer();
         spawnMoreReceiveTasks();
@@ -327,20 +422,46 @@ public class ReceiveQueueBuffer {
      * Clears and nacks any pre-fetched messages in this buffer.
      */
     public void clear() {
-        boolean done = false;
-        while (!done) {
-            ReceiveMessageBatchTask currentBatch = null;
-            synchronized (finishedTasks) {
-                currentBatch = finishedTasks.poll();
+        failures.clear();
+
+        List<ChangeMessageVisibilityBatchRequestEntry> entries =
+                new ArrayList<ChangeMessageVisibilityBatchRequestEntry>(
+                        MAX_CHANGE_VISIBILITY_BATCH_SIZE);
+        ReceivedMessage m;
+        while ((m = messages.poll()) != null) {
+            bufferedMessages.decrementAndGet();
+            if (!m.isVisible(System.nanoTime())) {
+                continue;
             }
-
-            if (currentBatch != null) {
-                currentBatch.clear();
-            } else {
-                // ran out of batches to clear
-                done = true;
+            entries.add(new ChangeMessageVisibilityBatchRequestEntry()
+                    .withId(Integer.toString(entries.size()))
+                    .withReceiptHandle(m.message.getReceiptHandle())
+                    .withVisibilityTimeout(0));
+            if (entries.size() == MAX_CHANGE_VISIBILITY_BATCH_SIZE) {
+                nack(entries);
+                entries = new ArrayList<ChangeMessageVisibilityBatchRequestEntry>(
+                        MAX_CHANGE_VISIBILITY_BATCH_SIZE);
             }
         }
+        if (!entries.isEmpty()) {
+            nack(entries);
+        }
+    }
+
+    /**
+     * Makes the given messages visible again to other consumers.
+     */
+    private void nack(List<ChangeMessageVisibilityBatchRequestEntry> entries) {
+        ChangeMessageVisibilityBatchRequest batchRequest = new ChangeMessageVisibilityBatchRequest()
+                .withQueueUrl(qUrl)
+                .withEntries(entries);
+        ResultConverter.appendUserAgent(batchRequest, AmazonSQSBufferedAsyncClient.USER_AGENT);
+        try {
+            sqsClient.changeMessageVisibilityBatch(batchRequest);
+        } catch (AmazonClientException e) {
+            // Log and ignore.
+            log.warn("ReceiveQueueBuffer: changeMessageVisibility failed " + e);
+        }
     }
 
     private class ReceiveMessageFuture extends
@@ -365,147 +486,76 @@ public class ReceiveQueueBuffer {
 
     }
 
+    /**
+     * A received message waiting in the buffer, with the time its visibility
+     * timeout expires.
+     */
+    private static final class ReceivedMessage {
+        private final Message message;
+        private final long visibilityDeadlineNano;
+
+        ReceivedMessage(Message message, long visibilityDeadlineNano) {
+            this.message = message;
+            this.visibilityDeadlineNano = visibilityDeadlineNano;
+        }
+
+        boolean isVisible(long now) {
+            return now - visibilityDeadlineNano < 0;
+        }
+    }
+
     /**
      * Task to receive messages from SQS.
      * <p>
-     * The batch task is constructed {@code !open} until the
-     * {@code ReceiveMessage} completes. At that point, the batch opens and its
-     * messages (if any) become available to read.
+     * The batch task reports its messages, or its exception, to the parent
+     * buffer once the {@code ReceiveMessage} completes.
      */
     private class ReceiveMessageBatchTask implements Runnable {
         private Exception exception = null;
         private List<Message> messages;
         private long visibilityDeadlineNano;
-        private boolean open = false;
         private ReceiveQueueBuffer parentBuffer;
 
         /**
-         * Constructs a receive task waiting the specified time before calling
-         * SQS.
+         * Constructs a receive task.
          *
-         * @param waitTimeMs the time to wait before calling SQS
+         * @param paramParentBuffer the buffer to report the results to
          */
         ReceiveMessageBatchTask(ReceiveQueueBuffer paramParentBuffer) {
             parentBuffer = paramParentBuffer;
-            messages = Collections.emptyList();
-        }
-
-        synchronized int getSize() {
-            if (!open)
-                throw new IllegalStateException("batch is not open");
-
-            return messages.size();
-
-        }
-
-        synchronized boolean isEmpty() {
-            if (!open)
-                throw new IllegalStateException("batch is not open");
-
-            return messages.isEmpty();
-        }
-
-        /**
-         * @return the exception that was thrown during execution, or null if
-         *         there was no exception
-         */
-        synchronized Exception getException() {
-            if (!open)
-                throw new IllegalStateException("batch is not open");
-
-            return exception;
-        }
-
-        /**
-         * Returns a message if one is available.
-         * <p>
-         * The call adjusts the message count.
-         *
-         * @return a message or {@code null} if none is available
-         */
-        synchronized Message removeMessage() {
-            if (!open)
-                throw new IllegalStateException("batch is not open");
-
-            // our messages expired.
-            if (System.nanoTime() > visibilityDeadlineNano) {
-                messages.clear();
-                return null;
-            }
-
-            if (messages.isEmpty())
-                return null;
-            else
-                return messages.remove(messages.size() - 1);
-        }
-
-        /**
-         * Nacks and clears all messages remaining in the batch.
-         */
-        synchronized void clear() {
-            if (!open)
-                throw new IllegalStateException("batch is not open");
-
-            if (System.nanoTime() < visibilityDeadlineNano) {
-                ChangeMessageVisibilityBatchRequest batchRequest = new ChangeMessageVisibilityBatchRequest()
-                        .withQueueUrl(qUrl);
-                ResultConverter.appendUserAgent(batchRequest,
-                        AmazonSQSBufferedAsyncClient.USER_AGENT);
-
-                List<ChangeMessageVisibilityBatchRequestEntry> entries =
-                        new ArrayList<ChangeMessageVisibilityBatchRequestEntry>(messages.size());
-
-                int i = 0;
-                for (Message m : messages) {
-
-                    entries.add(new ChangeMessageVisibilityBatchRequestEntry()
-                            .withId(Integer.toString(i))
-                            .withReceiptHandle(m.getReceiptHandle())
-                            .withVisibilityTimeout(0));
-                    ++i;
-                }
-
-                try {
-                    batchRequest.setEntries(entries);
-                    sqsClient.changeMessageVisibilityBatch(batchRequest);
-                } catch (AmazonClientException e) {
-                    // Log and ignore.
-                    log.warn("ReceiveMessageBatchTask: changeMessageVisibility failed " + e);
-                }
-            }
-            messages.clear();
+            messages = new ArrayList<Message>(0);
         }
 
         /**
          * Attempts to retrieve messages from SQS and upon completion
-         * (successful or unsuccessful) reports the batch as complete and open
+         * (successful or unsuccessful) reports the batch as complete
          */
         @Override
         public void run() {
 
             try {
-                visibilityDeadlineNano = System.nanoTime() + visibilityTimeoutNanos;
+                long visibilityNanos = getVisibilityTimeoutNanos();
+                visibilityDeadlineNano = System.nanoTime() + visibilityNanos;
                 ReceiveMessageRequest request = new ReceiveMessageRequest(qUrl)
                         .withMaxNumberOfMessages(config.getMaxBatchSize());
                 ResultConverter.appendUserAgent(request, AmazonSQSBufferedAsyncClient.USER_AGENT);
 
                 if (config.getVisibilityTimeoutSeconds() > 0) {
                     request.setVisibilityTimeout(config.getVisibilityTimeoutSeconds());
-                    visibilityDeadlineNano = System.nanoTime()
-                            + TimeUnit.NANOSECONDS.convert(config.getVisibilityTimeoutSeconds(),
-                                    TimeUnit.SECONDS);
                 }
 
                 if (config.isLongPoll()) {
                     request.withWaitTimeSeconds(config.getLongPollWaitTimeoutSeconds());
                 }
 
-                messages = sqsClient.receiveMessage(request).getMessages();
+                List<Message> received = sqsClient.receiveMessage(request).getMessages();
+                if (received != null) {
+                    messages = received;
+                }
             } catch (AmazonClientException e) {
                 exception = e;
             } finally {
-                // whatever happened, we are done and can be considered open
-                open = true;
+                // whatever happened, we are done
                 parentBuffer.reportBatchFinished(this);
             }
 
@@ -77,9 +77,14 @@ public class SendQueueBuffer {
     private final AmazonSQS sqsClient;
 
     /**
-     * The executor service for the batching tasks.
+     * The executors for the sendMessage, deleteMessage and
+     * changeMessageVisibility batching tasks.
      */
-    private final Executor executor;
+    private final Executor sendMessageExecutor;
+
+    private final Executor deleteMessageExecutor;
+
+    private final Executor changeMessageVisibilityExecutor;
 
     /**
      * Object used to serialize sendMessage calls.
@@ -131,16 +136,25 @@ public class SendQueueBuffer {
      */
     private final Semaphore inflightChangeMessageVisibilityBatches;
 
-    SendQueueBuffer(AmazonSQS sqsClient, Executor executor, QueueBufferConfig paramConfig,
-            String url) {
+    /**
+     * The maximum number of in flight batches of each type.
+     */
+    private final int maxInflightBatches;
+
+    SendQueueBuffer(AmazonSQS sqsClient, QueueBufferExecutor executor,
+            QueueBufferConfig paramConfig, String url) {
         this.sqsClient = sqsClient;
-        this.executor = executor;
+        this.sendMessageExecutor = executor.getExecutor(QueueBufferExecutor.Lane.SEND);
+        this.deleteMessageExecutor = executor.getExecutor(QueueBufferExecutor.Lane.DELETE);
+        this.changeMessageVisibilityExecutor = executor
+                .getExecutor(QueueBufferExecutor.Lane.CHANGE_VISIBILITY);
         this.config = paramConfig;
         qUrl = url;
         int maxBatch = config.getMaxInflightOutboundBatches();
 
         // must allow at least one outbound batch.
         maxBatch = maxBatch > 0 ? maxBatch : 1;
+        this.maxInflightBatches = maxBatch;
         this.inflightSendMessageBatches = new Semaphore(maxBatch);
         this.inflightDeleteMessageBatches = new Semaphore(maxBatch);
         this.inflightChangeMessageVisibilityBatches = new Semaphore(maxBatch);
@@ -159,7 +173,7 @@ public class SendQueueBuffer {
     {
         QueueBufferFuture<SendMessageRequest, SendMessageResult> result =
                 submitOutboundRequest(sendMessageLock, openSendMessageBatchTask, request,
-                        inflightSendMessageBatches, callback);
+                        inflightSendMessageBatches, sendMessageExecutor, callback);
         return result;
     }
 
@@ -172,6 +186,7 @@ public class SendQueueBuffer {
                 openDeleteMessageBatchTask,
                 request,
                 inflightDeleteMessageBatches,
+                deleteMessageExecutor,
                 callback);
     }
 
@@ -186,9 +201,31 @@ public class SendQueueBuffer {
                 openChangeMessageVisibilityBatchTask,
                 request,
                 inflightChangeMessageVisibilityBatches,
+                changeMessageVisibilityExecutor,
                 callback);
     }
 
+    /**
+     * @return the number of sendMessage batches open or in flight
+     */
+    int getInflightSendMessageBatches() {
+        return maxInflightBatches - inflightSendMessageBatches.availablePermits();
+    }
+
+    /**
+     * @return the number of deleteMessage batches open or in flight
+     */
+    int getInflightDeleteMessageBatches() {
+        return maxInflightBatches - inflightDeleteMessageBatches.availablePermits();
+    }
+
+    /**
+     * @return the number of changeMessageVisibility batches open or in flight
+     */
+    int getInflightChangeMessageVisibilityBatches() {
+        return maxInflightBatches - inflightChangeMessageVisibilityBatches.availablePermits();
+    }
+
     /**
      * @return new {@code OutboundBatchTask} of appropriate type, never null
      */
@@ -252,6 +289,7 @@ public class SendQueueBuffer {
      * @param request the request to submit
      * @param inflightOperationBatches the permits controlling the batches for
      *            this type of request
+     * @param executor the executor for the batches of this type of request
      * @return never null
      * @throws AmazonClientException (see the various outbound calls for
      *             details)
@@ -262,6 +300,7 @@ public class SendQueueBuffer {
             OBT[] openOutboundBatchTask,
             R request,
             final Semaphore inflightOperationBatches,
+            Executor executor,
             QueueBufferCallback<R, Result> callback) {
         /*
          * Callers add requests to a single batch task (openOutboundBatchTask)